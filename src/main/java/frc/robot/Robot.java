@@ -125,6 +125,8 @@ public class Robot extends LoggedRobot {
     // robot's periodic
     // block in order for anything in the Command-based framework to work.
     CommandScheduler.getInstance().run();
+    // Publish what the scheduler's commands and subsystems set this loop
+    m_robotContainer.robotPeriodic();
     // Return to normal thread priority
     Threads.setCurrentThreadPriority(false, 10);
   }
@@ -198,5 +200,7 @@ public class Robot extends LoggedRobot {
 
   /** This function is called periodically whilst in simulation. */
   @Override
-  public void simulationPeriodic() {}
+  public void simulationPeriodic() {
+    m_robotContainer.simulationPeriodic();
+  }
 }
@@ -67,4 +67,12 @@ public class RobotContainer implements WpiHelperInterface {
   public void disabledPeriodic() {
     robot.disabledPeriodic();
   }
+
+  public void robotPeriodic() {
+    robot.robotPeriodic();
+  }
+
+  public void simulationPeriodic() {
+    robot.simulationPeriodic();
+  }
 }
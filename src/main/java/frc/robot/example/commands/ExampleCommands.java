@@ -114,18 +114,18 @@ public class ExampleCommands {
     return Commands.parallel(
         Commands.runOnce(() -> commandState.setValue("Low Speed")),
         launcher.stopIntakeCommand(),
-        launcher.trackTargetCommand(() -> getTargetPose()));
+        launcher.trackTargetCommand(() -> getTargetPose(), () -> drivetrain.getFieldVelocity()));
   }
 
   private Command prepStateCommand() {
     return Commands.parallel(
         Commands.runOnce(() -> commandState.setValue("Prep")),
-        launcher.trackTargetCommand(() -> getTargetPose()));
+        launcher.trackTargetCommand(() -> getTargetPose(), () -> drivetrain.getFieldVelocity()));
   }
 
   private Command readyStateCommand() {
     return Commands.parallel(
         Commands.runOnce(() -> commandState.setValue("Ready")),
-        launcher.trackTargetCommand(() -> getTargetPose()));
+        launcher.trackTargetCommand(() -> getTargetPose(), () -> drivetrain.getFieldVelocity()));
   }
 }
@@ -4,8 +4,6 @@
 
 package frc.robot.example.subsystems;
 
-import static edu.wpi.first.units.Units.Degrees;
-
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -18,13 +16,13 @@ public interface ExampleIO {
   public static class ExampleIOInputs {
     public double shooterSpeedDesired = 0.0;
     public double elevatorHeightDesired = 0.0;
-    public Angle hoodAngleDesired = Degrees.of(0.0);
-    public Angle turretAngleDesired = Degrees.of(0.0);
+    public double hoodAngleDesired = 0.0;
+    public double turretAngleDesired = 0.0;
 
     public double shooterSpeedActual = 0.0;
     public double elevatorHeightActual = 0.0;
-    public Angle hoodAngleActual = Degrees.of(0.0);
-    public Angle turretAngleActual = Degrees.of(0.0);
+    public double hoodAngleActual = 0.0;
+    public double turretAngleActual = 0.0;
 
     public boolean shooterSpeedAtGoal = false;
     public boolean elevatorHeightAtGoal = false;
@@ -55,6 +53,8 @@ public interface ExampleIO {
 
   public Command setUpperSpeed(AngularVelocity speed);
 
+  public void setShooterSpeed(AngularVelocity speed);
+
   public Command setElevatorHeight(double height);
 
   public void setHoodAngle(Angle angle);
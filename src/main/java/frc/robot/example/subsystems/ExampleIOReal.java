@@ -64,6 +64,11 @@ public class ExampleIOReal implements ExampleIO {
     return shooter.setSpeed(speed);
   }
 
+  @Override
+  public void setShooterSpeed(AngularVelocity speed) {
+    shooter.getMotor().setVelocity(speed);
+  }
+
   @Override
   public Command setElevatorHeight(double height) {
     // TODO Auto-generated method stub
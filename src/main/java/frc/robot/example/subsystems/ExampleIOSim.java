@@ -8,9 +8,12 @@ import static edu.wpi.first.units.Units.Degrees;
 import static edu.wpi.first.units.Units.Inches;
 import static edu.wpi.first.units.Units.Meters;
 import static edu.wpi.first.units.Units.MetersPerSecond;
+import static edu.wpi.first.units.Units.RPM;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
@@ -34,6 +37,8 @@ public class ExampleIOSim extends ExampleIOReal {
   protected NoteOnFly noteOnFly;
   protected RebuiltFuelOnFly fuelOnFly;
   protected GamePieceProjectile gamePieceProjectile;
+  protected double launchSpeed = 10.0;
+  protected Angle launchAngle = Degrees.of(55);
 
   public ExampleIOSim(Map<String, Object> devices, GenericSubsystem parent) {
     super(devices, parent);
@@ -46,11 +51,6 @@ public class ExampleIOSim extends ExampleIOReal {
             1);
   }
 
-  @Override
-  public void updateSimulation() {
-    angularMotor.simulationUpdate();
-  }
-
   @Override
   public void setPercentMotor(double speed) {
     if (speed > 0.0 && !noteIsInsideIntake().getAsBoolean()) {
@@ -61,6 +61,18 @@ public class ExampleIOSim extends ExampleIOReal {
     super.setPercentMotor(speed);
   }
 
+  @Override
+  public void setShooterSpeed(AngularVelocity speed) {
+    launchSpeed = speed.in(RPM) / ExampleSubsystem.FLYWHEEL_RPM_PER_MPS;
+    super.setShooterSpeed(speed);
+  }
+
+  @Override
+  public void setHoodAngle(Angle angle) {
+    launchAngle = angle;
+    super.setHoodAngle(angle);
+  }
+
   public Trigger obtainedGamePieceToScore() {
     return new Trigger(
         () -> {
@@ -99,9 +111,9 @@ public class ExampleIOSim extends ExampleIOReal {
                                     .toTranslation2d(),
                                 YAGSLSwerveDrivetrain.getSwerveDrive().getFieldVelocity(),
                                 worldPose.getRotation(),
-                                Meters.of(0.45),
-                                MetersPerSecond.of(10),
-                                Degrees.of(55))
+                                Meters.of(ExampleSubsystem.LAUNCH_HEIGHT),
+                                MetersPerSecond.of(launchSpeed),
+                                launchAngle)
                             .withProjectileTrajectoryDisplayCallBack(
                                 (pose3ds) -> {
                                   Logger.recordOutput(
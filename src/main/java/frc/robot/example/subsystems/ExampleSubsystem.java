@@ -2,12 +2,15 @@ package frc.robot.example.subsystems;
 
 import static edu.wpi.first.units.Units.Degrees;
 import static edu.wpi.first.units.Units.Inches;
+import static edu.wpi.first.units.Units.RPM;
+import static edu.wpi.first.units.Units.Radians;
 
 import com.revrobotics.spark.SparkMax;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -17,16 +20,29 @@ import java.util.function.Supplier;
 import org.frc5010.common.arch.GenericSubsystem;
 import org.frc5010.common.constants.GenericPID;
 import org.frc5010.common.constants.MotorFeedFwdConstants;
+import org.frc5010.common.mechanisms.BallisticSolver;
 import org.frc5010.common.motors.MotorConstants.Motor;
 import org.frc5010.common.motors.MotorFactory;
 import org.frc5010.common.motors.function.AngularControlMotor;
 import org.frc5010.common.sensors.absolute_encoder.RevAbsoluteEncoder;
+import org.frc5010.lobbinloco.LobbinLoco;
 
 public class ExampleSubsystem extends GenericSubsystem {
+  /** Flywheel RPM per meter per second of launch speed */
+  public static final double FLYWHEEL_RPM_PER_MPS = 300.0;
+  /** Height the ball leaves the shooter at, in meters */
+  public static final double LAUNCH_HEIGHT = 0.45;
+
   protected ExampleIO io;
   protected ExampleIOInputs inputs = new ExampleIOInputs();
   protected int scoredNotes = 0;
   protected Rotation2d rotation = new Rotation2d(Degrees.of(180));
+  protected BallisticSolver solver =
+      new BallisticSolver(0.5, 12.0, 116, -1.0, 2.0, 31)
+          .withHoodRange(Math.toRadians(20), Math.toRadians(70))
+          .withMaxLaunchSpeed(20.0)
+          .withFlywheelRatio(FLYWHEEL_RPM_PER_MPS);
+  protected BallisticSolver.Solution solution = new BallisticSolver.Solution();
 
   public ExampleSubsystem() {
     super("example.json");
@@ -36,15 +52,40 @@ public class ExampleSubsystem extends GenericSubsystem {
     } else {
       io = new ExampleIOReal(devices, this);
     }
+    solver.precompute();
   }
 
   public Command trackTargetCommand(Supplier<Translation2d> targetSupplier) {
+    return trackTargetCommand(targetSupplier, () -> new ChassisSpeeds());
+  }
+
+  /**
+   * Aims the turret, hood and shooter at the goal, leading the shot by the robot's velocity.
+   *
+   * @param targetSupplier the field relative offset from the robot to the goal
+   * @param fieldVelocity the field relative velocity of the robot
+   * @return the command
+   */
+  public Command trackTargetCommand(
+      Supplier<Translation2d> targetSupplier, Supplier<ChassisSpeeds> fieldVelocity) {
     return Commands.run(
         () -> {
           Translation2d targetPose = targetSupplier.get();
-          targetPose.getNorm();
-          io.setTurretRotation(targetPose.getAngle().getMeasure());
-          io.setHoodAngle(Degrees.of(45));
+          ChassisSpeeds speeds = fieldVelocity.get();
+          if (solver.solve(
+              targetPose.getX(),
+              targetPose.getY(),
+              LobbinLoco.GOAL_HEIGHT - LAUNCH_HEIGHT,
+              speeds.vxMetersPerSecond,
+              speeds.vyMetersPerSecond,
+              solution)) {
+            io.setTurretRotation(Radians.of(solution.heading));
+            io.setHoodAngle(Radians.of(solution.hoodAngle));
+            io.setShooterSpeed(RPM.of(solution.flywheelSpeed));
+          } else {
+            io.setTurretRotation(targetPose.getAngle().getMeasure());
+            io.setHoodAngle(Degrees.of(45));
+          }
         });
   }
 
@@ -18,14 +18,18 @@ import java.util.function.Supplier;
 import org.frc5010.common.config.ConfigConstants;
 import org.frc5010.common.config.RobotParser;
 import org.frc5010.common.config.SubsystemParser;
+import org.frc5010.common.constants.FieldDimensions;
 import org.frc5010.common.constants.GenericDrivetrainConstants;
 import org.frc5010.common.drive.GenericDrivetrain;
 import org.frc5010.common.sensors.Controller;
 import org.frc5010.common.subsystems.Color;
 import org.frc5010.common.subsystems.LEDStrip;
+import org.frc5010.common.subsystems.PhysicsSim;
+import org.frc5010.common.telemetry.DebugTelemetry;
 import org.frc5010.common.telemetry.DisplayString;
 import org.frc5010.common.telemetry.DisplayValuesHelper;
 import org.frc5010.common.telemetry.WpiDataLogging;
+import org.frc5010.common.utils.geometry.FieldGeometry;
 import org.littletonrobotics.junction.mechanism.LoggedMechanism2d;
 import org.littletonrobotics.junction.networktables.LoggedDashboardChooser;
 
@@ -55,6 +59,8 @@ public abstract class GenericRobot extends GenericMechanism implements GenericDe
   protected RobotParser parser;
   /** Constants that are used to configure the drivetrain */
   protected GenericDrivetrainConstants drivetrainConstants = new GenericDrivetrainConstants();
+  /** The dimensions of the field, used to flip poses for the red alliance */
+  protected FieldDimensions fieldDimensions = FieldDimensions.REEFSCAPE;
   /** The internal pose supplier that is supplied by the drivetrain to avoid CAE issues */
   protected Supplier<Pose2d> internalPoseSupplier = () -> new Pose2d();
   /** The pose supplier that is supplied to consumers with a redirection to the internal supplier */
@@ -90,6 +96,7 @@ public abstract class GenericRobot extends GenericMechanism implements GenericDe
    */
   public GenericRobot(String directory) {
     super();
+    FieldGeometry.configure(fieldDimensions);
     try {
       parser = new RobotParser(directory, this);
       subsystemParser = new SubsystemParser(directory, this);
@@ -109,6 +116,7 @@ public abstract class GenericRobot extends GenericMechanism implements GenericDe
   /** Creates a new robot using a programmatic configuration */
   public GenericRobot() {
     super();
+    FieldGeometry.configure(fieldDimensions);
 
     // Setup controllers
     driver = Optional.of(new Controller(Controller.JoystickPorts.ZERO.ordinal()));
@@ -130,6 +138,8 @@ public abstract class GenericRobot extends GenericMechanism implements GenericDe
     SmartDashboard.putData("Robot Visual", mechVisual);
 
     DriverStation.silenceJoystickConnectionWarning(true);
+    // Keep the alliance cached by the field geometry current every loop
+    CommandScheduler.getInstance().getDefaultButtonLoop().bind(FieldGeometry::update);
     allianceDisplay = DashBoard.makeDisplayString("Alliance");
     CommandScheduler.getInstance()
         .schedule(
@@ -270,6 +280,23 @@ public abstract class GenericRobot extends GenericMechanism implements GenericDe
     selectableCommand.periodic();
   }
 
+  /**
+   * Publishes the debug values commands and devices set this loop. Call from the robot's
+   * robotPeriodic after the command scheduler has run, so the values go out in the loop that set
+   * them.
+   */
+  public void robotPeriodic() {
+    DebugTelemetry.flushAll();
+  }
+
+  /**
+   * Steps every simulated mechanism through one loop. Call from the robot's simulationPeriodic,
+   * which runs after the command scheduler, so the models see the outputs commands set this loop.
+   */
+  public void simulationPeriodic() {
+    PhysicsSim.getInstance().run();
+  }
+
   /**
    * Determine the alliance color, returning Blue by default
    *
@@ -456,6 +483,26 @@ public abstract class GenericRobot extends GenericMechanism implements GenericDe
     this.drivetrainConstants = constants;
   }
 
+  /**
+   * Gets the dimensions of the field the robot plays on
+   *
+   * @return the field dimensions
+   */
+  public FieldDimensions getFieldDimensions() {
+    return fieldDimensions;
+  }
+
+  /**
+   * Sets the dimensions of the field the robot plays on and reconfigures the alliance flipping of
+   * {@link FieldGeometry} for them
+   *
+   * @param dimensions the field dimensions
+   */
+  public void setFieldDimensions(FieldDimensions dimensions) {
+    this.fieldDimensions = dimensions;
+    FieldGeometry.configure(dimensions);
+  }
+
   /**
    * Get the display values helper
    *
@@ -8,8 +8,12 @@ import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.Alert;
 import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.frc5010.common.arch.GenericRobot.LogLevel;
 import org.frc5010.common.motors.function.GenericFunctionalMotor;
 import org.frc5010.common.telemetry.DisplayValuesHelper;
@@ -28,7 +32,47 @@ public class GenericSubsystem extends SubsystemBase
   /** The mechanism simulation */
   protected LoggedMechanism2d mechanismSimulation;
   /** The map of devices created by the configuration system */
-  protected Map<String, Object> devices = new HashMap<>();
+  protected Map<String, Object> devices = new DeviceMap();
+
+  /** Functional motors among the devices, rebuilt when the devices change */
+  private GenericFunctionalMotor[] motors = new GenericFunctionalMotor[0];
+  /** YAMS mechanisms among the devices, rebuilt when the devices change */
+  private SmartMechanism[] mechanisms = new SmartMechanism[0];
+  /** Whether the devices changed since the typed arrays were built */
+  private volatile boolean devicesChanged = false;
+  /** Whether telemetry is drawn on the background executor */
+  private boolean backgroundTelemetry = false;
+  /** The last telemetry update handed to the background executor */
+  private Future<?> pendingTelemetry;
+  /** Draws telemetry for every subsystem that opts in, off the robot thread */
+  private static ExecutorService telemetryExecutor;
+
+  /** A device map that notes when it changes, so the subsystem can reclassify its devices. */
+  private class DeviceMap extends HashMap<String, Object> {
+    @Override
+    public Object put(String key, Object value) {
+      devicesChanged = true;
+      return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends Object> map) {
+      devicesChanged = true;
+      super.putAll(map);
+    }
+
+    @Override
+    public Object remove(Object key) {
+      devicesChanged = true;
+      return super.remove(key);
+    }
+
+    @Override
+    public void clear() {
+      devicesChanged = true;
+      super.clear();
+    }
+  }
 
   protected Alert loggingAlert =
       new Alert(logPrefix + " Logging Mode is not COMPETITION!", AlertType.kWarning);
@@ -117,6 +161,35 @@ public class GenericSubsystem extends SubsystemBase
     networkValues.initSendables(builder, this.getClass().getSimpleName());
   }
 
+  /**
+   * Sets whether telemetry, such as YAMS mechanism telemetry and motor visualizers, is drawn on a
+   * low priority background thread instead of in {@link #periodic()}. Control updates always run
+   * in {@link #periodic()}. If the previous loop's telemetry has not finished, the next loop's is
+   * skipped rather than queued.
+   *
+   * @param background true to draw telemetry in the background
+   */
+  public void setBackgroundTelemetry(boolean background) {
+    backgroundTelemetry = background;
+  }
+
+  /** Sorts the devices into typed arrays so each loop can walk them without type checks. */
+  private void classifyDevices() {
+    devicesChanged = false;
+    ArrayList<GenericFunctionalMotor> motorList = new ArrayList<>();
+    ArrayList<SmartMechanism> mechanismList = new ArrayList<>();
+    for (Object device : devices.values()) {
+      if (device instanceof GenericFunctionalMotor) {
+        motorList.add((GenericFunctionalMotor) device);
+      }
+      if (device instanceof SmartMechanism) {
+        mechanismList.add((SmartMechanism) device);
+      }
+    }
+    motors = motorList.toArray(new GenericFunctionalMotor[0]);
+    mechanisms = mechanismList.toArray(new SmartMechanism[0]);
+  }
+
   /**
    * Called every time the scheduler runs while the robot is enabled. Used to update display values
    * and draw motor graphics.
@@ -124,34 +197,60 @@ public class GenericSubsystem extends SubsystemBase
   @Override
   public void periodic() {
     DashBoard.notifyListeners();
-    devices.values().stream()
-        .forEach(
-            it -> {
-              if (it instanceof GenericFunctionalMotor) {
-                ((GenericFunctionalMotor) it).periodicUpdate();
-              }
-              if (it instanceof SmartMechanism) {
-                ((SmartMechanism) it).updateTelemetry();
-              }
-            });
+    if (devicesChanged) {
+      classifyDevices();
+    }
+    GenericFunctionalMotor[] motors = this.motors;
+    for (int i = 0; i < motors.length; i++) {
+      motors[i].periodicUpdate();
+      motors[i].submitVisualState();
+    }
+    if (!backgroundTelemetry) {
+      updateTelemetry(motors, mechanisms);
+    } else if (null == pendingTelemetry || pendingTelemetry.isDone()) {
+      SmartMechanism[] mechanisms = this.mechanisms;
+      pendingTelemetry = getTelemetryExecutor().submit(() -> updateTelemetry(motors, mechanisms));
+    }
+  }
+
+  private static void updateTelemetry(
+      GenericFunctionalMotor[] motors, SmartMechanism[] mechanisms) {
+    for (int i = 0; i < motors.length; i++) {
+      motors[i].telemetryUpdate();
+    }
+    for (int i = 0; i < mechanisms.length; i++) {
+      mechanisms[i].updateTelemetry();
+    }
+  }
+
+  private static synchronized ExecutorService getTelemetryExecutor() {
+    if (null == telemetryExecutor) {
+      telemetryExecutor =
+          Executors.newSingleThreadExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, "SubsystemTelemetry");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+              });
+    }
+    return telemetryExecutor;
   }
 
   /**
    * Called every time the scheduler runs while the robot is in simulation mode. Used to update
-   * simulation models.
+   * simulation models. Functional motors are not stepped here; they register with {@link
+   * org.frc5010.common.subsystems.PhysicsSim}, which steps every model once per loop.
    */
   @Override
   public void simulationPeriodic() {
-    devices.values().stream()
-        .forEach(
-            it -> {
-              if (it instanceof GenericFunctionalMotor) {
-                ((GenericFunctionalMotor) it).simulationUpdate();
-              }
-              if (it instanceof SmartMechanism) {
-                ((SmartMechanism) it).simIterate();
-              }
-            });
+    if (devicesChanged) {
+      classifyDevices();
+    }
+    SmartMechanism[] mechanisms = this.mechanisms;
+    for (int i = 0; i < mechanisms.length; i++) {
+      mechanisms[i].simIterate();
+    }
   }
 
   /**
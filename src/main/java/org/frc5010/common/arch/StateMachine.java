@@ -3,15 +3,10 @@ package org.frc5010.common.arch;
 
 import static edu.wpi.first.util.ErrorMessages.requireNonNullParam;
 
-import edu.wpi.first.wpilibj.event.EventLoop;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
-import edu.wpi.first.wpilibj2.command.Commands;
-import edu.wpi.first.wpilibj2.command.ScheduleCommand;
-import edu.wpi.first.wpilibj2.command.WrapperCommand;
-import edu.wpi.first.wpilibj2.command.button.Trigger;
-import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.function.BooleanSupplier;
 
@@ -30,15 +25,10 @@ import java.util.function.BooleanSupplier;
  * completes normally instead of being interrupted. Use "whenComplete()" to use that feature. Use
  * "when()" for a typical external trigger condition.
  *
- * <p>Multiple transitions with the same effective conditions are effectively undefined actions.
- * Both transitions may be triggered in quick succession. There is validation to prevent using a
- * condition object more than once but there is no way to verify using the effectively identical
- * condition in more than one object. WARNING - Do not specify two different transitions with
- * effectively the same condition. There is no way to prevent programmatically a different condition
- * object that triggers on the same logic. The user must get this right.
- *
- * <p>Duplicate conditions in the V3 2027 WPILib implementation may behave better but with the first
- * one being the one that is used (V3 is structured very differently - better than V2).
+ * <p>A transition fires when its condition changes from false to true while its state is active,
+ * the same as a Trigger's onTrue. When several transitions of a state fire in the same loop, the
+ * one with the highest priority wins, and between equal priorities the one declared first. There is
+ * validation to prevent using a condition object more than once per state.
  *
  * <p>Any state without a transition is an exit state if entered and completes; or hangs the
  * stateMachine if it doesn't complete. A purposeful exit can be coded with
@@ -49,8 +39,12 @@ import java.util.function.BooleanSupplier;
  * interrupted would be idle for its duration. Example idle state shown below could be used to keep
  * the StateMachine running so it does not end and would not need to be recreated for a restart.
  *
- * <p>Command-Based classes are used to wrap the users commands and triggers in order to define the
- * FSM "cyclic" behavior.
+ * <p>The states and transitions are compiled into a dense table indexed by state the first time the
+ * StateMachine runs after they change. Each loop only the conditions of the active state are
+ * evaluated, and the StateMachine runs the state commands itself, so a transition ends one command
+ * and starts the next in the same loop without going through the scheduler. Like other command
+ * compositions the StateMachine takes on the requirements of all its state commands, and the state
+ * commands cannot be scheduled on their own.
  *
  * <p>This code has incomplete validation to prevent all really bad parameters. There is some
  * validation of inappropriate use of nulls and duplicate usage of condition objects for a single
@@ -107,17 +101,30 @@ public class StateMachine extends Command {
   // "ONE-TIME" SETUP THE STATE MACHINE
   /////////////////////////////////////
 
+  /** Completion target of a state that waits for its other transitions after its command ends */
+  private static final int STAY = -2;
+  /** Target of a transition that exits the StateMachine */
+  private static final int EXIT = -1;
+
   private final String name;
   private boolean exitStateMachine;
-  private final EventLoop events = new EventLoop();
-  private final List<WeakReference<State>> states =
-      new ArrayList<>(); // All the states users instantiate is only used for printing
-  // the StateMachine - not in the logical flow
+  private final List<State> states = new ArrayList<>(); // indexed by State.index
   private State initialState = null; // user must call setInitialState
-  private State completedNormally = null; // used for internal transition trigger whenComplete
-  private Command stateCommandAugmentedPrevious =
-      null; // need to know if previous is still running so can be cancelled
-  // on state transition
+  private boolean runsWhenDisabled = true;
+
+  // The compiled transition table; rebuilt when states or transitions change
+  private boolean compiled = false;
+  private Command[] stateCommands = new Command[0];
+  private int[] transitionStart = new int[1]; // transitions of state i are [start[i], start[i+1])
+  private BooleanSupplier[] conditions = new BooleanSupplier[0];
+  private int[] targets = new int[0];
+  private int[] completeTargets = new int[0];
+  private boolean[] previousValues = new boolean[0]; // last value of each active state condition
+
+  // The running state
+  private int currentState = EXIT;
+  private Command currentCommand = null;
+  private boolean currentCompleted = false;
 
   public StateMachine(String name) {
     requireNonNullParam(name, "name", "StateMachine");
@@ -142,10 +149,28 @@ public class StateMachine extends Command {
    * @return the state
    */
   public State addState(String name, Command stateCommand) {
+    requireNonNullParam(stateCommand, "stateCommand", "StateMachine.addState");
+    CommandScheduler.getInstance().registerComposedCommands(stateCommand);
+    addRequirements(stateCommand.getRequirements());
+    runsWhenDisabled &= stateCommand.runsWhenDisabled();
     var state = new State(name, stateCommand);
     return state;
   }
 
+  /**
+   * Gets the name of the active state.
+   *
+   * @return the state name, or null if no state is active
+   */
+  public String getCurrentStateName() {
+    return currentState >= 0 ? states.get(currentState).name : null;
+  }
+
+  @Override
+  public boolean runsWhenDisabled() {
+    return runsWhenDisabled;
+  }
+
   /**
    * Print State and Transition information about the StateMachine
    *
@@ -157,32 +182,33 @@ public class StateMachine extends Command {
 
     sb.append("All states for StateMachine ").append(name).append("\n");
 
-    for (WeakReference<State> state : states) {
+    for (State state : states) {
       boolean noExits = true; // initially haven't found any
       boolean noEntrances = true; // initially haven't found any
 
       sb.append("-------")
-          .append(state.get().name)
+          .append(state.name)
           .append("-------")
-          .append(state.get() == initialState ? " INITIAL STATE\n" : "\n");
+          .append(state == initialState ? " INITIAL STATE\n" : "\n");
 
       // loop through all the transitions of this state
-      for (Transition transition : state.get().transitions) {
+      for (Transition transition : state.transitions) {
         noExits = false; // at least one transition out of this state
         sb.append("transition ")
             .append(transition)
             .append(" to ")
             .append(transition.nextState != null ? transition.nextState.name : "exit StateMachine")
-            .append(" onTrue trigger ")
-            .append(transition.triggeringEvent)
-            .append("\n");
+            .append(
+                transition.onComplete
+                    ? " when complete\n"
+                    : " onTrue trigger " + transition.triggeringEvent + "\n");
       }
 
       // loop through all the states again to find at least one entrance to this state
       allStates:
-      for (WeakReference<State> stateInner : states) {
-        for (Transition transition : stateInner.get().transitions) {
-          if (transition.nextState == state.get()) {
+      for (State stateInner : states) {
+        for (Transition transition : stateInner.transitions) {
+          if (transition.nextState == state) {
             noEntrances = false;
             break allStates;
           }
@@ -198,6 +224,56 @@ public class StateMachine extends Command {
     return sb.toString();
   }
 
+  /**
+   * Compiles the states and transitions into the dense transition table. The transitions of each
+   * state are stored together, highest priority first.
+   */
+  private void compile() {
+    int stateCount = states.size();
+    int total = 0;
+    int maxPerState = 0;
+    for (State state : states) {
+      int external = 0;
+      for (Transition transition : state.transitions) {
+        if (!transition.onComplete) {
+          external++;
+        }
+      }
+      total += external;
+      maxPerState = Math.max(maxPerState, external);
+    }
+
+    stateCommands = new Command[stateCount];
+    transitionStart = new int[stateCount + 1];
+    conditions = new BooleanSupplier[total];
+    targets = new int[total];
+    completeTargets = new int[stateCount];
+    previousValues = new boolean[maxPerState];
+
+    int k = 0;
+    for (int i = 0; i < stateCount; i++) {
+      State state = states.get(i);
+      stateCommands[i] = state.stateCommand;
+      transitionStart[i] = k;
+      // no transitions at all means the StateMachine exits when this state's command ends
+      completeTargets[i] = state.transitions.isEmpty() ? EXIT : STAY;
+      List<Transition> sorted = new ArrayList<>(state.transitions);
+      sorted.sort(Comparator.comparingInt((Transition transition) -> -transition.priority));
+      for (Transition transition : sorted) {
+        int target = transition.nextState != null ? transition.nextState.index : EXIT;
+        if (transition.onComplete) {
+          completeTargets[i] = target;
+        } else {
+          conditions[k] = transition.triggeringEvent;
+          targets[k] = target;
+          k++;
+        }
+      }
+    }
+    transitionStart[stateCount] = k;
+    compiled = true;
+  }
+
   /////////////////////////////////////////////////////
   // THE ITERATIVE CONTROL COMMAND OF THE STATE MACHINE
   /////////////////////////////////////////////////////
@@ -205,18 +281,50 @@ public class StateMachine extends Command {
   /** Called once when the StateMachine command is scheduled. */
   @Override
   public void initialize() {
+    requireNonNullParam(initialState, "initialState", "StateMachine.initialize");
+    if (!compiled) {
+      compile();
+    }
     exitStateMachine = false;
-    events.clear(); // make sure clear in case there would be a race between the execute poll and
-    // the next command clear (maybe used if FSM can start/stop which it can't right
-    // now)
-    CommandScheduler.getInstance()
-        .schedule(new ScheduleCommand(initialState.stateCommandAugmented));
+    enterState(initialState.index);
   }
 
-  /** Called repeatedly while the StateMachine is running to check for triggering events. */
+  /**
+   * Called repeatedly while the StateMachine is running. Checks the transitions of the active state
+   * and otherwise runs its command.
+   */
   @Override
   public void execute() {
-    events.poll(); // check for events that can trigger transitions out of this state
+    if (!compiled) {
+      // transitions were added while running; state indices are stable so just rebuild
+      compile();
+      captureConditions();
+    }
+
+    int start = transitionStart[currentState];
+    int end = transitionStart[currentState + 1];
+    for (int k = start; k < end; k++) {
+      boolean value = conditions[k].getAsBoolean();
+      boolean rising = value && !previousValues[k - start];
+      previousValues[k - start] = value;
+      if (rising) {
+        endCurrentCommand();
+        switchTo(targets[k]);
+        return;
+      }
+    }
+
+    if (!currentCompleted) {
+      currentCommand.execute();
+      if (currentCommand.isFinished()) {
+        currentCommand.end(false);
+        currentCompleted = true;
+        int target = completeTargets[currentState];
+        if (target != STAY) {
+          switchTo(target);
+        }
+      }
+    }
   }
 
   /**
@@ -226,10 +334,10 @@ public class StateMachine extends Command {
    */
   @Override
   public void end(boolean interrupted) {
-    // cancel the State command if it's still running
-    if (stateCommandAugmentedPrevious != null) {
-      stateCommandAugmentedPrevious.cancel();
-    }
+    // end the State command if it's still running
+    endCurrentCommand();
+    currentState = EXIT;
+    currentCommand = null;
   }
 
   /**
@@ -243,102 +351,47 @@ public class StateMachine extends Command {
     return exitStateMachine; // check if last state command ordered StateMachine to stop
   }
 
-  /////////////////////////////////////
-  // RUN THE STATES AS WRAPPED COMMANDS
-  /////////////////////////////////////
-  /**
-   * Wrap a command to define the state.
-   *
-   * <p>The wrapper creates the event triggers that will change to the next state and remember if
-   * the state command ended normally without interruption.
-   */
-  private class WrapState extends WrapperCommand {
-    State state;
-
-    WrapState(State state, Command command) {
-      super(command); // user's original state command to run
-      this.state = state;
+  private void switchTo(int target) {
+    if (target == EXIT) {
+      exitStateMachine = true;
+    } else {
+      enterState(target);
     }
+  }
 
-    /**
-     * We're here because somebody scheduled us and we are running. The initial state was scheduled
-     * when the StateMachine started. All the rest of the states that run must be scheduled by an
-     * event.
-     */
-    @Override
-    public void initialize() {
-      events.clear(); // wipe the previous state's triggers
-      if (stateCommandAugmentedPrevious != null) {
-        stateCommandAugmentedPrevious
-            .cancel(); // wipe the previous state in case it didn't finish itself
-      }
-      // make triggers for all of the current state's transitions
-      // if no transitions, that will be handled later as an exit but first need to
-      // run this state
-      if (!state.transitions.isEmpty()) {
-        for (Transition transition : state.transitions) { // add all the events for this state
-          var trigger = new Trigger(events, transition.triggeringEvent); // for .when(condition)
-          if (transition.nextState == null) { // for .exitStateMachine()
-            trigger.onTrue(Commands.runOnce(() -> exitStateMachine = true).ignoringDisable(true));
-          } else {
-            trigger.onTrue(
-                transition.nextState.stateCommandAugmented); // external triggering next state
-          }
-        }
-      }
-
-      completedNormally = null; // reset internal trigger for this new state
-      stateCommandAugmentedPrevious = this;
+  private void enterState(int index) {
+    currentState = index;
+    currentCommand = stateCommands[index];
+    currentCompleted = false;
+    captureConditions();
+    currentCommand.initialize();
+  }
 
-      m_command
-          .initialize(); // Wrapper is done with its fussing so tell original command to initialize
+  /** Records the current value of each condition so only a change to true fires a transition. */
+  private void captureConditions() {
+    int start = transitionStart[currentState];
+    for (int k = start; k < transitionStart[currentState + 1]; k++) {
+      previousValues[k - start] = conditions[k].getAsBoolean();
     }
+  }
 
-    /**
-     * The action to take when the command ends. Called when either the command finishes normally,
-     * or when it interrupted/canceled.
-     *
-     * @param interrupted whether the command was interrupted/canceled
-     */
-    @Override
-    public void end(boolean interrupted) {
-      m_command.end(interrupted); // tell original command to end and if interrupted or not
-
-      // setup for the next state or exit
-      stateCommandAugmentedPrevious =
-          null; // indicate state already ended so there is not a previous state to cancel
-
-      if (state.transitions.isEmpty()) { // no transitions [no .when() nor .whenComplete()]
-        exitStateMachine =
-            true; // no matter how this ended tell StateMachine to exit since nowhere to go from
-        // here
-      } else {
-        if (!interrupted) {
-          completedNormally =
-              state; // for internal trigger, indicate state ended by itself without others help
-          // see if this state has transition .exitStateMachine().whenComplete()
-          for (Transition transition : state.transitions) { // check all transitions
-            if (transition.triggeringEvent == state.whenCompleteCondition) { // for .whenComplete()
-              if (transition.nextState == null) { // for .exitStateMachine()
-                exitStateMachine = true;
-              }
-              break; // don't look for any more since cannot be more than one whenComplete trigger
-            }
-          }
-        }
-      }
+  private void endCurrentCommand() {
+    if (currentCommand != null && !currentCompleted) {
+      currentCommand.end(true);
+      currentCompleted = true;
     }
-  } // end class WrapState
+  }
+
+  /////////////////////////////////////
+  // STATES AND TRANSITIONS
+  /////////////////////////////////////
 
   /** class State as a command with exit transitions (event + next state command) */
   public class State extends Command {
     private final String name;
-    private Command
-        stateCommandAugmented; // the Wrapped (instrumented) state command that will actually be run
+    private final int index; // row of this state in the compiled transition table
+    private final Command stateCommand; // the user's command that effects the state
     private List<Transition> transitions = new ArrayList<>(); // the transitions for this State
-    private BooleanSupplier whenCompleteCondition =
-        () -> State.this == completedNormally; // internal trigger for
-    // command completion trigger
 
     /**
      * creating a new State from a command
@@ -348,8 +401,10 @@ public class StateMachine extends Command {
      */
     private State(String name, Command stateCommand) {
       this.name = name;
-      StateMachine.this.states.add(new WeakReference<>(this));
-      this.stateCommandAugmented = new WrapState(this, stateCommand);
+      this.stateCommand = stateCommand;
+      this.index = StateMachine.this.states.size();
+      StateMachine.this.states.add(this);
+      compiled = false;
     }
 
     /**
@@ -403,17 +458,26 @@ public class StateMachine extends Command {
       }
 
       /**
-       * Adds a transition that will be triggered when the specified condition is true.
+       * Adds a transition that will be triggered when the specified condition becomes true.
        *
        * @param condition The condition that will trigger the transition.
        */
-      public void when(
-          BooleanSupplier condition) { // imply run until the external event then transition
+      public void when(BooleanSupplier condition) {
+        when(condition, 0);
+      }
+
+      /**
+       * Adds a transition that will be triggered when the specified condition becomes true. When
+       * several transitions of a state trigger in the same loop the highest priority is taken.
+       *
+       * @param condition The condition that will trigger the transition.
+       * @param priority The priority of the transition; higher wins.
+       */
+      public void when(BooleanSupplier condition, int priority) {
+        requireNonNullParam(condition, "condition", "TransitionNeedsConditionStage.when");
         checkDuplicateCondition(condition);
-        transitions.add(
-            new Transition(
-                m_targetState, condition)); // wrap condition and add to the list a transition to
-        // this state
+        transitions.add(new Transition(m_targetState, condition, priority, false));
+        compiled = false;
       }
 
       /**
@@ -421,19 +485,21 @@ public class StateMachine extends Command {
        * transitions first.
        */
       public void whenComplete() {
-        checkDuplicateCondition(whenCompleteCondition);
-        transitions.add(
-            new Transition(
-                m_targetState, whenCompleteCondition)); // wrap condition and add to the list a
-        // transition to this state
+        for (Transition transition : transitions) {
+          if (transition.onComplete) {
+            throw new IllegalArgumentException("Only one whenComplete transition per state.");
+          }
+        }
+        transitions.add(new Transition(m_targetState, null, 0, true));
+        compiled = false;
       }
 
       /**
        * Prevent a condition object from being used in more than one transition per state.
        *
        * <p>This check cannot prevent effectively identical conditions in different objects from
-       * being used. The user must assure that two or more conditions in a state will not trigger at
-       * the same time. The results of two identical conditions are essentially undefined.
+       * being used. Transitions with identical conditions fire together, and the priority and then
+       * declaration order decide which is taken.
        *
        * @throws IllegalArgumentException if a condition object is reused in a single state.
        */
@@ -450,11 +516,16 @@ public class StateMachine extends Command {
   /** class Transition is a Triggering external event to change to the next command (state) */
   private class Transition {
     State nextState; // "list key" to finding a state; null means exit state machine
-    BooleanSupplier triggeringEvent;
+    BooleanSupplier triggeringEvent; // null for a whenComplete transition
+    int priority;
+    boolean onComplete;
 
-    private Transition(State toNextState, BooleanSupplier whenEvent) {
+    private Transition(
+        State toNextState, BooleanSupplier whenEvent, int priority, boolean onComplete) {
       this.nextState = toNextState;
       this.triggeringEvent = whenEvent;
+      this.priority = priority;
+      this.onComplete = onComplete;
     }
   } // end class Transition
 } // end class StateMachine
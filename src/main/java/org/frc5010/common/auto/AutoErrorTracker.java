@@ -6,51 +6,189 @@ package org.frc5010.common.auto;
 
 import com.pathplanner.lib.auto.AutoBuilder;
 import com.pathplanner.lib.util.PathPlannerLogging;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
+import org.frc5010.common.telemetry.DebugTelemetry;
+import org.littletonrobotics.junction.Logger;
 
-/* You should consider using the more terse Command factories API instead https://docs.wpilib.org/en/stable/docs/software/commandbased/organizing-command-based.html#defining-commands */
+/**
+ * Records how closely the robot follows its autonomous paths.
+ *
+ * <p>Every PathPlanner target pose is recorded together with the actual pose at the same time, the
+ * path segment being followed and the {@link EventMarkerFlag} markers that are active, into
+ * primitive buffers sized for the whole autonomous run. Nothing is published while recording. When
+ * the command ends the samples are analyzed once: velocities come from successive poses, and
+ * translation, heading and speed errors are attributed to each path segment and each marker, with
+ * a histogram of translation error per segment. The summary is logged as a handful of arrays under
+ * "AutoError/", together with the recorded trace, so path constraints can be tuned from the data.
+ */
 public class AutoErrorTracker extends Command {
-  private double errorSum = 0;
-  private double minError = Double.POSITIVE_INFINITY;
-  private double maxError = Double.NEGATIVE_INFINITY;
+  /** Default number of samples, enough for 30 seconds at 50 Hz */
+  public static final int DEFAULT_CAPACITY = 1500;
+  /** Upper edges of the translation error histogram bins in meters; the last bin is open */
+  public static final double[] HISTOGRAM_EDGES = {0.025, 0.05, 0.1, 0.2, 0.4};
+  /** Most path segments kept apart; later segments are counted with the last one */
+  private static final int MAX_SEGMENTS = 32;
 
-  /** Creates a new AutoErrorTracker. */
+  private static final int BINS = HISTOGRAM_EDGES.length + 1;
+
+  private final Supplier<Pose2d> poseSupplier;
+  private final int capacity;
+  private final double[] times;
+  private final double[] targetX;
+  private final double[] targetY;
+  private final double[] targetHeading;
+  private final double[] actualX;
+  private final double[] actualY;
+  private final double[] actualHeading;
+  private final int[] segments;
+  private final int[] markers;
+  private int count = 0;
+  private int droppedSamples = 0;
+  private int segmentCount = 0;
+  private int currentSegment = -1;
+  private boolean advantageKitLogging = false;
+
+  // Results of the last summary, per segment and per marker bit
+  private final int[] segmentSamples = new int[MAX_SEGMENTS];
+  private final double[] segmentRms = new double[MAX_SEGMENTS];
+  private final double[] segmentMax = new double[MAX_SEGMENTS];
+  private final double[] segmentMaxHeading = new double[MAX_SEGMENTS];
+  private final double[] segmentSpeedError = new double[MAX_SEGMENTS];
+  private final int[] segmentSpeedSamples = new int[MAX_SEGMENTS];
+  private final double[] segmentHistogram = new double[MAX_SEGMENTS * BINS];
+  private final int[] markerSamples = new int[EventMarkerFlag.MAX_MASK_BITS];
+  private final double[] markerRms = new double[EventMarkerFlag.MAX_MASK_BITS];
+  private final double[] markerMax = new double[EventMarkerFlag.MAX_MASK_BITS];
+
+  private final DebugTelemetry telemetry = DebugTelemetry.forCommand(getName(), LogLevel.INFO);
+  private final DebugTelemetry.NumberEntry minErrorDisplay = telemetry.addNumber("Auto Error Min");
+  private final DebugTelemetry.NumberEntry maxErrorDisplay = telemetry.addNumber("Auto Error Max");
+  private final DebugTelemetry.NumberEntry errorSumDisplay = telemetry.addNumber("Auto Error Sum");
+
+  /** Creates a new AutoErrorTracker using the AutoBuilder pose. */
   public AutoErrorTracker() {
-    // Use addRequirements() here to declare subsystem dependencies.
+    this(AutoBuilder::getCurrentPose, DEFAULT_CAPACITY);
   }
 
-  private void logXYTarget(Pose2d pose) {
-    Pose2d currentPose = AutoBuilder.getCurrentPose();
-    double error = currentPose.getTranslation().getDistance(pose.getTranslation());
-    SmartDashboard.putNumber("Auto Error", error);
+  /**
+   * Creates a new AutoErrorTracker.
+   *
+   * @param poseSupplier supplies the actual robot pose
+   * @param capacity the number of samples that can be recorded
+   */
+  public AutoErrorTracker(Supplier<Pose2d> poseSupplier, int capacity) {
+    this.poseSupplier = poseSupplier;
+    this.capacity = capacity;
+    times = new double[capacity];
+    targetX = new double[capacity];
+    targetY = new double[capacity];
+    targetHeading = new double[capacity];
+    actualX = new double[capacity];
+    actualY = new double[capacity];
+    actualHeading = new double[capacity];
+    segments = new int[capacity];
+    markers = new int[capacity];
+  }
 
-    if (error < minError) {
-      minError = error;
+  /**
+   * Keeps logging the active path and setpoint to AdvantageKit, the way an AdvantageKit drivetrain
+   * does without a tracker, while tracking and after the tracker ends. Without this the PathPlanner
+   * logging callbacks are cleared when the tracker ends.
+   *
+   * @return this tracker
+   */
+  public AutoErrorTracker withAdvantageKitLogging() {
+    advantageKitLogging = true;
+    return this;
+  }
+
+  private static void logTrajectory(List<Pose2d> path) {
+    Logger.recordOutput("Odometry/Trajectory", path.toArray(new Pose2d[path.size()]));
+  }
+
+  private static void logTrajectorySetpoint(Pose2d pose) {
+    Logger.recordOutput("Odometry/TrajectorySetpoint", pose);
+  }
+
+  private void logActivePath(List<Pose2d> path) {
+    if (advantageKitLogging) {
+      logTrajectory(path);
+    }
+    if (path.isEmpty()) {
+      currentSegment = -1;
+    } else {
+      startSegment();
     }
-    if (error > maxError) {
-      maxError = error;
+  }
+
+  private void logXYTarget(Pose2d pose) {
+    if (advantageKitLogging) {
+      logTrajectorySetpoint(pose);
     }
+    record(Timer.getFPGATimestamp(), pose, poseSupplier.get(), EventMarkerFlag.getActiveMask());
+  }
 
-    errorSum += error * 0.02;
-    SmartDashboard.putNumber("Auto Error Sum", errorSum);
+  /** Starts attributing samples to the next path segment. */
+  void startSegment() {
+    currentSegment = Math.min(segmentCount, MAX_SEGMENTS - 1);
+    segmentCount++;
+  }
+
+  /**
+   * Records one time-aligned sample.
+   *
+   * @param time the time of the sample in seconds
+   * @param target the pose the path follower is aiming for
+   * @param actual the robot pose
+   * @param markerMask the active marker mask
+   */
+  void record(double time, Pose2d target, Pose2d actual, int markerMask) {
+    if (count == capacity) {
+      droppedSamples++;
+      return;
+    }
+    times[count] = time;
+    targetX[count] = target.getX();
+    targetY[count] = target.getY();
+    targetHeading[count] = target.getRotation().getRadians();
+    actualX[count] = actual.getX();
+    actualY[count] = actual.getY();
+    actualHeading[count] = actual.getRotation().getRadians();
+    segments[count] = currentSegment;
+    markers[count] = markerMask;
+    count++;
   }
 
   // Called when the command is initially scheduled.
   @Override
   public void initialize() {
+    count = 0;
+    droppedSamples = 0;
+    segmentCount = 0;
+    currentSegment = -1;
+    PathPlannerLogging.setLogActivePathCallback(this::logActivePath);
     PathPlannerLogging.setLogTargetPoseCallback(this::logXYTarget);
   }
 
   // Called once the command ends or is interrupted.
   @Override
   public void end(boolean interrupted) {
-    PathPlannerLogging.setLogTargetPoseCallback(null);
-
-    SmartDashboard.putNumber("Auto Error Min", minError);
-    SmartDashboard.putNumber("Auto Error Max", maxError);
-    SmartDashboard.putNumber("Auto Error Sum", errorSum);
+    if (advantageKitLogging) {
+      PathPlannerLogging.setLogActivePathCallback(AutoErrorTracker::logTrajectory);
+      PathPlannerLogging.setLogTargetPoseCallback(AutoErrorTracker::logTrajectorySetpoint);
+    } else {
+      PathPlannerLogging.setLogActivePathCallback(null);
+      PathPlannerLogging.setLogTargetPoseCallback(null);
+    }
+    summarize();
+    logSummary();
   }
 
   // Returns true when the command should end.
@@ -58,4 +196,178 @@ public class AutoErrorTracker extends Command {
   public boolean isFinished() {
     return false;
   }
+
+  /** Analyzes the recorded samples into the per-segment and per-marker results. */
+  void summarize() {
+    int segmentsUsed = Math.min(segmentCount, MAX_SEGMENTS);
+    Arrays.fill(segmentSamples, 0);
+    Arrays.fill(segmentRms, 0.0);
+    Arrays.fill(segmentMax, 0.0);
+    Arrays.fill(segmentMaxHeading, 0.0);
+    Arrays.fill(segmentSpeedError, 0.0);
+    Arrays.fill(segmentSpeedSamples, 0);
+    Arrays.fill(segmentHistogram, 0.0);
+    Arrays.fill(markerSamples, 0);
+    Arrays.fill(markerRms, 0.0);
+    Arrays.fill(markerMax, 0.0);
+
+    for (int i = 0; i < count; i++) {
+      double error = Math.hypot(targetX[i] - actualX[i], targetY[i] - actualY[i]);
+      double headingError = Math.abs(MathUtil.angleModulus(targetHeading[i] - actualHeading[i]));
+      int segment = segments[i];
+
+      if (segment >= 0 && segment < segmentsUsed) {
+        segmentSamples[segment]++;
+        segmentRms[segment] += error * error;
+        segmentMax[segment] = Math.max(segmentMax[segment], error);
+        segmentMaxHeading[segment] = Math.max(segmentMaxHeading[segment], headingError);
+        int bin = 0;
+        while (bin < HISTOGRAM_EDGES.length && error > HISTOGRAM_EDGES[bin]) {
+          bin++;
+        }
+        segmentHistogram[segment * BINS + bin]++;
+        // Speeds from the previous sample of the same segment
+        if (i > 0 && segments[i - 1] == segment && times[i] > times[i - 1]) {
+          double dt = times[i] - times[i - 1];
+          double targetSpeed =
+              Math.hypot(targetX[i] - targetX[i - 1], targetY[i] - targetY[i - 1]) / dt;
+          double actualSpeed =
+              Math.hypot(actualX[i] - actualX[i - 1], actualY[i] - actualY[i - 1]) / dt;
+          segmentSpeedError[segment] += Math.abs(targetSpeed - actualSpeed);
+          segmentSpeedSamples[segment]++;
+        }
+      }
+
+      for (int mask = markers[i]; mask != 0; mask &= mask - 1) {
+        int bit = Integer.numberOfTrailingZeros(mask);
+        markerSamples[bit]++;
+        markerRms[bit] += error * error;
+        markerMax[bit] = Math.max(markerMax[bit], error);
+      }
+    }
+
+    for (int s = 0; s < segmentsUsed; s++) {
+      if (segmentSamples[s] > 0) {
+        segmentRms[s] = Math.sqrt(segmentRms[s] / segmentSamples[s]);
+      }
+      if (segmentSpeedSamples[s] > 0) {
+        segmentSpeedError[s] /= segmentSpeedSamples[s];
+      }
+    }
+    for (int b = 0; b < markerSamples.length; b++) {
+      if (markerSamples[b] > 0) {
+        markerRms[b] = Math.sqrt(markerRms[b] / markerSamples[b]);
+      }
+    }
+  }
+
+  private void logSummary() {
+    int segmentsUsed = Math.min(segmentCount, MAX_SEGMENTS);
+    double minError = Double.POSITIVE_INFINITY;
+    double maxError = 0.0;
+    double errorSum = 0.0;
+    for (int i = 0; i < count; i++) {
+      double error = Math.hypot(targetX[i] - actualX[i], targetY[i] - actualY[i]);
+      minError = Math.min(minError, error);
+      maxError = Math.max(maxError, error);
+      errorSum += error * 0.02;
+    }
+
+    Logger.recordOutput("AutoError/Samples", count);
+    Logger.recordOutput("AutoError/DroppedSamples", droppedSamples);
+    Logger.recordOutput("AutoError/Segments/Samples", Arrays.copyOf(segmentSamples, segmentsUsed));
+    Logger.recordOutput("AutoError/Segments/RMS", Arrays.copyOf(segmentRms, segmentsUsed));
+    Logger.recordOutput("AutoError/Segments/Max", Arrays.copyOf(segmentMax, segmentsUsed));
+    Logger.recordOutput(
+        "AutoError/Segments/MaxHeadingDegrees", toDegrees(segmentMaxHeading, segmentsUsed));
+    Logger.recordOutput(
+        "AutoError/Segments/MeanSpeedError", Arrays.copyOf(segmentSpeedError, segmentsUsed));
+    Logger.recordOutput("AutoError/Segments/HistogramEdges", HISTOGRAM_EDGES);
+    Logger.recordOutput(
+        "AutoError/Segments/Histogram", Arrays.copyOf(segmentHistogram, segmentsUsed * BINS));
+
+    int markerCount = 0;
+    for (int b = 0; b < markerSamples.length; b++) {
+      if (markerSamples[b] > 0) {
+        markerCount++;
+      }
+    }
+    String[] markerNames = new String[markerCount];
+    double[] markerRmsOut = new double[markerCount];
+    double[] markerMaxOut = new double[markerCount];
+    for (int b = 0, m = 0; b < markerSamples.length; b++) {
+      if (markerSamples[b] > 0) {
+        markerNames[m] = EventMarkerFlag.getMarkerName(b);
+        markerRmsOut[m] = markerRms[b];
+        markerMaxOut[m] = markerMax[b];
+        m++;
+      }
+    }
+    Logger.recordOutput("AutoError/Markers/Names", markerNames);
+    Logger.recordOutput("AutoError/Markers/RMS", markerRmsOut);
+    Logger.recordOutput("AutoError/Markers/Max", markerMaxOut);
+
+    Logger.recordOutput("AutoError/Trace/Time", Arrays.copyOf(times, count));
+    Logger.recordOutput("AutoError/Trace/TargetX", Arrays.copyOf(targetX, count));
+    Logger.recordOutput("AutoError/Trace/TargetY", Arrays.copyOf(targetY, count));
+    Logger.recordOutput("AutoError/Trace/TargetHeading", Arrays.copyOf(targetHeading, count));
+    Logger.recordOutput("AutoError/Trace/ActualX", Arrays.copyOf(actualX, count));
+    Logger.recordOutput("AutoError/Trace/ActualY", Arrays.copyOf(actualY, count));
+    Logger.recordOutput("AutoError/Trace/ActualHeading", Arrays.copyOf(actualHeading, count));
+    Logger.recordOutput("AutoError/Trace/Segment", Arrays.copyOf(segments, count));
+
+    minErrorDisplay.set(count > 0 ? minError : 0.0);
+    maxErrorDisplay.set(maxError);
+    errorSumDisplay.set(errorSum);
+  }
+
+  private static double[] toDegrees(double[] radians, int length) {
+    double[] degrees = new double[length];
+    for (int i = 0; i < length; i++) {
+      degrees[i] = Math.toDegrees(radians[i]);
+    }
+    return degrees;
+  }
+
+  /**
+   * Gets the RMS translation error of a path segment from the last summary.
+   *
+   * @param segment the segment index, in the order the paths ran
+   * @return the error in meters
+   */
+  public double getSegmentRmsError(int segment) {
+    return segmentRms[segment];
+  }
+
+  /**
+   * Gets the largest translation error of a path segment from the last summary.
+   *
+   * @param segment the segment index, in the order the paths ran
+   * @return the error in meters
+   */
+  public double getSegmentMaxError(int segment) {
+    return segmentMax[segment];
+  }
+
+  /**
+   * Gets the number of samples of a path segment in a translation error histogram bin.
+   *
+   * @param segment the segment index, in the order the paths ran
+   * @param bin the bin; bin i counts errors up to {@link #HISTOGRAM_EDGES}[i] and the last bin
+   *     counts the rest
+   * @return the sample count
+   */
+  public int getSegmentHistogram(int segment, int bin) {
+    return (int) segmentHistogram[segment * BINS + bin];
+  }
+
+  /**
+   * Gets the RMS translation error while a marker was active, from the last summary.
+   *
+   * @param bit the marker's bit in {@link EventMarkerFlag#getActiveMask()}
+   * @return the error in meters
+   */
+  public double getMarkerRmsError(int bit) {
+    return markerRms[bit];
+  }
 }
@@ -17,6 +17,14 @@ import org.frc5010.common.arch.GenericCommand;
 public class EventMarkerFlag extends GenericCommand {
   /** Map of marker names to their current state */
   private static Map<String, Boolean> flags = new HashMap<String, Boolean>();
+  /** Number of markers that can be tracked in the active mask */
+  public static final int MAX_MASK_BITS = 32;
+  /** Map of marker names to their bit in the active mask */
+  private static Map<String, Integer> bits = new HashMap<String, Integer>();
+  /** Names of the markers by bit */
+  private static String[] bitNames = new String[MAX_MASK_BITS];
+  /** One bit per active marker, so the set of active markers can be sampled with one read */
+  private static volatile int activeMask = 0;
   /** Name of the marker */
   private String name;
 
@@ -24,6 +32,10 @@ public class EventMarkerFlag extends GenericCommand {
     super("MarkerFlag " + name);
     this.name = name;
     flags.put(name, false);
+    if (!bits.containsKey(name) && bits.size() < MAX_MASK_BITS) {
+      bitNames[bits.size()] = name;
+      bits.put(name, bits.size());
+    }
   }
 
   /**
@@ -33,6 +45,12 @@ public class EventMarkerFlag extends GenericCommand {
    */
   private void setFlag(boolean value) {
     flags.put(name, value);
+    Integer bit = bits.get(name);
+    if (null != bit) {
+      synchronized (bits) {
+        activeMask = value ? activeMask | (1 << bit) : activeMask & ~(1 << bit);
+      }
+    }
   }
 
   /**
@@ -63,6 +81,25 @@ public class EventMarkerFlag extends GenericCommand {
     return flags.get(name);
   }
 
+  /**
+   * Get the set of active markers, one bit per marker as given by {@link #getMarkerName(int)}
+   *
+   * @return The mask of active markers
+   */
+  public static int getActiveMask() {
+    return activeMask;
+  }
+
+  /**
+   * Get the name of the marker tracked by a bit of the active mask
+   *
+   * @param bit The bit, from 0 to {@link #MAX_MASK_BITS} - 1
+   * @return The name of the marker, or null if no marker uses the bit
+   */
+  public static String getMarkerName(int bit) {
+    return bitNames[bit];
+  }
+
   /**
    * Constructs a trigger that is active when the marker is active
    *
@@ -11,128 +11,396 @@ import edu.wpi.first.wpilibj2.command.Subsystem;
 import java.util.ArrayList;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
+import org.frc5010.common.telemetry.DebugTelemetry;
 
-/* You should consider using the more terse Command factories API instead https://docs.wpilib.org/en/stable/docs/software/commandbased/organizing-command-based.html#defining-commands */
+/**
+ * Finds PID gains for one or more mechanisms with relay feedback.
+ *
+ * <p>Each mechanism is driven by a relay that outputs plus or minus its amplitude depending on the
+ * sign of the error from where it started, which makes it oscillate at its ultimate period. Every
+ * relay switch is timed by interpolating between the samples either side of the crossing, and the
+ * extremes of the error are tracked between switches. Each completed cycle adds its period and
+ * amplitude to a small ring, so the memory used does not grow with the length of the run. Once the
+ * last few cycles agree within the tolerance the mechanism has converged: its relay stops, and the
+ * ultimate gain Ku = 4d / (pi * sqrt(a^2 - h^2)) for relay amplitude d, oscillation amplitude a and
+ * hysteresis h gives the suggested gains. The command ends when every mechanism has converged or
+ * the maximum duration has passed.
+ *
+ * <p>The oscillation is published as debug values while it runs. The ultimate gain and period and
+ * the suggested gains are put on the SmartDashboard under {@code RelayTuner/<name>} when the
+ * command ends, whatever the log level, since they are what the run is for.
+ *
+ * <p>Mechanisms are added with {@link #addMechanism}; all of them oscillate at the same time, so
+ * several motors can be tuned in one run.
+ */
 public class RelayPIDAutoTuner extends Command {
-  private double relayAmplitude;
-  private Consumer<Double> valueConsumer;
-  private Supplier<Double> valueSupplier;
+  /** Number of cycles that must agree for a mechanism to converge */
+  private static final int CYCLE_WINDOW = 4;
+  /** Cycles ignored at the start while the oscillation settles */
+  private static final int SETTLE_CYCLES = 1;
+
   private final Timer timer = new Timer();
-  private final ArrayList<Double> outputList = new ArrayList<>();
-  private final ArrayList<Double> timeList = new ArrayList<>();
-  private final ArrayList<Double> errorList = new ArrayList<>();
-  private final ArrayList<Double> switchTimeList = new ArrayList<>();
-  private double lastOutput = 0;
-  private double zeroValue;
-
-  /** Creates a new RelayPIDAutoTuner. */
+  private final ArrayList<Mechanism> mechanisms = new ArrayList<>();
+  private double tolerance = 0.05;
+  private double maxDuration = 20.0;
+
+  /** The relay and oscillation state of one mechanism being tuned. */
+  public static class Mechanism {
+    private final String name;
+    private final DebugTelemetry telemetry;
+    private final DebugTelemetry.NumberEntry errorDisplay;
+    private final DebugTelemetry.NumberEntry outputDisplay;
+    private final DebugTelemetry.NumberEntry cyclesDisplay;
+    private final DebugTelemetry.BooleanEntry convergedDisplay;
+    private final Consumer<Double> valueConsumer;
+    private final Supplier<Double> valueSupplier;
+    private final double relayAmplitude;
+    private final double hysteresis;
+
+    private double zeroValue;
+    private double output;
+    private double lastError;
+    private double lastTime;
+    private double phaseExtreme;
+    private double lastHigh;
+    private double lastLow;
+    private double lastRisingSwitch;
+    private int cycles;
+    private final double[] periods = new double[CYCLE_WINDOW];
+    private final double[] amplitudes = new double[CYCLE_WINDOW];
+    private int ringNext;
+    private int ringCount;
+    private boolean converged;
+    private double ultimateGain;
+    private double ultimatePeriod;
+
+    private Mechanism(
+        String name,
+        Consumer<Double> valueConsumer,
+        Supplier<Double> valueSupplier,
+        double relayAmplitude,
+        double hysteresis) {
+      this.name = name;
+      telemetry = DebugTelemetry.forCommand("RelayTuner/" + name, LogLevel.INFO);
+      errorDisplay = telemetry.addNumber("Error");
+      outputDisplay = telemetry.addNumber("Relay Output");
+      cyclesDisplay = telemetry.addNumber("Cycles");
+      convergedDisplay = telemetry.addBoolean("Converged");
+      this.valueConsumer = valueConsumer;
+      this.valueSupplier = valueSupplier;
+      this.relayAmplitude = relayAmplitude;
+      this.hysteresis = hysteresis;
+    }
+
+    private void reset() {
+      zeroValue = valueSupplier.get();
+      output = relayAmplitude;
+      lastError = 0.0;
+      lastTime = 0.0;
+      phaseExtreme = 0.0;
+      lastHigh = Double.NaN;
+      lastLow = Double.NaN;
+      lastRisingSwitch = Double.NaN;
+      cycles = 0;
+      ringNext = 0;
+      ringCount = 0;
+      converged = false;
+      ultimateGain = Double.NaN;
+      ultimatePeriod = Double.NaN;
+    }
+
+    private void update(double time, double tolerance) {
+      if (converged) {
+        return;
+      }
+      double error = valueSupplier.get() - zeroValue;
+
+      // The error overshoots past each switch, so its extreme for the half cycle comes while the
+      // relay pushes back the other way
+      phaseExtreme = output < 0 ? Math.max(phaseExtreme, error) : Math.min(phaseExtreme, error);
+
+      double threshold = output > 0 ? hysteresis : -hysteresis;
+      boolean crossed = output > 0 ? error > threshold : error < threshold;
+      if (crossed) {
+        double switchTime = time;
+        if (error != lastError) {
+          switchTime =
+              lastTime + (threshold - lastError) / (error - lastError) * (time - lastTime);
+        }
+        if (output > 0) {
+          lastLow = phaseExtreme;
+        } else {
+          lastHigh = phaseExtreme;
+          completeCycle(switchTime, tolerance);
+        }
+        output = -output;
+        phaseExtreme = error;
+      }
+      lastError = error;
+      lastTime = time;
+      valueConsumer.accept(converged ? 0.0 : output);
+    }
+
+    private void completeCycle(double switchTime, double tolerance) {
+      double period = switchTime - lastRisingSwitch;
+      lastRisingSwitch = switchTime;
+      if (Double.isNaN(period) || Double.isNaN(lastLow) || ++cycles <= SETTLE_CYCLES) {
+        return;
+      }
+      periods[ringNext] = period;
+      amplitudes[ringNext] = (lastHigh - lastLow) / 2;
+      ringNext = (ringNext + 1) % CYCLE_WINDOW;
+      ringCount = Math.min(ringCount + 1, CYCLE_WINDOW);
+      if (ringCount == CYCLE_WINDOW
+          && relativeSpread(periods) <= tolerance
+          && relativeSpread(amplitudes) <= tolerance) {
+        converged = true;
+        calculateUltimate();
+      }
+    }
+
+    private void calculateUltimate() {
+      if (ringCount == 0) {
+        return;
+      }
+      double period = 0.0;
+      double amplitude = 0.0;
+      for (int i = 0; i < ringCount; i++) {
+        period += periods[i];
+        amplitude += amplitudes[i];
+      }
+      period /= ringCount;
+      amplitude /= ringCount;
+      if (amplitude > hysteresis) {
+        ultimatePeriod = period;
+        ultimateGain =
+            4 * relayAmplitude
+                / (Math.PI * Math.sqrt(amplitude * amplitude - hysteresis * hysteresis));
+      }
+    }
+
+    private static double relativeSpread(double[] values) {
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      double sum = 0.0;
+      for (double value : values) {
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+      }
+      double mean = sum / values.length;
+      return mean > 0.0 ? (max - min) / mean : Double.POSITIVE_INFINITY;
+    }
+
+    private void publish() {
+      errorDisplay.set(lastError);
+      outputDisplay.set(converged ? 0.0 : output);
+      cyclesDisplay.set(cycles);
+      convergedDisplay.set(converged);
+    }
+
+    private void publishResults() {
+      String prefix = "RelayTuner/" + name + "/";
+      SmartDashboard.putBoolean(prefix + "Converged", converged);
+      SmartDashboard.putNumber(prefix + "Ultimate Gain", ultimateGain);
+      SmartDashboard.putNumber(prefix + "Ultimate Period", ultimatePeriod);
+      SmartDashboard.putNumber(prefix + "kP", getKP());
+      SmartDashboard.putNumber(prefix + "kI", getKI());
+      SmartDashboard.putNumber(prefix + "kD", getKD());
+    }
+
+    /**
+     * Gets the name the mechanism publishes its results under.
+     *
+     * @return the name
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Gets whether the last cycles agreed within the tolerance.
+     *
+     * @return true if the mechanism converged
+     */
+    public boolean isConverged() {
+      return converged;
+    }
+
+    /**
+     * Gets the ultimate gain.
+     *
+     * @return the gain, or NaN until there is an estimate
+     */
+    public double getUltimateGain() {
+      return ultimateGain;
+    }
+
+    /**
+     * Gets the ultimate period.
+     *
+     * @return the period in seconds, or NaN until there is an estimate
+     */
+    public double getUltimatePeriod() {
+      return ultimatePeriod;
+    }
+
+    /**
+     * Gets the suggested proportional gain, using the Ziegler-Nichols no overshoot rule.
+     *
+     * @return kP, or NaN until there is an estimate
+     */
+    public double getKP() {
+      return 0.2 * ultimateGain;
+    }
+
+    /**
+     * Gets the suggested integral gain.
+     *
+     * @return kI, or NaN until there is an estimate
+     */
+    public double getKI() {
+      return 2 * getKP() / ultimatePeriod;
+    }
+
+    /**
+     * Gets the suggested derivative gain.
+     *
+     * @return kD, or NaN until there is an estimate
+     */
+    public double getKD() {
+      return getKP() * ultimatePeriod / 3;
+    }
+  }
+
+  /** Creates a tuner with no mechanisms; add them with {@link #addMechanism}. */
+  public RelayPIDAutoTuner() {}
+
+  /** Creates a new RelayPIDAutoTuner for a single mechanism. */
   public RelayPIDAutoTuner(
       Consumer<Double> valueConsumer,
       Supplier<Double> valueSupplier,
       double relayAmplitude,
       Subsystem... requirements) {
-    // Use addRequirements() here to declare subsystem dependencies.
-    this.relayAmplitude = relayAmplitude;
-    this.valueConsumer = valueConsumer;
-    this.valueSupplier = valueSupplier;
-    addRequirements(requirements);
-  }
-
-  // Called when the command is initially scheduled.
-  @Override
-  public void initialize() {
-    zeroValue = valueSupplier.get();
-    timer.reset();
-    timer.start();
-    lastOutput = relayAmplitude;
-    timeList.clear();
-    outputList.clear();
-    errorList.clear();
+    addMechanism("Mechanism", valueConsumer, valueSupplier, relayAmplitude, 0.0, requirements);
   }
 
-  private double relay(double error) {
-    return error < 0 ? relayAmplitude : -relayAmplitude;
+  /**
+   * Adds a mechanism to tune in the same run.
+   *
+   * @param name the name results are published under
+   * @param valueConsumer accepts the relay output
+   * @param valueSupplier supplies the measured value
+   * @param relayAmplitude the relay output magnitude
+   * @param hysteresis how far the error must pass zero before the relay switches, to keep noise
+   *     from chattering the relay
+   * @param requirements the subsystems the mechanism belongs to
+   * @return this tuner
+   */
+  public RelayPIDAutoTuner addMechanism(
+      String name,
+      Consumer<Double> valueConsumer,
+      Supplier<Double> valueSupplier,
+      double relayAmplitude,
+      double hysteresis,
+      Subsystem... requirements) {
+    mechanisms.add(
+        new Mechanism(name, valueConsumer, valueSupplier, relayAmplitude, Math.abs(hysteresis)));
+    addRequirements(requirements);
+    return this;
   }
 
-  // Called every time the scheduler runs while the command is scheduled.
-  @Override
-  public void execute() {
-    double time = timer.get();
-    double error = valueSupplier.get().doubleValue() - zeroValue;
-
-    double relayValue = relay(error);
-    if (relayValue * lastOutput < 0) {
-      switchTimeList.add(time);
-    }
-    lastOutput = relay(error);
-    valueConsumer.accept(lastOutput);
-    SmartDashboard.putNumber("Error", error);
-
-    outputList.add(lastOutput);
-    errorList.add(error);
-    timeList.add(time);
-
-    SmartDashboard.putNumber("Relay Output", lastOutput);
+  /**
+   * Sets how closely the periods and amplitudes of the last cycles must agree to converge.
+   *
+   * @param tolerance the allowed spread as a fraction of the mean
+   * @return this tuner
+   */
+  public RelayPIDAutoTuner withTolerance(double tolerance) {
+    this.tolerance = tolerance;
+    return this;
   }
 
-  private double calculateOscillationPeriod() {
-    double average = 0;
-    for (int i = 0; i < switchTimeList.size() - 1; i++) {
-      average += switchTimeList.get(i + 1) - switchTimeList.get(i);
-    }
-    average /= switchTimeList.size() - 1;
-    return average * 2;
+  /**
+   * Sets how long the tuner runs before giving up on mechanisms that have not converged.
+   *
+   * @param seconds the maximum duration
+   * @return this tuner
+   */
+  public RelayPIDAutoTuner withMaxDuration(double seconds) {
+    maxDuration = seconds;
+    return this;
   }
 
-  private int[] getPeaks() {
-    int[] peaks = new int[errorList.size()];
-    for (int i = 1; i < errorList.size() - 1; i++) {
-      if (errorList.get(i) > errorList.get(i - 1) && errorList.get(i) > errorList.get(i + 1)) {
-        peaks[i] = 1;
+  /**
+   * Gets a mechanism by name.
+   *
+   * @param name the mechanism name
+   * @return the mechanism, or null if there is none with that name
+   */
+  public Mechanism getMechanism(String name) {
+    for (int i = 0; i < mechanisms.size(); i++) {
+      if (mechanisms.get(i).name.equals(name)) {
+        return mechanisms.get(i);
       }
     }
-    return peaks;
+    return null;
   }
 
-  private double calculateAverageResponseAmplitude() {
-    int[] peaks = getPeaks();
-    double sum = 0;
-    int count = 0;
-    for (int i = 0; i < peaks.length; i++) {
-      if (peaks[i] == 1) {
-        sum += errorList.get(i);
-        count++;
-      }
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    timer.restart();
+    for (int i = 0; i < mechanisms.size(); i++) {
+      mechanisms.get(i).reset();
     }
-    return sum / count;
   }
 
-  private void tunePID() {
-    double uPeriod = calculateOscillationPeriod();
-    double amplitude = calculateAverageResponseAmplitude();
-
-    double uGain = 4 * relayAmplitude / (Math.PI * amplitude);
-
-    SmartDashboard.putNumber("Ultimate Gain", uGain);
-    SmartDashboard.putNumber("Ultimate Period", uPeriod);
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    update(timer.get());
+  }
 
-    double kP = 0.2 * uGain;
-    double kI = 2 * kP / uPeriod;
-    double kD = kP * uPeriod / 3;
-    SmartDashboard.putNumber("kP System", kP);
-    SmartDashboard.putNumber("kI System", kI);
-    SmartDashboard.putNumber("kD System", kD);
+  /**
+   * Steps every mechanism's relay.
+   *
+   * @param time the seconds since the command started
+   */
+  void update(double time) {
+    for (int i = 0; i < mechanisms.size(); i++) {
+      Mechanism mechanism = mechanisms.get(i);
+      mechanism.update(time, tolerance);
+      mechanism.publish();
+    }
   }
 
   // Called once the command ends or is interrupted.
   @Override
   public void end(boolean interrupted) {
-    tunePID();
+    for (int i = 0; i < mechanisms.size(); i++) {
+      Mechanism mechanism = mechanisms.get(i);
+      mechanism.valueConsumer.accept(0.0);
+      if (!mechanism.converged) {
+        // Report the best estimate from the cycles that were seen
+        mechanism.calculateUltimate();
+      }
+      mechanism.publishResults();
+    }
   }
 
   // Returns true when the command should end.
   @Override
   public boolean isFinished() {
-    return false;
+    if (timer.hasElapsed(maxDuration)) {
+      return true;
+    }
+    for (int i = 0; i < mechanisms.size(); i++) {
+      if (!mechanisms.get(i).converged) {
+        return false;
+      }
+    }
+    return true;
   }
 }
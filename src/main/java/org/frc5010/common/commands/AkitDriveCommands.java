@@ -13,8 +13,6 @@
 
 package org.frc5010.common.commands;
 
-import static edu.wpi.first.units.Units.Volts;
-
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.filter.SlewRateLimiter;
@@ -28,20 +26,18 @@ import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 import org.frc5010.common.arch.GenericSubsystem;
 import org.frc5010.common.drive.swerve.GenericSwerveDrivetrain;
 import org.frc5010.common.drive.swerve.akit.AkitSwerveDrive;
+import org.frc5010.common.motors.SystemIdentification;
 
 /**
  * Factory class for creating swerve drive related commands including manual drive control,
@@ -53,8 +49,6 @@ public class AkitDriveCommands {
   private static final double ANGLE_KD = 0.4;
   private static final double ANGLE_MAX_VELOCITY = 8.0;
   private static final double ANGLE_MAX_ACCELERATION = 20.0;
-  private static final double FF_START_DELAY = 2.0; // Secs
-  private static final double FF_RAMP_RATE = 0.1; // Volts/Sec
   private static final double WHEEL_RADIUS_MAX_VELOCITY = 0.25; // Rad/Sec
   private static final double WHEEL_RADIUS_RAMP_RATE = 0.05; // Rad/Sec^2
   private static final double PID_TUNING_VOLTAGE = 2.0; // Volts - voltage to apply during tuning
@@ -188,7 +182,8 @@ public class AkitDriveCommands {
   /**
    * Measures the velocity feedforward constants for the drive motors.
    *
-   * <p>This command should only be used in voltage control mode.
+   * <p>This command should only be used in voltage control mode. See {@link
+   * SystemIdentification#feedforwardCharacterization}.
    *
    * @param subsystem the swerve drivetrain subsystem to characterize
    * @param characterizer consumer that accepts voltage values to apply to drive motors
@@ -199,63 +194,8 @@ public class AkitDriveCommands {
       GenericSubsystem subsystem,
       Consumer<Voltage> characterizer,
       Supplier<Double> velocitySupplier) {
-    List<Double> velocitySamples = new LinkedList<>();
-    List<Double> voltageSamples = new LinkedList<>();
-    Timer timer = new Timer();
-
-    return Commands.sequence(
-        // Reset data
-        Commands.runOnce(
-            () -> {
-              velocitySamples.clear();
-              voltageSamples.clear();
-            }),
-
-        // Allow modules to orient
-        Commands.run(
-                () -> {
-                  characterizer.accept(Volts.of(0.0));
-                },
-                subsystem)
-            .withTimeout(FF_START_DELAY),
-
-        // Start timer
-        Commands.runOnce(timer::restart),
-
-        // Accelerate and gather data
-        Commands.run(
-                () -> {
-                  double voltage = timer.get() * FF_RAMP_RATE;
-                  characterizer.accept(Volts.of(voltage));
-                  velocitySamples.add(velocitySupplier.get());
-                  voltageSamples.add(voltage);
-                },
-                subsystem)
-
-            // When cancelled, calculate and print results
-            .finallyDo(
-                () -> {
-                  int n = velocitySamples.size();
-                  double sumX = 0.0;
-                  double sumY = 0.0;
-                  double sumXY = 0.0;
-                  double sumX2 = 0.0;
-                  for (int i = 0; i < n; i++) {
-                    sumX += velocitySamples.get(i);
-                    sumY += voltageSamples.get(i);
-                    sumXY += velocitySamples.get(i) * voltageSamples.get(i);
-                    sumX2 += velocitySamples.get(i) * velocitySamples.get(i);
-                  }
-                  double kS = (sumY * sumX2 - sumX * sumXY) / (n * sumX2 - sumX * sumX);
-                  double kV = (n * sumXY - sumX * sumY) / (n * sumX2 - sumX * sumX);
-
-                  NumberFormat formatter = new DecimalFormat("#0.00000");
-                  System.out.println("********** Drive FF Characterization Results **********");
-                  System.out.println("\tkS: " + formatter.format(kS));
-                  System.out.println("\tkV: " + formatter.format(kV));
-                  SmartDashboard.putNumber("Characterization/Feedforward/kS", kS);
-                  SmartDashboard.putNumber("Characterization/Feedforward/kV", kV);
-                }));
+    return SystemIdentification.feedforwardCharacterization(
+        subsystem, characterizer, velocitySupplier);
   }
 
   /**
@@ -358,11 +298,17 @@ public class AkitDriveCommands {
    */
   public static Command drivePIDTuning(GenericSwerveDrivetrain swerveDrive, AkitSwerveDrive drive) {
     final double[] TARGET_VELOCITIES = {0.5, 1.0, 1.5, 2.0, 2.5, 3.0}; // Range of velocities in m/s
-    List<Double> allVelocityErrors = new LinkedList<>();
+    // Running mean of the velocity errors
+    double[] velocityErrorSum = {0.0};
+    int[] velocityErrorCount = {0};
 
     return Commands.sequence(
         // Reset data
-        Commands.runOnce(allVelocityErrors::clear),
+        Commands.runOnce(
+            () -> {
+              velocityErrorSum[0] = 0.0;
+              velocityErrorCount[0] = 0;
+            }),
 
         // Allow modules to orient once
         Commands.run(() -> drive.runCharacterization(0.0), swerveDrive)
@@ -404,7 +350,8 @@ public class AkitDriveCommands {
                                       }
                                       avgVelocity /= 4.0;
                                       double error = Math.abs(targetVelocity - avgVelocity);
-                                      allVelocityErrors.add(error);
+                                      velocityErrorSum[0] += error;
+                                      velocityErrorCount[0]++;
                                     },
                                     swerveDrive)
                                 .withTimeout(1.5)))
@@ -413,17 +360,14 @@ public class AkitDriveCommands {
         // When finished, calculate and print results
         Commands.runOnce(
             () -> {
-              if (allVelocityErrors.isEmpty()) {
+              int sampleCount = velocityErrorCount[0];
+              if (sampleCount == 0) {
                 System.out.println("No velocity error data collected.");
                 return;
               }
 
-              // Calculate average velocity error across all test points
-              double avgError = 0.0;
-              for (double error : allVelocityErrors) {
-                avgError += error;
-              }
-              avgError /= allVelocityErrors.size();
+              // Average velocity error across all test points
+              double avgError = velocityErrorSum[0] / sampleCount;
 
               // Calculate P value: P = Voltage / Error
               // This represents the proportional gain needed to achieve the targets with
@@ -434,15 +378,14 @@ public class AkitDriveCommands {
               System.out.println("********** Drive PID P Value Tuning Results **********");
               System.out.println(
                   "\tTarget Velocities: " + java.util.Arrays.toString(TARGET_VELOCITIES) + " m/s");
-              System.out.println("\tNumber of Samples: " + allVelocityErrors.size());
+              System.out.println("\tNumber of Samples: " + sampleCount);
               System.out.println(
                   "\tAverage Velocity Error: " + formatter.format(avgError) + " m/s");
               System.out.println("\tSuggested kP: " + formatter.format(kP));
               System.out.println("*******************************************************");
               SmartDashboard.putNumber("Characterization/Drive/P_Value", kP);
               SmartDashboard.putNumber("Characterization/Drive/Avg_Velocity_Error", avgError);
-              SmartDashboard.putNumber(
-                  "Characterization/Drive/Sample_Count", allVelocityErrors.size());
+              SmartDashboard.putNumber("Characterization/Drive/Sample_Count", sampleCount);
             }));
   }
 
@@ -464,11 +407,17 @@ public class AkitDriveCommands {
     final double[] TARGET_ANGLES = {
       15.0, 30.0, 45.0, 60.0, 75.0, 90.0
     }; // Range of angles in degrees
-    List<Double> allAngleErrors = new LinkedList<>();
+    // Running mean of the angle errors
+    double[] angleErrorSum = {0.0};
+    int[] angleErrorCount = {0};
 
     return Commands.sequence(
         // Reset data
-        Commands.runOnce(allAngleErrors::clear),
+        Commands.runOnce(
+            () -> {
+              angleErrorSum[0] = 0.0;
+              angleErrorCount[0] = 0;
+            }),
 
         // Test each target angle
         Commands.sequence(
@@ -507,24 +456,22 @@ public class AkitDriveCommands {
                                   }
                                   avgAngleError /= 4.0;
                                   avgAngleError = Math.toRadians(avgAngleError);
-                                  allAngleErrors.add(avgAngleError);
+                                  angleErrorSum[0] += avgAngleError;
+                                  angleErrorCount[0]++;
                                 })))
                 .toArray(Command[]::new)),
 
         // When finished, calculate and print results
         Commands.runOnce(
             () -> {
-              if (allAngleErrors.isEmpty()) {
+              int sampleCount = angleErrorCount[0];
+              if (sampleCount == 0) {
                 System.out.println("No angle error data collected.");
                 return;
               }
 
-              // Calculate average angle error across all test points
-              double avgError = 0.0;
-              for (double error : allAngleErrors) {
-                avgError += error;
-              }
-              avgError /= allAngleErrors.size();
+              // Average angle error across all test points
+              double avgError = angleErrorSum[0] / sampleCount;
 
               // Calculate P value: P = Voltage / Error
               double kP = avgError > 0.001 ? PID_TUNING_VOLTAGE / avgError : 0.0;
@@ -533,7 +480,7 @@ public class AkitDriveCommands {
               System.out.println("********** Steer PID P Value Tuning Results **********");
               System.out.println(
                   "\tTarget Angles: " + java.util.Arrays.toString(TARGET_ANGLES) + " degrees");
-              System.out.println("\tNumber of Samples: " + allAngleErrors.size());
+              System.out.println("\tNumber of Samples: " + sampleCount);
               System.out.println(
                   "\tAverage Angle Error: "
                       + formatter.format(Math.toDegrees(avgError))
@@ -543,8 +490,7 @@ public class AkitDriveCommands {
               SmartDashboard.putNumber("Characterization/Steer/P_Value", kP);
               SmartDashboard.putNumber(
                   "Characterization/Steer/Avg_Angle_Error", Math.toDegrees(avgError));
-              SmartDashboard.putNumber(
-                  "Characterization/Steer/Sample_Count", allAngleErrors.size());
+              SmartDashboard.putNumber("Characterization/Steer/Sample_Count", sampleCount);
             }));
   }
 }
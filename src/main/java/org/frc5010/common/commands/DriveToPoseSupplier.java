@@ -5,20 +5,19 @@
 package org.frc5010.common.commands;
 
 import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform2d;
-import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
-import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import java.util.function.Supplier;
 import org.frc5010.common.arch.GenericCommand;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
 import org.frc5010.common.constants.GenericPID;
+import org.frc5010.common.drive.pose.DriveToPoseProfile;
 import org.frc5010.common.drive.swerve.GenericSwerveDrivetrain;
+import org.frc5010.common.telemetry.DebugTelemetry;
 import org.frc5010.common.telemetry.DisplayDouble;
 import org.frc5010.common.telemetry.DisplayValuesHelper;
 
@@ -30,6 +29,24 @@ public class DriveToPoseSupplier extends GenericCommand {
   private DisplayValuesHelper displayValuesHelper =
       new DisplayValuesHelper(logPrefix, "PID Values");
 
+  /** Debug values published once per loop */
+  private final DebugTelemetry telemetry = DebugTelemetry.forCommand(logPrefix, LogLevel.DEBUG);
+
+  private final DebugTelemetry.NumberEntry xSpeedDisplay = telemetry.addNumber("X Speed");
+  private final DebugTelemetry.NumberEntry ySpeedDisplay = telemetry.addNumber("Y Speed");
+  private final DebugTelemetry.NumberEntry distanceSetpointDisplay =
+      telemetry.addNumber("Distance Velocity Setpoint");
+  private final DebugTelemetry.NumberEntry thetaSpeedDisplay = telemetry.addNumber("Theta Speed");
+  private final DebugTelemetry.BooleanEntry distanceAtGoalDisplay =
+      telemetry.addBoolean("Distance Controller At Setpoint");
+  private final DebugTelemetry.NumberEntry positionErrorDisplay =
+      telemetry.addNumber("PositionError");
+  private final DebugTelemetry.NumberEntry thetaErrorDisplay = telemetry.addNumber("Theta Error");
+  private final DebugTelemetry.BooleanEntry thetaAtGoalDisplay =
+      telemetry.addBoolean("Theta Controller at Setpoint");
+  private final DebugTelemetry.BooleanEntry interruptedDisplay =
+      telemetry.addBoolean("DriveToPositionInterrupted");
+
   private DisplayDouble translationkP;
   private DisplayDouble translationkD;
   private DisplayDouble rotationkP;
@@ -39,17 +56,8 @@ public class DriveToPoseSupplier extends GenericCommand {
   /** The PID constants for rotation */
   private final GenericPID pidRotation = new GenericPID(7.0, 0, 0);
 
-  private int onTargetCounter = 0;
-
-  /** The constraints for translation in the Y direction */
-  private final TrapezoidProfile.Constraints translationConstraints;
-  /** The constraints for rotation */
-  private final TrapezoidProfile.Constraints thetaConstraints;
-
-  /** The PID controller for translation in the X direction */
-  private final ProfiledPIDController distanceController;
-  /** The PID controller for rotation */
-  private final ProfiledPIDController thetaController;
+  /** The profile to the target, solved when the target changes */
+  private final DriveToPoseProfile profile;
 
   /** The target pose */
   private Pose2d targetPose;
@@ -61,28 +69,23 @@ public class DriveToPoseSupplier extends GenericCommand {
   /** The target pose provider */
   private Supplier<Pose2d> targetPoseProvider;
 
-  private Supplier<ChassisSpeeds> initialVelocity = () -> new ChassisSpeeds();
+  /** The velocity used when no initial velocity is supplied */
+  private static final ChassisSpeeds NO_VELOCITY = new ChassisSpeeds();
+
+  private Supplier<ChassisSpeeds> initialVelocity = () -> NO_VELOCITY;
 
   private final double maxAngularSpeed = 3.14;
   private final double MAX_ANGULAR_ACCELERATION = 5.0;
 
-  /** The speed that the robot will drive at in the X direction */
-  private double translationalSpeed;
-  /** The speed that the robot will rotate at */
-  private double thetaSpeed;
-
   private final double MAX_VELOCITY = 4.18;
+  /** How far ahead the future position is predicted, one loop, in seconds */
+  private static final double LOOKAHEAD = 0.02;
   private double maxAcceleration = 4.3;
 
-  private Translation2d lastSetpointTranslation = Translation2d.kZero;
-  private Rotation2d lastSetpointRotation = Rotation2d.kZero;
+  /** The robot relative speeds commanded every loop */
+  private final ChassisSpeeds chassisSpeeds = new ChassisSpeeds();
+  /** The time of the last loop */
   private double lastTime = 0.0;
-  // private double driveErrorAbs = 0.0;
-  // private double thetaErrorAbs = 0.0;
-  private double speedTowardsTarget = 0.0;
-  private Translation2d currentVelocity = new Translation2d();
-  private double previousTime = 0.0, deltaTime = 0.0;
-  private final int NUM_CYCLES = 1;
 
   /**
    * Creates a new DriveToPosition command.
@@ -99,29 +102,16 @@ public class DriveToPoseSupplier extends GenericCommand {
       Transform2d offset,
       double maxAcceleration) {
     this.maxAcceleration = maxAcceleration;
-    translationConstraints = new TrapezoidProfile.Constraints(MAX_VELOCITY, maxAcceleration);
-
-    thetaConstraints = new TrapezoidProfile.Constraints(maxAngularSpeed, MAX_ANGULAR_ACCELERATION);
-
-    distanceController =
-        new ProfiledPIDController(
-            pidTranslation.getkP(),
-            pidTranslation.getkI(),
-            pidTranslation.getkD(),
-            translationConstraints);
-    thetaController =
-        new ProfiledPIDController(
-            pidRotation.getkP(), pidRotation.getkI(), pidRotation.getkD(), thetaConstraints);
+    profile =
+        new DriveToPoseProfile(
+                MAX_VELOCITY, maxAcceleration, maxAngularSpeed, MAX_ANGULAR_ACCELERATION)
+            .withTolerance(0.02, Units.degreesToRadians(1.0));
 
     // Use addRequirements() here to declare subsystem dependencies.
     this.swerveSubsystem = swerveSubsystem;
     this.poseProvider = poseProvider;
     this.targetPoseProvider = targetPoseProvider;
 
-    distanceController.setTolerance(0.02);
-    thetaController.setTolerance(Units.degreesToRadians(1.0));
-    thetaController.enableContinuousInput(-Math.PI, Math.PI);
-
     targetTransform = offset;
 
     translationkP = displayValuesHelper.makeConfigDouble("Translation kP");
@@ -145,43 +135,25 @@ public class DriveToPoseSupplier extends GenericCommand {
     addRequirements(swerveSubsystem);
   }
 
-  public Translation2d getVectorToTarget() {
-    Transform2d toTarget = targetPoseProvider.get().minus(poseProvider.get());
-    return new Translation2d(
-        toTarget.getX() / toTarget.getTranslation().getNorm(),
-        toTarget.getY() / toTarget.getTranslation().getNorm());
-  }
-
   public double getDistanceToTarget() {
-    return targetPoseProvider
-        .get()
-        .getTranslation()
-        .getDistance(poseProvider.get().getTranslation());
+    Pose2d target = targetPoseProvider.get();
+    Pose2d robot = poseProvider.get();
+    return Math.hypot(target.getX() - robot.getX(), target.getY() - robot.getY());
   }
 
   public double getFutureDistanceToTarget() {
-    return targetPoseProvider.get().getTranslation().getDistance(getFuturePosition());
-  }
-
-  public Translation2d getFuturePosition() {
-    return poseProvider.get().getTranslation().plus(currentVelocity.times(deltaTime * NUM_CYCLES));
+    Pose2d target = targetPoseProvider.get();
+    Pose2d robot = poseProvider.get();
+    ChassisSpeeds velocity = initialVelocity.get();
+    return Math.hypot(
+        target.getX() - (robot.getX() + velocity.vxMetersPerSecond * LOOKAHEAD),
+        target.getY() - (robot.getY() + velocity.vyMetersPerSecond * LOOKAHEAD));
   }
 
   public Rotation2d getAngleToTarget() {
-    return new Translation2d(
-            targetPoseProvider.get().getX() - poseProvider.get().getX(),
-            targetPoseProvider.get().getY() - poseProvider.get().getY())
-        .getAngle()
-        .plus(Rotation2d.k180deg);
-  }
-
-  public Rotation2d getFutureAngleToTarget() {
-    Translation2d futurePose = getFuturePosition();
-    return new Translation2d(
-            targetPoseProvider.get().getX() - futurePose.getX(),
-            targetPoseProvider.get().getY() - futurePose.getY())
-        .getAngle()
-        .plus(Rotation2d.k180deg);
+    Pose2d target = targetPoseProvider.get();
+    Pose2d robot = poseProvider.get();
+    return new Rotation2d(robot.getX() - target.getX(), robot.getY() - target.getY());
   }
 
   public DriveToPoseSupplier withInitialVelocity(Supplier<ChassisSpeeds> speedSupplier) {
@@ -191,162 +163,103 @@ public class DriveToPoseSupplier extends GenericCommand {
 
   private void updateTargetPose(Pose2d pose) {
     targetPose = pose;
-
-    distanceController.setGoal(0);
-    thetaController.setGoal(targetPose.getRotation().getRadians());
     swerveSubsystem.getPoseEstimator().setTargetPoseOnField(targetPose, "Target Pose");
   }
 
-  private void updateSpeedTowardsTarget() {
-    currentVelocity =
-        new Translation2d(
-            initialVelocity.get().vxMetersPerSecond, initialVelocity.get().vyMetersPerSecond);
-    speedTowardsTarget =
-        Math.min(
-            0.0,
-            -currentVelocity
-                .rotateBy(
-                    targetPoseProvider
-                        .get()
-                        .getTranslation()
-                        .minus(poseProvider.get().getTranslation())
-                        .getAngle()
-                        .unaryMinus())
-                .getX());
-  }
-
   // Called when the command is initially scheduled.
   @Override
   public void init() {
-    distanceController.setP(translationkP.getValue());
-    distanceController.setD(translationkD.getValue());
-
-    thetaController.setP(rotationkP.getValue());
-    thetaController.setD(rotationkD.getValue());
+    profile
+        .withTranslationGains(translationkP.getValue(), translationkD.getValue())
+        .withRotationGains(rotationkP.getValue(), rotationkD.getValue());
 
     Pose2d robotPose = poseProvider.get();
-    onTargetCounter = 0;
-
-    Translation2d toTarget = getVectorToTarget();
-    thetaController.reset(
-        robotPose.getRotation().getRadians(), initialVelocity.get().omegaRadiansPerSecond);
-    updateSpeedTowardsTarget();
-
-    distanceController.reset(getDistanceToTarget(), speedTowardsTarget);
+    Pose2d providedTargetPose = targetPoseProvider.get();
+    updateTargetPose(
+        null != providedTargetPose ? providedTargetPose.transformBy(targetTransform) : robotPose);
 
-    lastSetpointTranslation = robotPose.getTranslation();
-    lastSetpointRotation = targetPoseProvider.get().getRotation();
+    ChassisSpeeds velocity = initialVelocity.get();
     lastTime = Timer.getTimestamp();
-
-    if (null != targetPoseProvider.get()) {
-      updateTargetPose(targetPoseProvider.get().transformBy(targetTransform));
-    }
-
-    previousTime = Timer.getFPGATimestamp();
+    profile.reset(
+        lastTime,
+        robotPose.getX(),
+        robotPose.getY(),
+        robotPose.getRotation().getRadians(),
+        velocity.vxMetersPerSecond,
+        velocity.vyMetersPerSecond,
+        velocity.omegaRadiansPerSecond,
+        targetPose.getX(),
+        targetPose.getY(),
+        targetPose.getRotation().getRadians());
   }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
     Pose2d robotPose2d = poseProvider.get();
+    double x = robotPose2d.getX();
+    double y = robotPose2d.getY();
+    double heading = robotPose2d.getRotation().getRadians();
+    lastTime = Timer.getTimestamp();
 
     Pose2d providedTargetPose = targetPoseProvider.get();
     if (null != providedTargetPose) {
-      Pose2d target = providedTargetPose;
-      if (target.getTranslation().getDistance(targetPose.getTranslation()) < 1.0) {
-        updateTargetPose(target);
+      // The offset applied as transformBy would, without allocating the transformed pose
+      double cos = providedTargetPose.getRotation().getCos();
+      double sin = providedTargetPose.getRotation().getSin();
+      double targetX =
+          providedTargetPose.getX() + targetTransform.getX() * cos - targetTransform.getY() * sin;
+      double targetY =
+          providedTargetPose.getY() + targetTransform.getX() * sin + targetTransform.getY() * cos;
+      double targetHeading =
+          MathUtil.angleModulus(
+              providedTargetPose.getRotation().getRadians()
+                  + targetTransform.getRotation().getRadians());
+      // Solve the profile again from the current state whenever the target moves
+      if (profile.setTarget(lastTime, x, y, heading, targetX, targetY, targetHeading)) {
+        updateTargetPose(new Pose2d(targetX, targetY, new Rotation2d(targetHeading)));
       }
     }
 
-    // System.out.println(robotPose2d);
-
-    // System.out.println(robotPose);
-
-    double minFFRadius = 0.05;
-    double maxFFRadius = 0.1;
-    currentVelocity =
-        new Translation2d(
-            initialVelocity.get().vxMetersPerSecond, initialVelocity.get().vyMetersPerSecond);
-    double distanceToGoal = getDistanceToTarget();
-    double futureDistanceToGoal = getFutureDistanceToTarget();
-    double ffInclusionFactor =
-        MathUtil.clamp((distanceToGoal - minFFRadius) / (maxFFRadius - minFFRadius), 0.0, 1.0);
-    // distanceController.reset(
-    //     lastSetpointTranslation.getDistance(targetPose.getTranslation()),
-    //     distanceController.getSetpoint().velocity);
-    deltaTime = Timer.getFPGATimestamp() - previousTime;
-    previousTime = Timer.getFPGATimestamp();
-
-    double translationalSpeed =
-        distanceToGoal > 0.25
-            ? distanceController.calculate(futureDistanceToGoal, 0.0)
-            : distanceController.calculate(distanceToGoal, 0.0);
-    Rotation2d movementAngle = getAngleToTarget();
-
-    lastSetpointTranslation =
-        new Pose2d(
-                targetPose.getTranslation(),
-                new Rotation2d(
-                    Math.atan2(
-                        robotPose2d.getTranslation().getY() - targetPose.getTranslation().getY(),
-                        robotPose2d.getTranslation().getX() - targetPose.getTranslation().getX())))
-            .transformBy(
-                new Transform2d(distanceController.getSetpoint().position, 0.0, new Rotation2d()))
-            .getTranslation();
-
-    double speedX = movementAngle.getCos() * translationalSpeed;
-    double speedY = movementAngle.getSin() * translationalSpeed;
-
-    thetaSpeed =
-        thetaController.calculate(
-            robotPose2d.getRotation().getRadians(),
-            new TrapezoidProfile.State(
-                targetPose.getRotation().getRadians(),
-                (targetPose.getRotation().minus(lastSetpointRotation)).getRadians()
-                    / (Timer.getTimestamp() - lastTime)));
-
-    lastSetpointRotation = targetPose.getRotation();
-
-    lastTime = Timer.getTimestamp();
-    ChassisSpeeds chassisSpeeds =
-        ChassisSpeeds.fromFieldRelativeSpeeds(
-            speedX
-                + distanceController.getSetpoint().velocity
-                    * movementAngle.getCos()
-                    * ffInclusionFactor,
-            speedY
-                + distanceController.getSetpoint().velocity
-                    * movementAngle.getSin()
-                    * ffInclusionFactor,
-            thetaSpeed
-                + thetaController.getSetpoint().velocity * Math.min(ffInclusionFactor * 5, 1.0),
-            swerveSubsystem.getHeading());
-
-    SmartDashboard.putNumber("X Speed", chassisSpeeds.vxMetersPerSecond);
-    SmartDashboard.putNumber("Y Speed", chassisSpeeds.vyMetersPerSecond);
-    SmartDashboard.putNumber(
-        "Distance Velocity Setpoint", distanceController.getSetpoint().velocity);
-    SmartDashboard.putNumber("Theta Speed", chassisSpeeds.omegaRadiansPerSecond);
-    SmartDashboard.putBoolean("Distance Controller At Setpoint", distanceController.atGoal());
-    SmartDashboard.putNumber("VelocityError", distanceController.getVelocityError());
-    SmartDashboard.putNumber("PositionError", distanceController.getPositionError());
-    SmartDashboard.putNumber("Theta Error", thetaController.getPositionError());
-
-    SmartDashboard.putBoolean("Theta Controller at Setpoint", thetaController.atGoal());
+    ChassisSpeeds velocity = initialVelocity.get();
+    profile.calculate(
+        lastTime,
+        x,
+        y,
+        heading,
+        velocity.vxMetersPerSecond,
+        velocity.vyMetersPerSecond,
+        velocity.omegaRadiansPerSecond);
+
+    // Field relative to robot relative, using the gyro heading
+    Rotation2d gyroHeading = swerveSubsystem.getHeading();
+    double cos = gyroHeading.getCos();
+    double sin = gyroHeading.getSin();
+    chassisSpeeds.vxMetersPerSecond = profile.getVx() * cos + profile.getVy() * sin;
+    chassisSpeeds.vyMetersPerSecond = -profile.getVx() * sin + profile.getVy() * cos;
+    chassisSpeeds.omegaRadiansPerSecond = profile.getOmega();
+
+    xSpeedDisplay.set(chassisSpeeds.vxMetersPerSecond);
+    ySpeedDisplay.set(chassisSpeeds.vyMetersPerSecond);
+    distanceSetpointDisplay.set(profile.getReferenceSpeed());
+    thetaSpeedDisplay.set(chassisSpeeds.omegaRadiansPerSecond);
+    distanceAtGoalDisplay.set(profile.atTranslationGoal());
+    positionErrorDisplay.set(profile.getTranslationError());
+    thetaErrorDisplay.set(profile.getRotationError());
+    thetaAtGoalDisplay.set(profile.atRotationGoal());
     swerveSubsystem.drive(chassisSpeeds);
   }
 
   // Called once the command ends or is interrupted.
   @Override
   public void stop(boolean interrupted) {
-    onTargetCounter = 0;
-    SmartDashboard.putBoolean("DriveToPositionInterrupted", interrupted);
+    interruptedDisplay.set(interrupted);
     swerveSubsystem.drive(new ChassisSpeeds(0, 0, 0));
   }
 
   // Returns true when the command should end.
   @Override
   public boolean isFinished() {
-    return distanceController.atGoal() && thetaController.atGoal();
+    return profile.atGoal(lastTime);
   }
 }
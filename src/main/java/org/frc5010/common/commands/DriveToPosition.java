@@ -5,18 +5,20 @@
 package org.frc5010.common.commands;
 
 import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
-import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.Timer;
 import java.util.function.Supplier;
 import org.frc5010.common.arch.GenericCommand;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
 import org.frc5010.common.constants.GenericPID;
+import org.frc5010.common.drive.pose.DriveToPoseProfile;
 import org.frc5010.common.drive.swerve.GenericSwerveDrivetrain;
+import org.frc5010.common.telemetry.DebugTelemetry;
 import org.frc5010.common.telemetry.DisplayDouble;
 import org.frc5010.common.telemetry.DisplayValuesHelper;
 
@@ -39,19 +41,12 @@ public class DriveToPosition extends GenericCommand {
 
   private int onTargetCounter = 0;
 
-  /** The constraints for translation in the X direction */
-  private final TrapezoidProfile.Constraints xConstraints;
-  /** The constraints for translation in the Y direction */
-  private final TrapezoidProfile.Constraints yConstraints;
-  /** The constraints for rotation */
-  private final TrapezoidProfile.Constraints thetaConstraints;
-
-  /** The PID controller for translation in the X direction */
-  private final ProfiledPIDController xController;
-  /** The PID controller for translation in the Y direction */
-  private final ProfiledPIDController yController;
-  /** The PID controller for rotation */
-  private final ProfiledPIDController thetaController;
+  /** The profile to the target, solved when the target changes */
+  private final DriveToPoseProfile profile;
+  /** The top drive speed, which scales the translation gains */
+  private final double maxSpeed;
+  /** The top turn speed, which scales the rotation gains */
+  private final double maxAngularSpeed;
 
   /** The target pose */
   private Pose2d targetPose;
@@ -63,14 +58,28 @@ public class DriveToPosition extends GenericCommand {
   /** The target pose provider */
   private Supplier<Pose3d> targetPoseProvider;
 
-  private Supplier<ChassisSpeeds> initialVelocity = () -> new ChassisSpeeds();
+  /** The velocity used when no initial velocity is supplied */
+  private static final ChassisSpeeds NO_VELOCITY = new ChassisSpeeds();
+
+  private Supplier<ChassisSpeeds> initialVelocity = () -> NO_VELOCITY;
+
+  /** Debug values published once per loop */
+  private final DebugTelemetry telemetry = DebugTelemetry.forCommand(logPrefix, LogLevel.DEBUG);
 
-  /** The speed that the robot will drive at in the X direction */
-  private double xSpeed;
-  /** The speed that the robot will drive at in the Y direction */
-  private double ySpeed;
-  /** The speed that the robot will rotate at */
-  private double thetaSpeed;
+  private final DebugTelemetry.NumberEntry xSpeedDisplay = telemetry.addNumber("X Speed");
+  private final DebugTelemetry.NumberEntry ySpeedDisplay = telemetry.addNumber("Y Speed");
+  private final DebugTelemetry.NumberEntry thetaSpeedDisplay = telemetry.addNumber("Theta Speed");
+  private final DebugTelemetry.BooleanEntry translationAtGoalDisplay =
+      telemetry.addBoolean("Translation at Setpoint");
+  private final DebugTelemetry.BooleanEntry thetaAtGoalDisplay =
+      telemetry.addBoolean("Theta Controller at Setpoint");
+  private final DebugTelemetry.BooleanEntry interruptedDisplay =
+      telemetry.addBoolean("DriveToPositionInterrupted");
+
+  /** The robot relative speeds commanded every loop */
+  private final ChassisSpeeds chassisSpeeds = new ChassisSpeeds();
+  /** The time of the last loop */
+  private double lastTime = 0.0;
 
   /**
    * Creates a new DriveToPosition command.
@@ -85,45 +94,24 @@ public class DriveToPosition extends GenericCommand {
       Supplier<Pose2d> poseProvider,
       Supplier<Pose3d> targetPoseProvider,
       Transform2d offset) {
-    xConstraints =
-        new TrapezoidProfile.Constraints(
-            swerveSubsystem.getSwerveConstants().getkTeleDriveMaxSpeedMetersPerSecond()
-                / Math.sqrt(2),
-            swerveSubsystem.getSwerveConstants().getkTeleDriveMaxAccelerationUnitsPerSecond()
-                / Math.sqrt(2));
-    yConstraints =
-        new TrapezoidProfile.Constraints(
-            swerveSubsystem.getSwerveConstants().getkTeleDriveMaxSpeedMetersPerSecond()
-                / Math.sqrt(2),
-            swerveSubsystem.getSwerveConstants().getkTeleDriveMaxAccelerationUnitsPerSecond()
-                / Math.sqrt(2));
-    thetaConstraints =
-        new TrapezoidProfile.Constraints(
-            swerveSubsystem.getSwerveConstants().getkTeleDriveMaxAngularSpeedRadiansPerSecond(),
-            swerveSubsystem
-                .getSwerveConstants()
-                .getkTeleDriveMaxAngularAccelerationUnitsPerSecond());
-
-    xController =
-        new ProfiledPIDController(
-            pidTranslation.getkP(), pidTranslation.getkI(), pidTranslation.getkD(), xConstraints);
-    yController =
-        new ProfiledPIDController(
-            pidTranslation.getkP(), pidTranslation.getkI(), pidTranslation.getkD(), yConstraints);
-    thetaController =
-        new ProfiledPIDController(
-            pidRotation.getkP(), pidRotation.getkI(), pidRotation.getkD(), thetaConstraints);
+    maxSpeed = swerveSubsystem.getSwerveConstants().getkTeleDriveMaxSpeedMetersPerSecond();
+    maxAngularSpeed =
+        swerveSubsystem.getSwerveConstants().getkTeleDriveMaxAngularSpeedRadiansPerSecond();
+    profile =
+        new DriveToPoseProfile(
+                maxSpeed,
+                swerveSubsystem.getSwerveConstants().getkTeleDriveMaxAccelerationUnitsPerSecond(),
+                maxAngularSpeed,
+                swerveSubsystem
+                    .getSwerveConstants()
+                    .getkTeleDriveMaxAngularAccelerationUnitsPerSecond())
+            .withTolerance(0.02, Units.degreesToRadians(3));
 
     // Use addRequirements() here to declare subsystem dependencies.
     this.swerveSubsystem = swerveSubsystem;
     this.poseProvider = poseProvider;
     this.targetPoseProvider = targetPoseProvider;
 
-    xController.setTolerance(0.02);
-    yController.setTolerance(0.02);
-    thetaController.setTolerance(Units.degreesToRadians(3));
-    thetaController.enableContinuousInput(-Math.PI, Math.PI);
-
     targetTransform = offset;
 
     translationkP = displayValuesHelper.makeConfigDouble("Translation kP");
@@ -154,113 +142,93 @@ public class DriveToPosition extends GenericCommand {
 
   private void updateTargetPose(Pose2d pose) {
     targetPose = pose;
-
-    xController.setGoal(targetPose.getX());
-    yController.setGoal(targetPose.getY());
-    thetaController.setGoal(targetPose.getRotation().getRadians());
     swerveSubsystem.getPoseEstimator().setTargetPoseOnField(targetPose, "Target Pose");
   }
 
   // Called when the command is initially scheduled.
   @Override
   public void init() {
-    xController.setP(translationkP.getValue());
-    xController.setD(translationkD.getValue());
-    yController.setP(translationkP.getValue());
-    yController.setD(translationkD.getValue());
-    thetaController.setP(rotationkP.getValue());
-    thetaController.setD(rotationkD.getValue());
+    // The gains act on the fraction of top speed, as the controllers this replaced did
+    profile
+        .withTranslationGains(
+            translationkP.getValue() * maxSpeed, translationkD.getValue() * maxSpeed)
+        .withRotationGains(
+            rotationkP.getValue() * maxAngularSpeed, rotationkD.getValue() * maxAngularSpeed);
 
     Pose2d robotPose = poseProvider.get();
     onTargetCounter = 0;
 
-    thetaController.reset(
-        robotPose.getRotation().getRadians(), initialVelocity.get().omegaRadiansPerSecond);
-    xController.reset(robotPose.getX(), initialVelocity.get().vxMetersPerSecond);
-    yController.reset(robotPose.getY(), initialVelocity.get().vyMetersPerSecond);
-
-    if (null != targetPoseProvider.get()) {
-      updateTargetPose(targetPoseProvider.get().toPose2d().transformBy(targetTransform));
-    }
+    Pose3d providedTargetPose = targetPoseProvider.get();
+    updateTargetPose(
+        null != providedTargetPose
+            ? providedTargetPose.toPose2d().transformBy(targetTransform)
+            : robotPose);
+
+    ChassisSpeeds velocity = initialVelocity.get();
+    lastTime = Timer.getTimestamp();
+    profile.reset(
+        lastTime,
+        robotPose.getX(),
+        robotPose.getY(),
+        robotPose.getRotation().getRadians(),
+        velocity.vxMetersPerSecond,
+        velocity.vyMetersPerSecond,
+        velocity.omegaRadiansPerSecond,
+        targetPose.getX(),
+        targetPose.getY(),
+        targetPose.getRotation().getRadians());
   }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
-    var robotPose2d = poseProvider.get();
+    Pose2d robotPose2d = poseProvider.get();
+    double x = robotPose2d.getX();
+    double y = robotPose2d.getY();
+    double heading = robotPose2d.getRotation().getRadians();
+    lastTime = Timer.getTimestamp();
 
     Pose3d providedTargetPose = targetPoseProvider.get();
     if (null != providedTargetPose) {
-      Pose2d target = providedTargetPose.toPose2d().transformBy(targetTransform);
-      if (target.getTranslation().getDistance(targetPose.getTranslation()) < 1.0) {
-        updateTargetPose(target);
+      // The offset applied as toPose2d().transformBy would, without allocating either pose
+      double providedHeading = providedTargetPose.getRotation().getZ();
+      double cos = Math.cos(providedHeading);
+      double sin = Math.sin(providedHeading);
+      double targetX =
+          providedTargetPose.getX() + targetTransform.getX() * cos - targetTransform.getY() * sin;
+      double targetY =
+          providedTargetPose.getY() + targetTransform.getX() * sin + targetTransform.getY() * cos;
+      double targetHeading =
+          MathUtil.angleModulus(providedHeading + targetTransform.getRotation().getRadians());
+      // Solve the profile again from the current state whenever the target moves
+      if (profile.setTarget(lastTime, x, y, heading, targetX, targetY, targetHeading)) {
+        updateTargetPose(new Pose2d(targetX, targetY, new Rotation2d(targetHeading)));
       }
     }
 
-    // System.out.println(robotPose2d);
-
-    // System.out.println(robotPose);
-
-    xSpeed =
-        xController.calculate(robotPose2d.getX())
-            * swerveSubsystem.getSwerveConstants().getkTeleDriveMaxSpeedMetersPerSecond();
-    ySpeed =
-        yController.calculate(robotPose2d.getY())
-            * swerveSubsystem.getSwerveConstants().getkTeleDriveMaxSpeedMetersPerSecond();
-    thetaSpeed =
-        thetaController.calculate(robotPose2d.getRotation().getRadians())
-            * swerveSubsystem.getSwerveConstants().getkTeleDriveMaxAngularSpeedRadiansPerSecond();
-
-    // if (xController.atGoal()) {
-    //   xSpeed = 0;
-    // }
-
-    // if (yController.atGoal()) {
-    //   ySpeed = 0;
-    // }
-
-    // if (thetaController.atGoal()) {
-    //   thetaSpeed = 0;
-    // }
-
-    // // Transform the tag's pose to set our goal
-
-    // System.out.println(goalPose);
-    // SmartDashboard.putNumber("X Speed", xSpeed);
-    // SmartDashboard.putNumber("Y Speed", ySpeed);
-    // SmartDashboard.putNumber("Theta Speed", thetaSpeed);
-
-    // System.out.println(thetaSpeed);
-    // swerveSubsystem.drive(new ChassisSpeeds(-xSpeed, -ySpeed, -thetaSpeed));
-    // System.out.println("xSpeed: " + xController.calculate(robotPose.getX()) +
-    // "\nySpeed: " + yController.calculate(robotPose.getY()) +
-    // "\nTheta: " +
-    // thetaController.calculate(robotPose2d.getRotation().getRadians()));
-
-    // swerveSubsystem.drive(new ChassisSpeeds(
-    // xController.calculate(robotPose.getX()) *
-    // swerveSubsystem.getSwerveConstants().getkTeleDriveMaxSpeedMetersPerSecond(),
-    // yController.calculate(robotPose.getY()) *
-    // swerveSubsystem.getSwerveConstants().getkTeleDriveMaxSpeedMetersPerSecond()
-    // ,0));
-    double minFFRadius = 0.05;
-    double maxFFRadius = 0.15;
-    double distanceToGoal = robotPose2d.getTranslation().getDistance(targetPose.getTranslation());
-    double ffInclusionFactor =
-        MathUtil.clamp((distanceToGoal - minFFRadius) / (maxFFRadius - minFFRadius), 0.0, 1.0);
-    ChassisSpeeds chassisSpeeds =
-        ChassisSpeeds.fromFieldRelativeSpeeds(
-            xSpeed + xController.getSetpoint().velocity * ffInclusionFactor,
-            ySpeed + yController.getSetpoint().velocity * ffInclusionFactor,
-            thetaSpeed + thetaController.getSetpoint().velocity * ffInclusionFactor,
-            swerveSubsystem.getHeading());
-
-    SmartDashboard.putNumber("X Speed", chassisSpeeds.vxMetersPerSecond);
-    SmartDashboard.putNumber("Y Speed", chassisSpeeds.vyMetersPerSecond);
-    SmartDashboard.putNumber("Theta Speed", chassisSpeeds.omegaRadiansPerSecond);
-    SmartDashboard.putBoolean("X Controller at Setpoins", xController.atGoal());
-    SmartDashboard.putBoolean("Y Controller at Setpoins", yController.atGoal());
-    SmartDashboard.putBoolean("Theta Controller at Setpoins", thetaController.atGoal());
+    ChassisSpeeds velocity = initialVelocity.get();
+    profile.calculate(
+        lastTime,
+        x,
+        y,
+        heading,
+        velocity.vxMetersPerSecond,
+        velocity.vyMetersPerSecond,
+        velocity.omegaRadiansPerSecond);
+
+    // Field relative to robot relative, using the gyro heading
+    Rotation2d gyroHeading = swerveSubsystem.getHeading();
+    double cos = gyroHeading.getCos();
+    double sin = gyroHeading.getSin();
+    chassisSpeeds.vxMetersPerSecond = profile.getVx() * cos + profile.getVy() * sin;
+    chassisSpeeds.vyMetersPerSecond = -profile.getVx() * sin + profile.getVy() * cos;
+    chassisSpeeds.omegaRadiansPerSecond = profile.getOmega();
+
+    xSpeedDisplay.set(chassisSpeeds.vxMetersPerSecond);
+    ySpeedDisplay.set(chassisSpeeds.vyMetersPerSecond);
+    thetaSpeedDisplay.set(chassisSpeeds.omegaRadiansPerSecond);
+    translationAtGoalDisplay.set(profile.atTranslationGoal());
+    thetaAtGoalDisplay.set(profile.atRotationGoal());
     swerveSubsystem.drive(chassisSpeeds);
   }
 
@@ -268,7 +236,7 @@ public class DriveToPosition extends GenericCommand {
   @Override
   public void stop(boolean interrupted) {
     onTargetCounter = 0;
-    SmartDashboard.putBoolean("DriveToPositionInterrupted", interrupted);
+    interruptedDisplay.set(interrupted);
     swerveSubsystem.drive(new ChassisSpeeds(0, 0, 0));
   }
 
@@ -276,7 +244,7 @@ public class DriveToPosition extends GenericCommand {
   @Override
   public boolean isFinished() {
 
-    if (xController.atGoal() && yController.atGoal() && thetaController.atGoal()) {
+    if (profile.atGoal(lastTime)) {
       onTargetCounter++;
     }
 
@@ -0,0 +1,107 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
+
+/**
+ * Creates the devices of a robot in order and reports how long each one took.
+ *
+ * <p>Each device is added as a named node that lists the devices it needs. Every device is created
+ * on the thread that calls {@link #run()}, in the order the nodes were added, so the robot's maps
+ * fill in the same order every boot. The devices created here publish to the dashboard, set static
+ * telemetry or share the vision simulation as they are constructed, none of which is thread safe,
+ * so the graph is serial. Naming the dependencies still catches a device added before the device
+ * it registers with.
+ *
+ * <p>The total boot time is printed when the graph finishes. The time of every device is printed
+ * too when the graph's log level is {@link LogLevel#DEBUG}.
+ */
+public class DeviceInitGraph {
+  private static final class Node {
+    final String name;
+    final Runnable create;
+    long nanos = 0;
+
+    Node(String name, Runnable create) {
+      this.name = name;
+      this.create = create;
+    }
+
+    void create() {
+      long start = System.nanoTime();
+      try {
+        create.run();
+      } catch (RuntimeException e) {
+        throw new RuntimeException("Failed to create " + name, e);
+      }
+      nanos = System.nanoTime() - start;
+    }
+  }
+
+  private final LogLevel logLevel;
+  private final ArrayList<Node> nodes = new ArrayList<>();
+  private final Map<String, Integer> indices = new HashMap<>();
+
+  /**
+   * Creates an empty graph.
+   *
+   * @param logLevel the log level; the time of every device is printed at {@link LogLevel#DEBUG}
+   */
+  public DeviceInitGraph(LogLevel logLevel) {
+    this.logLevel = logLevel;
+  }
+
+  /**
+   * Adds a device.
+   *
+   * @param name the unique name of the device
+   * @param create creates the device and adds it to the robot
+   * @param dependencies the names of devices, already added, that must be created first
+   * @return this graph
+   * @throws IllegalArgumentException if the name is taken or a dependency has not been added
+   */
+  public DeviceInitGraph add(String name, Runnable create, String... dependencies) {
+    if (indices.containsKey(name)) {
+      throw new IllegalArgumentException("Device " + name + " was already added");
+    }
+    for (String dependency : dependencies) {
+      if (!indices.containsKey(dependency)) {
+        throw new IllegalArgumentException(
+            "Device " + name + " depends on " + dependency + ", which has not been added");
+      }
+    }
+    indices.put(name, nodes.size());
+    nodes.add(new Node(name, create));
+    return this;
+  }
+
+  /**
+   * Creates every device in the order it was added and prints the boot time.
+   *
+   * @throws RuntimeException if a device could not be created
+   */
+  public void run() {
+    long start = System.nanoTime();
+    for (Node node : nodes) {
+      node.create();
+    }
+    printTimings(System.nanoTime() - start);
+  }
+
+  private void printTimings(long totalNanos) {
+    if (LogLevel.DEBUG == logLevel) {
+      for (Node node : nodes) {
+        System.out.println(
+            String.format("Device init %-24s %8.1f ms", node.name, node.nanos / 1e6));
+      }
+    }
+    System.out.println(
+        String.format("Device init created %d devices in %.1f ms", nodes.size(), totalNanos / 1e6));
+  }
+}
@@ -11,11 +11,13 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.Optional;
 import org.frc5010.common.arch.GenericRobot;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
 import org.frc5010.common.config.json.AKitSwerveDrivetrainJson;
 import org.frc5010.common.config.json.CameraConfigurationJson;
 import org.frc5010.common.config.json.DriveteamControllersJson;
 import org.frc5010.common.config.json.DrivetrainPropertiesJson;
 import org.frc5010.common.config.json.RobotJson;
+import org.frc5010.common.config.json.ScoringPosesJson;
 import org.frc5010.common.config.json.VisionPropertiesJson;
 import org.frc5010.common.config.json.YAGSLDrivetrainJson;
 import org.frc5010.common.config.json.devices.LEDStripParser;
@@ -32,6 +34,7 @@ import org.frc5010.common.config.json.devices.LEDStripParser;
  *   <li>Vision system cameras
  *   <li>Drivetrain (swerve or other type)
  *   <li>LED strips
+ *   <li>Scoring poses, if the robot has a {@value ScoringPosesJson#FILE} file
  * </ul>
  *
  * <p>The typical usage pattern is:
@@ -59,6 +62,10 @@ public class RobotParser {
   private static Map<String, CameraConfigurationJson> camerasMap;
   /** JSON class for the drivetrain */
   private static Optional<DrivetrainPropertiesJson> driveTrainJson = Optional.empty();
+  /** JSON class for the scoring poses */
+  private static Optional<ScoringPosesJson> scoringPosesJson = Optional.empty();
+  /** Log level of the robot, which sets how much of the boot timing is printed */
+  private static LogLevel logLevel = LogLevel.COMPETITION;
 
   /**
    * Creates a new RobotParser and initializes robot configuration from JSON files.
@@ -72,6 +79,7 @@ public class RobotParser {
    *   <li>Loads and parses cameras.json for vision system configuration
    *   <li>Parses LED strip configurations
    *   <li>Loads drivetrain configuration (YAGSL swerve or AdvantageKit swerve)
+   *   <li>Loads the scoring poses, if present
    * </ol>
    *
    * <p>The configuration is not fully applied to the robot until {@link #createRobot(GenericRobot)}
@@ -92,6 +100,7 @@ public class RobotParser {
     RobotJson robotJson =
         new ObjectMapper().readValue(new File(directory, "robot.json"), RobotJson.class);
     robotJson.configureRobot(robot, directory);
+    logLevel = LogLevel.valueOf(robotJson.logLevel);
 
     // Read in the controllers
     controllersJson =
@@ -134,6 +143,13 @@ public class RobotParser {
       default:
         break;
     }
+
+    // Read in the scoring poses
+    File scoringPosesFile = new File(directory, ScoringPosesJson.FILE);
+    if (scoringPosesFile.exists()) {
+      scoringPosesJson =
+          Optional.of(new ObjectMapper().readValue(scoringPosesFile, ScoringPosesJson.class));
+    }
   }
 
   /**
@@ -153,12 +169,15 @@ public class RobotParser {
    * Applies all loaded configurations to create and initialize the robot's subsystems.
    *
    * <p>This method instantiates and configures all robot subsystems based on the JSON configuration
-   * files that were loaded during construction. It performs:
+   * files that were loaded during construction, through a {@link DeviceInitGraph}. Devices are
+   * created in this order on the calling thread:
    *
    * <ul>
    *   <li>Creation of driveteam controller bindings
    *   <li>Creation of the drivetrain subsystem (if configured)
    *   <li>Creation of vision/camera subsystems
+   *   <li>Creation of the scoring pose selector, added as the {@value
+   *       ScoringPosesJson#DEVICE_NAME} device (if configured)
    * </ul>
    *
    * <p>This method should be called after the robot instance is fully initialized and ready to
@@ -169,8 +188,28 @@ public class RobotParser {
    * @see #RobotParser(String, GenericRobot) for the loading phase
    */
   public void createRobot(GenericRobot robot) {
-    controllersJson.createControllers(robot, controllersMap);
-    driveTrainJson.ifPresent(it -> it.createDriveTrain(robot));
-    visionJson.createCameraSystem(robot, camerasMap);
+    DeviceInitGraph graph = new DeviceInitGraph(logLevel);
+    graph.add("controllers", () -> controllersJson.createControllers(robot, controllersMap));
+    driveTrainJson.ifPresent(
+        it -> graph.add(ConfigConstants.DRIVETRAIN, () -> it.createDriveTrain(robot)));
+
+    // Cameras register with the drivetrain's pose estimator
+    String[] cameraDependencies =
+        driveTrainJson.isPresent() ? new String[] {ConfigConstants.DRIVETRAIN} : new String[0];
+    for (String name : camerasMap.keySet()) {
+      CameraConfigurationJson camera = camerasMap.get(name);
+      graph.add("camera " + name, () -> camera.configureCamera(robot), cameraDependencies);
+    }
+
+    scoringPosesJson.ifPresent(
+        it ->
+            graph.add(
+                ScoringPosesJson.DEVICE_NAME,
+                () ->
+                    robot.addDevice(
+                        ScoringPosesJson.DEVICE_NAME,
+                        it.createSelector(
+                            robot.getFieldDimensions(), robot.getDrivetrainConstants()))));
+    graph.run();
   }
 }
@@ -36,6 +36,7 @@ import org.frc5010.common.drive.swerve.akit.ModuleIOSpark;
 import org.frc5010.common.drive.swerve.akit.ModuleIOSparkTalon;
 import org.frc5010.common.drive.swerve.akit.ModuleIOTalonFXReal;
 import org.frc5010.common.drive.swerve.akit.ModuleIOTalonFXSim;
+import org.frc5010.common.drive.swerve.akit.OdometryFrequencyController;
 import org.frc5010.common.drive.swerve.akit.SparkOdometryThread;
 import org.frc5010.common.drive.swerve.akit.TalonFXOdometryThread;
 import org.littletonrobotics.junction.mechanism.LoggedMechanism2d;
@@ -139,6 +140,7 @@ public class AKitSwerveDrivetrainJson implements DrivetrainPropertiesJson {
       config.ODOMETRY_FREQUENCY = config.getCANBus().isNetworkFD() ? 250.0 : 100.0;
       if ("SparkTalon".equals(type)) {
         TalonFXOdometryThread.createInstance(config);
+        createOdometryFrequencyController(config);
         SparkOdometryThread.createInstance();
         driveFunctions =
             new AkitSwerveDrive(
@@ -162,6 +164,7 @@ public class AKitSwerveDrivetrainJson implements DrivetrainPropertiesJson {
                 (pose) -> {});
       } else if ("TalonFX".equals(type)) {
         TalonFXOdometryThread.createInstance(config);
+        createOdometryFrequencyController(config);
         driveFunctions =
             new AkitSwerveDrive(
                 config,
@@ -194,6 +197,20 @@ public class AKitSwerveDrivetrainJson implements DrivetrainPropertiesJson {
     gamePiecesJson.ifPresent(it -> it.createGamePieces(dt));
   }
 
+  /**
+   * Creates the adaptive odometry rate controller when enabled in the drivetrain constants. Must
+   * run after the odometry thread is created and before the modules register their signals.
+   */
+  private void createOdometryFrequencyController(AkitSwerveConfig config) {
+    if (constants.adaptiveOdometry) {
+      OdometryFrequencyController.createInstance(
+          config,
+          TalonFXOdometryThread.getInstance(),
+          constants.minOdometryFrequency,
+          constants.maxOdometryFrequency);
+    }
+  }
+
   /** Returns an array of module translations. */
   public static Translation2d[] getModuleTranslations(AkitSwerveConfig config) {
     return new Translation2d[] {
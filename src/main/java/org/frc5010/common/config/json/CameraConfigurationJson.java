@@ -26,6 +26,7 @@ import org.frc5010.common.sensors.camera.QuestNavInterface;
 import org.frc5010.common.sensors.camera.SimulatedCamera;
 import org.frc5010.common.sensors.camera.SimulatedFiducialTargetCamera;
 import org.frc5010.common.sensors.camera.SimulatedVisualTargetCamera;
+import org.frc5010.common.subsystems.AprilTagPoseSystem;
 import org.frc5010.common.subsystems.FiducialTargetSystem;
 import org.frc5010.common.subsystems.VisibleTargetSystem;
 import org.frc5010.common.vision.AprilTags;
@@ -51,6 +52,8 @@ public class CameraConfigurationJson {
   public static String APRIL_TAG = "apriltag";
   /** Constant identifier for target tracking mode */
   public static String TARGET = "target";
+  /** Subsystem name of the shared system that fuses all "fused" AprilTag cameras */
+  public static String FUSED_APRIL_TAG_SYSTEM = "fused_apriltag";
 
   /** Unique name of the camera used as a subsystem identifier */
   public String name;
@@ -109,6 +112,11 @@ public class CameraConfigurationJson {
    * depending on the configuration strategy.
    */
   public int[] targetFiducialIds = new int[0];
+  /**
+   * Whether this AprilTag camera contributes its tag corners to a single multi-camera pose solve
+   * rather than producing its own pose estimate. Only applies to PhotonVision pose cameras.
+   */
+  public boolean fused = false;
 
   /**
    * Sets whether to view game pieces in simulation. If true, the camera system will simulate vision
@@ -320,7 +328,21 @@ public class CameraConfigurationJson {
       case "apriltag":
         {
           if (drivetrain != null) {
-            drivetrain.getPoseEstimator().registerPoseProvider(camera);
+            if (fused && camera instanceof PhotonVisionPoseCamera) {
+              AprilTagPoseSystem atSystem =
+                  (AprilTagPoseSystem) robot.getSubsystem(FUSED_APRIL_TAG_SYSTEM);
+              if (null == atSystem) {
+                atSystem =
+                    new AprilTagPoseSystem(AprilTags.aprilTagFieldLayout)
+                        .enableFusedSolve(robot.getPoseSupplier())
+                        .withPoseHistory(drivetrain.getPoseEstimator().getPoseHistory());
+                robot.addSubsystem(FUSED_APRIL_TAG_SYSTEM, atSystem);
+                drivetrain.getPoseEstimator().registerPoseProvider(atSystem);
+              }
+              atSystem.addCamera(camera);
+            } else {
+              drivetrain.getPoseEstimator().registerPoseProvider(camera);
+            }
           }
           // if (targetFiducialIds.length > 0) {
           // robot.addSubsystem(name, new VisibleTargetSystem(camera, targetHeight));
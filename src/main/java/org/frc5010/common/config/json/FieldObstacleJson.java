@@ -0,0 +1,14 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.config.json;
+
+/** Json class for a round field obstacle, in blue alliance coordinates */
+public class FieldObstacleJson {
+  public String name;
+  public UnitValueJson x = new UnitValueJson(0, "m");
+  public UnitValueJson y = new UnitValueJson(0, "m");
+  /** The radius, including the robot's half width */
+  public UnitValueJson radius = new UnitValueJson(0, "m");
+}
@@ -10,6 +10,7 @@ import java.io.IOException;
 import org.frc5010.common.arch.GenericRobot;
 import org.frc5010.common.config.UnitsParser;
 import org.frc5010.common.constants.Constants;
+import org.frc5010.common.constants.FieldDimensions;
 import org.frc5010.common.constants.GenericDrivetrainConstants;
 
 /** The base JSON class for robot configurations */
@@ -56,6 +57,27 @@ public class RobotJson {
   /** Game piece definition for second game piece */
   public String gamePieceB = "GPB";
 
+  /** Field length, or 0 for the REEFSCAPE field */
+  public double fieldLength = 0.0;
+
+  /** Field length units */
+  public String fieldLengthUom = "m";
+
+  /** Field width, or 0 for the REEFSCAPE field */
+  public double fieldWidth = 0.0;
+
+  /** Field width units */
+  public String fieldWidthUom = "m";
+
+  /** Whether x is reflected for the red alliance */
+  public boolean fieldXFlip = true;
+
+  /** Whether y is reflected for the red alliance */
+  public boolean fieldYFlip = true;
+
+  /** Log level of the robot; DEBUG prints how long each device took to create */
+  public String logLevel = "COMPETITION";
+
   /**
    * Reads the robot configuration from the given directory
    *
@@ -79,6 +101,15 @@ public class RobotJson {
         userModeJson.maxAngularAccelleration);
     drivetrainConstants.setkDriveMotorGearRatio(driveMotorGearRatio);
 
+    if (fieldLength > 0 && fieldWidth > 0) {
+      robot.setFieldDimensions(
+          new FieldDimensions(
+              UnitsParser.parseDistance(fieldLength, fieldLengthUom),
+              UnitsParser.parseDistance(fieldWidth, fieldWidthUom),
+              fieldXFlip,
+              fieldYFlip));
+    }
+
     Constants.Simulation.gamePieceA = gamePieceA;
     Constants.Simulation.gamePieceB = gamePieceB;
     Constants.Simulation.loadSimulatedField = loadSimulatedField;
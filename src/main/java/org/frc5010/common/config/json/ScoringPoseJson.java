@@ -0,0 +1,43 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.config.json;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Transform2d;
+import java.util.Optional;
+import org.frc5010.common.vision.AprilTags;
+
+/** Json class for a candidate scoring pose */
+public class ScoringPoseJson {
+  public String name;
+  /** The AprilTag the pose is relative to, or 0 if the pose is on the field */
+  public int tag = 0;
+  /** The pose on the blue alliance, or the offset from the tag's pose */
+  public Pose2dJson pose = new Pose2dJson();
+  /** A fixed cost in seconds added to the pose's estimated time */
+  public double cost = 0.0;
+
+  /**
+   * Get the pose in blue alliance coordinates.
+   *
+   * @return the pose
+   * @throws IllegalArgumentException if the tag is not in the AprilTag field layout
+   */
+  public Pose2d getPose2d() {
+    Pose2d offset = pose.getPose2d();
+    if (0 == tag) {
+      return offset;
+    }
+    Optional<Pose3d> tagPose = AprilTags.aprilTagFieldLayout.getTagPose(tag);
+    if (tagPose.isEmpty()) {
+      throw new IllegalArgumentException("Scoring pose " + name + " uses unknown tag " + tag);
+    }
+    return tagPose
+        .get()
+        .toPose2d()
+        .transformBy(new Transform2d(offset.getTranslation(), offset.getRotation()));
+  }
+}
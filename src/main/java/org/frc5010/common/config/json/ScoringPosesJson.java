@@ -0,0 +1,56 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.config.json;
+
+import static edu.wpi.first.units.Units.Meters;
+
+import org.frc5010.common.config.UnitsParser;
+import org.frc5010.common.constants.FieldDimensions;
+import org.frc5010.common.constants.GenericDrivetrainConstants;
+import org.frc5010.common.utils.geometry.ScoringPoseSelector;
+
+/** Json class for the candidate scoring poses and the obstacles between them */
+public class ScoringPosesJson {
+  /** The file, relative to the robot directory */
+  public static final String FILE = "field/scoring_poses.json";
+  /** The name the selector is added to the robot's devices under */
+  public static final String DEVICE_NAME = "scoring_poses";
+
+  public UnitValueJson cellSize = new UnitValueJson(10, "cm");
+  /** How much better, in seconds, another pose must be to replace the selected one */
+  public double switchMargin = 0.1;
+  public ScoringPoseJson[] poses = new ScoringPoseJson[0];
+  public FieldObstacleJson[] obstacles = new FieldObstacleJson[0];
+
+  /**
+   * Creates the scoring pose selector.
+   *
+   * @param field the robot's field, which the field geometry is already configured for
+   * @param constants the drivetrain constants, for the speed limits
+   * @return the built selector
+   */
+  public ScoringPoseSelector createSelector(
+      FieldDimensions field, GenericDrivetrainConstants constants) {
+    ScoringPoseSelector selector =
+        new ScoringPoseSelector(field, UnitsParser.parseDistance(cellSize).in(Meters))
+            .withSwitchMargin(switchMargin);
+    double maxSpeed = constants.getkPhysicalMaxSpeedMetersPerSecond();
+    double maxAcceleration = constants.getkTeleDriveMaxAccelerationUnitsPerSecond();
+    double maxAngularSpeed = constants.getkTeleDriveMaxAngularSpeedRadiansPerSecond();
+    if (maxSpeed > 0 && maxAcceleration > 0 && maxAngularSpeed > 0) {
+      selector.withLimits(maxSpeed, maxAcceleration, maxAngularSpeed);
+    }
+    for (FieldObstacleJson obstacle : obstacles) {
+      selector.addObstacle(
+          UnitsParser.parseDistance(obstacle.x).in(Meters),
+          UnitsParser.parseDistance(obstacle.y).in(Meters),
+          UnitsParser.parseDistance(obstacle.radius).in(Meters));
+    }
+    for (ScoringPoseJson pose : poses) {
+      selector.addCandidate(pose.name, pose.getPose2d(), pose.cost);
+    }
+    return selector.build();
+  }
+}
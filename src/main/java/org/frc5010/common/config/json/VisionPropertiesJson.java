@@ -12,7 +12,6 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
-import org.frc5010.common.arch.GenericRobot;
 import org.frc5010.common.vision.AprilTags;
 import swervelib.simulation.ironmaple.simulation.SimulatedArena;
 import swervelib.simulation.ironmaple.simulation.gamepieces.GamePieceOnFieldSimulation;
@@ -27,21 +26,6 @@ public class VisionPropertiesJson {
   public Map<String, String[]> gamePieces = new HashMap<>();
   public boolean viewGamePieces = true;
 
-  /**
-   * Creates cameras for a given robot using the provided map of camera configurations.
-   *
-   * @param robot the robot to add the cameras to
-   * @param map a map of camera configurations, where the key is the camera name and the value is
-   *     the configuration object
-   */
-  public void createCameraSystem(GenericRobot robot, Map<String, CameraConfigurationJson> map) {
-    map.keySet()
-        .forEach(
-            it -> {
-              map.get(it).configureCamera(robot);
-            });
-  }
-
   /**
    * Reads in cameras from the provided directory.
    *
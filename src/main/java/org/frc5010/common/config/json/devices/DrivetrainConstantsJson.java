@@ -58,6 +58,12 @@ public class DrivetrainConstantsJson {
   public UnitValueJson slipCurrent = new UnitValueJson(40, "amps");
   /** The CAN bus for the drivetrain */
   public String canbus = "";
+  /** Whether the odometry rate adapts to CAN bus and CPU load on the real robot */
+  public boolean adaptiveOdometry = false;
+  /** The lowest odometry rate in Hz used when the CAN bus or CPU is saturated */
+  public double minOdometryFrequency = 100.0;
+  /** The highest odometry rate in Hz used when the robot is idle */
+  public double maxOdometryFrequency = 250.0;
   /** Starting pose of the robot */
   public Pose2dJson startingPose = new Pose2dJson();
 
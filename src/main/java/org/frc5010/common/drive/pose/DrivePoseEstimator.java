@@ -13,6 +13,7 @@ import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
@@ -23,13 +24,13 @@ import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.frc5010.common.arch.GenericSubsystem;
 import org.frc5010.common.commands.calibration.PoseProviderAutoOffset;
 import org.frc5010.common.drive.GenericDrivetrain;
 import org.frc5010.common.drive.pose.PoseProvider.PoseObservation;
 import org.frc5010.common.drive.pose.PoseProvider.ProviderType;
+import org.frc5010.common.subsystems.LEDKernel;
 import org.frc5010.common.subsystems.LEDStripSegment;
 import org.frc5010.common.telemetry.DisplayBoolean;
 import org.frc5010.common.vision.AprilTags;
@@ -47,6 +48,10 @@ public class DrivePoseEstimator extends GenericSubsystem {
   private boolean disableVisionUpdateCommand = false;
   /** List of PoseProviders */
   private List<PoseProvider> poseProviders = new ArrayList<>();
+  /** Number of estimated poses kept in the history, about two seconds of robot loops */
+  public static final int POSE_HISTORY_CAPACITY = 100;
+  /** History of the estimated pose, recorded once per loop */
+  private final PoseHistory poseHistory = new PoseHistory(POSE_HISTORY_CAPACITY);
 
   private DisplayBoolean aprilTagVisible = DashBoard.makeDisplayBoolean("AprilTagVisible");
   private boolean updatingPoseAcceptor = false;
@@ -122,21 +127,19 @@ public class DrivePoseEstimator extends GenericSubsystem {
         .onFalse(Commands.runOnce(() -> setState(State.ALL)));
   }
 
-  public Function<Integer, Color8Bit> displayProviderStatuses(int length) {
-    int providerLEDLength = length / poseProviders.size();
-    return (Integer index) -> {
-      int provider = index.intValue() / providerLEDLength;
-      if (provider > poseProviders.size()) {
-        return new Color8Bit(Color.kWhite);
-      }
-      Color color;
-      color = poseProviders.get(provider).isConnected() ? Color.kGreen : Color.kRed;
-      return new Color8Bit(color);
-    };
-  }
-
   public void displayOnLEDSegment(LEDStripSegment ledStrip, int length) {
-    ledStrip.setLedAction(displayProviderStatuses(length));
+    int providerLEDLength = Math.max(1, length / Math.max(1, poseProviders.size()));
+    int connected = LEDKernel.rgb(new Color8Bit(Color.kGreen));
+    int disconnected = LEDKernel.rgb(new Color8Bit(Color.kRed));
+    int unused = LEDKernel.rgb(new Color8Bit(Color.kWhite));
+    ledStrip.setLedKernel(
+        (index, ledCount, nowMillis) -> {
+          int provider = index / providerLEDLength;
+          if (provider >= poseProviders.size()) {
+            return unused;
+          }
+          return poseProviders.get(provider).isConnected() ? connected : disconnected;
+        });
   }
 
   /**
@@ -210,11 +213,45 @@ public class DrivePoseEstimator extends GenericSubsystem {
     };
   }
 
+  /**
+   * Get the history of estimated poses, recorded once per loop by FPGA timestamp. Useful for
+   * latency compensation and for commands that need past poses or velocity.
+   *
+   * @return the pose history
+   */
+  public PoseHistory getPoseHistory() {
+    return poseHistory;
+  }
+
+  /**
+   * Interpolate the estimated pose at an FPGA timestamp
+   *
+   * @param timestamp the FPGA timestamp in seconds
+   * @param out receives {x, y, heading} in meters and radians
+   * @return false if no poses have been recorded yet
+   */
+  public boolean getPoseAt(double timestamp, double[] out) {
+    return poseHistory.sample(timestamp, out);
+  }
+
+  /**
+   * Derive the field-relative velocity of the estimated pose at an FPGA timestamp
+   *
+   * @param timestamp the FPGA timestamp in seconds
+   * @param out receives {vx, vy, omega} in meters per second and radians per second
+   * @return false if fewer than two poses have been recorded
+   */
+  public boolean getVelocityAt(double timestamp, double[] out) {
+    return poseHistory.sampleVelocity(timestamp, out);
+  }
+
   @Override
   public void periodic() {
     poseProviders.forEach(it -> it.update());
     updatePoseObservationFromProviders();
-    field2d.setRobotPose(getCurrentPose());
+    Pose2d pose = getCurrentPose();
+    poseHistory.add(Timer.getFPGATimestamp(), pose);
+    field2d.setRobotPose(pose);
   }
 
   private void resetProviderPoses(Pose2d pose) {
@@ -318,6 +355,7 @@ public class DrivePoseEstimator extends GenericSubsystem {
   public void resetToPose(Pose2d pose) {
     poseTracker.resetToPose(pose);
     resetProviderPoses(pose);
+    poseHistory.clear();
   }
 
   /**
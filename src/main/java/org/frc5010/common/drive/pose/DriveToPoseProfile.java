@@ -0,0 +1,440 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.drive.pose;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Drives a holonomic robot to a pose along motion profiles solved once per target.
+ *
+ * <p>When the target is set the profile is solved from the robot's current pose and velocity. The
+ * translation runs along the straight line to the target: a time optimal trapezoid, with the
+ * velocity and acceleration limits, takes the robot along the line, while a second one brakes any
+ * velocity it had across the line and brings it back onto it. The two share the acceleration limit,
+ * the cross axis taking the part its starting speed needs, up to {@value #MAX_CROSS_SHARE} of it.
+ * The heading follows its own trapezoid the short way around to the target heading.
+ *
+ * <p>Every loop {@link #calculate} samples the profiles at the current time and adds feedback on
+ * the pose and velocity error, writing the field relative velocity to command into fields read with
+ * the getters. Sampling walks at most three phases per axis and allocates nothing. Moving the
+ * target with {@link #setTarget} solves the profiles again from the current pose and the reference
+ * velocity, so the commanded velocity does not jump.
+ */
+public class DriveToPoseProfile {
+  /** Largest share of the acceleration limit spent braking across the line to the target */
+  public static final double MAX_CROSS_SHARE = 0.8;
+  /** Target movement, in meters or radians, under which the profiles are not solved again */
+  private static final double RETARGET_TOLERANCE = 1e-4;
+
+  private final double maxVelocity;
+  private final double maxAcceleration;
+  private final double maxAngularVelocity;
+  private final double maxAngularAcceleration;
+  private double translationP = 0.0;
+  private double translationD = 0.0;
+  private double rotationP = 0.0;
+  private double rotationD = 0.0;
+  private double translationTolerance = 0.02;
+  private double rotationTolerance = Math.toRadians(1.0);
+
+  private final Axis along = new Axis();
+  private final Axis across = new Axis();
+  private final Axis rotation = new Axis();
+  private double startTime;
+  private double startX;
+  private double startY;
+  private double alongX;
+  private double alongY;
+  private double targetX;
+  private double targetY;
+  private double targetHeading;
+  private boolean solved = false;
+
+  private double referenceX;
+  private double referenceY;
+  private double referenceHeading;
+  private double referenceVx;
+  private double referenceVy;
+  private double referenceOmega;
+  private double outputVx;
+  private double outputVy;
+  private double outputOmega;
+  private double translationError;
+  private double rotationError;
+
+  /**
+   * A trapezoid from a position and velocity to rest at a goal, as up to three phases of constant
+   * acceleration.
+   */
+  private static final class Axis {
+    private final double[] phaseTime = new double[3];
+    private final double[] phaseAcceleration = new double[3];
+    private final double[] phasePosition = new double[3];
+    private final double[] phaseVelocity = new double[3];
+    private double goal;
+    private double duration;
+    private double position;
+    private double velocity;
+
+    void solve(double start, double startVelocity, double goal, double maxV, double maxA) {
+      this.goal = goal;
+      double distance = goal - start;
+      // Head the way that does not overshoot when braking as hard as possible
+      double stop = startVelocity * Math.abs(startVelocity) / (2 * maxA);
+      double direction = distance - stop >= 0.0 ? 1.0 : -1.0;
+      double v = startVelocity * direction;
+      double d = distance * direction;
+
+      double peak;
+      double firstAcceleration;
+      if (v > maxV) {
+        peak = maxV;
+        firstAcceleration = -maxA;
+      } else {
+        peak = Math.min(maxV, Math.sqrt(Math.max(0.0, maxA * d + v * v / 2)));
+        firstAcceleration = maxA;
+      }
+      double first = Math.abs(peak - v) / maxA;
+      double last = peak / maxA;
+      double cruise = d - (peak * peak - v * v) / (2 * firstAcceleration) - last * peak / 2;
+      double cruiseTime = peak > 0.0 ? Math.max(0.0, cruise) / peak : 0.0;
+
+      phaseTime[0] = first;
+      phaseTime[1] = cruiseTime;
+      phaseTime[2] = last;
+      phaseAcceleration[0] = firstAcceleration * direction;
+      phaseAcceleration[1] = 0.0;
+      phaseAcceleration[2] = -maxA * direction;
+      double p = start;
+      double pv = startVelocity;
+      for (int i = 0; i < 3; i++) {
+        phasePosition[i] = p;
+        phaseVelocity[i] = pv;
+        p += pv * phaseTime[i] + phaseAcceleration[i] * phaseTime[i] * phaseTime[i] / 2;
+        pv += phaseAcceleration[i] * phaseTime[i];
+      }
+      duration = first + cruiseTime + last;
+    }
+
+    void sample(double t) {
+      for (int i = 0; i < 3; i++) {
+        if (t < phaseTime[i]) {
+          position = phasePosition[i] + phaseVelocity[i] * t + phaseAcceleration[i] * t * t / 2;
+          velocity = phaseVelocity[i] + phaseAcceleration[i] * t;
+          return;
+        }
+        t -= phaseTime[i];
+      }
+      position = goal;
+      velocity = 0.0;
+    }
+  }
+
+  /**
+   * Creates a profile.
+   *
+   * @param maxVelocity the fastest the robot drives in meters per second
+   * @param maxAcceleration the hardest the robot accelerates in meters per second squared
+   * @param maxAngularVelocity the fastest the robot turns in radians per second
+   * @param maxAngularAcceleration the hardest the robot turns in radians per second squared
+   */
+  public DriveToPoseProfile(
+      double maxVelocity,
+      double maxAcceleration,
+      double maxAngularVelocity,
+      double maxAngularAcceleration) {
+    this.maxVelocity = maxVelocity;
+    this.maxAcceleration = maxAcceleration;
+    this.maxAngularVelocity = maxAngularVelocity;
+    this.maxAngularAcceleration = maxAngularAcceleration;
+  }
+
+  /**
+   * Sets the feedback gains on the translation error.
+   *
+   * @param kP meters per second per meter of position error
+   * @param kD meters per second per meter per second of velocity error
+   * @return this profile
+   */
+  public DriveToPoseProfile withTranslationGains(double kP, double kD) {
+    translationP = kP;
+    translationD = kD;
+    return this;
+  }
+
+  /**
+   * Sets the feedback gains on the heading error.
+   *
+   * @param kP radians per second per radian of heading error
+   * @param kD radians per second per radian per second of angular velocity error
+   * @return this profile
+   */
+  public DriveToPoseProfile withRotationGains(double kP, double kD) {
+    rotationP = kP;
+    rotationD = kD;
+    return this;
+  }
+
+  /**
+   * Sets how close to the target the robot must be to be at the goal.
+   *
+   * @param meters the translation tolerance
+   * @param radians the heading tolerance
+   * @return this profile
+   */
+  public DriveToPoseProfile withTolerance(double meters, double radians) {
+    translationTolerance = meters;
+    rotationTolerance = radians;
+    return this;
+  }
+
+  /**
+   * Solves the profiles from the robot's pose and velocity to a target.
+   *
+   * @param time the current time in seconds
+   * @param x the robot x in meters
+   * @param y the robot y in meters
+   * @param heading the robot heading in radians
+   * @param vx the robot field x velocity in meters per second
+   * @param vy the robot field y velocity in meters per second
+   * @param omega the robot angular velocity in radians per second
+   * @param targetX the target x in meters
+   * @param targetY the target y in meters
+   * @param targetHeading the target heading in radians
+   */
+  public void reset(
+      double time,
+      double x,
+      double y,
+      double heading,
+      double vx,
+      double vy,
+      double omega,
+      double targetX,
+      double targetY,
+      double targetHeading) {
+    this.targetX = targetX;
+    this.targetY = targetY;
+    this.targetHeading = targetHeading;
+    startTime = time;
+    startX = x;
+    startY = y;
+
+    double dx = targetX - x;
+    double dy = targetY - y;
+    double distance = Math.hypot(dx, dy);
+    if (distance > 1e-9) {
+      alongX = dx / distance;
+      alongY = dy / distance;
+    } else {
+      double speed = Math.hypot(vx, vy);
+      alongX = speed > 1e-9 ? vx / speed : 1.0;
+      alongY = speed > 1e-9 ? vy / speed : 0.0;
+    }
+    double alongVelocity = vx * alongX + vy * alongY;
+    double acrossVelocity = -vx * alongY + vy * alongX;
+    double share =
+        Math.min(MAX_CROSS_SHARE, Math.abs(acrossVelocity) / Math.max(maxVelocity, 1e-9));
+    double acrossAcceleration = maxAcceleration * share;
+    double alongAcceleration = maxAcceleration * Math.sqrt(1 - share * share);
+    along.solve(0.0, alongVelocity, distance, maxVelocity, alongAcceleration);
+    if (acrossAcceleration > 0.0) {
+      across.solve(0.0, acrossVelocity, 0.0, maxVelocity, acrossAcceleration);
+    } else {
+      across.solve(0.0, 0.0, 0.0, maxVelocity, maxAcceleration);
+    }
+    rotation.solve(
+        heading,
+        omega,
+        heading + MathUtil.angleModulus(targetHeading - heading),
+        maxAngularVelocity,
+        maxAngularAcceleration);
+    solved = true;
+    sample(time);
+  }
+
+  /**
+   * Moves the target. If it moved, the profiles are solved again from the robot's pose and the
+   * reference velocity at this time.
+   *
+   * @param time the current time in seconds
+   * @param x the robot x in meters
+   * @param y the robot y in meters
+   * @param heading the robot heading in radians
+   * @param targetX the target x in meters
+   * @param targetY the target y in meters
+   * @param targetHeading the target heading in radians
+   * @return true if the profiles were solved again
+   */
+  public boolean setTarget(
+      double time,
+      double x,
+      double y,
+      double heading,
+      double targetX,
+      double targetY,
+      double targetHeading) {
+    if (solved
+        && Math.abs(targetX - this.targetX) < RETARGET_TOLERANCE
+        && Math.abs(targetY - this.targetY) < RETARGET_TOLERANCE
+        && Math.abs(MathUtil.angleModulus(targetHeading - this.targetHeading))
+            < RETARGET_TOLERANCE) {
+      return false;
+    }
+    if (solved) {
+      sample(time);
+    }
+    reset(
+        time,
+        x,
+        y,
+        heading,
+        solved ? referenceVx : 0.0,
+        solved ? referenceVy : 0.0,
+        solved ? referenceOmega : 0.0,
+        targetX,
+        targetY,
+        targetHeading);
+    return true;
+  }
+
+  private void sample(double time) {
+    double t = time - startTime;
+    along.sample(t);
+    across.sample(t);
+    rotation.sample(t);
+    referenceX = startX + alongX * along.position - alongY * across.position;
+    referenceY = startY + alongY * along.position + alongX * across.position;
+    referenceVx = alongX * along.velocity - alongY * across.velocity;
+    referenceVy = alongY * along.velocity + alongX * across.velocity;
+    referenceHeading = rotation.position;
+    referenceOmega = rotation.velocity;
+  }
+
+  /**
+   * Samples the profiles and computes the field relative velocity to command.
+   *
+   * @param time the current time in seconds
+   * @param x the robot x in meters
+   * @param y the robot y in meters
+   * @param heading the robot heading in radians
+   * @param vx the robot field x velocity in meters per second
+   * @param vy the robot field y velocity in meters per second
+   * @param omega the robot angular velocity in radians per second
+   */
+  public void calculate(
+      double time, double x, double y, double heading, double vx, double vy, double omega) {
+    sample(time);
+    double errorX = referenceX - x;
+    double errorY = referenceY - y;
+    double errorHeading = MathUtil.angleModulus(referenceHeading - heading);
+    outputVx = referenceVx + translationP * errorX + translationD * (referenceVx - vx);
+    outputVy = referenceVy + translationP * errorY + translationD * (referenceVy - vy);
+    outputOmega = referenceOmega + rotationP * errorHeading + rotationD * (referenceOmega - omega);
+    translationError = Math.hypot(targetX - x, targetY - y);
+    rotationError = Math.abs(MathUtil.angleModulus(targetHeading - heading));
+  }
+
+  /**
+   * Gets the field x velocity to command.
+   *
+   * @return the velocity in meters per second
+   */
+  public double getVx() {
+    return outputVx;
+  }
+
+  /**
+   * Gets the field y velocity to command.
+   *
+   * @return the velocity in meters per second
+   */
+  public double getVy() {
+    return outputVy;
+  }
+
+  /**
+   * Gets the angular velocity to command.
+   *
+   * @return the velocity in radians per second
+   */
+  public double getOmega() {
+    return outputOmega;
+  }
+
+  /**
+   * Gets the reference speed along the profile at the last calculation.
+   *
+   * @return the speed in meters per second
+   */
+  public double getReferenceSpeed() {
+    return Math.hypot(referenceVx, referenceVy);
+  }
+
+  /**
+   * Gets the distance from the robot to the target at the last calculation.
+   *
+   * @return the distance in meters
+   */
+  public double getTranslationError() {
+    return translationError;
+  }
+
+  /**
+   * Gets the heading error from the target at the last calculation.
+   *
+   * @return the absolute error in radians
+   */
+  public double getRotationError() {
+    return rotationError;
+  }
+
+  /**
+   * Gets the time the profiles take from the last solve to reach the target.
+   *
+   * @return the duration in seconds
+   */
+  public double getDuration() {
+    return Math.max(along.duration, Math.max(across.duration, rotation.duration));
+  }
+
+  /**
+   * Gets whether the profiles have finished at a time.
+   *
+   * @param time the time in seconds
+   * @return true if every profile has reached the target
+   */
+  public boolean isFinished(double time) {
+    return solved && time - startTime >= getDuration();
+  }
+
+  /**
+   * Gets whether the robot was within the tolerances of the target at the last calculation.
+   *
+   * @return true if the translation is within its tolerance
+   */
+  public boolean atTranslationGoal() {
+    return translationError < translationTolerance;
+  }
+
+  /**
+   * Gets whether the robot heading was within its tolerance of the target at the last calculation.
+   *
+   * @return true if the heading is within its tolerance
+   */
+  public boolean atRotationGoal() {
+    return rotationError < rotationTolerance;
+  }
+
+  /**
+   * Gets whether the profiles have finished and the robot is within the tolerances of the target.
+   *
+   * @param time the current time in seconds
+   * @return true if the robot is at the target
+   */
+  public boolean atGoal(double time) {
+    return isFinished(time) && atTranslationGoal() && atRotationGoal();
+  }
+}
@@ -0,0 +1,246 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.drive.pose;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import java.util.Optional;
+
+/**
+ * A fixed-capacity, time-indexed history of planar robot poses.
+ *
+ * <p>Samples are kept in a circular buffer of parallel primitive arrays (timestamp, x, y, heading),
+ * so adding a sample and looking one up never allocate. Lookups binary search for the pair of
+ * samples that bracket the requested time and interpolate between them, which makes them O(log n)
+ * in the capacity. Headings are interpolated along the shortest arc.
+ *
+ * <p>Samples must be added in increasing timestamp order; once the buffer is full the oldest
+ * sample is overwritten. The class is not synchronized and is intended to be filled and read from
+ * the main robot loop.
+ *
+ * <p>Usage:
+ *
+ * <pre>
+ *   PoseHistory history = new PoseHistory(200);
+ *   history.add(Timer.getFPGATimestamp(), pose);
+ *   double[] sample = new double[3];
+ *   if (history.sample(captureTime, sample)) {
+ *     // sample = {x, y, heading}
+ *   }
+ * </pre>
+ */
+public class PoseHistory {
+  private final int capacity;
+  private final double[] timestamps;
+  private final double[] xs;
+  private final double[] ys;
+  private final double[] thetas;
+  /** Physical index of the oldest sample */
+  private int head = 0;
+  /** Number of samples stored */
+  private int size = 0;
+
+  /**
+   * Creates an empty history.
+   *
+   * @param capacity the maximum number of samples kept
+   */
+  public PoseHistory(int capacity) {
+    if (capacity < 2) {
+      throw new IllegalArgumentException("PoseHistory capacity must be at least 2");
+    }
+    this.capacity = capacity;
+    timestamps = new double[capacity];
+    xs = new double[capacity];
+    ys = new double[capacity];
+    thetas = new double[capacity];
+  }
+
+  /**
+   * Adds a sample to the history.
+   *
+   * @param timestamp the time of the sample in seconds
+   * @param x the field X position in meters
+   * @param y the field Y position in meters
+   * @param theta the heading in radians
+   * @return false if the sample was dropped because it is not newer than the newest sample
+   */
+  public boolean add(double timestamp, double x, double y, double theta) {
+    if (size > 0 && timestamp <= timestamps[physical(size - 1)]) {
+      return false;
+    }
+    int index;
+    if (size < capacity) {
+      index = physical(size);
+      size++;
+    } else {
+      index = head;
+      head = head + 1 == capacity ? 0 : head + 1;
+    }
+    timestamps[index] = timestamp;
+    xs[index] = x;
+    ys[index] = y;
+    thetas[index] = theta;
+    return true;
+  }
+
+  /**
+   * Adds a pose to the history.
+   *
+   * @param timestamp the time of the sample in seconds
+   * @param pose the pose
+   * @return false if the sample was dropped because it is not newer than the newest sample
+   */
+  public boolean add(double timestamp, Pose2d pose) {
+    return add(timestamp, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+  }
+
+  /** Removes every sample. */
+  public void clear() {
+    head = 0;
+    size = 0;
+  }
+
+  /**
+   * Gets the number of samples stored.
+   *
+   * @return the sample count
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets the maximum number of samples stored.
+   *
+   * @return the capacity
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Gets the timestamp of the oldest sample.
+   *
+   * @return the timestamp in seconds, or NaN if empty
+   */
+  public double getOldestTimestamp() {
+    return size == 0 ? Double.NaN : timestamps[head];
+  }
+
+  /**
+   * Gets the timestamp of the newest sample.
+   *
+   * @return the timestamp in seconds, or NaN if empty
+   */
+  public double getNewestTimestamp() {
+    return size == 0 ? Double.NaN : timestamps[physical(size - 1)];
+  }
+
+  /**
+   * Interpolates the pose at a time. Times outside the stored range are clamped to the oldest or
+   * newest sample.
+   *
+   * @param timestamp the time in seconds
+   * @param out receives {x, y, heading} in meters and radians; must hold at least 3 values
+   * @return false if the history is empty, in which case out is untouched
+   */
+  public boolean sample(double timestamp, double[] out) {
+    if (size == 0) {
+      return false;
+    }
+    int lower = floorIndex(timestamp);
+    if (lower < 0) {
+      copy(head, out);
+      return true;
+    }
+    if (lower == size - 1) {
+      copy(physical(size - 1), out);
+      return true;
+    }
+    int i0 = physical(lower);
+    int i1 = physical(lower + 1);
+    double t = (timestamp - timestamps[i0]) / (timestamps[i1] - timestamps[i0]);
+    out[0] = xs[i0] + (xs[i1] - xs[i0]) * t;
+    out[1] = ys[i0] + (ys[i1] - ys[i0]) * t;
+    out[2] = wrap(thetas[i0] + wrap(thetas[i1] - thetas[i0]) * t);
+    return true;
+  }
+
+  /**
+   * Derives the field-relative velocity at a time from the pair of samples that bracket it. Times
+   * outside the stored range use the oldest or newest pair.
+   *
+   * @param timestamp the time in seconds
+   * @param out receives {vx, vy, omega} in meters per second and radians per second; must hold at
+   *     least 3 values
+   * @return false if fewer than two samples are stored, in which case out is untouched
+   */
+  public boolean sampleVelocity(double timestamp, double[] out) {
+    if (size < 2) {
+      return false;
+    }
+    int lower = Math.min(Math.max(floorIndex(timestamp), 0), size - 2);
+    int i0 = physical(lower);
+    int i1 = physical(lower + 1);
+    double invDt = 1.0 / (timestamps[i1] - timestamps[i0]);
+    out[0] = (xs[i1] - xs[i0]) * invDt;
+    out[1] = (ys[i1] - ys[i0]) * invDt;
+    out[2] = wrap(thetas[i1] - thetas[i0]) * invDt;
+    return true;
+  }
+
+  /**
+   * Interpolates the pose at a time as a {@link Pose2d}. This allocates and is meant for callers
+   * outside of hot loops.
+   *
+   * @param timestamp the time in seconds
+   * @return the interpolated pose, or empty if the history is empty
+   */
+  public Optional<Pose2d> getPose(double timestamp) {
+    double[] out = new double[3];
+    if (!sample(timestamp, out)) {
+      return Optional.empty();
+    }
+    return Optional.of(new Pose2d(out[0], out[1], new Rotation2d(out[2])));
+  }
+
+  /**
+   * Finds the logical index of the newest sample at or before a time.
+   *
+   * @param timestamp the time in seconds
+   * @return the logical index, or -1 if the time is before the oldest sample
+   */
+  private int floorIndex(double timestamp) {
+    int low = 0;
+    int high = size - 1;
+    int result = -1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (timestamps[physical(mid)] <= timestamp) {
+        result = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return result;
+  }
+
+  private int physical(int logical) {
+    int index = head + logical;
+    return index >= capacity ? index - capacity : index;
+  }
+
+  private void copy(int index, double[] out) {
+    out[0] = xs[index];
+    out[1] = ys[index];
+    out[2] = thetas[index];
+  }
+
+  private static double wrap(double angle) {
+    return Math.IEEEremainder(angle, 2.0 * Math.PI);
+  }
+}
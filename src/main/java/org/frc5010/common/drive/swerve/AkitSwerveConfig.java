@@ -44,7 +44,8 @@ public class AkitSwerveConfig extends SwerveDriveConfig {
   public final SwerveModuleConstants<
           TalonFXConfiguration, TalonFXConfiguration, CANcoderConfiguration>
       BackRight;
-  public double ODOMETRY_FREQUENCY;
+  /** The odometry sample rate in Hz; read by the odometry thread and adjusted at runtime */
+  public volatile double ODOMETRY_FREQUENCY;
   public final double DRIVE_BASE_RADIUS;
   protected SwerveModuleConstants[] MODULES;
   private final CANBus kCANBus;
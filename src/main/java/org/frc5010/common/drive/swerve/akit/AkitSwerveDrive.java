@@ -136,6 +136,11 @@ public class AkitSwerveDrive extends SwerveDriveFunctions {
     }
     odometryLock.unlock();
 
+    OdometryFrequencyController frequencyController = OdometryFrequencyController.getInstance();
+    if (frequencyController != null) {
+      frequencyController.update();
+    }
+
     // Stop moving when disabled
     if (DriverStation.isDisabled()) {
       for (var module : modules) {
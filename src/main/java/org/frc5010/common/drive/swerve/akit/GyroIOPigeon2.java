@@ -34,6 +34,7 @@ public class GyroIOPigeon2 implements GyroIO {
     pigeon.getConfigurator().apply(new Pigeon2Configuration());
     pigeon.getConfigurator().setYaw(0.0);
     yaw.setUpdateFrequency(config.ODOMETRY_FREQUENCY);
+    OdometryFrequencyController.trackSignals(yaw);
     yawVelocity.setUpdateFrequency(50.0);
     pigeon.optimizeBusUtilization();
     yawTimestampQueue = TalonFXOdometryThread.getInstance().makeTimestampQueue();
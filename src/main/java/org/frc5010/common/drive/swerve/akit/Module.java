@@ -23,6 +23,7 @@ public class Module {
   private final ModuleIO io;
   private final ModuleIOInputsAutoLogged inputs = new ModuleIOInputsAutoLogged();
   private final int index;
+  private final String inputsKey;
   private final SwerveModuleConstants<
           TalonFXConfiguration, TalonFXConfiguration, CANcoderConfiguration>
       constants;
@@ -40,6 +41,7 @@ public class Module {
           constants) {
     this.io = io;
     this.index = index;
+    inputsKey = "Drive/Module" + Integer.toString(index);
     this.constants = constants;
     driveDisconnectedAlert =
         new Alert(
@@ -56,7 +58,7 @@ public class Module {
 
   public void periodic() {
     io.updateInputs(inputs);
-    Logger.processInputs("Drive/Module" + Integer.toString(index), inputs);
+    Logger.processInputs(inputsKey, inputs);
 
     // Calculate positions for odometry
     int sampleCount =
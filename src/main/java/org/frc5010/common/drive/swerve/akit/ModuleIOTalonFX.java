@@ -152,6 +152,7 @@ public abstract class ModuleIOTalonFX implements ModuleIO {
     // Configure periodic frames
     BaseStatusSignal.setUpdateFrequencyForAll(
         config.ODOMETRY_FREQUENCY, turnPosition, drivePosition, turnAbsolutePosition);
+    OdometryFrequencyController.trackSignals(turnPosition, drivePosition, turnAbsolutePosition);
     BaseStatusSignal.setUpdateFrequencyForAll(
         50.0,
         driveVelocity,
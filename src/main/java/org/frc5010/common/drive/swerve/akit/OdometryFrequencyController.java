@@ -0,0 +1,261 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.drive.swerve.akit;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.CANBus.CANBusStatus;
+import edu.wpi.first.wpilibj.RobotController;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.frc5010.common.drive.swerve.AkitSwerveConfig;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Adapts the odometry sample rate to the load on the robot.
+ *
+ * <p>Once per evaluation window the controller looks at the CAN bus utilization, the share of a CPU
+ * the odometry thread consumed and the number of main loop overruns. When any of them is above its
+ * high threshold the rate is cut multiplicatively toward the minimum; when all of them have stayed
+ * below their low thresholds for several windows in a row the rate is raised in fixed steps toward
+ * the maximum. The gap between the thresholds and the required run of quiet windows keep the rate
+ * from oscillating on a bus that sits near a threshold.
+ *
+ * <p>The controller only decides on a rate. The odometry thread picks it up with {@link
+ * #applyPendingFrequency()} between samples, so the blocking Phoenix status frame reconfiguration
+ * never runs on the main loop.
+ */
+public class OdometryFrequencyController {
+  /** Seconds between rate decisions */
+  private static final double EVALUATION_PERIOD = 0.5;
+  /** Nominal main loop period in seconds */
+  private static final double LOOP_PERIOD = 0.02;
+  /** A loop longer than this multiple of the nominal period counts as an overrun */
+  private static final double OVERRUN_FACTOR = 1.5;
+  /** Fraction of the rate kept when backing off */
+  private static final double DECREASE_FACTOR = 0.8;
+  /** Hz added when stepping up */
+  private static final double INCREASE_STEP = 25.0;
+  /** Consecutive quiet windows required before stepping up */
+  private static final int QUIET_WINDOWS_TO_INCREASE = 4;
+
+  private static final double BUS_HIGH = 0.8;
+  private static final double BUS_LOW = 0.6;
+  private static final double CPU_HIGH = 0.25;
+  private static final double CPU_LOW = 0.1;
+  private static final int OVERRUN_LIMIT = 3;
+
+  private static final long NO_PENDING_FREQUENCY = Double.doubleToRawLongBits(Double.NaN);
+
+  private static OdometryFrequencyController instance = null;
+
+  /** Decides the next rate from the load seen over one evaluation window. */
+  static class RatePolicy {
+    private final double minFrequency;
+    private final double maxFrequency;
+    private double targetFrequency;
+    private int quietWindows = 0;
+
+    /**
+     * Creates a policy.
+     *
+     * @param startFrequency the starting rate in Hz, clamped to the bounds
+     * @param minFrequency the lowest rate in Hz
+     * @param maxFrequency the highest rate in Hz
+     */
+    RatePolicy(double startFrequency, double minFrequency, double maxFrequency) {
+      this.minFrequency = Math.min(minFrequency, maxFrequency);
+      this.maxFrequency = Math.max(minFrequency, maxFrequency);
+      targetFrequency = Math.max(this.minFrequency, Math.min(this.maxFrequency, startFrequency));
+    }
+
+    /**
+     * Decides the rate for the next window.
+     *
+     * @param busKnown whether the CAN bus status could be read
+     * @param busUtilization the CAN bus utilization, 0 to 1
+     * @param threadCpuFraction the share of a CPU the odometry thread used
+     * @param overruns the number of main loop overruns in the window
+     * @return the rate in Hz
+     */
+    double evaluate(
+        boolean busKnown, double busUtilization, double threadCpuFraction, int overruns) {
+      boolean stressed =
+          (busKnown && busUtilization > BUS_HIGH)
+              || threadCpuFraction > CPU_HIGH
+              || overruns >= OVERRUN_LIMIT;
+      boolean quiet =
+          (!busKnown || busUtilization < BUS_LOW) && threadCpuFraction < CPU_LOW && overruns == 0;
+
+      if (stressed) {
+        quietWindows = 0;
+        targetFrequency = Math.max(minFrequency, targetFrequency * DECREASE_FACTOR);
+      } else if (quiet && ++quietWindows >= QUIET_WINDOWS_TO_INCREASE) {
+        quietWindows = 0;
+        targetFrequency = Math.min(maxFrequency, targetFrequency + INCREASE_STEP);
+      } else if (!quiet) {
+        quietWindows = 0;
+      }
+      return targetFrequency;
+    }
+
+    double getTargetFrequency() {
+      return targetFrequency;
+    }
+  }
+
+  private final AkitSwerveConfig config;
+  private final Thread odometryThread;
+  private final RatePolicy policy;
+  private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+  private BaseStatusSignal[] signals = new BaseStatusSignal[0];
+
+  /** Raw bits of the rate waiting for the odometry thread, NaN when there is none */
+  private final AtomicLong pendingFrequency = new AtomicLong(NO_PENDING_FREQUENCY);
+  private double windowStart = Double.NaN;
+  private double lastLoopTime = Double.NaN;
+  private long lastThreadCpuNanos = -1;
+  private int overruns = 0;
+  private double busUtilization = 0;
+  private double threadCpuFraction = 0;
+
+  public static OdometryFrequencyController getInstance() {
+    return instance;
+  }
+
+  /**
+   * Creates the shared controller. The starting rate is the configured odometry frequency clamped
+   * to the bounds.
+   *
+   * @param config the drivetrain config whose odometry frequency is adjusted
+   * @param odometryThread the thread that applies the rate, whose CPU use is measured
+   * @param minFrequency the lowest rate in Hz used when the robot is saturated
+   * @param maxFrequency the highest rate in Hz used when the robot is idle
+   */
+  public static void createInstance(
+      AkitSwerveConfig config,
+      TalonFXOdometryThread odometryThread,
+      double minFrequency,
+      double maxFrequency) {
+    if (instance == null) {
+      instance =
+          new OdometryFrequencyController(config, odometryThread, minFrequency, maxFrequency);
+    }
+  }
+
+  /**
+   * Adds Phoenix signals whose update frequency should follow the odometry rate. Does nothing if
+   * no controller was created.
+   *
+   * @param newSignals the signals sampled at the odometry rate
+   */
+  public static void trackSignals(BaseStatusSignal... newSignals) {
+    if (instance != null) {
+      instance.addSignals(newSignals);
+    }
+  }
+
+  private OdometryFrequencyController(
+      AkitSwerveConfig config, Thread odometryThread, double minFrequency, double maxFrequency) {
+    this.config = config;
+    this.odometryThread = odometryThread;
+    policy = new RatePolicy(config.ODOMETRY_FREQUENCY, minFrequency, maxFrequency);
+    config.ODOMETRY_FREQUENCY = policy.getTargetFrequency();
+    if (threadBean.isThreadCpuTimeSupported() && !threadBean.isThreadCpuTimeEnabled()) {
+      threadBean.setThreadCpuTimeEnabled(true);
+    }
+  }
+
+  private synchronized void addSignals(BaseStatusSignal... newSignals) {
+    BaseStatusSignal[] combined = new BaseStatusSignal[signals.length + newSignals.length];
+    System.arraycopy(signals, 0, combined, 0, signals.length);
+    System.arraycopy(newSignals, 0, combined, signals.length, newSignals.length);
+    signals = combined;
+  }
+
+  /**
+   * Samples the load and, once per evaluation window, decides on a new odometry rate. Call once per
+   * main loop.
+   */
+  public void update() {
+    double now = RobotController.getFPGATime() / 1e6;
+    if (!Double.isNaN(lastLoopTime) && now - lastLoopTime > LOOP_PERIOD * OVERRUN_FACTOR) {
+      overruns++;
+    }
+    lastLoopTime = now;
+
+    if (Double.isNaN(windowStart)) {
+      windowStart = now;
+      lastThreadCpuNanos = readThreadCpuNanos();
+      return;
+    }
+    double elapsed = now - windowStart;
+    if (elapsed < EVALUATION_PERIOD) {
+      return;
+    }
+
+    long threadCpuNanos = readThreadCpuNanos();
+    threadCpuFraction =
+        threadCpuNanos >= 0 && lastThreadCpuNanos >= 0
+            ? (threadCpuNanos - lastThreadCpuNanos) / 1e9 / elapsed
+            : 0;
+    lastThreadCpuNanos = threadCpuNanos;
+
+    CANBusStatus status = config.getCANBus().getStatus();
+    boolean busKnown = status.Status.isOK();
+    busUtilization = busKnown ? status.BusUtilization : 0;
+
+    double previous = policy.getTargetFrequency();
+    double next = policy.evaluate(busKnown, busUtilization, threadCpuFraction, overruns);
+    if (next != previous) {
+      pendingFrequency.set(Double.doubleToRawLongBits(next));
+    }
+
+    Logger.recordOutput("Odometry/Frequency", next);
+    Logger.recordOutput("Odometry/BusUtilization", busUtilization);
+    Logger.recordOutput("Odometry/ThreadCpuFraction", threadCpuFraction);
+    Logger.recordOutput("Odometry/LoopOverruns", overruns);
+
+    overruns = 0;
+    windowStart = now;
+  }
+
+  /**
+   * Applies a rate decided by {@link #update()} to the tracked status signals and the odometry
+   * config. Called from the odometry thread, since reconfiguring status frames blocks on the bus.
+   */
+  public void applyPendingFrequency() {
+    double frequency = Double.longBitsToDouble(pendingFrequency.getAndSet(NO_PENDING_FREQUENCY));
+    if (Double.isNaN(frequency)) {
+      return;
+    }
+    BaseStatusSignal[] current;
+    synchronized (this) {
+      current = signals;
+    }
+    if (current.length > 0) {
+      BaseStatusSignal.setUpdateFrequencyForAll(frequency, current);
+    }
+    config.ODOMETRY_FREQUENCY = frequency;
+  }
+
+  /**
+   * Gets the rate the controller is currently targeting.
+   *
+   * @return the odometry rate in Hz
+   */
+  public double getTargetFrequency() {
+    return policy.getTargetFrequency();
+  }
+
+  private long readThreadCpuNanos() {
+    if (odometryThread == null
+        || !odometryThread.isAlive()
+        || !threadBean.isThreadCpuTimeSupported()) {
+      return -1;
+    }
+    return threadBean.getThreadCpuTime(odometryThread.getId());
+  }
+}
@@ -95,6 +95,12 @@ public class TalonFXOdometryThread extends OdometryThread {
 
   @Override
   public void runThreadLogic() {
+    // Pick up a rate change before waiting so the timeout below matches it
+    OdometryFrequencyController frequencyController = OdometryFrequencyController.getInstance();
+    if (frequencyController != null) {
+      frequencyController.applyPendingFrequency();
+    }
+
     // Wait for updates from all signals
     signalsLock.lock();
     try {
@@ -0,0 +1,315 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.mechanisms;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+/**
+ * Finds the launch speed, hood angle and turret heading that put a game piece on a target, from a
+ * table computed ahead of time.
+ *
+ * <p>The projectile follows the same drag free model as the maple-sim {@code GamePieceProjectile}:
+ * it leaves the shooter with the launch velocity plus the velocity of the shooter over the field,
+ * and falls under a constant gravity. For every point of a grid over horizontal distance and height
+ * difference the table holds the launch speed, hood angle and time of flight of the lowest speed
+ * shot the hood can make. The hood angle is the launch elevation above horizontal. Looking up a
+ * shot interpolates between the four surrounding grid points, so it costs the same wherever it
+ * lands in the table and allocates nothing.
+ *
+ * <p>To shoot while moving, the shot is aimed at a virtual target offset against the shooter's
+ * velocity by the time of flight. The time of flight depends on the distance to the virtual target,
+ * so the two are iterated until they agree, which takes a few lookups for any speed the robot can
+ * drive at.
+ *
+ * <p>The grid and limits are set with the {@code with} methods; the table is computed on the first
+ * lookup after they change, or ahead of time with {@link #precompute()}.
+ */
+public class BallisticSolver {
+  /** Gravity used by maple-sim's GamePieceProjectile, in meters per second squared */
+  public static final double DEFAULT_GRAVITY = 11.0;
+  /** Largest number of lookups when solving a moving shot */
+  private static final int MAX_ITERATIONS = 8;
+  /** Change of the virtual target, in meters, under which a moving shot has converged */
+  private static final double AIM_TOLERANCE = 1e-3;
+
+  private final double minDistance;
+  private final double maxDistance;
+  private final int distanceSteps;
+  private final double minHeight;
+  private final double maxHeight;
+  private final int heightSteps;
+  private final double distanceStep;
+  private final double heightStep;
+
+  private double gravity = DEFAULT_GRAVITY;
+  private double minAngle = Math.toRadians(10);
+  private double maxAngle = Math.toRadians(80);
+  private double maxLaunchSpeed = 25.0;
+  private double flywheelRatio = 1.0;
+
+  private boolean computed = false;
+  private double[] launchSpeeds;
+  private double[] hoodAngles;
+  private double[] timesOfFlight;
+
+  /** A solved shot. Solutions are filled in place so they can be reused every loop. */
+  public static class Solution {
+    /** Whether the shot can be made; the other values are NaN when it can not */
+    public boolean valid;
+    /** Launch speed of the game piece relative to the shooter, in meters per second */
+    public double launchSpeed;
+    /** Flywheel speed for the launch speed, in the units of the flywheel ratio */
+    public double flywheelSpeed;
+    /** Launch elevation above horizontal, in radians */
+    public double hoodAngle;
+    /** Time from launch to reaching the target, in seconds */
+    public double timeOfFlight;
+    /** Field relative heading to aim the shooter at, in radians */
+    public double heading;
+    /** Horizontal distance to the virtual target, in meters */
+    public double distance;
+
+    private void invalidate() {
+      valid = false;
+      launchSpeed = Double.NaN;
+      flywheelSpeed = Double.NaN;
+      hoodAngle = Double.NaN;
+      timeOfFlight = Double.NaN;
+      heading = Double.NaN;
+      distance = Double.NaN;
+    }
+  }
+
+  /**
+   * Creates a solver.
+   *
+   * @param minDistance the shortest horizontal distance in the table, in meters; must be positive
+   * @param maxDistance the longest horizontal distance in the table, in meters
+   * @param distanceSteps the number of distances in the table, at least 2
+   * @param minHeight the lowest height of the target above the shooter in the table, in meters
+   * @param maxHeight the highest height of the target above the shooter in the table, in meters
+   * @param heightSteps the number of heights in the table, at least 2
+   */
+  public BallisticSolver(
+      double minDistance,
+      double maxDistance,
+      int distanceSteps,
+      double minHeight,
+      double maxHeight,
+      int heightSteps) {
+    if (minDistance <= 0.0 || maxDistance <= minDistance || distanceSteps < 2) {
+      throw new IllegalArgumentException("Invalid distance range for ballistic table");
+    }
+    if (maxHeight <= minHeight || heightSteps < 2) {
+      throw new IllegalArgumentException("Invalid height range for ballistic table");
+    }
+    this.minDistance = minDistance;
+    this.maxDistance = maxDistance;
+    this.distanceSteps = distanceSteps;
+    this.minHeight = minHeight;
+    this.maxHeight = maxHeight;
+    this.heightSteps = heightSteps;
+    distanceStep = (maxDistance - minDistance) / (distanceSteps - 1);
+    heightStep = (maxHeight - minHeight) / (heightSteps - 1);
+  }
+
+  /**
+   * Sets the gravity the projectile falls under.
+   *
+   * @param gravity the gravity in meters per second squared
+   * @return this solver
+   */
+  public BallisticSolver withGravity(double gravity) {
+    this.gravity = gravity;
+    computed = false;
+    return this;
+  }
+
+  /**
+   * Sets the range of launch elevations the hood can reach.
+   *
+   * @param minAngle the lowest elevation in radians
+   * @param maxAngle the highest elevation in radians, below pi / 2
+   * @return this solver
+   */
+  public BallisticSolver withHoodRange(double minAngle, double maxAngle) {
+    this.minAngle = minAngle;
+    this.maxAngle = maxAngle;
+    computed = false;
+    return this;
+  }
+
+  /**
+   * Sets the fastest the shooter can launch a game piece.
+   *
+   * @param metersPerSecond the launch speed
+   * @return this solver
+   */
+  public BallisticSolver withMaxLaunchSpeed(double metersPerSecond) {
+    maxLaunchSpeed = metersPerSecond;
+    computed = false;
+    return this;
+  }
+
+  /**
+   * Sets the flywheel speed needed per meter per second of launch speed, including any slip between
+   * the wheel and the game piece.
+   *
+   * @param ratio the flywheel speed per meter per second, such as RPM per meter per second
+   * @return this solver
+   */
+  public BallisticSolver withFlywheelRatio(double ratio) {
+    flywheelRatio = ratio;
+    return this;
+  }
+
+  /** Computes the table now rather than on the first lookup. */
+  public void precompute() {
+    int size = distanceSteps * heightSteps;
+    double[] speeds = new double[size];
+    double[] angles = new double[size];
+    double[] times = new double[size];
+    for (int i = 0; i < distanceSteps; i++) {
+      double distance = minDistance + i * distanceStep;
+      for (int j = 0; j < heightSteps; j++) {
+        int index = i * heightSteps + j;
+        double height = minHeight + j * heightStep;
+        // The lowest speed shot bisects the angle between the target and straight up
+        double angle = Math.PI / 4 + Math.atan2(height, distance) / 2;
+        angle = Math.max(minAngle, Math.min(maxAngle, angle));
+        double cos = Math.cos(angle);
+        double rise = distance * Math.tan(angle) - height;
+        double speed =
+            rise > 0.0 ? Math.sqrt(gravity * distance * distance / (2 * cos * cos * rise)) : 0.0;
+        if (rise > 0.0 && speed <= maxLaunchSpeed) {
+          speeds[index] = speed;
+          angles[index] = angle;
+          times[index] = distance / (speed * cos);
+        } else {
+          speeds[index] = Double.NaN;
+          angles[index] = Double.NaN;
+          times[index] = Double.NaN;
+        }
+      }
+    }
+    launchSpeeds = speeds;
+    hoodAngles = angles;
+    timesOfFlight = times;
+    computed = true;
+  }
+
+  /**
+   * Looks up a shot from a standing shooter.
+   *
+   * @param distance the horizontal distance to the target in meters
+   * @param height the height of the target above the shooter in meters
+   * @param out the solution to fill; its heading is left at zero
+   * @return true if the shot can be made
+   */
+  public boolean lookup(double distance, double height, Solution out) {
+    if (!computed) {
+      precompute();
+    }
+    double x = (distance - minDistance) / distanceStep;
+    double y = (height - minHeight) / heightStep;
+    if (!(x >= 0.0 && x <= distanceSteps - 1 && y >= 0.0 && y <= heightSteps - 1)) {
+      out.invalidate();
+      return false;
+    }
+    int i = Math.min((int) x, distanceSteps - 2);
+    int j = Math.min((int) y, heightSteps - 2);
+    double fx = x - i;
+    double fy = y - j;
+    int index = i * heightSteps + j;
+    double speed = interpolate(launchSpeeds, index, fx, fy);
+    if (Double.isNaN(speed)) {
+      // A corner the hood can not reach; do not blend towards it
+      out.invalidate();
+      return false;
+    }
+    out.valid = true;
+    out.launchSpeed = speed;
+    out.flywheelSpeed = speed * flywheelRatio;
+    out.hoodAngle = interpolate(hoodAngles, index, fx, fy);
+    out.timeOfFlight = interpolate(timesOfFlight, index, fx, fy);
+    out.heading = 0.0;
+    out.distance = distance;
+    return true;
+  }
+
+  private double interpolate(double[] table, int index, double fx, double fy) {
+    double low = table[index] + (table[index + 1] - table[index]) * fy;
+    int next = index + heightSteps;
+    double high = table[next] + (table[next + 1] - table[next]) * fy;
+    return low + (high - low) * fx;
+  }
+
+  /**
+   * Solves a shot from a moving shooter.
+   *
+   * @param dx the field x distance from the shooter to the target in meters
+   * @param dy the field y distance from the shooter to the target in meters
+   * @param height the height of the target above the shooter in meters
+   * @param vx the field x velocity of the shooter in meters per second
+   * @param vy the field y velocity of the shooter in meters per second
+   * @param out the solution to fill
+   * @return true if the shot can be made
+   */
+  public boolean solve(double dx, double dy, double height, double vx, double vy, Solution out) {
+    double aimX = dx;
+    double aimY = dy;
+    for (int i = 0; i < MAX_ITERATIONS; i++) {
+      if (!lookup(Math.hypot(aimX, aimY), height, out)) {
+        return false;
+      }
+      double nextX = dx - vx * out.timeOfFlight;
+      double nextY = dy - vy * out.timeOfFlight;
+      if (Math.hypot(nextX - aimX, nextY - aimY) < AIM_TOLERANCE) {
+        out.heading = Math.atan2(aimY, aimX);
+        return true;
+      }
+      aimX = nextX;
+      aimY = nextY;
+    }
+    out.invalidate();
+    return false;
+  }
+
+  /**
+   * Solves a shot from a shooter mounted on a moving robot. The shooter's velocity includes the
+   * robot's rotation about its center, as it does for the simulated projectile.
+   *
+   * @param robotPose the robot pose
+   * @param shooterOnRobot the shooter position relative to the robot center
+   * @param launchHeight the height the game piece leaves the shooter at in meters
+   * @param fieldSpeeds the field relative robot velocity
+   * @param target the target on the field
+   * @param out the solution to fill
+   * @return true if the shot can be made
+   */
+  public boolean solve(
+      Pose2d robotPose,
+      Translation2d shooterOnRobot,
+      double launchHeight,
+      ChassisSpeeds fieldSpeeds,
+      Translation3d target,
+      Solution out) {
+    double cos = robotPose.getRotation().getCos();
+    double sin = robotPose.getRotation().getSin();
+    double offsetX = shooterOnRobot.getX() * cos - shooterOnRobot.getY() * sin;
+    double offsetY = shooterOnRobot.getX() * sin + shooterOnRobot.getY() * cos;
+    double omega = fieldSpeeds.omegaRadiansPerSecond;
+    return solve(
+        target.getX() - robotPose.getX() - offsetX,
+        target.getY() - robotPose.getY() - offsetY,
+        target.getZ() - launchHeight,
+        fieldSpeeds.vxMetersPerSecond - omega * offsetY,
+        fieldSpeeds.vyMetersPerSecond + omega * offsetX,
+        out);
+  }
+}
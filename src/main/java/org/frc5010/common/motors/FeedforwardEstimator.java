@@ -0,0 +1,216 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.motors;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import java.util.Arrays;
+
+/**
+ * Estimates the kS, kV and kA feedforward constants of a mechanism while it runs.
+ *
+ * <p>The constants are fit to V = kS * sign(v) + kV * v + kA * a in two parts, as a SysId run is
+ * analysed. Quasistatic samples, taken while the voltage ramps slowly enough that the acceleration
+ * is negligible, are fit to V = kS * sign(v) + kV * v with a {@link RecursiveLeastSquares}. Dynamic
+ * samples, taken after a voltage step, are where the acceleration is large enough to measure, and
+ * give kA from the voltage the quasistatic fit leaves unexplained. Their acceleration comes from
+ * the change in velocity since the previous dynamic sample, paired with the mean velocity of the
+ * two. Only the sums of products of the
+ * dynamic samples are kept, so kA always uses the latest kS and kV and the memory used stays fixed.
+ *
+ * <p>Samples below the velocity deadband are skipped; the mechanism is held by static friction
+ * there and the model does not apply. The estimate is available after every sample, together with
+ * the standard error of each constant and the R squared of the quasistatic fit.
+ */
+public class FeedforwardEstimator {
+  /** Default velocity below which the mechanism is treated as stopped */
+  public static final double DEFAULT_VELOCITY_DEADBAND = 1e-3;
+
+  /** Indices into a dynamic sample: sign of velocity, velocity, acceleration and voltage */
+  private static final int SIGN = 0;
+  private static final int VELOCITY = 1;
+  private static final int ACCELERATION = 2;
+  private static final int VOLTAGE = 3;
+  private static final int TERMS = 4;
+
+  private final RecursiveLeastSquares quasistatic = new RecursiveLeastSquares(2);
+  private final double[] phi = new double[2];
+  /** Sums of the products of every pair of dynamic sample terms */
+  private final double[] dynamicMoments = new double[TERMS * TERMS];
+  private final double[] dynamicTerms = new double[TERMS];
+  private final double velocityDeadband;
+  private long dynamicCount = 0;
+  private double lastVelocity = Double.NaN;
+  private double lastTime = Double.NaN;
+
+  public FeedforwardEstimator() {
+    this(DEFAULT_VELOCITY_DEADBAND);
+  }
+
+  /**
+   * Creates an estimator.
+   *
+   * @param velocityDeadband the velocity below which samples are skipped
+   */
+  public FeedforwardEstimator(double velocityDeadband) {
+    this.velocityDeadband = velocityDeadband;
+  }
+
+  /** Clears every sample. */
+  public void reset() {
+    quasistatic.reset();
+    Arrays.fill(dynamicMoments, 0.0);
+    dynamicCount = 0;
+    lastVelocity = Double.NaN;
+    lastTime = Double.NaN;
+  }
+
+  /**
+   * Adds a sample from a slow voltage ramp, which fits kS and kV.
+   *
+   * @param velocity the measured velocity
+   * @param voltage the applied voltage
+   */
+  public void addQuasistaticSample(double velocity, double voltage) {
+    // The next dynamic sample starts a new segment
+    lastTime = Double.NaN;
+    if (Math.abs(velocity) < velocityDeadband) {
+      return;
+    }
+    phi[0] = Math.signum(velocity);
+    phi[1] = velocity;
+    quasistatic.update(phi, voltage);
+  }
+
+  /**
+   * Adds a sample from a voltage step, which fits kA. Consecutive dynamic samples form a segment;
+   * the first sample after a quasistatic sample or a reset only starts one.
+   *
+   * @param velocity the measured velocity
+   * @param voltage the applied voltage
+   * @param time the time of the sample in seconds
+   */
+  public void addDynamicSample(double velocity, double voltage, double time) {
+    double dt = time - lastTime;
+    double previous = lastVelocity;
+    lastVelocity = velocity;
+    lastTime = time;
+    if (!(dt > 1e-6) || Math.abs(velocity) < velocityDeadband) {
+      return;
+    }
+    // The change in velocity is the acceleration halfway between the samples, so pair it with the
+    // velocity there
+    double midpointVelocity = (velocity + previous) / 2;
+    dynamicTerms[SIGN] = Math.signum(midpointVelocity);
+    dynamicTerms[VELOCITY] = midpointVelocity;
+    dynamicTerms[ACCELERATION] = (velocity - previous) / dt;
+    dynamicTerms[VOLTAGE] = voltage;
+    for (int i = 0; i < TERMS; i++) {
+      for (int j = 0; j < TERMS; j++) {
+        dynamicMoments[i * TERMS + j] += dynamicTerms[i] * dynamicTerms[j];
+      }
+    }
+    dynamicCount++;
+  }
+
+  private double moment(int i, int j) {
+    return dynamicMoments[i * TERMS + j];
+  }
+
+  /**
+   * Gets the static friction constant.
+   *
+   * @return kS in volts
+   */
+  public double getKS() {
+    return quasistatic.getParameter(0);
+  }
+
+  /**
+   * Gets the velocity constant.
+   *
+   * @return kV in volts per unit of velocity
+   */
+  public double getKV() {
+    return quasistatic.getParameter(1);
+  }
+
+  /**
+   * Gets the acceleration constant.
+   *
+   * @return kA in volts per unit of acceleration, or 0 until there are dynamic samples
+   */
+  public double getKA() {
+    double sumSquaresAcceleration = moment(ACCELERATION, ACCELERATION);
+    if (!(sumSquaresAcceleration > 0.0)) {
+      return 0.0;
+    }
+    return (moment(ACCELERATION, VOLTAGE)
+            - getKS() * moment(ACCELERATION, SIGN)
+            - getKV() * moment(ACCELERATION, VELOCITY))
+        / sumSquaresAcceleration;
+  }
+
+  /**
+   * Gets the standard error of a constant.
+   *
+   * @param index 0 for kS, 1 for kV, 2 for kA
+   * @return the standard error, or infinity until there are enough samples
+   */
+  public double getStandardError(int index) {
+    if (index < 2) {
+      return quasistatic.getStandardError(index);
+    }
+    if (dynamicCount < 2) {
+      return Double.POSITIVE_INFINITY;
+    }
+    // The residual sum of squares is w' M w for the weights w of the fitted model
+    dynamicTerms[SIGN] = -getKS();
+    dynamicTerms[VELOCITY] = -getKV();
+    dynamicTerms[ACCELERATION] = -getKA();
+    dynamicTerms[VOLTAGE] = 1.0;
+    double residualSumSquares = 0.0;
+    for (int i = 0; i < TERMS; i++) {
+      for (int j = 0; j < TERMS; j++) {
+        residualSumSquares += dynamicTerms[i] * moment(i, j) * dynamicTerms[j];
+      }
+    }
+    double variance = Math.max(0.0, residualSumSquares) / (dynamicCount - 1);
+    return Math.sqrt(variance / moment(ACCELERATION, ACCELERATION));
+  }
+
+  /**
+   * Gets the fraction of the voltage variance explained by the quasistatic fit.
+   *
+   * @return the coefficient of determination
+   */
+  public double getRSquared() {
+    return quasistatic.getRSquared();
+  }
+
+  /**
+   * Gets the number of quasistatic and dynamic samples used in the fit.
+   *
+   * @return the sample count
+   */
+  public long getCount() {
+    return quasistatic.getCount() + dynamicCount;
+  }
+
+  /**
+   * Publishes the current estimate and its confidence to SmartDashboard.
+   *
+   * @param prefix the key prefix, such as "Characterization/Feedforward"
+   */
+  public void publish(String prefix) {
+    SmartDashboard.putNumber(prefix + "/kS", getKS());
+    SmartDashboard.putNumber(prefix + "/kV", getKV());
+    SmartDashboard.putNumber(prefix + "/kA", getKA());
+    SmartDashboard.putNumber(prefix + "/kS StdErr", getStandardError(0));
+    SmartDashboard.putNumber(prefix + "/kV StdErr", getStandardError(1));
+    SmartDashboard.putNumber(prefix + "/kA StdErr", getStandardError(2));
+    SmartDashboard.putNumber(prefix + "/R2", getRSquared());
+    SmartDashboard.putNumber(prefix + "/Samples", getCount());
+  }
+}
@@ -0,0 +1,174 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.motors;
+
+/**
+ * A recursive least squares estimator for y = theta * phi.
+ *
+ * <p>Each sample updates the parameters, their covariance and the residual statistics in place, so
+ * the cost per sample depends only on the number of parameters and the memory used is fixed no
+ * matter how long the estimator runs. With no forgetting the result matches a batch least squares
+ * fit of every sample seen. A forgetting factor below 1 weights older samples down exponentially so
+ * the estimate can follow a slowly changing system.
+ *
+ * <p>Besides the parameters the estimator tracks the residual variance, which gives a standard
+ * error for each parameter, and the variance of y, which gives the coefficient of determination.
+ */
+public class RecursiveLeastSquares {
+  /** Initial covariance; large so the first samples dominate the prior of zero */
+  private static final double INITIAL_COVARIANCE = 1e6;
+
+  private final int size;
+  private final double forgetting;
+  private final double[] theta;
+  private final double[] covariance;
+  private final double[] covariancePhi;
+
+  private long count = 0;
+  private double weight = 0.0;
+  private double residualSumSquares = 0.0;
+  private double meanY = 0.0;
+  private double sumSquaresY = 0.0;
+
+  /**
+   * Creates an estimator that weights every sample equally.
+   *
+   * @param size the number of parameters
+   */
+  public RecursiveLeastSquares(int size) {
+    this(size, 1.0);
+  }
+
+  /**
+   * Creates an estimator.
+   *
+   * @param size the number of parameters
+   * @param forgetting the factor older samples are weighted down by on every new sample, between 0
+   *     and 1
+   */
+  public RecursiveLeastSquares(int size, double forgetting) {
+    this.size = size;
+    this.forgetting = forgetting;
+    theta = new double[size];
+    covariance = new double[size * size];
+    covariancePhi = new double[size];
+    reset();
+  }
+
+  /** Clears every sample and goes back to the initial estimate. */
+  public void reset() {
+    for (int i = 0; i < size; i++) {
+      theta[i] = 0.0;
+      for (int j = 0; j < size; j++) {
+        covariance[i * size + j] = i == j ? INITIAL_COVARIANCE : 0.0;
+      }
+    }
+    count = 0;
+    weight = 0.0;
+    residualSumSquares = 0.0;
+    meanY = 0.0;
+    sumSquaresY = 0.0;
+  }
+
+  /**
+   * Adds a sample.
+   *
+   * @param phi the regressors of the sample; must hold at least as many values as parameters
+   * @param y the measured output
+   */
+  public void update(double[] phi, double y) {
+    double denominator = forgetting;
+    double prediction = 0.0;
+    for (int i = 0; i < size; i++) {
+      double sum = 0.0;
+      for (int j = 0; j < size; j++) {
+        sum += covariance[i * size + j] * phi[j];
+      }
+      covariancePhi[i] = sum;
+      denominator += phi[i] * sum;
+      prediction += phi[i] * theta[i];
+    }
+    double error = y - prediction;
+
+    for (int i = 0; i < size; i++) {
+      theta[i] += covariancePhi[i] / denominator * error;
+    }
+    // P = (P - P phi phi' P / denominator) / forgetting, kept symmetric
+    for (int i = 0; i < size; i++) {
+      for (int j = i; j < size; j++) {
+        double value =
+            (covariance[i * size + j] - covariancePhi[i] * covariancePhi[j] / denominator)
+                / forgetting;
+        covariance[i * size + j] = value;
+        covariance[j * size + i] = value;
+      }
+    }
+
+    // The a priori error scaled this way is exactly the growth of the residual sum of squares
+    residualSumSquares = forgetting * residualSumSquares + forgetting * error * error / denominator;
+
+    // Weighted Welford update of the variance of y
+    weight = forgetting * weight + 1.0;
+    sumSquaresY *= forgetting;
+    double delta = y - meanY;
+    meanY += delta / weight;
+    sumSquaresY += delta * (y - meanY);
+    count++;
+  }
+
+  /**
+   * Gets an estimated parameter.
+   *
+   * @param index the parameter index
+   * @return the parameter
+   */
+  public double getParameter(int index) {
+    return theta[index];
+  }
+
+  /**
+   * Gets the standard error of an estimated parameter.
+   *
+   * @param index the parameter index
+   * @return the standard error, or infinity until there are more samples than parameters
+   */
+  public double getStandardError(int index) {
+    double variance = getResidualVariance();
+    if (Double.isInfinite(variance)) {
+      return variance;
+    }
+    return Math.sqrt(Math.max(0.0, variance * covariance[index * size + index]));
+  }
+
+  /**
+   * Gets the variance of the residuals around the fit.
+   *
+   * @return the residual variance, or infinity until there are more samples than parameters
+   */
+  public double getResidualVariance() {
+    double degreesOfFreedom = weight - size;
+    return degreesOfFreedom > 0.0
+        ? residualSumSquares / degreesOfFreedom
+        : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Gets the fraction of the variance of y explained by the fit.
+   *
+   * @return the coefficient of determination, at most 1, or 0 before y has varied
+   */
+  public double getRSquared() {
+    return sumSquaresY > 0.0 ? 1.0 - residualSumSquares / sumSquaresY : 0.0;
+  }
+
+  /**
+   * Gets the number of samples added since the last reset.
+   *
+   * @return the sample count
+   */
+  public long getCount() {
+    return count;
+  }
+}
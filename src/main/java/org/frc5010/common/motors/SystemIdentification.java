@@ -17,7 +17,6 @@ import edu.wpi.first.units.measure.MutVoltage;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
@@ -25,8 +24,6 @@ import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Config;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -162,10 +159,19 @@ public class SystemIdentification {
 
   private static final double FF_START_DELAY = 2.0; // Secs
   private static final double FF_RAMP_RATE = 0.1; // Volts/Sec
+  private static final double FF_RAMP_DURATION = 30.0; // Secs
+  private static final double FF_STEP_VOLTAGE = 4.0; // Volts
+  private static final double FF_STEP_DURATION = 1.0; // Secs
+
   /**
    * Measures the velocity feedforward constants for the motors.
    *
-   * <p>This command should only be used in voltage control mode.
+   * <p>This command should only be used in voltage control mode. The voltage first ramps slowly for
+   * 30 seconds, so the samples are quasistatic and give kS and kV. After the mechanism has come to
+   * rest, a 4 volt step is applied for one second, and its dynamic samples give kA. The constants
+   * are estimated with a {@link FeedforwardEstimator} as samples arrive and published every loop
+   * with their standard errors. If the command is stopped early, the constants measured so far are
+   * reported.
    *
    * @param subsystem the swerve drivetrain subsystem to characterize
    * @param characterizer consumer that accepts voltage values to apply to motors
@@ -176,178 +182,82 @@ public class SystemIdentification {
       GenericSubsystem subsystem,
       Consumer<Voltage> characterizer,
       Supplier<Double> velocitySupplier) {
-    List<Double> velocitySamples = new LinkedList<>();
-    List<Double> voltageSamples = new LinkedList<>();
-    List<Double> timeSamples = new LinkedList<>();
+    FeedforwardEstimator estimator = new FeedforwardEstimator();
     Timer timer = new Timer();
 
     return Commands.sequence(
-        // Reset data
-        Commands.runOnce(
+            // Reset data
+            Commands.runOnce(estimator::reset),
+
+            // Allow modules to orient
+            Commands.run(
+                    () -> {
+                      characterizer.accept(Volts.of(0.0));
+                    },
+                    subsystem)
+                .withTimeout(FF_START_DELAY),
+
+            // Start timer
+            Commands.runOnce(timer::restart),
+
+            // Accelerate slowly and gather quasistatic data
+            Commands.run(
+                    () -> {
+                      double time = timer.get();
+                      double voltage = time * FF_RAMP_RATE;
+                      characterizer.accept(Volts.of(voltage));
+                      estimator.addQuasistaticSample(velocitySupplier.get(), voltage);
+                      estimator.publish("Characterization/Feedforward");
+                    },
+                    subsystem)
+                .withTimeout(FF_RAMP_DURATION),
+
+            // Come to rest before the step
+            Commands.run(
+                    () -> {
+                      characterizer.accept(Volts.of(0.0));
+                    },
+                    subsystem)
+                .withTimeout(FF_START_DELAY),
+
+            // Start timer
+            Commands.runOnce(timer::restart),
+
+            // Step the voltage and gather dynamic data
+            Commands.run(
+                    () -> {
+                      characterizer.accept(Volts.of(FF_STEP_VOLTAGE));
+                      estimator.addDynamicSample(
+                          velocitySupplier.get(), FF_STEP_VOLTAGE, timer.get());
+                      estimator.publish("Characterization/Feedforward");
+                    },
+                    subsystem)
+                .withTimeout(FF_STEP_DURATION))
+
+        // When finished or cancelled, stop and print results
+        .finallyDo(
             () -> {
-              velocitySamples.clear();
-              voltageSamples.clear();
-              timeSamples.clear();
-            }),
-
-        // Allow modules to orient
-        Commands.run(
-                () -> {
-                  characterizer.accept(Volts.of(0.0));
-                },
-                subsystem)
-            .withTimeout(FF_START_DELAY),
-
-        // Start timer
-        Commands.runOnce(timer::restart),
-
-        // Accelerate and gather data
-        Commands.run(
-                () -> {
-                  double voltage = timer.get() * FF_RAMP_RATE;
-                  characterizer.accept(Volts.of(voltage));
-                  velocitySamples.add(velocitySupplier.get());
-                  voltageSamples.add(voltage);
-                  timeSamples.add(timer.get());
-                },
-                subsystem)
-
-            // When cancelled, calculate and print results
-            .finallyDo(
-                () -> {
-                  double[] coefficients =
-                      computeFeedforwardCoefficients(velocitySamples, voltageSamples, timeSamples);
-                  double kS = coefficients[0];
-                  double kV = coefficients[1];
-                  double kA = coefficients[2];
-
-                  NumberFormat formatter = new DecimalFormat("#0.00000");
-                  System.out.println("********** FF Characterization Results **********");
-                  System.out.println("\tkS: " + formatter.format(kS));
-                  System.out.println("\tkV: " + formatter.format(kV));
-                  System.out.println("\tkA: " + formatter.format(kA));
-                  SmartDashboard.putNumber("Characterization/Feedforward/kS", kS);
-                  SmartDashboard.putNumber("Characterization/Feedforward/kV", kV);
-                  SmartDashboard.putNumber("Characterization/Feedforward/kA", kA);
-                }));
-  }
-
-  static double[] computeFeedforwardCoefficients(
-      List<Double> velocitySamples, List<Double> voltageSamples, List<Double> timeSamples) {
-    int n = Math.min(velocitySamples.size(), voltageSamples.size());
-    if (n == 0) {
-      return new double[] {0.0, 0.0, 0.0};
-    }
-
-    double sumX = 0.0;
-    double sumY = 0.0;
-    double sumXY = 0.0;
-    double sumX2 = 0.0;
-    for (int i = 0; i < n; i++) {
-      double velocity = velocitySamples.get(i);
-      double voltage = voltageSamples.get(i);
-      sumX += velocity;
-      sumY += voltage;
-      sumXY += velocity * voltage;
-      sumX2 += velocity * velocity;
-    }
-    double denom = (n * sumX2 - sumX * sumX);
-    double kS = denom != 0.0 ? (sumY * sumX2 - sumX * sumXY) / denom : 0.0;
-    double kV = denom != 0.0 ? (n * sumXY - sumX * sumY) / denom : 0.0;
-    double kA = 0.0;
-
-    if (timeSamples == null || timeSamples.size() < n) {
-      return new double[] {kS, kV, kA};
-    }
-
-    int m = 0;
-    double s00 = 0.0;
-    double s01 = 0.0;
-    double s02 = 0.0;
-    double s11 = 0.0;
-    double s12 = 0.0;
-    double s22 = 0.0;
-    double t0 = 0.0;
-    double t1 = 0.0;
-    double t2 = 0.0;
-    for (int i = 1; i < n; i++) {
-      double dt = timeSamples.get(i) - timeSamples.get(i - 1);
-      if (dt <= 1e-6) {
-        continue;
-      }
-      double velocity = velocitySamples.get(i);
-      double accel = (velocity - velocitySamples.get(i - 1)) / dt;
-      double voltage = voltageSamples.get(i);
-      s00 += 1.0;
-      s01 += velocity;
-      s02 += accel;
-      s11 += velocity * velocity;
-      s12 += velocity * accel;
-      s22 += accel * accel;
-      t0 += voltage;
-      t1 += velocity * voltage;
-      t2 += accel * voltage;
-      m++;
-    }
-
-    if (m >= 3) {
-      double[][] a = {
-        {s00, s01, s02},
-        {s01, s11, s12},
-        {s02, s12, s22}
-      };
-      double[] b = {t0, t1, t2};
-      double[] solution = solve3x3(a, b);
-      if (solution != null) {
-        kS = solution[0];
-        kV = solution[1];
-        kA = solution[2];
-      }
-    }
-
-    return new double[] {kS, kV, kA};
-  }
-
-  private static double[] solve3x3(double[][] a, double[] b) {
-    double[][] m = {
-      {a[0][0], a[0][1], a[0][2], b[0]},
-      {a[1][0], a[1][1], a[1][2], b[1]},
-      {a[2][0], a[2][1], a[2][2], b[2]}
-    };
-
-    for (int i = 0; i < 3; i++) {
-      int pivot = i;
-      for (int r = i + 1; r < 3; r++) {
-        if (Math.abs(m[r][i]) > Math.abs(m[pivot][i])) {
-          pivot = r;
-        }
-      }
-      if (Math.abs(m[pivot][i]) < 1e-9) {
-        return null;
-      }
-      if (pivot != i) {
-        double[] temp = m[i];
-        m[i] = m[pivot];
-        m[pivot] = temp;
-      }
-
-      double divisor = m[i][i];
-      for (int c = i; c < 4; c++) {
-        m[i][c] /= divisor;
-      }
-
-      for (int r = 0; r < 3; r++) {
-        if (r == i) {
-          continue;
-        }
-        double factor = m[r][i];
-        for (int c = i; c < 4; c++) {
-          m[r][c] -= factor * m[i][c];
-        }
-      }
-    }
-
-    return new double[] {m[0][3], m[1][3], m[2][3]};
+              characterizer.accept(Volts.of(0.0));
+              NumberFormat formatter = new DecimalFormat("#0.00000");
+              System.out.println("********** FF Characterization Results **********");
+              System.out.println(
+                  "\tkS: "
+                      + formatter.format(estimator.getKS())
+                      + " +/- "
+                      + formatter.format(estimator.getStandardError(0)));
+              System.out.println(
+                  "\tkV: "
+                      + formatter.format(estimator.getKV())
+                      + " +/- "
+                      + formatter.format(estimator.getStandardError(1)));
+              System.out.println(
+                  "\tkA: "
+                      + formatter.format(estimator.getKA())
+                      + " +/- "
+                      + formatter.format(estimator.getStandardError(2)));
+              System.out.println("\tR2: " + formatter.format(estimator.getRSquared()));
+              estimator.publish("Characterization/Feedforward");
+            });
   }
 
   public static Command getSysIdFullCommand(
@@ -14,21 +14,18 @@ import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.Distance;
-import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.RobotController;
-import edu.wpi.first.wpilibj.simulation.BatterySim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import java.util.Optional;
-import org.frc5010.common.arch.GenericRobot.LogLevel;
 import org.frc5010.common.motors.GenericMotorController;
 import org.frc5010.common.motors.MotorFactory;
 import org.frc5010.common.motors.SystemIdentification;
 import org.frc5010.common.sensors.encoder.GenericEncoder;
+import org.frc5010.common.subsystems.PhysicsSim;
 import org.frc5010.common.telemetry.DisplayDouble;
 import org.frc5010.common.telemetry.DisplayValuesHelper;
 import org.littletonrobotics.junction.mechanism.LoggedMechanism2d;
@@ -49,6 +46,8 @@ public class AngularControlMotor extends GenericControlledMotor {
   protected final String K_G = "kG";
   protected DisplayDouble kG;
   ArmFeedforward pivotFeedforward;
+  /** Gain version the feedforward model was built from */
+  private long feedForwardVersion = -1;
 
   public AngularControlMotor(
       GenericMotorController motor, String visualName, DisplayValuesHelper tab) {
@@ -90,6 +89,7 @@ public class AngularControlMotor extends GenericControlledMotor {
     encoder.setPosition(startingAngle.in(Degrees));
     encoder.setPositionConversion(conversion / gearing);
     position.setValue(startingAngle.in(Degrees));
+    PhysicsSim.getInstance().register(this);
     return this;
   }
 
@@ -126,7 +126,7 @@ public class AngularControlMotor extends GenericControlledMotor {
     setReference(
         reference,
         controller.getControlType(),
-        getFeedForward(0).in(Volts) / RobotController.getBatteryVoltage());
+        calculateVolts(0) / RobotController.getBatteryVoltage());
   }
 
   public void updateReference() {
@@ -134,7 +134,7 @@ public class AngularControlMotor extends GenericControlledMotor {
       controller.setReference(
           reference.getValue(),
           getControlType(),
-          getFeedForward(0).in(Volts) / RobotController.getBatteryVoltage());
+          calculateVolts(0) / RobotController.getBatteryVoltage());
     }
   }
 
@@ -147,18 +147,20 @@ public class AngularControlMotor extends GenericControlledMotor {
   }
 
   @Override
-  public Voltage getFeedForward(double velocity) {
-    if (null == pivotFeedforward || _displayValuesHelper.getLoggingLevel() == LogLevel.CONFIG) {
+  protected long getGainVersion() {
+    return super.getGainVersion() + kG.getVersion();
+  }
+
+  @Override
+  public double calculateVolts(double velocity) {
+    long gainVersion = getGainVersion();
+    if (null == pivotFeedforward || gainVersion != feedForwardVersion) {
+      feedForwardVersion = gainVersion;
       pivotFeedforward =
-          new ArmFeedforward(
-              getMotorFeedFwd().getkS(),
-              kG.getValue(),
-              getMotorFeedFwd().getkV(),
-              getMotorFeedFwd().getkA());
+          new ArmFeedforward(kS.getValue(), kG.getValue(), kV.getValue(), kA.getValue());
     }
-    Voltage ff =
-        Volts.of(pivotFeedforward.calculate(Degrees.of(getPivotPosition()).in(Radians), 0.0));
-    feedForward.setValue(ff.in(Volts));
+    double ff = pivotFeedforward.calculate(Math.toRadians(getPivotPosition()), 0.0);
+    feedForward.setValue(ff);
     return ff;
   }
 
@@ -168,20 +170,36 @@ public class AngularControlMotor extends GenericControlledMotor {
     double currentPosition = getPivotPosition();
     position.setValue(currentPosition);
     velocity.setValue(encoder.getVelocity());
-    simulatedArm.setAngle(currentPosition);
-    setpoint.setAngle(getReference());
+    visualState.set(0, currentPosition);
+    visualState.set(1, getReference());
   }
 
   @Override
-  public void simulationUpdate() {
+  protected void drawVisualizer() {
+    simulatedArm.setAngle(visualState.get(0));
+    setpoint.setAngle(visualState.get(1));
+  }
+
+  @Override
+  public void simulationInputs() {
     simMechanism.setInput(_motor.getVoltage());
     outputEffort.setVoltage(_motor.getVoltage(), Volts);
-    simMechanism.update(0.020);
+  }
+
+  @Override
+  public void simulationStep(double dt) {
+    simMechanism.update(dt);
+  }
+
+  @Override
+  public void simulationOutputs() {
     _motor.simulationUpdate(
         Optional.of(simMechanism.getAngleRads()), simMechanism.getVelocityRadPerSec());
+  }
 
-    RoboRioSim.setVInVoltage(
-        BatterySim.calculateDefaultBatteryLoadedVoltage(simMechanism.getCurrentDrawAmps()));
+  @Override
+  public double getSimulationCurrentAmps() {
+    return simMechanism.getCurrentDrawAmps();
   }
 
   public boolean isAtMaximum() {
@@ -73,6 +73,8 @@ public abstract class GenericControlledMotor extends GenericFunctionalMotor
   protected GenericPIDController controller;
   protected MotorFeedFwdConstants feedFwd;
   protected GenericEncoder encoder;
+  /** Gain version last pushed to the controller while configuring */
+  private long configuredGainVersion = -1;
 
   public GenericControlledMotor(
       GenericMotorController motor, String visualName, DisplayValuesHelper tab) {
@@ -193,9 +195,13 @@ public abstract class GenericControlledMotor extends GenericFunctionalMotor
   public void setReference(double reference) {
     this.reference.setValue(reference);
     if (GenericRobot.LogLevel.CONFIG == _displayValuesHelper.getLoggingLevel()) {
-      controller.setValues(new GenericPID(kP.getValue(), kI.getValue(), kD.getValue()));
-      controller.setMotorFeedFwd(
-          new MotorFeedFwdConstants(kS.getValue(), kV.getValue(), kA.getValue()));
+      long gainVersion = kP.getVersion() + kI.getVersion() + kD.getVersion() + getGainVersion();
+      if (gainVersion != configuredGainVersion) {
+        configuredGainVersion = gainVersion;
+        controller.setValues(new GenericPID(kP.getValue(), kI.getValue(), kD.getValue()));
+        controller.setMotorFeedFwd(
+            new MotorFeedFwdConstants(kS.getValue(), kV.getValue(), kA.getValue()));
+      }
     }
     controller.setReference(reference);
   }
@@ -309,7 +315,7 @@ public abstract class GenericControlledMotor extends GenericFunctionalMotor
 
   public void setOutputWithFF(double power, double ffVelocity) {
     double outputFactor = this.outputFactor.getValue();
-    double ff = getFeedForward(ffVelocity).in(Volts);
+    double ff = calculateVolts(ffVelocity);
     double actual =
         MathUtil.clamp(
             power * outputFactor + ff,
@@ -358,13 +364,40 @@ public abstract class GenericControlledMotor extends GenericFunctionalMotor
     return feedFwd;
   }
 
-  public Voltage getFeedForward(double velocity) {
+  /**
+   * Gets a version of the feedforward gains that changes whenever any of them changes, so
+   * subclasses can keep a feedforward model and rebuild it only when the gains change. Subclasses
+   * with extra gains add their versions.
+   *
+   * @return the gain version
+   */
+  protected long getGainVersion() {
+    return kS.getVersion() + kV.getVersion() + kA.getVersion();
+  }
+
+  /**
+   * Calculates the feedforward voltage without allocating, for use every loop.
+   *
+   * @param velocity the velocity to calculate the feedforward for
+   * @return the feedforward in volts
+   */
+  public double calculateVolts(double velocity) {
     double feedforward =
         (null == feedFwd
             ? controller.getF()
             : controller.getReference() * (feedFwd.getkV() + feedFwd.getkA()) + feedFwd.getkS());
     feedForward.setValue(feedforward);
-    return Volts.of(feedforward);
+    return feedforward;
+  }
+
+  /**
+   * Calculates the feedforward voltage.
+   *
+   * @param velocity the velocity to calculate the feedforward for
+   * @return the feedforward
+   */
+  public Voltage getFeedForward(double velocity) {
+    return Volts.of(calculateVolts(velocity));
   }
 
   @Override
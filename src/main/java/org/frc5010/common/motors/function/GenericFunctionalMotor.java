@@ -23,17 +23,22 @@ import org.frc5010.common.motors.GenericMotorController;
 import org.frc5010.common.motors.GenericPIDController;
 import org.frc5010.common.motors.MotorConstants.Motor;
 import org.frc5010.common.sensors.encoder.GenericEncoder;
+import org.frc5010.common.subsystems.PhysicsSim;
 import org.frc5010.common.telemetry.DisplayValuesHelper;
+import org.frc5010.common.telemetry.VisualizerSnapshot;
 import org.littletonrobotics.junction.mechanism.LoggedMechanism2d;
 import yams.motorcontrollers.SmartMotorController;
 import yams.motorcontrollers.SmartMotorControllerConfig;
 
 /** A class that wraps a motor controller with functionality */
-public class GenericFunctionalMotor implements GenericMotorController, WpiHelperInterface {
+public class GenericFunctionalMotor
+    implements GenericMotorController, WpiHelperInterface, PhysicsSim.Model {
   /** The motor */
   protected GenericMotorController _motor;
 
   protected LoggedMechanism2d _visualizer;
+  /** Values drawn on the visualizer, stored by periodicUpdate */
+  protected final VisualizerSnapshot visualState = new VisualizerSnapshot(2);
   protected Pose3d _robotToMotor;
   protected String _visualName;
   protected DisplayValuesHelper _displayValuesHelper;
@@ -288,9 +293,35 @@ public class GenericFunctionalMotor implements GenericMotorController, WpiHelper
     return _visualizer;
   }
 
-  /** Needs to be overridden by subclasses to draw the motor behavior on the visualizer */
+  /** Needs to be overridden by subclasses to update the motor and its display values */
   public void periodicUpdate() {}
 
+  /**
+   * Hands the values {@link #periodicUpdate()} stored in {@link #visualState} to the visualizer.
+   * Called on the robot thread after periodicUpdate.
+   */
+  public void submitVisualState() {
+    visualState.submit();
+  }
+
+  /**
+   * Draws the visualizer from the values {@link #periodicUpdate()} stored in {@link #visualState},
+   * at the rate and under the conditions set by {@link VisualizerSnapshot}. Runs after
+   * periodicUpdate and may run on a background thread.
+   */
+  public void telemetryUpdate() {
+    if (null != _visualizer
+        && visualState.shouldDraw(
+            null == _displayValuesHelper
+                ? LogLevel.COMPETITION
+                : _displayValuesHelper.getLoggingLevel())) {
+      drawVisualizer();
+    }
+  }
+
+  /** Needs to be overridden by subclasses to draw the values in {@link #visualState} */
+  protected void drawVisualizer() {}
+
   /**
    * Returns the pose of the motor relative to the robot's origin.
    *
@@ -300,8 +331,32 @@ public class GenericFunctionalMotor implements GenericMotorController, WpiHelper
     return _robotToMotor;
   }
 
-  /** Needs to be overridden by subclasses to update the motor behavior during simulation */
-  public void simulationUpdate() {}
+  /**
+   * Advances only this motor's simulation through one robot loop. Motors set up for simulation are
+   * registered with {@link PhysicsSim}, which steps them every loop, so this is only needed for a
+   * model that is stepped by hand.
+   */
+  public void simulationUpdate() {
+    PhysicsSim.runAlone(this);
+  }
+
+  /** Needs to be overridden by subclasses to read the applied voltage into the simulation */
+  @Override
+  public void simulationInputs() {}
+
+  /** Needs to be overridden by subclasses to advance the simulation model */
+  @Override
+  public void simulationStep(double dt) {}
+
+  /** Needs to be overridden by subclasses to write the simulated state to the sensors */
+  @Override
+  public void simulationOutputs() {}
+
+  /** Needs to be overridden by subclasses to return the simulated current draw */
+  @Override
+  public double getSimulationCurrentAmps() {
+    return 0.0;
+  }
 
   /** Needs to be overridden by subclasses to return the motor simulation type */
   @Override
@@ -10,14 +10,13 @@ import static edu.wpi.first.units.Units.Volts;
 
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.system.plant.LinearSystemId;
-import edu.wpi.first.wpilibj.simulation.BatterySim;
 import edu.wpi.first.wpilibj.simulation.FlywheelSim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import java.util.Optional;
 import org.frc5010.common.motors.GenericMotorController;
 import org.frc5010.common.motors.MotorFactory;
 import org.frc5010.common.sensors.encoder.SimulatedEncoder;
+import org.frc5010.common.subsystems.PhysicsSim;
 import org.frc5010.common.telemetry.DisplayDouble;
 import org.frc5010.common.telemetry.DisplayValuesHelper;
 import org.frc5010.common.telemetry.DisplayVoltage;
@@ -63,6 +62,7 @@ public class PercentControlMotor extends GenericFunctionalMotor {
     simEncoder =
         new SimulatedEncoder(
             MotorFactory.getNextSimEncoderPort(), MotorFactory.getNextSimEncoderPort());
+    PhysicsSim.getInstance().register(this);
     return this;
   }
 
@@ -85,18 +85,34 @@ public class PercentControlMotor extends GenericFunctionalMotor {
   @Override
   public void periodicUpdate() {
     speed.setValue(_motor.getMotorEncoder().getVelocity());
-    speedometer.setAngle(270 - _motor.get() * 180);
+    visualState.set(0, _motor.get());
   }
 
   @Override
-  public void simulationUpdate() {
+  protected void drawVisualizer() {
+    speedometer.setAngle(270 - visualState.get(0) * 180);
+  }
+
+  @Override
+  public void simulationInputs() {
     effort.setVoltage(_motor.getVoltage(), Volts);
     simMotor.setInput(effort.getVoltageInVolts());
-    simMotor.update(0.020);
+  }
+
+  @Override
+  public void simulationStep(double dt) {
+    simMotor.update(dt);
+  }
+
+  @Override
+  public void simulationOutputs() {
     simRPM.setValue(simMotor.getAngularVelocityRPM());
     _motor.simulationUpdate(Optional.empty(), simRPM.getValue());
-    RoboRioSim.setVInVoltage(
-        BatterySim.calculateDefaultBatteryLoadedVoltage(simMotor.getCurrentDrawAmps()));
+  }
+
+  @Override
+  public double getSimulationCurrentAmps() {
+    return simMotor.getCurrentDrawAmps();
   }
 
   public GenericMotorController getMotorcontroller() {
@@ -11,9 +11,7 @@ import static edu.wpi.first.units.Units.Volts;
 
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.system.plant.LinearSystemId;
-import edu.wpi.first.wpilibj.simulation.BatterySim;
 import edu.wpi.first.wpilibj.simulation.FlywheelSim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
@@ -21,6 +19,7 @@ import java.util.Optional;
 import org.frc5010.common.motors.GenericMotorController;
 import org.frc5010.common.motors.MotorFactory;
 import org.frc5010.common.motors.SystemIdentification;
+import org.frc5010.common.subsystems.PhysicsSim;
 import org.frc5010.common.telemetry.DisplayValuesHelper;
 import org.littletonrobotics.junction.mechanism.LoggedMechanism2d;
 import org.littletonrobotics.junction.mechanism.LoggedMechanismLigament2d;
@@ -47,6 +46,7 @@ public class VelocityControlMotor extends GenericControlledMotor {
             // LinearSystemId.createFlywheelSystem(_motor.getMotorSimulationType(),
             // jKgMetersSquared, gearing),
             _motor.getMotorSimulationType());
+    PhysicsSim.getInstance().register(this);
     return this;
   }
 
@@ -74,20 +74,36 @@ public class VelocityControlMotor extends GenericControlledMotor {
   public void periodicUpdate() {
     double currentVelocity = encoder.getVelocity();
     velocity.setValue(currentVelocity);
-    speedometer.setAngle(270 - currentVelocity / _motor.getMaxRPM().in(RPM) * 180);
-    setpoint.setAngle(270 - getReference() / _motor.getMaxRPM().in(RPM) * 180);
+    visualState.set(0, currentVelocity);
+    visualState.set(1, getReference());
   }
 
   @Override
-  public void simulationUpdate() {
+  protected void drawVisualizer() {
+    double maxRPM = _motor.getMaxRPM().in(RPM);
+    speedometer.setAngle(270 - visualState.get(0) / maxRPM * 180);
+    setpoint.setAngle(270 - visualState.get(1) / maxRPM * 180);
+  }
+
+  @Override
+  public void simulationInputs() {
     flyWheelSim.setInput(_motor.getVoltage());
     outputEffort.setVoltage(_motor.getVoltage(), Volts);
-    flyWheelSim.update(0.020);
+  }
+
+  @Override
+  public void simulationStep(double dt) {
+    flyWheelSim.update(dt);
+  }
 
+  @Override
+  public void simulationOutputs() {
     _motor.simulationUpdate(Optional.empty(), flyWheelSim.getAngularVelocityRPM());
+  }
 
-    RoboRioSim.setVInVoltage(
-        BatterySim.calculateDefaultBatteryLoadedVoltage(flyWheelSim.getCurrentDrawAmps()));
+  @Override
+  public double getSimulationCurrentAmps() {
+    return flyWheelSim.getCurrentDrawAmps();
   }
 
   @Override
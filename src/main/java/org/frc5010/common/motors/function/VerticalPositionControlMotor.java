@@ -17,16 +17,13 @@ import edu.wpi.first.units.measure.Mass;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.RobotController;
-import edu.wpi.first.wpilibj.simulation.BatterySim;
 import edu.wpi.first.wpilibj.simulation.ElevatorSim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.util.Color8Bit;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Robot;
 import java.util.Optional;
 import java.util.function.DoubleSupplier;
-import org.frc5010.common.arch.GenericRobot.LogLevel;
 import org.frc5010.common.motors.GenericMotorController;
 import org.frc5010.common.motors.MotorFactory;
 import org.frc5010.common.motors.SystemIdentification;
@@ -57,6 +54,12 @@ public class VerticalPositionControlMotor extends GenericControlledMotor {
   protected DisplayDouble speed;
   protected Optional<DoubleSupplier> supplyKG = Optional.empty();
   protected ElevatorFeedforward elevatorFeedforward;
+  /** Visualizer x coordinate of the mechanism base */
+  protected double visualX;
+  /** Visualizer y coordinate of the mechanism base */
+  protected double visualY;
+  /** Gain version the feedforward model was built from */
+  private long feedForwardVersion = -1;
 
   public VerticalPositionControlMotor(
       GenericMotorController motor, String visualName, DisplayValuesHelper tab) {
@@ -99,6 +102,7 @@ public class VerticalPositionControlMotor extends GenericControlledMotor {
     encoder.setVelocityConversion(persistedConversion / 60.0);
     encoder.setPosition(startingHeight.in(Meters));
     position.setValue(startingHeight.in(Meters));
+    PhysicsSim.getInstance().register(this);
     return this;
   }
 
@@ -106,6 +110,8 @@ public class VerticalPositionControlMotor extends GenericControlledMotor {
   public VerticalPositionControlMotor setVisualizer(
       LoggedMechanism2d visualizer, Pose3d robotToMotor) {
     super.setVisualizer(visualizer, robotToMotor);
+    visualX = getSimX(Meters.of(robotToMotor.getX()));
+    visualY = getSimY(Meters.of(robotToMotor.getZ()));
     LoggedMechanismRoot2d mechanismRoot =
         visualizer.getRoot(
             _visualName + "mechRoot",
@@ -178,7 +184,7 @@ public class VerticalPositionControlMotor extends GenericControlledMotor {
     setReference(
         reference,
         controller.getControlType(),
-        getFeedForward(0.0001 * Math.signum(reference - position.getValue())).in(Volts));
+        calculateVolts(0.0001 * Math.signum(reference - position.getValue())));
   }
 
   public void updateReference() {
@@ -186,8 +192,7 @@ public class VerticalPositionControlMotor extends GenericControlledMotor {
       controller.setReference(
           reference.getValue(),
           getControlType(),
-          getFeedForward(0.0001 * Math.signum(reference.getValue() - position.getValue()))
-              .in(Volts));
+          calculateVolts(0.0001 * Math.signum(reference.getValue() - position.getValue())));
     }
   }
 
@@ -197,7 +202,7 @@ public class VerticalPositionControlMotor extends GenericControlledMotor {
     double actual =
         MathUtil.clamp(
             speed
-                + getDirectionalFeedForward((int) Math.signum(speed)).in(Volts)
+                + calculateDirectionalVolts((int) Math.signum(speed))
                     / RobotController.getBatteryVoltage(),
             -1.0,
             1.0);
@@ -220,51 +225,56 @@ public class VerticalPositionControlMotor extends GenericControlledMotor {
   }
 
   @Override
-  public Voltage getFeedForward(double velocity) {
+  protected long getGainVersion() {
+    return super.getGainVersion() + kG.getVersion();
+  }
+
+  /** Reads the supplied kG and rebuilds the feedforward model if any gain has changed. */
+  private void refreshFeedForward() {
     if (supplyKG.isPresent()) {
       kG.setValue(supplyKG.get().getAsDouble());
     }
-    if (null == elevatorFeedforward
-        || supplyKG.isPresent()
-        || _displayValuesHelper.getLoggingLevel() == LogLevel.CONFIG) {
+    long gainVersion = getGainVersion();
+    if (null == elevatorFeedforward || gainVersion != feedForwardVersion) {
+      feedForwardVersion = gainVersion;
       elevatorFeedforward =
           new ElevatorFeedforward(kS.getValue(), kG.getValue(), kV.getValue(), kA.getValue());
     }
-    Voltage ff = Volts.of(elevatorFeedforward.calculate(velocity));
-    feedForward.setValue(ff.in(Volts));
+  }
+
+  @Override
+  public double calculateVolts(double velocity) {
+    refreshFeedForward();
+    double ff = elevatorFeedforward.calculate(velocity);
+    feedForward.setValue(ff);
     return ff;
   }
 
+  /**
+   * Calculates the voltage that holds the carriage against gravity and static friction.
+   *
+   * @param movementDirection the sign of the direction the carriage is moving in
+   * @return the feedforward in volts
+   */
+  public double calculateDirectionalVolts(int movementDirection) {
+    refreshFeedForward();
+    return elevatorFeedforward.getKs() * Math.signum(movementDirection)
+        + elevatorFeedforward.getKg();
+  }
+
   public Voltage getDirectionalFeedForward(int movementDirection) {
-    if (supplyKG.isPresent()) {
-      kG.setValue(supplyKG.get().getAsDouble());
-    }
-    if (null == elevatorFeedforward
-        || supplyKG.isPresent()
-        || _displayValuesHelper.getLoggingLevel() == LogLevel.CONFIG) {
-      elevatorFeedforward =
-          new ElevatorFeedforward(kS.getValue(), kG.getValue(), kV.getValue(), kA.getValue());
-    }
-    Voltage ff =
-        Volts.of(
-            elevatorFeedforward.getKs() * Math.signum(movementDirection)
-                + elevatorFeedforward.getKg());
-    return ff;
+    return Volts.of(calculateDirectionalVolts(movementDirection));
   }
 
   @Override
   public void periodicUpdate() {
     updateReference();
     double currentPosition = getEncoderFeedback();
-    setPointRoot.setPosition(
-        getSimX(Meters.of(_robotToMotor.getX())) + setPointDisplayOffset,
-        getSimY(Meters.of(_robotToMotor.getZ())) + getReference());
-    mechRoot.setPosition(
-        getSimX(Meters.of(_robotToMotor.getX())),
-        getSimY(Meters.of(_robotToMotor.getZ())) + currentPosition);
     position.setValue(currentPosition);
     velocity.setValue(encoder.getVelocity());
     encoderFeedback.setValue(currentPosition);
+    visualState.set(0, currentPosition);
+    visualState.set(1, getReference());
 
     if (Robot.isSimulation()) {
       actualEffort.setVoltage(_motor.getVoltage(), Volts);
@@ -272,15 +282,31 @@ public class VerticalPositionControlMotor extends GenericControlledMotor {
   }
 
   @Override
-  public void simulationUpdate() {
+  protected void drawVisualizer() {
+    setPointRoot.setPosition(visualX + setPointDisplayOffset, visualY + visualState.get(1));
+    mechRoot.setPosition(visualX, visualY + visualState.get(0));
+  }
+
+  @Override
+  public void simulationInputs() {
     simMechanism.setInput(_motor.getVoltage());
     outputEffort.setVoltage(_motor.getVoltage(), Volts);
-    simMechanism.update(PhysicsSim.SimProfile.getPeriod());
+  }
+
+  @Override
+  public void simulationStep(double dt) {
+    simMechanism.update(dt);
+  }
+
+  @Override
+  public void simulationOutputs() {
     _motor.simulationUpdate(
         Optional.of(simMechanism.getPositionMeters()), simMechanism.getVelocityMetersPerSecond());
+  }
 
-    RoboRioSim.setVInVoltage(
-        BatterySim.calculateDefaultBatteryLoadedVoltage(simMechanism.getCurrentDrawAmps()));
+  @Override
+  public double getSimulationCurrentAmps() {
+    return simMechanism.getCurrentDrawAmps();
   }
 
   @Override
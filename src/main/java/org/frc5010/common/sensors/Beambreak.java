@@ -4,20 +4,83 @@
 
 package org.frc5010.common.sensors;
 
+import edu.wpi.first.wpilibj.AsynchronousInterrupt;
+import edu.wpi.first.wpilibj.DigitalInput;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
 import java.util.function.BooleanSupplier;
 
-/** Add your docs here. */
+/**
+ * A beam break sensor.
+ *
+ * <p>Polling {@link #isBroken()} once per loop can miss a game piece that passes through the beam
+ * between loops, and reports it up to a loop late. Calling {@link #enableInterrupts()} on a DIO
+ * backed beam break records every edge with its FPGA timestamp from an {@link
+ * AsynchronousInterrupt} into a small event ring. Once per loop the ring is drained, which feeds
+ * the "since last loop" triggers and the exact edge times used for latency compensation.
+ *
+ * <p>The ring has a single consumer, the robot loop, and is read without locking. In simulation
+ * {@link #setSimulatedBroken(boolean)} stands in for the sensor and injects edges into the same
+ * ring.
+ */
 public class Beambreak {
+  /** Number of edges kept between loops; must be a power of two */
+  private static final int EVENT_CAPACITY = 16;
+
+  private static final int EVENT_MASK = EVENT_CAPACITY - 1;
+  /** Nominal robot loop period in seconds */
+  private static final double LOOP_PERIOD = 0.02;
+
   BooleanSupplier valueSupplier;
+  /** The DIO channel, or -1 for a supplier backed beam break */
+  private final int channel;
+  /** The DIO input, opened on the real robot the first time it is needed */
+  private DigitalInput input = null;
+  private volatile AsynchronousInterrupt interrupt = null;
+
+  private final double[] eventTimes = new double[EVENT_CAPACITY];
+  private final boolean[] eventBroken = new boolean[EVENT_CAPACITY];
+  /** Total edges written; only producers write it */
+  private volatile long eventHead = 0;
+  /** Total edges drained; only the robot loop touches it */
+  private long eventTail = 0;
 
+  private double lastDrainTime = Double.NEGATIVE_INFINITY;
+  private int brokenEdgesThisLoop = 0;
+  private int restoredEdgesThisLoop = 0;
+  private int droppedEdges = 0;
+  private double lastBrokenTime = Double.NaN;
+  private double lastRestoredTime = Double.NaN;
+  private boolean lastEdgeBroken = false;
+  private boolean simulatedBroken = false;
+  private Trigger brokenTrigger = null;
+  private Trigger brokenSinceLastLoopTrigger = null;
+  private Trigger restoredSinceLastLoopTrigger = null;
+
+  /**
+   * Creates a beam break on a DIO channel. The beam is broken when the input reads low. The channel
+   * is only opened on the real robot, the first time the beam is read or interrupts are enabled.
+   *
+   * @param channel the DIO channel
+   */
   public Beambreak(int channel) {
-    valueSupplier = () -> false;
+    this.channel = channel;
+    valueSupplier = RobotBase.isSimulation() ? () -> simulatedBroken : () -> !getInput().get();
   }
 
   public Beambreak(BooleanSupplier supplier) {
+    channel = -1;
     valueSupplier = supplier;
   }
 
+  private DigitalInput getInput() {
+    if (null == input) {
+      input = new DigitalInput(channel);
+    }
+    return input;
+  }
+
   public boolean isBroken() {
     return valueSupplier.getAsBoolean();
   }
@@ -25,4 +88,222 @@ public class Beambreak {
   public BooleanSupplier isBrokenSupplier() {
     return () -> isBroken();
   }
+
+  /**
+   * Starts recording edges from an interrupt on the DIO input. Does nothing in simulation, where
+   * edges come from {@link #setSimulatedBroken(boolean)}, or for supplier backed beam breaks.
+   *
+   * @return this beam break
+   */
+  public Beambreak enableInterrupts() {
+    if (channel < 0 || null != interrupt || RobotBase.isSimulation()) {
+      return this;
+    }
+    interrupt =
+        new AsynchronousInterrupt(
+            getInput(),
+            (rising, falling) -> {
+              AsynchronousInterrupt source = interrupt;
+              if (null == source) {
+                return;
+              }
+              recordInterrupt(
+                  rising,
+                  rising ? source.getRisingTimestamp() : Double.NaN,
+                  falling,
+                  falling ? source.getFallingTimestamp() : Double.NaN);
+            });
+    interrupt.setInterruptEdges(true, true);
+    interrupt.enable();
+    return this;
+  }
+
+  /** Stops recording edges from the interrupt. */
+  public void disableInterrupts() {
+    if (null != interrupt) {
+      interrupt.close();
+      interrupt = null;
+    }
+  }
+
+  /**
+   * Sets the simulated beam state, recording an edge at the current FPGA time if it changed.
+   *
+   * @param broken whether the simulated beam is broken
+   */
+  public void setSimulatedBroken(boolean broken) {
+    if (broken != simulatedBroken) {
+      simulatedBroken = broken;
+      recordEdge(broken, RobotController.getFPGATime() / 1e6);
+    }
+  }
+
+  /**
+   * Records the edges reported by one interrupt callback. A pulse shorter than the interrupt
+   * latency reports both edges at once, so they are recorded in the order they happened.
+   *
+   * @param rising whether the input rose, restoring the beam
+   * @param risingTimestamp the FPGA time of the rising edge in seconds
+   * @param falling whether the input fell, breaking the beam
+   * @param fallingTimestamp the FPGA time of the falling edge in seconds
+   */
+  void recordInterrupt(
+      boolean rising, double risingTimestamp, boolean falling, double fallingTimestamp) {
+    // The input goes low when the beam is broken
+    if (rising && falling && risingTimestamp < fallingTimestamp) {
+      recordEdge(false, risingTimestamp);
+      recordEdge(true, fallingTimestamp);
+      return;
+    }
+    if (falling) {
+      recordEdge(true, fallingTimestamp);
+    }
+    if (rising) {
+      recordEdge(false, risingTimestamp);
+    }
+  }
+
+  /**
+   * Records an edge into the event ring. Producers are serialized; the reader never locks.
+   *
+   * @param broken true if the beam became broken, false if it was restored
+   * @param timestamp the FPGA time of the edge in seconds
+   */
+  public synchronized void recordEdge(boolean broken, double timestamp) {
+    long head = eventHead;
+    int slot = (int) (head & EVENT_MASK);
+    eventTimes[slot] = timestamp;
+    eventBroken[slot] = broken;
+    eventHead = head + 1;
+  }
+
+  /**
+   * Drains the edges recorded since the last drain into the per-loop counts and edge times. Runs
+   * at most once per loop; the edge accessors call it as needed.
+   */
+  public void update() {
+    double now = RobotController.getFPGATime() / 1e6;
+    if (now - lastDrainTime < LOOP_PERIOD / 2) {
+      return;
+    }
+    lastDrainTime = now;
+    brokenEdgesThisLoop = 0;
+    restoredEdgesThisLoop = 0;
+    long head = eventHead;
+    if (head - eventTail > EVENT_CAPACITY) {
+      droppedEdges += (int) (head - eventTail - EVENT_CAPACITY);
+      eventTail = head - EVENT_CAPACITY;
+    }
+    for (; eventTail < head; eventTail++) {
+      int slot = (int) (eventTail & EVENT_MASK);
+      if (eventBroken[slot]) {
+        brokenEdgesThisLoop++;
+        lastBrokenTime = eventTimes[slot];
+      } else {
+        restoredEdgesThisLoop++;
+        lastRestoredTime = eventTimes[slot];
+      }
+      lastEdgeBroken = eventBroken[slot];
+    }
+  }
+
+  /**
+   * Gets whether the beam became broken since the previous loop, even if it was restored again
+   * before this loop.
+   *
+   * @return true if a broken edge was recorded
+   */
+  public boolean brokenSinceLastLoop() {
+    update();
+    return brokenEdgesThisLoop > 0;
+  }
+
+  /**
+   * Gets whether the beam was restored since the previous loop.
+   *
+   * @return true if a restored edge was recorded
+   */
+  public boolean restoredSinceLastLoop() {
+    update();
+    return restoredEdgesThisLoop > 0;
+  }
+
+  /**
+   * Gets the time the beam was last broken.
+   *
+   * @return the FPGA time of the edge in seconds, or NaN if no edge was recorded
+   */
+  public double getLastBrokenTime() {
+    update();
+    return lastBrokenTime;
+  }
+
+  /**
+   * Gets the time the beam was last restored.
+   *
+   * @return the FPGA time of the edge in seconds, or NaN if no edge was recorded
+   */
+  public double getLastRestoredTime() {
+    update();
+    return lastRestoredTime;
+  }
+
+  /**
+   * Gets the beam state left by the last recorded edge, which agrees with the edge times even when
+   * the beam changed again after they were drained.
+   *
+   * @return true if the last edge broke the beam
+   */
+  public boolean isBrokenAfterLastEdge() {
+    update();
+    return lastEdgeBroken;
+  }
+
+  /**
+   * Gets the number of edges lost because more than the ring capacity arrived between loops.
+   *
+   * @return the dropped edge count
+   */
+  public int getDroppedEdges() {
+    return droppedEdges;
+  }
+
+  /**
+   * Gets a trigger that is true while the beam is broken. The same trigger is returned on every
+   * call.
+   *
+   * @return the trigger
+   */
+  public Trigger getBrokenTrigger() {
+    if (null == brokenTrigger) {
+      brokenTrigger = new Trigger(this::isBroken);
+    }
+    return brokenTrigger;
+  }
+
+  /**
+   * Gets a trigger that is true for one loop after the beam became broken. The same trigger is
+   * returned on every call.
+   *
+   * @return the trigger
+   */
+  public Trigger getBrokenSinceLastLoopTrigger() {
+    if (null == brokenSinceLastLoopTrigger) {
+      brokenSinceLastLoopTrigger = new Trigger(this::brokenSinceLastLoop);
+    }
+    return brokenSinceLastLoopTrigger;
+  }
+
+  /**
+   * Gets a trigger that is true for one loop after the beam was restored. The same trigger is
+   * returned on every call.
+   *
+   * @return the trigger
+   */
+  public Trigger getRestoredSinceLastLoopTrigger() {
+    if (null == restoredSinceLastLoopTrigger) {
+      restoredSinceLastLoopTrigger = new Trigger(this::restoredSinceLastLoop);
+    }
+    return restoredSinceLastLoopTrigger;
+  }
 }
@@ -5,24 +5,32 @@
 package org.frc5010.common.sensors;
 
 import edu.wpi.first.math.filter.LinearFilter;
-import java.util.function.Supplier;
+import java.util.function.DoubleSupplier;
 
-/** Add your docs here. */
+/**
+ * A {@link ValueSwitch} that turns on for one sample each time the filtered value has been over
+ * the threshold for more than a number of samples. While sampling in the background, use the edge
+ * count or an edge listener to avoid missing the one-sample pulse between loops.
+ */
 public class CountingValueSwitch extends ValueSwitch {
-  private LinearFilter valueFilter = LinearFilter.singlePoleIIR(0.1, 0.02);
+  /** Time constant of the value filter in seconds */
+  private static final double TIME_CONSTANT = 0.1;
+
+  private LinearFilter valueFilter = LinearFilter.singlePoleIIR(TIME_CONSTANT, LOOP_PERIOD);
+  private double filteredValue = 0.0;
   private int counts;
   private int triggerCounts;
 
   public CountingValueSwitch(
-      double threshold, Supplier<Double> value, double triggerThreshold, int countsToTrigger) {
+      double threshold, DoubleSupplier value, double triggerThreshold, int countsToTrigger) {
     super(threshold, value, triggerThreshold);
     triggerCounts = countsToTrigger;
   }
 
   @Override
-  public Boolean get() {
-    boolean switchState =
-        (valueFilter.calculate(valueSupplier.get()) - thresholdSupplier.get()) > triggerThreshold;
+  protected boolean evaluate(double value, double threshold) {
+    filteredValue = valueFilter.calculate(value);
+    boolean switchState = (filteredValue - threshold) > triggerThreshold;
     counts += switchState ? 1 : 0;
     boolean countsAchieved = counts > triggerCounts;
     if (countsAchieved) {
@@ -31,11 +39,13 @@ public class CountingValueSwitch extends ValueSwitch {
     return countsAchieved;
   }
 
-  public void resetCount() {
-    counts = 0;
+  @Override
+  protected void onSamplePeriodChanged() {
+    valueFilter = LinearFilter.singlePoleIIR(TIME_CONSTANT, getSamplePeriod());
+    valueFilter.reset(new double[] {filteredValue}, new double[] {filteredValue});
   }
 
-  public void updateValue() {
-    valueFilter.calculate(valueSupplier.get());
+  public void resetCount() {
+    counts = 0;
   }
 }
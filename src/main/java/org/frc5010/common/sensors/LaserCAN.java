@@ -5,30 +5,225 @@
 package org.frc5010.common.sensors;
 
 import au.grapplerobotics.LaserCan;
+import edu.wpi.first.wpilibj.RobotController;
 
-/** Add your docs here. */
+/**
+ * A LaserCAN time-of-flight distance sensor.
+ *
+ * <p>By default {@link #getDistance()} queries the sensor on every call. After {@link
+ * #startSampling()} the sensor is polled by the shared {@link LaserCANSampler} thread at its
+ * measurement rate instead. Each valid measurement is run through a median filter and then a
+ * single-pole IIR filter. The getters return the latest filtered result without touching the CAN
+ * bus, so a mechanism can ask several times per loop for free.
+ *
+ * <p>{@link #getLatest(double[])} reads distance, velocity and timestamp as one consistent set. The
+ * sampler bumps a sequence counter to an odd value while writing and back to even when done, and
+ * the reader retries if it changed underneath it.
+ */
 public class LaserCAN {
-  private LaserCan laserCan;
+  /** Largest supported median window */
+  public static final int MAX_MEDIAN_WINDOW = 15;
+
+  private final int canID;
+  /** The sensor, opened the first time it is read */
+  private LaserCan laserCan = null;
+  private double samplePeriod = 0.033;
+  private volatile boolean sampling = false;
+  private double nextSampleTime = 0.0;
+
+  private int medianWindow = 1;
+  private double iirAlpha = 1.0;
+  private final double[] ring = new double[MAX_MEDIAN_WINDOW];
+  private final double[] sorted = new double[MAX_MEDIAN_WINDOW];
+  private int ringCount = 0;
+  private int ringNext = 0;
+  private double filtered = Double.NaN;
+
+  private volatile int sequence = 0;
+  private volatile double latestDistance = -1.0;
+  private volatile double latestVelocity = 0.0;
+  private volatile double latestTimestamp = Double.NaN;
+  private volatile long invalidMeasurements = 0;
 
   public LaserCAN(int canID) {
-    laserCan = new LaserCan(canID);
+    this.canID = canID;
   }
 
+  private synchronized LaserCan getLaserCan() {
+    if (null == laserCan) {
+      laserCan = new LaserCan(canID);
+    }
+    return laserCan;
+  }
+
+  /**
+   * Sets the filter applied to sampled distances. Only applies while sampling in the background.
+   *
+   * @param medianWindow the number of recent measurements the median is taken over, 1 to disable
+   * @param iirAlpha the weight of each new median in the IIR filter, 1 to disable
+   * @return this sensor
+   */
+  public synchronized LaserCAN withFilter(int medianWindow, double iirAlpha) {
+    this.medianWindow = Math.max(1, Math.min(MAX_MEDIAN_WINDOW, medianWindow));
+    this.iirAlpha = Math.max(0.0, Math.min(1.0, iirAlpha));
+    ringCount = 0;
+    ringNext = 0;
+    filtered = Double.NaN;
+    return this;
+  }
+
+  /**
+   * Sets how often the background sampler polls the sensor. This should match the timing budget
+   * configured on the sensor.
+   *
+   * @param seconds the time between polls
+   * @return this sensor
+   */
+  public LaserCAN withSamplePeriod(double seconds) {
+    samplePeriod = seconds;
+    return this;
+  }
+
+  /**
+   * Starts polling the sensor on the shared background sampler.
+   *
+   * @return this sensor
+   */
+  public LaserCAN startSampling() {
+    sampling = true;
+    LaserCANSampler.getInstance().register(this);
+    return this;
+  }
+
+  /** Stops background polling; reads go back to querying the sensor directly. */
+  public void stopSampling() {
+    LaserCANSampler.getInstance().unregister(this);
+    sampling = false;
+  }
+
+  /**
+   * Gets the distance to the target. While sampling this is the latest filtered distance,
+   * otherwise the sensor is queried directly.
+   *
+   * @return the distance in millimeters, or -1 if there is no measurement
+   */
   public double getDistance() {
-    LaserCan.Measurement measurement = laserCan.getMeasurement();
-    //  From Example Code:
-    //    if (measurement != null && measurement.status ==
-    // LaserCan.LASERCAN_STATUS_VALID_MEASUREMENT) {
-    //     System.out.println("The target is " + measurement.distance_mm + "mm away!");
-    // } else {
-    //     System.out.println("Oh no! The target is out of range, or we can't get a reliable
-    // measurement!");
-    //     // You can still use distance_mm in here, if you're ok tolerating a clamped
-    //     // value or an unreliable measurement.
-    // }
+    if (sampling) {
+      return latestDistance;
+    }
+    LaserCan.Measurement measurement = getLaserCan().getMeasurement();
     if (null != measurement) {
       return measurement.distance_mm;
     }
     return -1.0;
   }
+
+  /**
+   * Gets the rate of change of the filtered distance. Only available while sampling.
+   *
+   * @return the velocity in millimeters per second
+   */
+  public double getVelocity() {
+    return latestVelocity;
+  }
+
+  /**
+   * Gets the time of the latest valid sampled measurement. Only available while sampling.
+   *
+   * @return the FPGA time in seconds, or NaN if no valid measurement was sampled
+   */
+  public double getTimestamp() {
+    return latestTimestamp;
+  }
+
+  /**
+   * Reads the latest sampled result as one consistent set. Only available while sampling.
+   *
+   * @param out receives {distance, velocity, timestamp} in millimeters, millimeters per second and
+   *     FPGA seconds; must hold at least 3 values
+   */
+  public void getLatest(double[] out) {
+    int start;
+    do {
+      start = sequence;
+      out[0] = latestDistance;
+      out[1] = latestVelocity;
+      out[2] = latestTimestamp;
+    } while ((start & 1) != 0 || start != sequence);
+  }
+
+  /**
+   * Gets the number of sampled measurements rejected because their status was not valid.
+   *
+   * @return the rejected measurement count
+   */
+  public long getInvalidMeasurements() {
+    return invalidMeasurements;
+  }
+
+  /**
+   * Polls the sensor if its sample period has elapsed. Called by the sampler thread.
+   *
+   * @param now the FPGA time in seconds
+   * @return the time this sensor next wants to be polled
+   */
+  double pollIfDue(double now) {
+    if (now >= nextSampleTime) {
+      nextSampleTime = now + samplePeriod;
+      LaserCan.Measurement measurement = getLaserCan().getMeasurement();
+      if (null != measurement) {
+        addMeasurement(
+            measurement.status, measurement.distance_mm, RobotController.getFPGATime() / 1e6);
+      } else {
+        invalidMeasurements++;
+      }
+    }
+    return nextSampleTime;
+  }
+
+  /**
+   * Filters a measurement and publishes the result. Measurements whose status is not valid are
+   * counted and dropped.
+   *
+   * @param status the LaserCAN measurement status
+   * @param distance the measured distance in millimeters
+   * @param timestamp the FPGA time of the measurement in seconds
+   */
+  synchronized void addMeasurement(int status, double distance, double timestamp) {
+    if (status != LaserCan.LASERCAN_STATUS_VALID_MEASUREMENT) {
+      invalidMeasurements++;
+      return;
+    }
+    ring[ringNext] = distance;
+    ringNext = (ringNext + 1) % medianWindow;
+    ringCount = Math.min(ringCount + 1, medianWindow);
+
+    // Insertion sort of a copy; the window is small
+    for (int i = 0; i < ringCount; i++) {
+      double value = ring[i];
+      int j = i - 1;
+      while (j >= 0 && sorted[j] > value) {
+        sorted[j + 1] = sorted[j];
+        j--;
+      }
+      sorted[j + 1] = value;
+    }
+    double median =
+        (ringCount & 1) == 1
+            ? sorted[ringCount / 2]
+            : (sorted[ringCount / 2 - 1] + sorted[ringCount / 2]) / 2;
+
+    double previous = filtered;
+    filtered = Double.isNaN(previous) ? median : previous + iirAlpha * (median - previous);
+    double velocity =
+        Double.isNaN(previous) || !(timestamp > latestTimestamp)
+            ? 0.0
+            : (filtered - previous) / (timestamp - latestTimestamp);
+
+    sequence++;
+    latestDistance = filtered;
+    latestVelocity = velocity;
+    latestTimestamp = timestamp;
+    sequence++;
+  }
 }
@@ -0,0 +1,97 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.sensors;
+
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Polls every registered {@link LaserCAN} on one daemon thread, each at its own sample period. The
+ * thread sleeps until the next sensor is due, so it costs nothing between measurements.
+ */
+public class LaserCANSampler extends Thread {
+  /** Shortest sleep between polls in milliseconds */
+  private static final long MIN_SLEEP_MS = 1;
+
+  private static LaserCANSampler instance = null;
+
+  private LaserCAN[] sensors = new LaserCAN[0];
+
+  public static synchronized LaserCANSampler getInstance() {
+    if (instance == null) {
+      instance = new LaserCANSampler();
+      instance.start();
+    }
+    return instance;
+  }
+
+  private LaserCANSampler() {
+    setName("LaserCANSampler");
+    setDaemon(true);
+  }
+
+  /**
+   * Adds a sensor to be polled.
+   *
+   * @param sensor the sensor
+   */
+  public synchronized void register(LaserCAN sensor) {
+    for (LaserCAN registered : sensors) {
+      if (registered == sensor) {
+        return;
+      }
+    }
+    LaserCAN[] newSensors = new LaserCAN[sensors.length + 1];
+    System.arraycopy(sensors, 0, newSensors, 0, sensors.length);
+    newSensors[sensors.length] = sensor;
+    sensors = newSensors;
+    notifyAll();
+  }
+
+  /**
+   * Stops polling a sensor.
+   *
+   * @param sensor the sensor
+   */
+  public synchronized void unregister(LaserCAN sensor) {
+    for (int i = 0; i < sensors.length; i++) {
+      if (sensors[i] == sensor) {
+        LaserCAN[] newSensors = new LaserCAN[sensors.length - 1];
+        System.arraycopy(sensors, 0, newSensors, 0, i);
+        System.arraycopy(sensors, i + 1, newSensors, i, sensors.length - i - 1);
+        sensors = newSensors;
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      LaserCAN[] current;
+      synchronized (this) {
+        while (sensors.length == 0) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        current = sensors;
+      }
+      double now = RobotController.getFPGATime() / 1e6;
+      double nextDue = Double.POSITIVE_INFINITY;
+      for (LaserCAN sensor : current) {
+        nextDue = Math.min(nextDue, sensor.pollIfDue(now));
+      }
+      long sleepMs =
+          Math.max(MIN_SLEEP_MS, (long) ((nextDue - RobotController.getFPGATime() / 1e6) * 1000));
+      try {
+        Thread.sleep(sleepMs);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+}
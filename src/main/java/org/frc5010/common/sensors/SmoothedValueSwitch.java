@@ -5,28 +5,43 @@
 package org.frc5010.common.sensors;
 
 import edu.wpi.first.math.filter.LinearFilter;
-import java.util.function.Supplier;
+import java.util.function.DoubleSupplier;
 
-/** Add your docs here. */
+/** A {@link ValueSwitch} that compares a low-pass filtered value against the threshold. */
 public class SmoothedValueSwitch extends ValueSwitch {
-  private LinearFilter valueFilter = LinearFilter.singlePoleIIR(0.1, 0.02);
+  /** Time constant of the value filter in seconds */
+  private static final double TIME_CONSTANT = 0.1;
+
+  private LinearFilter valueFilter = LinearFilter.singlePoleIIR(TIME_CONSTANT, LOOP_PERIOD);
+  private double filteredValue = 0.0;
 
   public SmoothedValueSwitch(
-      Supplier<Double> threshold, Supplier<Double> value, double triggerThreshold) {
+      DoubleSupplier threshold, DoubleSupplier value, double triggerThreshold) {
     super(threshold, value, triggerThreshold);
   }
 
-  public SmoothedValueSwitch(double threshold, Supplier<Double> value, double triggerThreshold) {
+  public SmoothedValueSwitch(double threshold, DoubleSupplier value, double triggerThreshold) {
     super(threshold, value, triggerThreshold);
   }
 
   @Override
-  public Boolean get() {
-    return (valueFilter.calculate(valueSupplier.get()) - thresholdSupplier.get())
-        > triggerThreshold;
+  protected boolean evaluate(double value, double threshold) {
+    filteredValue = valueFilter.calculate(value);
+    return (filteredValue - threshold) > triggerThreshold;
+  }
+
+  @Override
+  protected void onSamplePeriodChanged() {
+    valueFilter = LinearFilter.singlePoleIIR(TIME_CONSTANT, getSamplePeriod());
+    valueFilter.reset(new double[] {filteredValue}, new double[] {filteredValue});
   }
 
-  public void updateValue() {
-    valueFilter.calculate(valueSupplier.get());
+  /**
+   * Gets the filtered value of the latest sample.
+   *
+   * @return the filtered value
+   */
+  public double getFilteredValue() {
+    return filteredValue;
   }
 }
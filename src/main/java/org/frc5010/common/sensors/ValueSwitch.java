@@ -1,44 +1,241 @@
 package org.frc5010.common.sensors;
 
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
-import java.util.function.Supplier;
+import java.util.function.DoubleSupplier;
 
+/**
+ * A switch that turns on when a value exceeds a threshold by more than a trigger margin.
+ *
+ * <p>The value is read once per sample and every consumer of {@link #get()} sees the state of the
+ * latest sample, so any filtering done by subclasses advances exactly once per sample no matter how
+ * many commands or triggers ask. By default a new sample is taken at most once per robot loop, the
+ * first time the state is asked for. {@link #startSampling(double)} moves sampling to a background
+ * notifier at a faster rate, which catches short events such as a current spike when a game piece
+ * is grabbed.
+ *
+ * <p>State changes can be debounced with {@link #setDebounce(double)}. Each debounced edge is
+ * counted and its FPGA timestamp recorded, and can be delivered to an {@link EdgeListener}.
+ */
 public class ValueSwitch {
-  Supplier<Double> thresholdSupplier;
-  Supplier<Double> valueSupplier;
+  /** Nominal robot loop period in seconds */
+  protected static final double LOOP_PERIOD = 0.02;
+
+  /** Receives debounced edges of a switch */
+  @FunctionalInterface
+  public interface EdgeListener {
+    /**
+     * Called for every debounced edge. When the switch samples in the background this runs on the
+     * sampling thread.
+     *
+     * @param rising true when the switch turned on, false when it turned off
+     * @param timestamp the FPGA time of the sample that completed the edge, in seconds
+     */
+    void onEdge(boolean rising, double timestamp);
+  }
+
+  DoubleSupplier thresholdSupplier;
+  DoubleSupplier valueSupplier;
   double triggerThreshold;
 
+  private double samplePeriod = LOOP_PERIOD;
+  private double debounceTime = 0.0;
+  private double lastSampleTime = Double.NEGATIVE_INFINITY;
+  private boolean rawState = false;
+  private double rawChangeTime = 0.0;
+  private volatile boolean state = false;
+  private volatile double lastRisingEdgeTime = Double.NaN;
+  private volatile double lastFallingEdgeTime = Double.NaN;
+  private volatile long risingEdgeCount = 0;
+  private volatile long fallingEdgeCount = 0;
+  private EdgeListener edgeListener = null;
+  private Trigger trigger = null;
+  private Notifier sampler = null;
+
   public ValueSwitch() {
     this.thresholdSupplier = () -> 0.0;
     this.valueSupplier = () -> 0.0;
     this.triggerThreshold = 0.0;
   }
 
-  public ValueSwitch(Supplier<Double> threshold, Supplier<Double> value, double triggerThreshold) {
+  public ValueSwitch(DoubleSupplier threshold, DoubleSupplier value, double triggerThreshold) {
     this.thresholdSupplier = threshold;
     this.valueSupplier = value;
     this.triggerThreshold = triggerThreshold;
   }
 
-  public ValueSwitch(double threshold, Supplier<Double> value, double triggerThreshold) {
+  public ValueSwitch(double threshold, DoubleSupplier value, double triggerThreshold) {
     this.thresholdSupplier = () -> threshold;
     this.valueSupplier = value;
     this.triggerThreshold = triggerThreshold;
   }
 
+  /**
+   * Gets a trigger that follows the switch. The same trigger is returned on every call.
+   *
+   * @return the trigger
+   */
   public Trigger getTrigger() {
-    return new Trigger(this::get);
+    if (null == trigger) {
+      trigger = new Trigger(this::get);
+    }
+    return trigger;
+  }
+
+  /**
+   * Gets the debounced state of the latest sample, taking a new sample first if the switch is not
+   * sampling in the background and none was taken this loop.
+   *
+   * @return whether the switch is on
+   */
+  public boolean get() {
+    if (null == sampler) {
+      double now = RobotController.getFPGATime() / 1e6;
+      if (now - lastSampleTime >= samplePeriod / 2) {
+        sample(now);
+      }
+    }
+    return state;
+  }
+
+  /**
+   * Takes one sample: reads the value and threshold, filters the value, and updates the debounced
+   * state.
+   *
+   * @param timestamp the FPGA time of the sample in seconds
+   */
+  public synchronized void sample(double timestamp) {
+    lastSampleTime = timestamp;
+    boolean raw = evaluate(valueSupplier.getAsDouble(), thresholdSupplier.getAsDouble());
+    if (raw != rawState) {
+      rawState = raw;
+      rawChangeTime = timestamp;
+    }
+    if (rawState != state && timestamp - rawChangeTime >= debounceTime) {
+      state = rawState;
+      if (rawState) {
+        lastRisingEdgeTime = timestamp;
+        risingEdgeCount++;
+      } else {
+        lastFallingEdgeTime = timestamp;
+        fallingEdgeCount++;
+      }
+      if (null != edgeListener) {
+        edgeListener.onEdge(rawState, timestamp);
+      }
+    }
+  }
+
+  /**
+   * Computes the undebounced switch state for one sample. Subclasses override this to filter the
+   * value; it is called exactly once per sample.
+   *
+   * @param value the raw value
+   * @param threshold the threshold
+   * @return whether the sample is on
+   */
+  protected boolean evaluate(double value, double threshold) {
+    return (value - threshold) > triggerThreshold;
+  }
+
+  /**
+   * Gets the time between samples, which filters should use as their period.
+   *
+   * @return the sample period in seconds
+   */
+  protected double getSamplePeriod() {
+    return samplePeriod;
+  }
+
+  /** Called when the sample period changes so subclasses can rebuild period-dependent filters. */
+  protected void onSamplePeriodChanged() {}
+
+  /**
+   * Starts sampling on a background notifier instead of the robot loop.
+   *
+   * @param periodSeconds the time between samples in seconds
+   */
+  public synchronized void startSampling(double periodSeconds) {
+    stopSampling();
+    samplePeriod = periodSeconds;
+    onSamplePeriodChanged();
+    sampler = new Notifier(() -> sample(RobotController.getFPGATime() / 1e6));
+    sampler.setName("ValueSwitchSampler");
+    sampler.startPeriodic(periodSeconds);
+  }
+
+  /** Stops background sampling and goes back to sampling once per robot loop. */
+  public synchronized void stopSampling() {
+    if (null != sampler) {
+      sampler.stop();
+      sampler.close();
+      sampler = null;
+      samplePeriod = LOOP_PERIOD;
+      onSamplePeriodChanged();
+    }
+  }
+
+  /**
+   * Sets how long a new state must hold before the switch changes.
+   *
+   * @param seconds the debounce time in seconds
+   */
+  public void setDebounce(double seconds) {
+    debounceTime = seconds;
+  }
+
+  /**
+   * Sets the listener receiving debounced edges.
+   *
+   * @param listener the listener, or null to remove it
+   */
+  public void setEdgeListener(EdgeListener listener) {
+    edgeListener = listener;
+  }
+
+  /**
+   * Gets the time of the latest debounced rising edge.
+   *
+   * @return the FPGA time in seconds, or NaN if the switch has never turned on
+   */
+  public double getLastRisingEdgeTime() {
+    return lastRisingEdgeTime;
+  }
+
+  /**
+   * Gets the time of the latest debounced falling edge.
+   *
+   * @return the FPGA time in seconds, or NaN if the switch has never turned off
+   */
+  public double getLastFallingEdgeTime() {
+    return lastFallingEdgeTime;
+  }
+
+  /**
+   * Gets the number of debounced rising edges seen. Comparing counts between loops detects edges
+   * that turned on and back off between two loops while sampling in the background.
+   *
+   * @return the rising edge count
+   */
+  public long getRisingEdgeCount() {
+    return risingEdgeCount;
   }
 
-  public Boolean get() {
-    return (valueSupplier.get() - thresholdSupplier.get()) > triggerThreshold;
+  /**
+   * Gets the number of debounced falling edges seen.
+   *
+   * @return the falling edge count
+   */
+  public long getFallingEdgeCount() {
+    return fallingEdgeCount;
   }
 
-  public void setValueSupplier(Supplier<Double> value) {
+  public void setValueSupplier(DoubleSupplier value) {
     valueSupplier = value;
   }
 
-  public void setThreshold(Supplier<Double> threshold) {
+  public void setThreshold(DoubleSupplier threshold) {
     thresholdSupplier = threshold;
   }
 
@@ -5,7 +5,9 @@
 package org.frc5010.common.sensors.camera;
 
 import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.numbers.N3;
 import java.util.List;
 import java.util.Optional;
 import org.photonvision.PhotonCamera;
@@ -57,6 +59,24 @@ public class PhotonVisionCamera extends GenericCamera {
     return target.map(t -> t.getArea()).orElse(Double.MAX_VALUE);
   }
 
+  /**
+   * Get the results read from the camera during the last update, oldest first
+   *
+   * @return the latest camera results
+   */
+  public List<PhotonPipelineResult> getLatestResults() {
+    return null == camResults ? List.of() : camResults;
+  }
+
+  /**
+   * Get the calibrated camera intrinsics matrix
+   *
+   * @return the camera matrix, or empty if the camera has not been calibrated
+   */
+  public Optional<Matrix<N3, N3>> getCameraMatrix() {
+    return camera.getCameraMatrix();
+  }
+
   @Override
   public ProviderType getType() {
     return ProviderType.FIELD_BASED;
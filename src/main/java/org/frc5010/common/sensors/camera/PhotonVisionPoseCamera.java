@@ -16,13 +16,14 @@ import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotState;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Supplier;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
+import org.frc5010.common.telemetry.DebugTelemetry;
 import org.frc5010.common.vision.VisionConstants;
 import org.photonvision.EstimatedRobotPose;
 import org.photonvision.PhotonPoseEstimator;
@@ -36,6 +37,19 @@ public class PhotonVisionPoseCamera extends PhotonVisionCamera implements Fiduci
   protected Supplier<Pose2d> poseSupplier;
   /** The current list of fiducial IDs */
   protected List<Integer> fiducialIds = new ArrayList<>();
+  /** Whether this camera solves its own pose or leaves it to a fused multi-camera solve */
+  protected boolean localEstimatorEnabled = true;
+
+  private final DebugTelemetry telemetry = new DebugTelemetry("Camera/" + name(), LogLevel.DEBUG);
+  private final DebugTelemetry.BooleanEntry updatingDisplay = telemetry.addBoolean("updating");
+  private final DebugTelemetry.BooleanEntry resultsDisplay = telemetry.addBoolean("results");
+  private final DebugTelemetry.NumberEntry tagDistanceDisplay =
+      telemetry.addNumber("Total Distance To Tag");
+  private final DebugTelemetry.NumberEntry ambiguityDisplay = telemetry.addNumber("Ambiguity");
+  private final DebugTelemetry.ArrayEntry poseDisplay = telemetry.addNumberArray("Pose");
+  private final DebugTelemetry.ArrayEntry offsetDisplay = telemetry.addNumberArray("Robot Offset");
+  private final double[] poseValues = new double[3];
+  private final double[] offsetValues = new double[3];
 
   /**
    * Constructor
@@ -85,13 +99,18 @@ public class PhotonVisionPoseCamera extends PhotonVisionCamera implements Fiduci
     poseEstimator.addHeadingData(Timer.getFPGATimestamp(), poseSupplier.get().getRotation());
 
     List<PoseObservation> observations = new ArrayList<>();
-    SmartDashboard.putBoolean("Camera/" + name() + "/updating", true);
+    updatingDisplay.set(true);
 
     super.updateCameraInfo();
+    if (!localEstimatorEnabled) {
+      input.poseObservations = new PoseObservation[0];
+      input.tagIds = new int[0];
+      return;
+    }
     Set<Short> tagIds = new HashSet<>();
 
     for (PhotonPipelineResult iCamResult : camResults) {
-      SmartDashboard.putBoolean("Camera/" + name() + "/resuls", iCamResult.hasTargets());
+      resultsDisplay.set(iCamResult.hasTargets());
       Optional<EstimatedRobotPose> estimate = poseEstimator.estimateCoprocMultiTagPose(iCamResult);
 
       if (estimate.isEmpty() && !DriverStation.isDisabled()) {
@@ -124,25 +143,16 @@ public class PhotonVisionPoseCamera extends PhotonVisionCamera implements Fiduci
         // Add tag IDs
         iCamResult.multitagResult.map(it -> tagIds.addAll(it.fiducialIDsUsed));
 
-        SmartDashboard.putNumber(
-            "Camera/" + name() + "/Total Distance To Tag " + name, totalTagDistance);
-        SmartDashboard.putNumber(
-            "Camera/" + name() + "/Photon Ambiguity " + name,
-            iCamResult.getBestTarget().poseAmbiguity);
-        SmartDashboard.putNumberArray(
-            "Camera/" + name() + "/Photon Camera " + name + " POSE",
-            new double[] {
-              robotPose.getX(),
-              robotPose.getY(),
-              robotPose.getRotation().toRotation2d().getDegrees()
-            });
-        SmartDashboard.putNumberArray(
-            "Camera/" + name() + "/Photon Camera " + name + " Robot Offset",
-            new double[] {
-              robotToCamera.getX(),
-              robotToCamera.getY(),
-              robotToCamera.getRotation().toRotation2d().getDegrees()
-            });
+        tagDistanceDisplay.set(totalTagDistance);
+        ambiguityDisplay.set(iCamResult.getBestTarget().poseAmbiguity);
+        poseValues[0] = robotPose.getX();
+        poseValues[1] = robotPose.getY();
+        poseValues[2] = robotPose.getRotation().toRotation2d().getDegrees();
+        poseDisplay.set(poseValues);
+        offsetValues[0] = robotToCamera.getX();
+        offsetValues[1] = robotToCamera.getY();
+        offsetValues[2] = robotToCamera.getRotation().toRotation2d().getDegrees();
+        offsetDisplay.set(offsetValues);
 
         observations.add(
             new PoseObservation(
@@ -195,6 +205,17 @@ public class PhotonVisionPoseCamera extends PhotonVisionCamera implements Fiduci
     return VecBuilder.fill(linearStdDev, linearStdDev, angularStdDev);
   }
 
+  /**
+   * Enables or disables the per-camera pose estimate. When disabled the camera only reads its
+   * pipeline results, so that a multi-camera solver such as {@link
+   * org.frc5010.common.subsystems.AprilTagPoseSystem} can fuse the corners of every camera at once.
+   *
+   * @param enabled whether this camera should estimate its own pose
+   */
+  public void setLocalEstimatorEnabled(boolean enabled) {
+    localEstimatorEnabled = enabled;
+  }
+
   /**
    * Gets the current list of fiducial IDs for this camera.
    *
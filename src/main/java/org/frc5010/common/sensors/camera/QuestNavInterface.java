@@ -24,11 +24,23 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
 import org.frc5010.common.drive.GenericDrivetrain;
+import org.frc5010.common.drive.pose.PoseHistory;
 import org.frc5010.common.drive.pose.PoseProvider;
-
-/** Add your docs here. */
+import org.frc5010.common.telemetry.DebugTelemetry;
+
+/**
+ * Pose provider backed by a QuestNav headset.
+ *
+ * <p>Every queued Quest frame is drained on each update and recorded, by its FPGA data timestamp,
+ * into a {@link PoseHistory}. Consumers can then look up the interpolated robot pose and velocity
+ * at any timestamp with {@link #getPoseAt(double, double[])} and {@link #getVelocityAt(double,
+ * double[])}, rather than only seeing the newest frame.
+ */
 public class QuestNavInterface implements PoseProvider {
+  /** Number of Quest frames kept in the pose history, about two seconds of headset data */
+  public static final int HISTORY_CAPACITY = 256;
 
   private String networkTableRoot = "questnav";
   private Supplier<ChassisSpeeds> robotVelocity = null;
@@ -37,25 +49,28 @@ public class QuestNavInterface implements PoseProvider {
   private boolean initializedPosition = false;
   private PoseFrame latestPoseFrame = null;
 
-  private ChassisSpeeds velocity;
-  private Pose3d previousPose;
-  private double previousTime;
+  private final ChassisSpeeds velocity = new ChassisSpeeds();
+  private final PoseHistory poseHistory = new PoseHistory(HISTORY_CAPACITY);
+  private final double[] latestSample = new double[3];
+  private final double[] poseDisplay = new double[3];
+  private final double[] velocityDisplay = new double[3];
+  private final DebugTelemetry telemetry;
+  private final DebugTelemetry.BooleanEntry resetPoseDisplay;
+  private final DebugTelemetry.BooleanEntry connectedDisplay;
+  private final DebugTelemetry.BooleanEntry activeDisplay;
+  private final DebugTelemetry.ArrayEntry poseUpdateDisplay;
+  private final DebugTelemetry.ArrayEntry velocityUpdateDisplay;
   private static boolean hasHardReset = false;
   private static boolean initialReset = false;
 
   // Soft reset state — applied in code without sending a command to the headset
   private Transform3d softResetTransform = new Transform3d();
 
-  // I guess this works
-  private static Pose2d latestPoseState = null;
-
   private Translation2d _calculatedOffsetToRobotCenter = new Translation2d();
   private int _calculatedOffsetToRobotCenterCount = 0;
 
   public QuestNavInterface(Transform3d robotToQuest) {
-    super();
-    this.robotToQuest = robotToQuest;
-    this.questNav = new QuestNav();
+    this(robotToQuest, "questnav");
   }
 
   public QuestNavInterface(Transform3d robotToQuest, String networkTableRoot) {
@@ -63,6 +78,12 @@ public class QuestNavInterface implements PoseProvider {
     this.robotToQuest = robotToQuest;
     this.networkTableRoot = networkTableRoot;
     this.questNav = new QuestNav();
+    telemetry = new DebugTelemetry(networkTableRoot, LogLevel.DEBUG);
+    resetPoseDisplay = telemetry.addBoolean("Reset Pose");
+    connectedDisplay = telemetry.addBoolean("QUEST Connected");
+    activeDisplay = telemetry.addBoolean("QUEST Active");
+    poseUpdateDisplay = telemetry.addNumberArray("Quest POSE Update");
+    velocityUpdateDisplay = telemetry.addNumberArray("Velocity");
   }
 
   private Pose3d getRobotPoseFromQuestPose(Pose3d questPose) {
@@ -122,10 +143,18 @@ public class QuestNavInterface implements PoseProvider {
     List<PoseObservation> observations = new ArrayList<>();
 
     if (initializedPosition) {
+      boolean tracking = questNav.isTracking();
       for (PoseFrame frame : unreadQuestFrames) {
         Pose3d robotPose =
             getRobotPoseFromQuestPose(frame.questPose3d()).transformBy(softResetTransform);
         double captureTime = frame.dataTimestamp();
+        if (tracking) {
+          poseHistory.add(
+              captureTime,
+              robotPose.getX(),
+              robotPose.getY(),
+              robotPose.getRotation().getZ());
+        }
         observations.add(
             new PoseObservation(
                 captureTime,
@@ -200,6 +229,8 @@ public class QuestNavInterface implements PoseProvider {
     // processed.transformBy(softResetTransform) == pose
     softResetTransform = new Transform3d(getProcessedRobotPose(), pose);
     initializedPosition = true;
+    // Earlier samples were recorded against the previous offset
+    poseHistory.clear();
   }
 
   /**
@@ -214,6 +245,7 @@ public class QuestNavInterface implements PoseProvider {
       // Clear any accumulated soft-reset so the hard reset is authoritative
       softResetTransform = new Transform3d();
       initializedPosition = true;
+      poseHistory.clear();
       hasHardReset = initialReset;
       initialReset = true;
     }
@@ -226,7 +258,7 @@ public class QuestNavInterface implements PoseProvider {
   @Override
   public void resetPose(Pose3d pose) {
     if (isConnected()) {
-      SmartDashboard.putBoolean(networkTableRoot + "/Reset Pose", true);
+      resetPoseDisplay.set(true);
       softReset(pose);
     }
   }
@@ -241,48 +273,85 @@ public class QuestNavInterface implements PoseProvider {
   }
 
   private void updateVelocity() {
-    return; // Implement if needed.
+    if (poseHistory.sampleVelocity(poseHistory.getNewestTimestamp(), latestSample)) {
+      velocity.vxMetersPerSecond = latestSample[0];
+      velocity.vyMetersPerSecond = latestSample[1];
+      velocity.omegaRadiansPerSecond = latestSample[2];
+    }
   }
 
+  /**
+   * Gets the field-relative velocity derived from the two newest Quest frames.
+   *
+   * @return the field-relative velocity
+   */
   public ChassisSpeeds getVelocity() {
-    if (null != velocity) {
-      return velocity;
-    }
-    return new ChassisSpeeds();
+    return velocity;
+  }
+
+  /**
+   * Gets the history of robot poses derived from every tracked Quest frame.
+   *
+   * @return the pose history, indexed by FPGA timestamp
+   */
+  public PoseHistory getPoseHistory() {
+    return poseHistory;
+  }
+
+  /**
+   * Interpolates the robot pose at an FPGA timestamp from the Quest frames around it.
+   *
+   * @param timestamp the FPGA timestamp in seconds
+   * @param out receives {x, y, heading} in meters and radians
+   * @return false if no tracked frames have been received since the last reset
+   */
+  public boolean getPoseAt(double timestamp, double[] out) {
+    return poseHistory.sample(timestamp, out);
+  }
+
+  /**
+   * Derives the field-relative robot velocity at an FPGA timestamp from the Quest frames around it.
+   *
+   * @param timestamp the FPGA timestamp in seconds
+   * @param out receives {vx, vy, omega} in meters per second and radians per second
+   * @return false if fewer than two tracked frames have been received since the last reset
+   */
+  public boolean getVelocityAt(double timestamp, double[] out) {
+    return poseHistory.sampleVelocity(timestamp, out);
   }
 
   @Override
   public void update() {
     if (RobotBase.isReal()) {
       questNav.commandPeriodic();
-      updateVelocity();
       updateObservations();
-      SmartDashboard.putBoolean(networkTableRoot + "/Reset Pose", false);
-      SmartDashboard.putBoolean("QUEST Connected", isConnected());
-      SmartDashboard.putBoolean("QUEST Active", isActive());
-
-      Pose2d currPose = getRobotPose().orElse(new Pose3d()).toPose2d();
-      latestPoseState = currPose;
-      SmartDashboard.putNumberArray(
-          networkTableRoot + "/Quest POSE Update",
-          new double[] {currPose.getX(), currPose.getY(), currPose.getRotation().getDegrees()});
-
-      ChassisSpeeds velocity = getVelocity();
-      SmartDashboard.putNumberArray(
-          networkTableRoot + "/Velocity",
-          new double[] {
-            velocity.vxMetersPerSecond, velocity.vyMetersPerSecond, velocity.omegaRadiansPerSecond
-          });
+      updateVelocity();
+      resetPoseDisplay.set(false);
+      connectedDisplay.set(isConnected());
+      activeDisplay.set(isActive());
+
+      if (poseHistory.sample(poseHistory.getNewestTimestamp(), latestSample)) {
+        poseDisplay[0] = latestSample[0];
+        poseDisplay[1] = latestSample[1];
+        poseDisplay[2] = Math.toDegrees(latestSample[2]);
+        poseUpdateDisplay.set(poseDisplay);
+      }
+
+      velocityDisplay[0] = velocity.vxMetersPerSecond;
+      velocityDisplay[1] = velocity.vyMetersPerSecond;
+      velocityDisplay[2] = velocity.omegaRadiansPerSecond;
+      velocityUpdateDisplay.set(velocityDisplay);
     }
     logInput(networkTableRoot);
   }
 
   private Translation2d calculateOffsetToRobotCenter() {
-    if (null == latestPoseState) {
+    Optional<Pose2d> latestPose = poseHistory.getPose(poseHistory.getNewestTimestamp());
+    if (latestPose.isEmpty()) {
       return new Translation2d();
     }
 
-    Pose2d currentPose2d = latestPoseState;
+    Pose2d currentPose2d = latestPose.get();
 
     Rotation2d angle = currentPose2d.getRotation();
     Translation2d displacement = currentPose2d.getTranslation();
@@ -4,10 +4,14 @@
 
 package org.frc5010.common.subsystems;
 
+import edu.wpi.first.apriltag.AprilTag;
 import edu.wpi.first.apriltag.AprilTagFieldLayout;
 import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.Vector;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.math.util.Units;
 import java.util.ArrayList;
@@ -15,16 +19,35 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import org.frc5010.common.drive.pose.PoseHistory;
+import org.frc5010.common.drive.pose.PoseProvider;
 import org.frc5010.common.sensors.camera.GenericCamera;
+import org.frc5010.common.sensors.camera.PhotonVisionPoseCamera;
 import org.frc5010.common.telemetry.DisplayBoolean;
 import org.frc5010.common.telemetry.DisplayDouble;
+import org.frc5010.common.vision.MultiCameraPnPSolver;
+import org.photonvision.estimation.TargetModel;
+import org.photonvision.targeting.PhotonPipelineResult;
+import org.photonvision.targeting.PhotonTrackedTarget;
+import org.photonvision.targeting.TargetCorner;
 
 /**
  * AprilTagPoseSystem
  *
+ * <p>When the fused solve is enabled with {@link #enableFusedSolve(Supplier)}, the system acts as a
+ * single {@link PoseProvider}: the tag corners seen by every PhotonVision camera at close
+ * timestamps are combined into one {@link MultiCameraPnPSolver} solve instead of each camera
+ * producing its own estimate.
+ *
  * @author Team 5010 Subsystem for managing multiple AprilTag cameras
  */
-public class AprilTagPoseSystem extends CameraSystem {
+public class AprilTagPoseSystem extends CameraSystem implements PoseProvider {
+  /** The maximum number of cameras the fused solve supports */
+  public static final int MAX_FUSED_CAMERAS = 8;
+  /** The maximum number of tag corners gathered for one fused solve */
+  public static final int MAX_FUSED_CORNERS = 4 * 32;
+
   /** Map of camera name to robot pose */
   protected Map<String, Optional<Pose3d>> robotPose3ds = new HashMap<>();
   /** Map of camera name to tracked target pose */
@@ -41,6 +64,38 @@ public class AprilTagPoseSystem extends CameraSystem {
   protected DisplayDouble stdVectorRadianFactor;
   /** Has valid target display boolean */
   protected DisplayBoolean HAS_VALID_TARGET;
+  /** The joint solver, null until the fused solve is enabled */
+  protected MultiCameraPnPSolver fusedSolver;
+  /** Supplies the current pose estimate used to seed the fused solve without a pose history */
+  protected Supplier<Pose2d> seedPoseSupplier;
+  /** History of estimated poses used to compensate robot motion between camera captures */
+  protected PoseHistory poseHistory;
+  /** Scratch pose at the reference capture time */
+  protected final double[] referenceSample = new double[3];
+  /** Scratch pose at a camera's capture time */
+  protected final double[] cameraSample = new double[3];
+  /** The cameras participating in the fused solve */
+  protected List<PhotonVisionPoseCamera> fusedCameras = new ArrayList<>();
+  /** The solver index of each fused camera */
+  protected int[] fusedCameraIndex = new int[MAX_FUSED_CAMERAS];
+  /** The field coordinates of each tag's four corners, indexed by tag ID */
+  protected double[][] tagCorners;
+  /** The observations produced by the last fused solve */
+  protected List<PoseObservation> fusedObservations = new ArrayList<>();
+  /** Whether any fused camera returned a result in the last update */
+  protected boolean fusedActive = false;
+  /** The timestamp of the last fused observation */
+  protected double fusedCaptureTime = 0.0;
+  /** The largest timestamp spread, in seconds, between camera results fused together */
+  protected DisplayDouble fusedMaxTimestampSpread;
+  /** The time budget of one fused solve in milliseconds */
+  protected DisplayDouble fusedSolveBudget;
+  /** The largest acceptable RMS reprojection error in pixels */
+  protected DisplayDouble fusedMaxReprojectionError;
+  /** The time taken by the last fused solve in milliseconds */
+  protected DisplayDouble fusedSolveTime;
+  /** The RMS reprojection error of the last fused solve in pixels */
+  protected DisplayDouble fusedReprojectionError;
 
   /**
    * Constructor
@@ -84,6 +139,86 @@ public class AprilTagPoseSystem extends CameraSystem {
       this.camera = camera;
     }
     cameras.add(camera);
+    if (null != fusedSolver) {
+      addFusedCamera(camera);
+    }
+  }
+
+  /**
+   * Enables the fused multi-camera solve. Every PhotonVision pose camera added to this system stops
+   * estimating its own pose and instead contributes its tag corners to one joint solve, which is
+   * reported through {@link #getObservations()}. Register this system with the pose estimator
+   * instead of the individual cameras.
+   *
+   * @param seedPoseSupplier supplies the current pose estimate used as the initial guess
+   * @return this system
+   */
+  public AprilTagPoseSystem enableFusedSolve(Supplier<Pose2d> seedPoseSupplier) {
+    if (null != fusedSolver) {
+      return this;
+    }
+    this.seedPoseSupplier = seedPoseSupplier;
+    fusedSolver = new MultiCameraPnPSolver(MAX_FUSED_CAMERAS, MAX_FUSED_CORNERS);
+    fusedMaxTimestampSpread = DashBoard.makeConfigDouble("Fused Max Timestamp Spread");
+    fusedMaxTimestampSpread.setValue(0.03);
+    fusedSolveBudget = DashBoard.makeConfigDouble("Fused Solve Budget ms");
+    fusedSolveBudget.setValue(2.0);
+    fusedMaxReprojectionError = DashBoard.makeConfigDouble("Fused Max Reprojection Error");
+    fusedMaxReprojectionError.setValue(5.0);
+    fusedSolveTime = DashBoard.makeDisplayDouble("Fused Solve Time ms");
+    fusedReprojectionError = DashBoard.makeDisplayDouble("Fused Reprojection Error");
+
+    int maxId = 0;
+    for (AprilTag tag : fieldLayout.getTags()) {
+      maxId = Math.max(maxId, tag.ID);
+    }
+    tagCorners = new double[maxId + 1][];
+    for (AprilTag tag : fieldLayout.getTags()) {
+      List<Translation3d> vertices = TargetModel.kAprilTag36h11.getFieldVertices(tag.pose);
+      double[] corners = new double[12];
+      for (int i = 0; i < 4; i++) {
+        corners[i * 3] = vertices.get(i).getX();
+        corners[i * 3 + 1] = vertices.get(i).getY();
+        corners[i * 3 + 2] = vertices.get(i).getZ();
+      }
+      tagCorners[tag.ID] = corners;
+    }
+
+    for (GenericCamera camera : cameras) {
+      addFusedCamera(camera);
+    }
+    return this;
+  }
+
+  /**
+   * Sets the pose history used to compensate for robot motion between the capture times of fused
+   * cameras. Without it, results within the timestamp spread are treated as simultaneous.
+   *
+   * @param poseHistory the history of estimated robot poses
+   * @return this system
+   */
+  public AprilTagPoseSystem withPoseHistory(PoseHistory poseHistory) {
+    this.poseHistory = poseHistory;
+    return this;
+  }
+
+  /**
+   * Registers a camera with the fused solver if it is a PhotonVision pose camera
+   *
+   * @param camera - the camera to add
+   */
+  protected void addFusedCamera(GenericCamera camera) {
+    if (!(camera instanceof PhotonVisionPoseCamera)) {
+      return;
+    }
+    int index = fusedSolver.addCamera(camera.getRobotToCamera());
+    if (index < 0) {
+      return;
+    }
+    PhotonVisionPoseCamera photonCamera = (PhotonVisionPoseCamera) camera;
+    photonCamera.setLocalEstimatorEnabled(false);
+    fusedCameraIndex[fusedCameras.size()] = index;
+    fusedCameras.add(photonCamera);
   }
 
   /**
@@ -123,6 +258,155 @@ public class AprilTagPoseSystem extends CameraSystem {
     }
   }
 
+  /** Update the cameras and, if enabled, run the fused solve */
+  @Override
+  public void update() {
+    updateCameraInfo();
+    if (null != fusedSolver) {
+      solveFusedPose();
+    }
+  }
+
+  /**
+   * Gathers the tag corners of every fused camera whose newest result lies within the timestamp
+   * spread of the newest result overall, and solves one robot pose from all of them.
+   */
+  protected void solveFusedPose() {
+    long start = System.nanoTime();
+    fusedObservations.clear();
+    fusedSolver.clearCorners();
+    fusedActive = false;
+
+    double newestTimestamp = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < fusedCameras.size(); i++) {
+      List<PhotonPipelineResult> results = fusedCameras.get(i).getLatestResults();
+      if (!results.isEmpty()) {
+        fusedActive = true;
+        PhotonPipelineResult result = results.get(results.size() - 1);
+        if (result.hasTargets()) {
+          newestTimestamp = Math.max(newestTimestamp, result.getTimestampSeconds());
+        }
+      }
+    }
+    if (newestTimestamp == Double.NEGATIVE_INFINITY) {
+      return;
+    }
+
+    double spread = fusedMaxTimestampSpread.getValue();
+    boolean compensate =
+        null != poseHistory && poseHistory.sample(newestTimestamp, referenceSample);
+    double timestampSum = 0.0;
+    int camerasUsed = 0;
+    int tagCount = 0;
+    double ambiguity = 1.0;
+    for (int i = 0; i < fusedCameras.size(); i++) {
+      PhotonVisionPoseCamera camera = fusedCameras.get(i);
+      int index = fusedCameraIndex[i];
+      List<PhotonPipelineResult> results = camera.getLatestResults();
+      if (results.isEmpty()) {
+        continue;
+      }
+      PhotonPipelineResult result = results.get(results.size() - 1);
+      if (!result.hasTargets() || newestTimestamp - result.getTimestampSeconds() > spread) {
+        continue;
+      }
+      if (!fusedSolver.hasIntrinsics(index)) {
+        camera.getCameraMatrix().ifPresent(it -> fusedSolver.setIntrinsics(index, it));
+        if (!fusedSolver.hasIntrinsics(index)) {
+          continue;
+        }
+      }
+      List<Integer> allowedIds = camera.getFiducialIds();
+      boolean cameraUsed = false;
+      for (PhotonTrackedTarget target : result.getTargets()) {
+        int id = target.getFiducialId();
+        if (id < 0 || id >= tagCorners.length || null == tagCorners[id]) {
+          continue;
+        }
+        if (!allowedIds.isEmpty() && !allowedIds.contains(id)) {
+          continue;
+        }
+        List<TargetCorner> detected = target.getDetectedCorners();
+        if (detected.size() != 4) {
+          continue;
+        }
+        double[] corners = tagCorners[id];
+        for (int k = 0; k < 4; k++) {
+          TargetCorner corner = detected.get(k);
+          fusedSolver.addCorner(
+              index, corners[k * 3], corners[k * 3 + 1], corners[k * 3 + 2], corner.x, corner.y);
+        }
+        tagCount++;
+        ambiguity = Math.min(ambiguity, target.getPoseAmbiguity());
+        cameraUsed = true;
+      }
+      if (cameraUsed) {
+        timestampSum += result.getTimestampSeconds();
+        camerasUsed++;
+        if (compensate && poseHistory.sample(result.getTimestampSeconds(), cameraSample)) {
+          fusedSolver.setCameraOffset(
+              index,
+              cameraSample[0] - referenceSample[0],
+              cameraSample[1] - referenceSample[1],
+              Math.IEEEremainder(cameraSample[2] - referenceSample[2], 2.0 * Math.PI));
+        }
+      }
+    }
+
+    if (!compensate) {
+      Pose2d seed = seedPoseSupplier.get();
+      referenceSample[0] = seed.getX();
+      referenceSample[1] = seed.getY();
+      referenceSample[2] = seed.getRotation().getRadians();
+    }
+    long budgetNanos = (long) (fusedSolveBudget.getValue() * 1e6);
+    boolean solved =
+        camerasUsed > 0
+            && fusedSolver.solve(
+                referenceSample[0], referenceSample[1], referenceSample[2], budgetNanos);
+    if (solved) {
+      fusedReprojectionError.setValue(fusedSolver.getRmsError());
+    }
+    if (solved && fusedSolver.getRmsError() <= fusedMaxReprojectionError.getValue()) {
+      // With motion compensation the solve is the pose at the newest capture time
+      fusedCaptureTime = compensate ? newestTimestamp : timestampSum / camerasUsed;
+      fusedObservations.add(
+          new PoseObservation(
+              fusedCaptureTime,
+              new Pose3d(
+                  fusedSolver.getX(),
+                  fusedSolver.getY(),
+                  0.0,
+                  new Rotation3d(0.0, 0.0, fusedSolver.getTheta())),
+              ambiguity,
+              tagCount,
+              fusedSolver.getMeanDepth(),
+              PoseObservationType.PHOTONVISION,
+              ProviderType.FIELD_BASED));
+    }
+    fusedSolveTime.setValue((System.nanoTime() - start) / 1e6);
+  }
+
+  @Override
+  public List<PoseObservation> getObservations() {
+    return fusedObservations;
+  }
+
+  @Override
+  public boolean isConnected() {
+    return fusedActive;
+  }
+
+  @Override
+  public double getCaptureTime() {
+    return fusedCaptureTime;
+  }
+
+  @Override
+  public ProviderType getType() {
+    return ProviderType.FIELD_BASED;
+  }
+
   /**
    * Get the field layout
    *
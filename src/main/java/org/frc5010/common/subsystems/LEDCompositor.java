@@ -0,0 +1,121 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.subsystems;
+
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+
+/**
+ * Renders LED strip segments into a packed 0xRRGGBB framebuffer.
+ *
+ * <p>Segments are drawn in ascending {@link LEDStripSegment#getOrder() order}, so a higher order
+ * segment paints over a lower order one where they overlap. Inactive segments are skipped and
+ * leave whatever was last drawn under them. The result is only copied into an {@link
+ * AddressableLEDBuffer} when it differs from the last frame that was copied out.
+ */
+public class LEDCompositor {
+  private final int[] frame;
+  private final int[] pushed;
+  private boolean hasPushed = false;
+  private LEDStripSegment[] segments = new LEDStripSegment[0];
+  private int segmentCount = 0;
+
+  /**
+   * Creates a compositor for a strip.
+   *
+   * @param length the number of LEDs on the strip
+   */
+  public LEDCompositor(int length) {
+    frame = new int[length];
+    pushed = new int[length];
+  }
+
+  /**
+   * Adds a segment to be drawn.
+   *
+   * @param segment the segment
+   */
+  public void addSegment(LEDStripSegment segment) {
+    if (segmentCount == segments.length) {
+      LEDStripSegment[] grown = new LEDStripSegment[Math.max(4, segments.length * 2)];
+      System.arraycopy(segments, 0, grown, 0, segmentCount);
+      segments = grown;
+    }
+    segments[segmentCount++] = segment;
+  }
+
+  /**
+   * Removes a segment.
+   *
+   * @param segment the segment
+   */
+  public void removeSegment(LEDStripSegment segment) {
+    for (int i = 0; i < segmentCount; i++) {
+      if (segments[i] == segment) {
+        System.arraycopy(segments, i + 1, segments, i, segmentCount - i - 1);
+        segments[--segmentCount] = null;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Draws every active segment into the framebuffer.
+   *
+   * @param buffer the strip buffer, used by segments that still draw through a buffer action
+   * @param nowMillis the frame time in milliseconds
+   */
+  public void render(AddressableLEDBuffer buffer, long nowMillis) {
+    sortByOrder();
+    for (int s = 0; s < segmentCount; s++) {
+      LEDStripSegment segment = segments[s];
+      if (segment.isActive()) {
+        segment.render(frame, buffer, nowMillis);
+      }
+    }
+  }
+
+  /**
+   * Copies the framebuffer into the strip buffer if it changed since the last copy.
+   *
+   * @param buffer the strip buffer
+   * @return true if the buffer was updated and should be sent to the strip
+   */
+  public boolean copyIfChanged(AddressableLEDBuffer buffer) {
+    int length = Math.min(frame.length, buffer.getLength());
+    boolean changed = false;
+    for (int i = 0; i < length; i++) {
+      int rgb = frame[i];
+      if (!hasPushed || rgb != pushed[i]) {
+        changed = true;
+        pushed[i] = rgb;
+        buffer.setRGB(i, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+      }
+    }
+    hasPushed = true;
+    return changed;
+  }
+
+  /**
+   * Gets the framebuffer.
+   *
+   * @return the packed 0xRRGGBB color of every LED
+   */
+  public int[] getFrame() {
+    return frame;
+  }
+
+  /** Insertion sort; the segment list is short and almost always already sorted. */
+  private void sortByOrder() {
+    for (int i = 1; i < segmentCount; i++) {
+      LEDStripSegment segment = segments[i];
+      int j = i - 1;
+      while (j >= 0 && segments[j].getOrder() > segment.getOrder()) {
+        segments[j + 1] = segments[j];
+        j--;
+      }
+      segments[j + 1] = segment;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.subsystems;
+
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import edu.wpi.first.wpilibj.util.Color8Bit;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Logs the contents of an LED strip as one packed byte array per frame.
+ *
+ * <p>Each frame is stored as {@code [r0, g0, b0, r1, g1, b1, ...]}, three unsigned bytes per LED in
+ * strip order. A frame is only recorded when it differs from the previously recorded one, so a
+ * static pattern costs a single log entry. Use {@link #decode(byte[])} or {@link #getRGB(byte[],
+ * int)} to turn a logged frame back into colors when viewing a log.
+ */
+public class LEDFrameLogger {
+  private final String key;
+  private final byte[] frame;
+  private final byte[] lastFrame;
+  private boolean hasFrame = false;
+
+  /**
+   * Creates a logger for a strip.
+   *
+   * @param key the AdvantageKit output key the frames are recorded under
+   * @param length the number of LEDs on the strip
+   */
+  public LEDFrameLogger(String key, int length) {
+    this.key = key;
+    frame = new byte[length * 3];
+    lastFrame = new byte[length * 3];
+  }
+
+  /**
+   * Packs the buffer and records it if it changed since the last recorded frame.
+   *
+   * @param buffer the buffer being sent to the strip
+   * @return true if a frame was recorded
+   */
+  public boolean log(AddressableLEDBuffer buffer) {
+    int length = Math.min(buffer.getLength(), frame.length / 3);
+    boolean changed = !hasFrame;
+    for (int i = 0, j = 0; i < length; i++, j += 3) {
+      byte r = (byte) buffer.getRed(i);
+      byte g = (byte) buffer.getGreen(i);
+      byte b = (byte) buffer.getBlue(i);
+      changed |= r != lastFrame[j] || g != lastFrame[j + 1] || b != lastFrame[j + 2];
+      frame[j] = r;
+      frame[j + 1] = g;
+      frame[j + 2] = b;
+    }
+    if (!changed) {
+      return false;
+    }
+    System.arraycopy(frame, 0, lastFrame, 0, frame.length);
+    hasFrame = true;
+    Logger.recordOutput(key, frame);
+    return true;
+  }
+
+  /**
+   * Gets the number of LEDs in a packed frame.
+   *
+   * @param frame a packed frame
+   * @return the LED count
+   */
+  public static int getLength(byte[] frame) {
+    return frame.length / 3;
+  }
+
+  /**
+   * Reads one LED from a packed frame as a 0xRRGGBB integer.
+   *
+   * @param frame a packed frame
+   * @param index the LED index
+   * @return the color packed as 0xRRGGBB
+   */
+  public static int getRGB(byte[] frame, int index) {
+    int j = index * 3;
+    return (frame[j] & 0xFF) << 16 | (frame[j + 1] & 0xFF) << 8 | (frame[j + 2] & 0xFF);
+  }
+
+  /**
+   * Decodes a packed frame into one color per LED.
+   *
+   * @param frame a packed frame
+   * @return the colors in strip order
+   */
+  public static Color8Bit[] decode(byte[] frame) {
+    Color8Bit[] colors = new Color8Bit[getLength(frame)];
+    for (int i = 0, j = 0; i < colors.length; i++, j += 3) {
+      colors[i] = new Color8Bit(frame[j] & 0xFF, frame[j + 1] & 0xFF, frame[j + 2] & 0xFF);
+    }
+    return colors;
+  }
+
+  /**
+   * Decodes a packed frame into hex color strings such as {@code "#FF8000"}, one per LED.
+   *
+   * @param frame a packed frame
+   * @return the hex strings in strip order
+   */
+  public static String[] toHexStrings(byte[] frame) {
+    String[] colors = new String[getLength(frame)];
+    for (int i = 0; i < colors.length; i++) {
+      colors[i] = String.format("#%06X", getRGB(frame, i));
+    }
+    return colors;
+  }
+}
@@ -0,0 +1,148 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.subsystems;
+
+import edu.wpi.first.wpilibj.util.Color8Bit;
+
+/**
+ * Computes the color of one LED of a segment as a packed 0xRRGGBB integer.
+ *
+ * <p>Kernels work on primitives only, so rendering a frame neither boxes indices nor allocates
+ * colors. Animated kernels derive their state from the frame time rather than from a per-frame
+ * counter, which keeps them independent of how often the strip is rendered.
+ */
+@FunctionalInterface
+public interface LEDKernel {
+  /** Milliseconds per animation step, matching the 20 ms robot loop */
+  long STEP_MS = 20;
+
+  /**
+   * Computes the color of one LED.
+   *
+   * @param index the LED index relative to the start of the segment
+   * @param length the number of LEDs in the segment
+   * @param nowMillis the frame time in milliseconds
+   * @return the color packed as 0xRRGGBB
+   */
+  int apply(int index, int length, long nowMillis);
+
+  /** A kernel that turns every LED off */
+  LEDKernel OFF = (index, length, nowMillis) -> 0;
+
+  /**
+   * Packs a color.
+   *
+   * @param red the red component, 0-255
+   * @param green the green component, 0-255
+   * @param blue the blue component, 0-255
+   * @return the color packed as 0xRRGGBB
+   */
+  static int rgb(int red, int green, int blue) {
+    return (red & 0xFF) << 16 | (green & 0xFF) << 8 | (blue & 0xFF);
+  }
+
+  /**
+   * Packs a color.
+   *
+   * @param color the color
+   * @return the color packed as 0xRRGGBB
+   */
+  static int rgb(Color8Bit color) {
+    return rgb(color.red, color.green, color.blue);
+  }
+
+  /**
+   * Scales the brightness of a packed color.
+   *
+   * @param rgb the color packed as 0xRRGGBB
+   * @param scale the brightness multiplier, clamped to 0-1
+   * @return the scaled color packed as 0xRRGGBB
+   */
+  static int scale(int rgb, double scale) {
+    scale = Math.max(0, Math.min(1, scale));
+    return rgb(
+        (int) Math.round(((rgb >> 16) & 0xFF) * scale),
+        (int) Math.round(((rgb >> 8) & 0xFF) * scale),
+        (int) Math.round((rgb & 0xFF) * scale));
+  }
+
+  /**
+   * Converts an HSV color to a packed RGB color, using the same integer conversion as {@link
+   * edu.wpi.first.wpilibj.util.Color#fromHSV(int, int, int)}.
+   *
+   * @param hue the hue, 0-180
+   * @param saturation the saturation, 0-255
+   * @param value the value, 0-255
+   * @return the color packed as 0xRRGGBB
+   */
+  static int hsv(int hue, int saturation, int value) {
+    if (saturation == 0) {
+      return rgb(value, value, value);
+    }
+    int region = hue / 30;
+    int remainder = (hue - region * 30) * 6;
+    int p = (value * (255 - saturation)) >> 8;
+    int q = (value * (255 - ((saturation * remainder) >> 8))) >> 8;
+    int t = (value * (255 - ((saturation * (255 - remainder)) >> 8))) >> 8;
+    switch (region) {
+      case 0:
+        return rgb(value, t, p);
+      case 1:
+        return rgb(q, value, p);
+      case 2:
+        return rgb(p, value, t);
+      case 3:
+        return rgb(p, q, value);
+      case 4:
+        return rgb(t, p, value);
+      default:
+        return rgb(value, p, q);
+    }
+  }
+
+  /**
+   * A kernel that sets every LED to one color.
+   *
+   * @param rgb the color packed as 0xRRGGBB
+   * @return the kernel
+   */
+  static LEDKernel solid(int rgb) {
+    return (index, length, nowMillis) -> rgb;
+  }
+
+  /**
+   * A kernel that shows a rainbow moving along the segment.
+   *
+   * @param saturation the saturation, 0-255
+   * @param value the value, 0-255
+   * @return the kernel
+   */
+  static LEDKernel rainbow(int saturation, int value) {
+    return (index, length, nowMillis) -> {
+      int firstHue = (int) ((nowMillis / STEP_MS) * 3 % 180);
+      return hsv((firstHue + index * 180 / Math.max(1, length)) % 180, saturation, value);
+    };
+  }
+
+  /**
+   * A kernel that moves a band of one color around a background of another, one LED per step.
+   *
+   * @param background the background color packed as 0xRRGGBB
+   * @param band the band color packed as 0xRRGGBB
+   * @param percentLed the fraction of the segment covered by the band
+   * @return the kernel
+   */
+  static LEDKernel orbit(int background, int band, double percentLed) {
+    return (index, length, nowMillis) -> {
+      int bandLength = (int) (length * percentLed);
+      int position = (int) ((nowMillis / STEP_MS) % (length + 1));
+      int offset = index - position;
+      if (offset < 0) {
+        offset += length;
+      }
+      return offset < bandLength ? band : background;
+    };
+  }
+}
@@ -26,6 +26,7 @@ public class LEDStrip extends GenericSubsystem {
 
   private final AddressableLED m_led;
   private final AddressableLEDBuffer m_buffer;
+  private final LEDFrameLogger frameLogger;
 
   public static class Segment {
     public LEDPattern pattern;
@@ -151,6 +152,7 @@ public class LEDStrip extends GenericSubsystem {
 
     m_led = new AddressableLED(kPort);
     m_buffer = new AddressableLEDBuffer(kLength);
+    frameLogger = new LEDFrameLogger("LEDs/Port" + kPort, kLength);
     segments.put(
         ConfigConstants.ALL_LEDS,
         Segment.create()
@@ -211,6 +213,7 @@ public class LEDStrip extends GenericSubsystem {
     // Periodically send the latest LED color data to the LED strip for it to
     // display
     m_led.setData(m_buffer);
+    frameLogger.log(m_buffer);
   }
 
   /**
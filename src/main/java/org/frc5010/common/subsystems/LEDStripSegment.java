@@ -9,12 +9,22 @@ import edu.wpi.first.wpilibj.util.Color8Bit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
-/** Defines a segment of an LED strip */
+/**
+ * Defines a segment of an LED strip.
+ *
+ * <p>A segment draws through one of three actions: a primitive {@link LEDKernel}, which is what
+ * the built-in effects use, a per-LED {@code Function<Integer, Color8Bit>}, or a consumer of the
+ * whole LED buffer. The last two are kept for existing callers; they box an index or allocate a
+ * color per LED and are slower to render.
+ */
 public class LEDStripSegment {
   private int start, end;
   private Color8Bit color;
+  private int packedColor;
+  private int order = 0;
   private boolean active = false;
   private boolean needsUpdate = false;
+  public LEDKernel kernel = null;
   public Function<Integer, Color8Bit> setLED = null;
   public Consumer<AddressableLEDBuffer> setLEDStrip = null;
 
@@ -29,6 +39,7 @@ public class LEDStripSegment {
     this.start = start;
     this.end = end;
     this.color = color.getColor8Bit();
+    packedColor = LEDKernel.rgb(this.color);
   }
 
   /**
@@ -42,6 +53,7 @@ public class LEDStripSegment {
     this.start = start;
     this.end = end;
     this.color = color;
+    packedColor = LEDKernel.rgb(color);
   }
 
   /**
@@ -62,6 +74,48 @@ public class LEDStripSegment {
     return end;
   }
 
+  /**
+   * Get the number of LEDs in the segment
+   *
+   * @return the length
+   */
+  public int length() {
+    return end - start + 1;
+  }
+
+  /**
+   * Set the draw order of the segment. Higher orders are drawn over lower orders.
+   *
+   * @param order - the draw order
+   * @return this segment
+   */
+  public LEDStripSegment setOrder(int order) {
+    this.order = order;
+    needsUpdate = true;
+    return this;
+  }
+
+  /**
+   * Get the draw order of the segment
+   *
+   * @return the draw order
+   */
+  public int getOrder() {
+    return order;
+  }
+
+  /**
+   * Set the LED action as a primitive kernel
+   *
+   * @param ledKernel - the kernel computing the color of each LED
+   */
+  public void setLedKernel(LEDKernel ledKernel) {
+    kernel = ledKernel;
+    setLED = null;
+    setLEDStrip = null;
+    needsUpdate = true;
+  }
+
   /**
    * Set the LED action at a particular position
    *
@@ -70,6 +124,7 @@ public class LEDStripSegment {
   public void setLedAction(Function<Integer, Color8Bit> ledFunction) {
     setLED = ledFunction;
     setLEDStrip = null;
+    kernel = null;
   }
 
   /**
@@ -80,6 +135,34 @@ public class LEDStripSegment {
   public void setLedAction(Consumer<AddressableLEDBuffer> ledFunction) {
     setLEDStrip = ledFunction;
     setLED = null;
+    kernel = null;
+  }
+
+  /**
+   * Draw the segment into a packed 0xRRGGBB framebuffer
+   *
+   * @param frame - the framebuffer covering the whole strip
+   * @param buffer - the strip buffer, used by buffer actions which draw into it directly
+   * @param nowMillis - the frame time in milliseconds
+   */
+  public void render(int[] frame, AddressableLEDBuffer buffer, long nowMillis) {
+    int length = length();
+    if (null != kernel) {
+      for (int i = 0; i < length; i++) {
+        frame[start + i] = kernel.apply(i, length, nowMillis);
+      }
+    } else if (null != setLED) {
+      for (int i = 0; i < length; i++) {
+        Color8Bit ledColor = setLED.apply(i);
+        frame[start + i] = LEDKernel.rgb(ledColor);
+      }
+    } else if (null != setLEDStrip) {
+      setLEDStrip.accept(buffer);
+      for (int i = start; i <= end; i++) {
+        frame[i] = LEDKernel.rgb(buffer.getRed(i), buffer.getGreen(i), buffer.getBlue(i));
+      }
+    }
+    needsUpdate = false;
   }
 
   /**
@@ -127,6 +210,7 @@ public class LEDStripSegment {
    */
   public LEDStripSegment setColor(Color color) {
     this.color = color.getColor8Bit();
+    packedColor = LEDKernel.rgb(this.color);
     needsUpdate = true;
     return this;
   }
@@ -151,37 +235,17 @@ public class LEDStripSegment {
 
   /** Turn on the LED strip segment */
   public void on() {
-    setLedAction((Integer i) -> color);
-    needsUpdate = true;
+    setLedKernel((index, length, nowMillis) -> packedColor);
   }
 
-  int m_rainbowFirstPixelHue = 180;
-
   /** Set up a rainbow action on the LED strip */
   public void rainbow() {
-    m_rainbowFirstPixelHue = 180;
-    needsUpdate = true;
-    setLedAction(
-        (led) -> {
-          for (var i = start; i <= end; i++) {
-            // Calculate the hue - hue is easier for rainbows because the color
-            // shape is a circle so only one value needs to precess
-            final var hue = (m_rainbowFirstPixelHue + (i * 180 / (end - start))) % 180;
-            // Set the value
-            led.setHSV(i, hue, 255, 128);
-          }
-          // Increase by to make the rainbow "move"
-          m_rainbowFirstPixelHue += 3;
-          // Check bounds
-          m_rainbowFirstPixelHue %= 180;
-          needsUpdate = true;
-        });
+    setLedKernel(LEDKernel.rainbow(255, 128));
   }
 
   /** Turn off the LED strip segment */
   public void off() {
-    setLedAction((Integer i) -> Color.OFF.getColor8Bit());
-    needsUpdate = true;
+    setLedKernel(LEDKernel.OFF);
   }
 
   /**
@@ -191,15 +255,9 @@ public class LEDStripSegment {
    * @param offTime - the time the LED should be off
    */
   public void blink(long onTime, long offTime) {
-    needsUpdate = true;
-    setLedAction(
-        (Integer i) -> {
-          needsUpdate = true;
-          if (System.currentTimeMillis() % (onTime + offTime) <= onTime) {
-            return color;
-          }
-          return Color.OFF.getColor8Bit();
-        });
+    setLedKernel(
+        (index, length, nowMillis) ->
+            nowMillis % (onTime + offTime) <= onTime ? packedColor : 0);
   }
 
   /**
@@ -208,23 +266,23 @@ public class LEDStripSegment {
    * @param scalar - the scalar of the flame
    */
   public void flame(int scalar) {
-    needsUpdate = true;
-    setLedAction(
-        (Integer currLedPos) -> {
-          needsUpdate = true;
-          if (currLedPos < scalar) {
-            return Color.getColor8BitAlpha(color, 50 + (Math.random() * 40));
-          } else if (currLedPos < scalar * 1.3) {
-            return Color.getColor8BitAlpha(color, 30 + (Math.random() * 40));
-          } else if (currLedPos < scalar * 2) {
-            return Color.getColor8BitAlpha(color, Math.random() * 40);
+    setLedKernel(
+        (index, length, nowMillis) -> {
+          double alphaPercent;
+          if (index < scalar) {
+            alphaPercent = 50 + (Math.random() * 40);
+          } else if (index < scalar * 1.3) {
+            alphaPercent = 30 + (Math.random() * 40);
+          } else if (index < scalar * 2) {
+            alphaPercent = Math.random() * 40;
+          } else {
+            alphaPercent = ((Math.random() * 30) - 29) * 20;
           }
-          return Color.getColor8BitAlpha(color, ((Math.random() * 30) - 29) * 20);
+          // Same intensity limits as Color.getColor8BitAlpha
+          return LEDKernel.scale(packedColor, Math.min(alphaPercent, 85) / 100);
         });
   }
 
-  int ledPos = start;
-
   /**
    * Orbit effect on the LED strip segment
    *
@@ -237,37 +295,8 @@ public class LEDStripSegment {
    * @param percentLed the percentage of the LED strip segment to orbit
    */
   public void orbit(int r1, int g1, int b1, int r2, int g2, int b2, double percentLed) {
-    int red1 = r1;
-    int green1 = g1;
-    int blue1 = b1;
-    int red2 = r2;
-    int green2 = g2;
-    int blue2 = b2;
-    int length = end - start;
-    int numberOrbit = (int) ((double) length * percentLed);
-    needsUpdate = true;
-    setLedAction(
-        (AddressableLEDBuffer led) -> {
-          needsUpdate = true;
-          for (int i = start; i <= end; i++) {
-            if (i >= ledPos && (i - ledPos) < numberOrbit) {
-              led.setRGB(i % length, red2, green2, blue2);
-              if ((ledPos + numberOrbit) - length >= 0) {
-                for (int j = 0; j <= (ledPos + numberOrbit) - length; j++) {
-                  led.setRGB(j, red2, green2, blue2);
-                }
-              }
-            } else {
-              led.setRGB(i % length, red1, green1, blue1);
-            }
-          }
-
-          // pushes the positon of the orbititing leds up by 1
-          ledPos++;
-          if (ledPos > end) {
-            ledPos = start;
-          }
-        });
+    setLedKernel(
+        LEDKernel.orbit(LEDKernel.rgb(r1, g1, b1), LEDKernel.rgb(r2, g2, b2), percentLed));
   }
 
   /** Chase effect on the LED strip segment */
@@ -281,40 +310,26 @@ public class LEDStripSegment {
    * @param rainbow - whether the rainbow should be used
    */
   public void chase(boolean rainbow) {
-    needsUpdate = true;
-    int length = end - start;
-    setLedAction(
-        (Integer i) -> {
-          int pos = i - start;
-          needsUpdate = true;
-          long currentTime = System.currentTimeMillis();
-          long chasePos = (length * (currentTime % 1000)) / 1000;
-          long timeSecs = currentTime / 1000;
-          boolean evenOdd = timeSecs == (2 * (timeSecs / 2));
-          if (rainbow && i == end) {
-            final var hue = (m_rainbowFirstPixelHue + (i * 180 / (end - start))) % 180;
-            // Set the value
-            color = Color.fromHSV(hue, 255, 128);
-            // Increase by to make the rainbow "move"
-            m_rainbowFirstPixelHue += 3;
-            // Check bounds
-            m_rainbowFirstPixelHue %= 180;
+    setLedKernel(
+        (index, length, nowMillis) -> {
+          int span = length - 1;
+          long chasePos = (span * (nowMillis % 1000)) / 1000;
+          long timeSecs = nowMillis / 1000;
+          if (timeSecs % 2 == 0) chasePos = span - chasePos;
+          int chaseColor =
+              rainbow
+                  ? LEDKernel.hsv((int) ((nowMillis / LEDKernel.STEP_MS) * 3 % 180), 255, 128)
+                  : packedColor;
+          if (chasePos == index) {
+            return chaseColor;
           }
-          if (evenOdd) chasePos = length - chasePos;
-          if (chasePos == pos) {
-            return color;
+          double colorPer;
+          if (index < chasePos) {
+            colorPer = 1.0 - ((double) (chasePos - index) / chasePos);
           } else {
-            double colorPer = 0;
-            if (pos < chasePos) {
-              colorPer = 1.0 - ((double) (chasePos - pos) / (chasePos - start));
-            } else {
-              colorPer = 1.0 - ((double) (pos - chasePos) / (end - chasePos));
-            }
-            int red = (int) Math.round(color.red * colorPer);
-            int green = (int) Math.round(color.green * colorPer);
-            int blue = (int) Math.round(color.blue * colorPer);
-            return new Color8Bit(red, green, blue);
+            colorPer = 1.0 - ((double) (index - chasePos) / (span - chasePos));
           }
+          return LEDKernel.scale(chaseColor, colorPer);
         });
   }
 }
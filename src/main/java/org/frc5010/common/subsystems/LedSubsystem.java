@@ -21,10 +21,20 @@ public class LedSubsystem extends SubsystemBase {
 
   private AddressableLEDBuffer m_ledBuffer;
   private AddressableLEDBuffer m_ledOff;
+  private final LEDFrameLogger frameLogger;
   private int m_rainbowFirstPixelHue = 180;
 
   private boolean ledOn;
-  private String status = "off";
+  private Mode mode = Mode.OFF;
+
+  /** The animation run each period */
+  private enum Mode {
+    OFF,
+    SOLID,
+    RAINBOW,
+    ORBIT,
+    BLINK
+  }
 
   private int red1;
   private int green1;
@@ -52,13 +62,14 @@ public class LedSubsystem extends SubsystemBase {
     m_ledBuffer = new AddressableLEDBuffer(length); // standard 300
     m_ledOff = new AddressableLEDBuffer(length);
     m_led.setLength(m_ledBuffer.getLength());
+    frameLogger = new LEDFrameLogger("LEDs/Port" + port, length);
 
     // setting all of the leds to orange by using a for loop
     for (int i = 0; i < m_ledBuffer.getLength(); i++) {
       m_ledOff.setRGB(i, 0, 0, 0);
     }
     // taking the data created above and inserting it into the leds
-    m_led.setData(m_ledBuffer);
+    setData(m_ledBuffer);
     m_led.start();
     ledPos = 0;
   }
@@ -70,15 +81,14 @@ public class LedSubsystem extends SubsystemBase {
     // set to the data that was just created
 
     // this method is esscentially only for controlling blink
-    // System.out.println(status);
-    switch (status) {
-      case "rainbow":
+    switch (mode) {
+      case RAINBOW:
         rainbow();
         break;
-      case "orbit":
+      case ORBIT:
         orbit();
         break;
-      case "blink":
+      case BLINK:
         blink();
         break;
       default:
@@ -86,6 +96,16 @@ public class LedSubsystem extends SubsystemBase {
     }
   }
 
+  /**
+   * Sends a buffer to the LED strip and logs it as a packed frame.
+   *
+   * @param buffer the buffer to display
+   */
+  private void setData(AddressableLEDBuffer buffer) {
+    m_led.setData(buffer);
+    frameLogger.log(buffer);
+  }
+
   /** Set up a rainbow action on the LED strip */
   private void rainbow() { // completely not needed but proof of concept if we want?
     // For every pixel
@@ -96,7 +116,7 @@ public class LedSubsystem extends SubsystemBase {
       // Set the value
       m_ledBuffer.setHSV(i, hue, 255, 128);
     }
-    m_led.setData(m_ledBuffer);
+    setData(m_ledBuffer);
     // Increase by to make the rainbow "move"
     m_rainbowFirstPixelHue += 3;
     // Check bounds
@@ -107,10 +127,10 @@ public class LedSubsystem extends SubsystemBase {
   private void blink() {
     if (currTime - startTime >= delayMs) {
       if (ledOn) {
-        m_led.setData(m_ledOff);
+        setData(m_ledOff);
         ledOn = false;
       } else {
-        m_led.setData(m_ledBuffer);
+        setData(m_ledBuffer);
         ledOn = true;
       }
       startTime = currTime;
@@ -119,19 +139,20 @@ public class LedSubsystem extends SubsystemBase {
 
   /** Set up an orbiting action on the LED strip */
   private void orbit() {
-    for (int i = 0; i < m_ledBuffer.getLength(); i++) {
-      if (i >= ledPos && (i - ledPos) < numberOrbit) {
-        m_ledBuffer.setRGB(i % m_ledBuffer.getLength(), red2, green2, blue2);
-        if ((ledPos + numberOrbit) - m_ledBuffer.getLength() >= 0) {
-          for (int j = 0; j <= (ledPos + numberOrbit) - m_ledBuffer.getLength(); j++) {
-            m_ledBuffer.setRGB(j, red2, green2, blue2);
-          }
-        }
+    int length = m_ledBuffer.getLength();
+    for (int i = 0; i < length; i++) {
+      // Distance ahead of the orbit head, wrapping around the end of the strip
+      int offset = i - ledPos;
+      if (offset < 0) {
+        offset += length;
+      }
+      if (offset < numberOrbit) {
+        m_ledBuffer.setRGB(i, red2, green2, blue2);
       } else {
-        m_ledBuffer.setRGB(i % m_ledBuffer.getLength(), red1, green1, blue1);
+        m_ledBuffer.setRGB(i, red1, green1, blue1);
       }
     }
-    m_led.setData(m_ledBuffer);
+    setData(m_ledBuffer);
 
     // pushes the positon of the orbititing leds up by 1
     ledPos++;
@@ -142,7 +163,7 @@ public class LedSubsystem extends SubsystemBase {
 
   /** Set up a rainbow action on the LED strip */
   public void setRainbow() {
-    status = "rainbow";
+    mode = Mode.RAINBOW;
   }
 
   /**
@@ -164,7 +185,7 @@ public class LedSubsystem extends SubsystemBase {
     green2 = g2;
     blue2 = b2;
     numberOrbit = (int) ((double) m_ledBuffer.getLength() * percentLed);
-    status = "orbit";
+    mode = Mode.ORBIT;
   }
 
   /**
@@ -183,7 +204,7 @@ public class LedSubsystem extends SubsystemBase {
     for (int i = leds; i >= amountOn; i--) {
       m_ledBuffer.setRGB(i, 255, 20, 0);
     }
-    m_led.setData(m_ledBuffer);
+    setData(m_ledBuffer);
   }
 
   /**
@@ -194,11 +215,11 @@ public class LedSubsystem extends SubsystemBase {
    * @param blue the blue part of the color
    */
   public void setSolidColor(int red, int green, int blue) {
-    status = "solid";
+    mode = Mode.SOLID;
     for (int i = 0; i < m_ledBuffer.getLength(); i++) {
       m_ledBuffer.setRGB(i, red, green, blue);
     }
-    m_led.setData(m_ledBuffer);
+    setData(m_ledBuffer);
   }
 
   /**
@@ -210,7 +231,7 @@ public class LedSubsystem extends SubsystemBase {
    * @param percent the percentage of the leds to set
    */
   public void setSolidColorPercent(int red, int green, int blue, double percent) {
-    status = "solid_percent";
+    mode = Mode.SOLID;
     int percentLength = (int) ((double) m_ledBuffer.getLength() * percent);
     for (int i = 0; i < percentLength; i++) {
       m_ledBuffer.setRGB(i, red, green, blue);
@@ -220,7 +241,7 @@ public class LedSubsystem extends SubsystemBase {
       m_ledBuffer.setRGB(i, 0, 0, 0);
     }
 
-    m_led.setData(m_ledBuffer);
+    setData(m_ledBuffer);
   }
 
   /**
@@ -237,9 +258,9 @@ public class LedSubsystem extends SubsystemBase {
       m_ledBuffer.setRGB(i, red, green, blue);
     }
     ledOn = true;
-    m_led.setData(m_ledBuffer);
+    setData(m_ledBuffer);
     startTime = currTime;
-    status = "blink";
+    mode = Mode.BLINK;
   }
 
   /** Turn the LED strip off */
@@ -1,18 +1,64 @@
 package org.frc5010.common.subsystems;
 
-import com.ctre.phoenix6.Utils;
 import com.ctre.phoenix6.hardware.TalonFX;
-import java.util.ArrayList;
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+import java.util.stream.IntStream;
 
-/** Manages physics simulation for CTRE products. */
+/**
+ * Advances every registered simulation model once per robot loop.
+ *
+ * <p>Each loop is split into a fixed number of equal substeps, so a model always sees the same time
+ * step no matter how long the loop took on the wall clock or where the model sits in the update
+ * order. A loop runs in three phases: every model reads its inputs, such as the voltage its motor
+ * controller applies, then every model steps through all of the substeps, then every model writes
+ * its state back to its sensors. Only the stepping touches nothing but the model's own state, so
+ * once there are enough models they step in parallel. Finally the current drawn by all of the
+ * models goes into one battery calculation, which sets the simulated roboRIO input voltage.
+ */
 public class PhysicsSim {
+  /** Length of a robot loop in seconds */
+  public static final double LOOP_PERIOD = 0.020;
+  /** Number of substeps each loop is split into */
+  public static final int SUBSTEPS = 20;
+  /** Length of a substep in seconds */
+  public static final double SUBSTEP_PERIOD = LOOP_PERIOD / SUBSTEPS;
+  /** Number of models at which stepping them in parallel pays for the handoff */
+  private static final int PARALLEL_THRESHOLD = 4;
+
   private static final PhysicsSim sim = new PhysicsSim();
 
+  private volatile Model[] models = new Model[0];
+  private double[] currents = new double[0];
+
   /** Gets the robot simulator instance. */
   public static PhysicsSim getInstance() {
     return sim;
   }
 
+  /** A simulated mechanism stepped by the simulator. */
+  public interface Model {
+    /** Reads the model inputs at the start of a loop. Runs on the robot thread. */
+    void simulationInputs();
+
+    /**
+     * Advances the model. May run on another thread, so it must only touch the model's own state.
+     *
+     * @param dt the time step in seconds
+     */
+    void simulationStep(double dt);
+
+    /** Writes the model state to its sensors at the end of a loop. Runs on the robot thread. */
+    void simulationOutputs();
+
+    /**
+     * Gets the current the model draws from the battery.
+     *
+     * @return the current in amps
+     */
+    double getSimulationCurrentAmps();
+  }
+
   /**
    * Adds a TalonFX controller to the simulator.
    *
@@ -21,42 +67,76 @@ public class PhysicsSim {
    */
   public void addTalonFX(TalonFX talonFX, final double rotorInertia) {
     if (talonFX != null) {
-      TalonFXSimProfile simTalonFX = new TalonFXSimProfile(talonFX, rotorInertia);
-      _simProfiles.add(simTalonFX);
+      register(new TalonFXSimProfile(talonFX, rotorInertia));
     }
   }
 
-  /** Runs the simulator: - enable the robot - simulate sensors */
-  public void run() {
-    // Simulate devices
-    for (SimProfile simProfile : _simProfiles) {
-      simProfile.run();
+  /**
+   * Registers a model to be stepped every loop. Models are stepped in the order they registered.
+   *
+   * @param model the model
+   */
+  public synchronized void register(Model model) {
+    for (Model registered : models) {
+      if (registered == model) {
+        return;
+      }
     }
+    Model[] next = new Model[models.length + 1];
+    System.arraycopy(models, 0, next, 0, models.length);
+    next[models.length] = model;
+    models = next;
   }
 
-  private final ArrayList<SimProfile> _simProfiles = new ArrayList<SimProfile>();
-
-  /** Holds information about a simulated device. */
-  public static class SimProfile {
-    private static double _lastTime;
-    private static boolean _running = false;
-
-    /** Runs the simulation profile. Implemented by device-specific profiles. */
-    public void run() {}
+  /**
+   * Gets the number of registered models.
+   *
+   * @return the model count
+   */
+  public int getModelCount() {
+    return models.length;
+  }
 
-    /** Returns the time since last call, in seconds. */
-    public static double getPeriod() {
-      // set the start time if not yet running
-      if (!_running) {
-        _lastTime = Utils.getCurrentTimeSeconds();
-        _running = true;
+  /** Advances every model through one robot loop and updates the battery voltage. */
+  public void run() {
+    Model[] stepped = models;
+    if (currents.length != stepped.length) {
+      currents = new double[stepped.length];
+    }
+    double[] drawn = currents;
+    for (Model model : stepped) {
+      model.simulationInputs();
+    }
+    if (stepped.length >= PARALLEL_THRESHOLD) {
+      IntStream.range(0, stepped.length).parallel().forEach(i -> step(stepped[i]));
+    } else {
+      for (Model model : stepped) {
+        step(model);
       }
+    }
+    for (int i = 0; i < stepped.length; i++) {
+      stepped[i].simulationOutputs();
+      drawn[i] = stepped[i].getSimulationCurrentAmps();
+    }
+    if (stepped.length > 0) {
+      RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(drawn));
+    }
+  }
 
-      double now = Utils.getCurrentTimeSeconds();
-      final double period = now - _lastTime;
-      _lastTime = now;
+  /**
+   * Advances a single model through one robot loop without updating the battery voltage.
+   *
+   * @param model the model
+   */
+  public static void runAlone(Model model) {
+    model.simulationInputs();
+    step(model);
+    model.simulationOutputs();
+  }
 
-      return period;
+  private static void step(Model model) {
+    for (int i = 0; i < SUBSTEPS; i++) {
+      model.simulationStep(SUBSTEP_PERIOD);
     }
   }
 }
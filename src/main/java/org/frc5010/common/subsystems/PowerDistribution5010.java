@@ -1,47 +1,64 @@
 package org.frc5010.common.subsystems;
 
-import edu.wpi.first.math.filter.LinearFilter;
 import edu.wpi.first.wpilibj.PowerDistribution;
 import edu.wpi.first.wpilibj.PowerDistribution.ModuleType;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import org.frc5010.common.arch.GenericRobot.LogLevel;
 import org.frc5010.common.arch.GenericSubsystem;
 
 public class PowerDistribution5010 extends GenericSubsystem {
   private PowerDistribution powerDistribution;
+  private PowerMonitor powerMonitor;
   private static final String UNREGISTERED_CURRENT = "Unregistered Current";
   private static final String TOTAL_CURRENT = "Total Current";
   private static final String PDP_VOLTAGE = "PDP Voltage";
   private static final String AVERAGE_PREFIX = "Average ";
+  private static final String PREDICTED_VOLTAGE = "Predicted Voltage";
+  private static final String CURRENT_LIMIT_SCALE = "Current Limit Scale";
+  private static final String BROWNOUT_PREDICTED = "Brownout Predicted";
 
-  private Map<String, Integer> channels = new HashMap<>();
-  private Map<String, Double> averages = new HashMap<>();
-  private Map<String, Integer> counts = new HashMap<>();
-
-  private LinearFilter currentFilter = LinearFilter.singlePoleIIR(0.1, 0.02);
-  private LinearFilter voltageFilter = LinearFilter.singlePoleIIR(0.1, 0.02);
+  private String[] channelNames = new String[0];
+  private String[] averageNames = new String[0];
+  private int[] channels = new int[0];
 
   public PowerDistribution5010() {
     powerDistribution = new PowerDistribution();
+    startMonitor();
     declareInitialValues();
   }
 
   public PowerDistribution5010(int id, ModuleType type) {
     powerDistribution = new PowerDistribution(id, type);
+    startMonitor();
     declareInitialValues();
   }
 
+  private void startMonitor() {
+    powerMonitor =
+        new PowerMonitor(
+            powerDistribution, PowerMonitor.DEFAULT_PERIOD, PowerMonitor.DEFAULT_WINDOW);
+    powerMonitor.start();
+  }
+
   private void declareInitialValues() {
     networkValues.declare(TOTAL_CURRENT, 0.0);
     networkValues.declare(PDP_VOLTAGE, 0.0);
     networkValues.declare(UNREGISTERED_CURRENT, 0.0);
     networkValues.declare(AVERAGE_PREFIX + TOTAL_CURRENT, 0.0);
     networkValues.declare(AVERAGE_PREFIX + PDP_VOLTAGE, 0.0);
+    networkValues.declare(PREDICTED_VOLTAGE, 0.0);
+    networkValues.declare(CURRENT_LIMIT_SCALE, 1.0);
+    networkValues.declare(BROWNOUT_PREDICTED, false);
   }
 
   public void registerChannel(String name, int channel) {
-    channels.put(name, channel);
+    int index = channels.length;
+    channelNames = Arrays.copyOf(channelNames, index + 1);
+    averageNames = Arrays.copyOf(averageNames, index + 1);
+    channels = Arrays.copyOf(channels, index + 1);
+    channelNames[index] = name;
+    averageNames[index] = AVERAGE_PREFIX + name;
+    channels[index] = channel;
     double initialCurrent = powerDistribution.getCurrent(channel);
     networkValues.declare(name, initialCurrent);
     networkValues.declare(AVERAGE_PREFIX + name, 0.0);
@@ -51,22 +68,23 @@ public class PowerDistribution5010 extends GenericSubsystem {
     return networkValues.getDouble(name);
   }
 
-  private double updateAverage(String name, double value) {
-    averages.merge(
-        name,
-        value,
-        (avg, newValue) ->
-            (avg * counts.merge(name, 1, Integer::sum) + newValue) / counts.get(name));
-    return averages.get(name);
+  /**
+   * Gets the background power monitor, which motor wrappers can query for the power budget.
+   *
+   * @return the power monitor
+   */
+  public PowerMonitor getPowerMonitor() {
+    return powerMonitor;
   }
 
   @Override
   public void periodic() {
+    networkValues.set(PREDICTED_VOLTAGE, powerMonitor.getPredictedVoltage());
+    networkValues.set(CURRENT_LIMIT_SCALE, powerMonitor.getCurrentLimitScale());
+    networkValues.set(BROWNOUT_PREDICTED, powerMonitor.isBrownoutPredicted());
     if (LogLevel.DEBUG == DashBoard.getLoggingLevel()) {
-      double totalCurrent = powerDistribution.getTotalCurrent();
-      double pdpVoltage = powerDistribution.getVoltage();
-      // TODO: Maybe add a verbosity level to the logging...cause it could be a lot
-      updatePdpValues(totalCurrent, pdpVoltage);
+      double totalCurrent = powerMonitor.getTotalCurrent();
+      updatePdpValues(totalCurrent, powerMonitor.getVoltage());
       double accountedCurrent = updateChannelValues();
       networkValues.set(UNREGISTERED_CURRENT, totalCurrent - accountedCurrent);
     }
@@ -75,17 +93,17 @@ public class PowerDistribution5010 extends GenericSubsystem {
   private void updatePdpValues(double totalCurrent, double pdpVoltage) {
     networkValues.set(TOTAL_CURRENT, totalCurrent);
     networkValues.set(PDP_VOLTAGE, pdpVoltage);
-    networkValues.set(AVERAGE_PREFIX + TOTAL_CURRENT, currentFilter.calculate(totalCurrent));
-    networkValues.set(AVERAGE_PREFIX + PDP_VOLTAGE, voltageFilter.calculate(pdpVoltage));
+    networkValues.set(AVERAGE_PREFIX + TOTAL_CURRENT, powerMonitor.getMeanCurrent());
+    networkValues.set(AVERAGE_PREFIX + PDP_VOLTAGE, powerMonitor.getMeanVoltage());
   }
 
   private double updateChannelValues() {
     double accountedCurrent = 0.0;
-    for (Map.Entry<String, Integer> entry : channels.entrySet()) {
-      double current = powerDistribution.getCurrent(entry.getValue());
+    for (int i = 0; i < channels.length; i++) {
+      double current = powerMonitor.getChannelCurrent(channels[i]);
       accountedCurrent += current;
-      networkValues.set(entry.getKey(), current);
-      networkValues.set(AVERAGE_PREFIX + entry.getKey(), updateAverage(entry.getKey(), current));
+      networkValues.set(channelNames[i], current);
+      networkValues.set(averageNames[i], powerMonitor.getChannelMeanCurrent(channels[i]));
     }
     return accountedCurrent;
   }
@@ -0,0 +1,337 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.subsystems;
+
+import static edu.wpi.first.units.Units.Amps;
+
+import edu.wpi.first.units.measure.Current;
+import edu.wpi.first.wpilibj.PowerDistribution;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Samples a power distribution device on a background thread and predicts brownouts.
+ *
+ * <p>Every sample of bus voltage, total current and each channel current goes into primitive ring
+ * buffers. Channel sums are kept up to date as samples enter and leave the window; the voltage and
+ * total current statistics are recomputed with one pass over the window, which also avoids drift
+ * in the squared sums.
+ *
+ * <p>Brownout prediction fits the line V = V0 - R * I over the window. R is the resistance of the
+ * battery and wiring as the robot sees it, and V0 is the voltage with no load. From the fit:
+ *
+ * <ul>
+ *   <li>the current the robot can draw before the voltage sags to the brownout voltage plus a
+ *       margin is (V0 - Vmin) / R;
+ *   <li>the predicted voltage at the present peak current shows how close the robot is;
+ *   <li>the current limit scale is the fraction of the present draw that stays inside that budget,
+ *       which motor wrappers can multiply their current limits by before the rio browns out.
+ * </ul>
+ *
+ * <p>Results are published through volatile fields and can be read from any thread without
+ * blocking.
+ */
+public class PowerMonitor extends Thread {
+  /** Default time between samples in seconds */
+  public static final double DEFAULT_PERIOD = 0.01;
+  /** Default number of samples in the statistics window */
+  public static final int DEFAULT_WINDOW = 50;
+  /** Default volts kept above the brownout voltage */
+  public static final double DEFAULT_MARGIN = 0.5;
+  /** Smallest current spread, in amps, that the resistance fit is trusted with */
+  private static final double MIN_CURRENT_SPREAD = 5.0;
+  /** Range of plausible battery and wiring resistances in ohms */
+  private static final double MIN_RESISTANCE = 0.005;
+
+  private static final double MAX_RESISTANCE = 0.1;
+
+  private final PowerDistribution powerDistribution;
+  private final long periodMillis;
+  private final int window;
+  private final int channelCount;
+  private volatile double brownoutMargin = DEFAULT_MARGIN;
+
+  private final double[] voltages;
+  private final double[] currents;
+  private final double[] channelCurrents;
+  private int next = 0;
+  private int count = 0;
+  private final double[] channelSums;
+
+  private volatile double latestVoltage = 0.0;
+  private volatile double latestCurrent = 0.0;
+  private volatile double meanVoltage = 0.0;
+  private volatile double meanCurrent = 0.0;
+  private volatile double minVoltage = 0.0;
+  private volatile double peakCurrent = 0.0;
+  private volatile double resistance = Double.NaN;
+  private volatile double openCircuitVoltage = Double.NaN;
+  private volatile double currentBudget = Double.POSITIVE_INFINITY;
+  private volatile double predictedVoltage = Double.NaN;
+  private volatile double currentLimitScale = 1.0;
+  private volatile double sampleTime = Double.NaN;
+  private final double[] channelLatest;
+  private final double[] channelMeans;
+
+  /**
+   * Creates a monitor. Call {@link #start()} to begin sampling.
+   *
+   * @param powerDistribution the device to sample
+   * @param periodSeconds the time between samples
+   * @param window the number of samples in the statistics window
+   */
+  public PowerMonitor(PowerDistribution powerDistribution, double periodSeconds, int window) {
+    this.powerDistribution = powerDistribution;
+    this.periodMillis = Math.max(1, Math.round(periodSeconds * 1000));
+    this.window = Math.max(2, window);
+    channelCount = powerDistribution.getNumChannels();
+    voltages = new double[this.window];
+    currents = new double[this.window];
+    channelCurrents = new double[this.window * channelCount];
+    channelSums = new double[channelCount];
+    channelLatest = new double[channelCount];
+    channelMeans = new double[channelCount];
+    setName("PowerMonitor");
+    setDaemon(true);
+  }
+
+  /**
+   * Sets how far above the brownout voltage the current budget keeps the robot.
+   *
+   * @param volts the margin in volts
+   */
+  public void setBrownoutMargin(double volts) {
+    brownoutMargin = volts;
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      sample();
+      try {
+        Thread.sleep(periodMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  /** Takes one sample and updates the statistics. */
+  void sample() {
+    double voltage = powerDistribution.getVoltage();
+    double current = powerDistribution.getTotalCurrent();
+    int channelBase = next * channelCount;
+    if (count == window) {
+      for (int c = 0; c < channelCount; c++) {
+        channelSums[c] -= channelCurrents[channelBase + c];
+      }
+    } else {
+      count++;
+    }
+    voltages[next] = voltage;
+    currents[next] = current;
+    synchronized (channelLatest) {
+      for (int c = 0; c < channelCount; c++) {
+        double channelCurrent = powerDistribution.getCurrent(c);
+        channelCurrents[channelBase + c] = channelCurrent;
+        channelSums[c] += channelCurrent;
+        channelLatest[c] = channelCurrent;
+        channelMeans[c] = channelSums[c] / count;
+      }
+    }
+    next = (next + 1) % window;
+    updateStatistics(voltage, current);
+  }
+
+  private void updateStatistics(double voltage, double current) {
+    double minV = Double.POSITIVE_INFINITY;
+    double maxI = Double.NEGATIVE_INFINITY;
+    double sumV = 0, sumI = 0, sumII = 0, sumIV = 0;
+    for (int i = 0; i < count; i++) {
+      double v = voltages[i];
+      double c = currents[i];
+      minV = Math.min(minV, v);
+      maxI = Math.max(maxI, c);
+      sumV += v;
+      sumI += c;
+      sumII += c * c;
+      sumIV += c * v;
+    }
+    double meanV = sumV / count;
+    double meanI = sumI / count;
+
+    // Least squares fit of V = V0 - R * I
+    double varianceI = sumII / count - meanI * meanI;
+    double covarianceIV = sumIV / count - meanI * meanV;
+    if (varianceI > MIN_CURRENT_SPREAD * MIN_CURRENT_SPREAD) {
+      double fitR = -covarianceIV / varianceI;
+      if (fitR >= MIN_RESISTANCE && fitR <= MAX_RESISTANCE) {
+        resistance = fitR;
+        openCircuitVoltage = meanV + fitR * meanI;
+      }
+    }
+
+    double r = resistance;
+    double v0 = openCircuitVoltage;
+    if (!Double.isNaN(r)) {
+      double minAllowed = RobotController.getBrownoutVoltage() + brownoutMargin;
+      double budget = Math.max(0.0, (v0 - minAllowed) / r);
+      currentBudget = budget;
+      predictedVoltage = v0 - r * maxI;
+      currentLimitScale = maxI <= budget ? 1.0 : Math.max(0.0, budget / maxI);
+    }
+
+    latestVoltage = voltage;
+    latestCurrent = current;
+    meanVoltage = meanV;
+    meanCurrent = meanI;
+    minVoltage = minV;
+    peakCurrent = maxI;
+    sampleTime = RobotController.getFPGATime() / 1e6;
+  }
+
+  /**
+   * Gets the latest bus voltage.
+   *
+   * @return the voltage in volts
+   */
+  public double getVoltage() {
+    return latestVoltage;
+  }
+
+  /**
+   * Gets the latest total current.
+   *
+   * @return the current in amps
+   */
+  public double getTotalCurrent() {
+    return latestCurrent;
+  }
+
+  /**
+   * Gets the mean bus voltage over the window.
+   *
+   * @return the voltage in volts
+   */
+  public double getMeanVoltage() {
+    return meanVoltage;
+  }
+
+  /**
+   * Gets the mean total current over the window.
+   *
+   * @return the current in amps
+   */
+  public double getMeanCurrent() {
+    return meanCurrent;
+  }
+
+  /**
+   * Gets the lowest bus voltage in the window.
+   *
+   * @return the voltage in volts
+   */
+  public double getMinVoltage() {
+    return minVoltage;
+  }
+
+  /**
+   * Gets the highest total current in the window.
+   *
+   * @return the current in amps
+   */
+  public double getPeakCurrent() {
+    return peakCurrent;
+  }
+
+  /**
+   * Gets the latest current of a channel.
+   *
+   * @param channel the channel number
+   * @return the current in amps
+   */
+  public double getChannelCurrent(int channel) {
+    synchronized (channelLatest) {
+      return channelLatest[channel];
+    }
+  }
+
+  /**
+   * Gets the mean current of a channel over the window.
+   *
+   * @param channel the channel number
+   * @return the current in amps
+   */
+  public double getChannelMeanCurrent(int channel) {
+    synchronized (channelLatest) {
+      return channelMeans[channel];
+    }
+  }
+
+  /**
+   * Gets the fitted battery and wiring resistance.
+   *
+   * @return the resistance in ohms, or NaN until the current has varied enough to fit it
+   */
+  public double getResistance() {
+    return resistance;
+  }
+
+  /**
+   * Gets the predicted bus voltage at the peak current of the window.
+   *
+   * @return the voltage in volts, or NaN until the resistance is known
+   */
+  public double getPredictedVoltage() {
+    return predictedVoltage;
+  }
+
+  /**
+   * Gets whether the peak current of the window is predicted to pull the voltage within the margin
+   * of the brownout voltage.
+   *
+   * @return true if a brownout is predicted
+   */
+  public boolean isBrownoutPredicted() {
+    return currentLimitScale < 1.0;
+  }
+
+  /**
+   * Gets the total current the robot can draw before the voltage is predicted to reach the
+   * brownout voltage plus the margin.
+   *
+   * @return the current in amps, or infinity until the resistance is known
+   */
+  public double getCurrentBudget() {
+    return currentBudget;
+  }
+
+  /**
+   * Gets the factor to multiply current limits by so the peak draw stays inside the budget.
+   *
+   * @return a scale between 0 and 1
+   */
+  public double getCurrentLimitScale() {
+    return currentLimitScale;
+  }
+
+  /**
+   * Scales a current limit by the current limit scale.
+   *
+   * @param limit the nominal current limit
+   * @return the limit to apply
+   */
+  public Current scaleCurrentLimit(Current limit) {
+    return Amps.of(limit.in(Amps) * currentLimitScale);
+  }
+
+  /**
+   * Gets the time of the latest sample.
+   *
+   * @return the FPGA time in seconds, or NaN before the first sample
+   */
+  public double getSampleTime() {
+    return sampleTime;
+  }
+}
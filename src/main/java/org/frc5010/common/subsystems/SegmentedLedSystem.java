@@ -6,18 +6,13 @@ package org.frc5010.common.subsystems;
 
 import edu.wpi.first.wpilibj.AddressableLED;
 import edu.wpi.first.wpilibj.AddressableLEDBuffer;
-import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.util.Color8Bit;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import org.frc5010.common.arch.GenericSubsystem;
 import org.littletonrobotics.junction.mechanism.LoggedMechanism2d;
-import org.littletonrobotics.junction.mechanism.LoggedMechanismLigament2d;
-import org.littletonrobotics.junction.mechanism.LoggedMechanismRoot2d;
 
 public class SegmentedLedSystem extends GenericSubsystem {
   /** Creates a new NewLedSubsystem. */
@@ -25,14 +20,14 @@ public class SegmentedLedSystem extends GenericSubsystem {
 
   private AddressableLEDBuffer m_ledBuffer;
   private AddressableLEDBuffer m_ledOff;
-  private boolean needsUpdate = false;
+  private final LEDCompositor compositor;
 
   private Color currColor = Color.OFF;
   public final String ALL = "All";
 
   private Map<String, LEDStripSegment> ledStripSegments =
       new HashMap<>(); // Might need to be implemented differently
-  private List<LoggedMechanismLigament2d> simLEDs = new ArrayList<>();
+  private final LEDFrameLogger frameLogger;
 
   public SegmentedLedSystem(int port, int length, LoggedMechanism2d simulator) {
     super(simulator);
@@ -41,54 +36,36 @@ public class SegmentedLedSystem extends GenericSubsystem {
     m_ledOff = new AddressableLEDBuffer(length);
 
     m_led.setLength(m_ledBuffer.getLength());
+    frameLogger = new LEDFrameLogger("LEDs/Port" + port, length);
+    compositor = new LEDCompositor(length);
 
-    LEDStripSegment all = new LEDStripSegment(0, length - 1, currColor);
+    LEDStripSegment all =
+        new LEDStripSegment(0, length - 1, currColor).setOrder(Integer.MIN_VALUE);
     this.ledStripSegments.put(ALL, all);
+    compositor.addSegment(all);
     all.setActive(false);
     all.on();
     all.setColor(currColor);
 
     for (int i = 0; i < m_ledBuffer.getLength(); i++) {
       m_ledOff.setRGB(i, 0, 0, 0);
-      LoggedMechanismRoot2d ledRoot = mechanismSimulation.getRoot("LEDRoot " + i, i / 100.0, 1.0);
-      LoggedMechanismLigament2d led =
-          new LoggedMechanismLigament2d("LED " + 1, 0.02, -90, 2, Color.OFF.getColor8Bit());
-      ledRoot.append(led);
-      simLEDs.add(led);
     }
     // taking the data created above and inserting it into the leds
     m_led.setData(m_ledBuffer);
+    frameLogger.log(m_ledBuffer);
     m_led.start();
   }
 
+  /**
+   * Renders every active segment in draw order into one frame and sends it to the strip only if
+   * it changed.
+   */
   @Override
   public void periodic() {
-    for (String name : ledStripSegments.keySet()) {
-      LEDStripSegment segment = ledStripSegments.get(name);
-      if (segment.isActive() && segment.needsUpdate()) {
-        needsUpdate |= segment.needsUpdate();
-        segment.setNeedsUpdate(false);
-        if (null != segment.setLEDStrip) {
-          segment.setLEDStrip.accept(m_ledBuffer);
-          if (RobotBase.isSimulation()) {
-            for (int i = segment.start(); i <= segment.end(); ++i) {
-              simLEDs.get(i).setColor(m_ledBuffer.getLED8Bit(i));
-            }
-          }
-        } else {
-          for (int i = segment.start(); i <= segment.end(); ++i) {
-            Color8Bit color = segment.setLED.apply(i - segment.start());
-            m_ledBuffer.setLED(i, color);
-            if (RobotBase.isSimulation()) {
-              simLEDs.get(i).setColor(color);
-            }
-          }
-        }
-      }
-    }
-    if (needsUpdate) {
+    compositor.render(m_ledBuffer, System.currentTimeMillis());
+    if (compositor.copyIfChanged(m_ledBuffer)) {
       m_led.setData(m_ledBuffer);
-      needsUpdate = false;
+      frameLogger.log(m_ledBuffer);
     }
   }
 
@@ -98,7 +75,11 @@ public class SegmentedLedSystem extends GenericSubsystem {
 
   public LEDStripSegment addLedSegment(String name, int start, int end, Color color) {
     LEDStripSegment segment = new LEDStripSegment(start, end, color);
-    ledStripSegments.put(name, segment);
+    LEDStripSegment replaced = ledStripSegments.put(name, segment);
+    if (null != replaced) {
+      compositor.removeSegment(replaced);
+    }
+    compositor.addSegment(segment);
     return segment;
   }
 
@@ -106,6 +87,10 @@ public class SegmentedLedSystem extends GenericSubsystem {
     ledStripSegments.get(name).setLedAction(state);
   }
 
+  public void setLedSegmentKernel(String name, LEDKernel kernel) {
+    ledStripSegments.get(name).setLedKernel(kernel);
+  }
+
   public void setLedSegmentColor(String name, Color color) {
     ledStripSegments.get(name).setColor(color);
   }
@@ -114,17 +99,21 @@ public class SegmentedLedSystem extends GenericSubsystem {
     ledStripSegments.get(name).setActive(active);
   }
 
+  public void setWholeStripKernel(LEDKernel kernel) {
+    ledStripSegments.values().stream().forEach(it -> it.setActive(false));
+    ledStripSegments.get(ALL).setLedKernel(kernel);
+    ledStripSegments.get(ALL).setActive(true);
+  }
+
   public void setWholeStripState(Function<Integer, Color8Bit> state) {
     ledStripSegments.values().stream().forEach(it -> it.setActive(false));
     ledStripSegments.get(ALL).setLedAction(state);
     ledStripSegments.get(ALL).setActive(true);
-    needsUpdate = true;
   }
 
   public void setWholeStripState(Consumer<AddressableLEDBuffer> state) {
     ledStripSegments.values().stream().forEach(it -> it.setActive(false));
     ledStripSegments.get(ALL).setLedAction(state);
     ledStripSegments.get(ALL).setActive(true);
-    needsUpdate = true;
   }
 }
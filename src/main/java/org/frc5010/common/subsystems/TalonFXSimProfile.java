@@ -10,10 +10,10 @@ import com.ctre.phoenix6.sim.TalonFXSimState;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.system.plant.LinearSystemId;
 import edu.wpi.first.wpilibj.simulation.ElevatorSim;
-import org.frc5010.common.subsystems.PhysicsSim.SimProfile;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 
 /** Holds information about a simulated TalonFX. */
-class TalonFXSimProfile extends SimProfile {
+class TalonFXSimProfile implements PhysicsSim.Model {
   private static final double kMotorResistance =
       0.002; // Assume 2mOhm resistance for voltage drop calculation
   private final TalonFXSimState _talonFXSim;
@@ -43,21 +43,27 @@ class TalonFXSimProfile extends SimProfile {
     // new DCMotorSim(LinearSystemId.createDCMotorSystem(gearbox, rotorInertia, 1.0), gearbox);
   }
 
+  /** Reads the voltage the TalonFX applies. */
+  @Override
+  public void simulationInputs() {
+    _motorSim.setInputVoltage(_talonFXSim.getMotorVoltage());
+  }
+
   /**
-   * Runs the simulation profile.
+   * Advances the simulation profile.
    *
    * <p>This uses very rudimentary physics simulation and exists to allow users to test features of
    * our products in simulation using our examples out of the box. Users may modify this to utilize
    * more accurate physics simulation.
    */
-  public void run() {
-    /// DEVICE SPEED SIMULATION
-
-    _motorSim.setInputVoltage(_talonFXSim.getMotorVoltage());
-
-    _motorSim.update(getPeriod());
+  @Override
+  public void simulationStep(double dt) {
+    _motorSim.update(dt);
+  }
 
-    /// SET SIM PHYSICS INPUTS
+  /** Sets the TalonFX sensors from the simulated mechanism. */
+  @Override
+  public void simulationOutputs() {
     final double position_rot =
         _motorSim.getPositionMeters() * gearing / (drumRadius * 2 * Math.PI);
     final double velocity_rps =
@@ -66,6 +72,12 @@ class TalonFXSimProfile extends SimProfile {
     _talonFXSim.setRawRotorPosition(position_rot);
     _talonFXSim.setRotorVelocity(velocity_rps);
 
-    _talonFXSim.setSupplyVoltage(12 - _talonFXSim.getSupplyCurrent() * kMotorResistance);
+    _talonFXSim.setSupplyVoltage(
+        RoboRioSim.getVInVoltage() - _talonFXSim.getSupplyCurrent() * kMotorResistance);
+  }
+
+  @Override
+  public double getSimulationCurrentAmps() {
+    return _motorSim.getCurrentDrawAmps();
   }
 }
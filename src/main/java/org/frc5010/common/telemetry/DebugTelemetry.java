@@ -0,0 +1,260 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.telemetry;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import java.util.ArrayList;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
+
+/**
+ * Debug values a command or device publishes to the SmartDashboard table every loop, without the
+ * cost of {@code SmartDashboard.put} calls.
+ *
+ * <p>Each value is added once, when its owner is constructed, and returns an entry to set. Setting
+ * an entry stores the value in a field and marks it changed; nothing is looked up by name and
+ * nothing is published. Once per loop {@link #flushAll()} publishes the changed values of every
+ * owner that set one, creating the publishers the first time. Values below the robot's log level
+ * are never published. Commands publish under one shared {@value #COMMANDS} subtable; see {@link
+ * #forCommand(String, LogLevel)}.
+ *
+ * <p>Entries are meant to be set from the robot thread.
+ */
+public class DebugTelemetry {
+  /** The SmartDashboard subtable commands publish under */
+  public static final String COMMANDS = "Commands";
+
+  private static final Object pendingLock = new Object();
+  private static ArrayList<DebugTelemetry> pending = new ArrayList<>();
+  private static ArrayList<DebugTelemetry> flushing = new ArrayList<>();
+
+  private final String tableName;
+  private final boolean isDisplayed;
+  private final ArrayList<Entry> entries = new ArrayList<>();
+  private NetworkTable table;
+  private boolean isPending = false;
+
+  /**
+   * Creates the debug values of a command.
+   *
+   * @param name the command name, its subtable under {@value #COMMANDS}
+   * @param logLevel the log level of the values
+   * @return the debug values
+   */
+  public static DebugTelemetry forCommand(String name, LogLevel logLevel) {
+    return new DebugTelemetry(COMMANDS + "/" + name, logLevel);
+  }
+
+  /**
+   * Creates a set of debug values.
+   *
+   * @param table the subtable of the SmartDashboard table to publish under
+   * @param logLevel the log level of the values
+   */
+  public DebugTelemetry(String table, LogLevel logLevel) {
+    tableName = table;
+    isDisplayed = DisplayValuesHelper.isAtLogLevel(logLevel);
+  }
+
+  /** A value published at the next flush after it changes. */
+  public abstract class Entry {
+    /** The key in the table */
+    protected final String key;
+    /** Whether the value changed since it was last published */
+    protected boolean changed = false;
+    /** Whether the publisher has been created */
+    protected boolean opened = false;
+
+    private Entry(String key) {
+      this.key = key;
+      entries.add(this);
+    }
+
+    /** Marks the value changed. */
+    protected void changed() {
+      changed = true;
+      markPending();
+    }
+
+    /** Creates the publisher. */
+    protected abstract void open(NetworkTable table);
+
+    /** Publishes the value. */
+    protected abstract void publish();
+  }
+
+  /** A number value. */
+  public class NumberEntry extends Entry {
+    private double value = 0.0;
+    private DoublePublisher publisher;
+
+    private NumberEntry(String key) {
+      super(key);
+    }
+
+    /**
+     * Sets the value.
+     *
+     * @param value the value
+     */
+    public void set(double value) {
+      if (!opened || Double.doubleToLongBits(value) != Double.doubleToLongBits(this.value)) {
+        this.value = value;
+        changed();
+      }
+    }
+
+    @Override
+    protected void open(NetworkTable table) {
+      publisher = table.getDoubleTopic(key).publish();
+    }
+
+    @Override
+    protected void publish() {
+      publisher.set(value);
+    }
+  }
+
+  /** A boolean value. */
+  public class BooleanEntry extends Entry {
+    private boolean value = false;
+    private BooleanPublisher publisher;
+
+    private BooleanEntry(String key) {
+      super(key);
+    }
+
+    /**
+     * Sets the value.
+     *
+     * @param value the value
+     */
+    public void set(boolean value) {
+      if (!opened || value != this.value) {
+        this.value = value;
+        changed();
+      }
+    }
+
+    @Override
+    protected void open(NetworkTable table) {
+      publisher = table.getBooleanTopic(key).publish();
+    }
+
+    @Override
+    protected void publish() {
+      publisher.set(value);
+    }
+  }
+
+  /** A number array value. */
+  public class ArrayEntry extends Entry {
+    private double[] value = new double[0];
+    private DoubleArrayPublisher publisher;
+
+    private ArrayEntry(String key) {
+      super(key);
+    }
+
+    /**
+     * Sets the value. The array is not copied: it is published as it is at the next flush, so the
+     * caller may keep one array and refill it every loop.
+     *
+     * @param value the value
+     */
+    public void set(double[] value) {
+      this.value = value;
+      changed();
+    }
+
+    @Override
+    protected void open(NetworkTable table) {
+      publisher = table.getDoubleArrayTopic(key).publish();
+    }
+
+    @Override
+    protected void publish() {
+      publisher.set(value);
+    }
+  }
+
+  /**
+   * Adds a number value.
+   *
+   * @param key the key in the table
+   * @return the entry to set
+   */
+  public NumberEntry addNumber(String key) {
+    return new NumberEntry(key);
+  }
+
+  /**
+   * Adds a boolean value.
+   *
+   * @param key the key in the table
+   * @return the entry to set
+   */
+  public BooleanEntry addBoolean(String key) {
+    return new BooleanEntry(key);
+  }
+
+  /**
+   * Adds a number array value.
+   *
+   * @param key the key in the table
+   * @return the entry to set
+   */
+  public ArrayEntry addNumberArray(String key) {
+    return new ArrayEntry(key);
+  }
+
+  private void markPending() {
+    if (!isPending && isDisplayed) {
+      isPending = true;
+      synchronized (pendingLock) {
+        pending.add(this);
+      }
+    }
+  }
+
+  /** Publishes the values that changed since the last flush. */
+  public void flush() {
+    isPending = false;
+    if (!isDisplayed) {
+      return;
+    }
+    if (null == table) {
+      table = NetworkTableInstance.getDefault().getTable("SmartDashboard").getSubTable(tableName);
+    }
+    for (int i = 0; i < entries.size(); i++) {
+      Entry entry = entries.get(i);
+      if (entry.changed) {
+        if (!entry.opened) {
+          entry.open(table);
+          entry.opened = true;
+        }
+        entry.publish();
+        entry.changed = false;
+      }
+    }
+  }
+
+  /** Publishes the changed values of every owner. Called once per loop by the robot. */
+  public static void flushAll() {
+    ArrayList<DebugTelemetry> owners;
+    synchronized (pendingLock) {
+      owners = pending;
+      pending = flushing;
+      flushing = owners;
+    }
+    for (int i = 0; i < owners.size(); i++) {
+      owners.get(i).flush();
+    }
+    owners.clear();
+  }
+}
@@ -20,6 +20,8 @@ public class DisplayDouble extends DisplayableValue {
   protected DoublePublisher publisher_;
   /** The subscriber */
   protected DoubleSubscriber subscriber_;
+  /** Incremented every time the value changes */
+  protected volatile long version_ = 0;
 
   // Constructor
   /**
@@ -77,6 +79,16 @@ public class DisplayDouble extends DisplayableValue {
     return value_;
   }
 
+  /**
+   * Get the version of the value, which increases every time the value changes. Lets callers cache
+   * anything computed from the value and rebuild it only when the value has changed.
+   *
+   * @return the version
+   */
+  public long getVersion() {
+    return version_;
+  }
+
   // Setters
   /**
    * Set the value
@@ -94,6 +106,9 @@ public class DisplayDouble extends DisplayableValue {
    * @param publish whether or not to publish the value
    */
   public synchronized void setValue(final double value, final boolean publish) {
+    if (Double.doubleToLongBits(value) != Double.doubleToLongBits(value_)) {
+      version_++;
+    }
     value_ = value;
     if (publish && isDisplayed_) {
       publisher_.set(value_);
@@ -0,0 +1,240 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.telemetry;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.frc5010.common.drive.swerve.akit.GyroIOInputsAutoLogged;
+import org.frc5010.common.drive.swerve.akit.ModuleIOInputsAutoLogged;
+import org.littletonrobotics.junction.LogReplaySource;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+import org.littletonrobotics.junction.wpilog.WPILOGReader;
+
+/**
+ * Measures how fast AdvantageKit inputs replay and what each IO layer costs to serialize.
+ *
+ * <p>IO layers are added with the key they are logged under, the same key passed to {@code
+ * Logger.processInputs}. {@link #measureSerialization(int)} times {@code toLog} and {@code fromLog}
+ * of each layer in isolation and counts the bytes they allocate, which points at the inputs worth
+ * moving to primitive fields. {@link #replay(LogReplaySource)} reads every cycle of a log as fast
+ * as it can, loads each layer's inputs from it and runs an optional step of robot code, and
+ * reports the cycles replayed per second.
+ *
+ * <p>Run {@link #main(String[])} with the path of a wpilog recorded on a robot using the
+ * AdvantageKit swerve drive to benchmark its drive inputs.
+ */
+public class ReplayBenchmark {
+  private static final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private final ArrayList<String> keys = new ArrayList<>();
+  private final ArrayList<LoggableInputs> inputs = new ArrayList<>();
+  private Runnable cycleStep = () -> {};
+
+  /** The serialization cost of one IO layer, per call. */
+  public static class IOCost {
+    public final String key;
+    public final double toLogNanos;
+    public final double fromLogNanos;
+    public final double toLogBytes;
+    public final double fromLogBytes;
+
+    IOCost(
+        String key,
+        double toLogNanos,
+        double fromLogNanos,
+        double toLogBytes,
+        double fromLogBytes) {
+      this.key = key;
+      this.toLogNanos = toLogNanos;
+      this.fromLogNanos = fromLogNanos;
+      this.toLogBytes = toLogBytes;
+      this.fromLogBytes = fromLogBytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%-24s toLog %8.0f ns %8.0f B   fromLog %8.0f ns %8.0f B",
+          key, toLogNanos, toLogBytes, fromLogNanos, fromLogBytes);
+    }
+  }
+
+  /** The result of replaying a log. */
+  public static class ReplayResult {
+    public final long cycles;
+    public final double seconds;
+    public final double bytesPerCycle;
+    /** Time spent in each IO layer's fromLog per cycle, in the order the layers were added */
+    public final double[] fromLogNanos;
+
+    ReplayResult(long cycles, double seconds, double bytesPerCycle, double[] fromLogNanos) {
+      this.cycles = cycles;
+      this.seconds = seconds;
+      this.bytesPerCycle = bytesPerCycle;
+      this.fromLogNanos = fromLogNanos;
+    }
+
+    /**
+     * Gets the replay throughput.
+     *
+     * @return cycles replayed per second
+     */
+    public double getCyclesPerSecond() {
+      return seconds > 0.0 ? cycles / seconds : 0.0;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%d cycles in %.3f s: %.0f cycles/s, %.0f B allocated per cycle",
+          cycles, seconds, getCyclesPerSecond(), bytesPerCycle);
+    }
+  }
+
+  /**
+   * Adds an IO layer.
+   *
+   * @param key the key its inputs are logged under
+   * @param ioInputs the inputs to serialize and load
+   * @return this benchmark
+   */
+  public ReplayBenchmark addInputs(String key, LoggableInputs ioInputs) {
+    keys.add(key);
+    inputs.add(ioInputs);
+    return this;
+  }
+
+  /**
+   * Sets robot code to run after the inputs are loaded in every replayed cycle.
+   *
+   * @param step the robot code
+   * @return this benchmark
+   */
+  public ReplayBenchmark onCycle(Runnable step) {
+    cycleStep = step;
+    return this;
+  }
+
+  /**
+   * Times the serialization of every IO layer.
+   *
+   * @param iterations the number of calls to time, after a tenth as many to warm up
+   * @return the cost of each layer, in the order the layers were added
+   */
+  public List<IOCost> measureSerialization(int iterations) {
+    List<IOCost> costs = new ArrayList<>();
+    for (int i = 0; i < keys.size(); i++) {
+      LoggableInputs io = inputs.get(i);
+      LogTable table = new LogTable(0).getSubtable(keys.get(i));
+      for (int j = 0; j < iterations / 10; j++) {
+        io.toLog(table);
+        io.fromLog(table);
+      }
+
+      long bytes = threads.getCurrentThreadAllocatedBytes();
+      long start = System.nanoTime();
+      for (int j = 0; j < iterations; j++) {
+        io.toLog(table);
+      }
+      long toLogNanos = System.nanoTime() - start;
+      long toLogBytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+
+      bytes = threads.getCurrentThreadAllocatedBytes();
+      start = System.nanoTime();
+      for (int j = 0; j < iterations; j++) {
+        io.fromLog(table);
+      }
+      long fromLogNanos = System.nanoTime() - start;
+      long fromLogBytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+
+      costs.add(
+          new IOCost(
+              keys.get(i),
+              (double) toLogNanos / iterations,
+              (double) fromLogNanos / iterations,
+              (double) toLogBytes / iterations,
+              (double) fromLogBytes / iterations));
+    }
+    return costs;
+  }
+
+  /**
+   * Replays every cycle of a log as fast as possible.
+   *
+   * @param source the log to replay
+   * @return the replay throughput and costs
+   */
+  public ReplayResult replay(LogReplaySource source) {
+    LogTable table = new LogTable(0);
+    int count = keys.size();
+    LogTable[] subtables = new LogTable[count];
+    for (int i = 0; i < count; i++) {
+      subtables[i] = table.getSubtable(keys.get(i));
+    }
+    long[] fromLogNanos = new long[count];
+    long cycles = 0;
+
+    source.start();
+    long bytes = threads.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    while (source.updateTable(table)) {
+      for (int i = 0; i < count; i++) {
+        long ioStart = System.nanoTime();
+        inputs.get(i).fromLog(subtables[i]);
+        fromLogNanos[i] += System.nanoTime() - ioStart;
+      }
+      cycleStep.run();
+      cycles++;
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocated = threads.getCurrentThreadAllocatedBytes() - bytes;
+    source.end();
+
+    double[] perCycle = new double[count];
+    for (int i = 0; i < count; i++) {
+      perCycle[i] = cycles > 0 ? (double) fromLogNanos[i] / cycles : 0.0;
+    }
+    return new ReplayResult(
+        cycles, elapsed / 1e9, cycles > 0 ? (double) allocated / cycles : 0.0, perCycle);
+  }
+
+  /**
+   * Prints the serialization cost of every layer and, if the result is given, the replay results.
+   *
+   * @param costs the serialization costs
+   * @param result the replay result, or null
+   */
+  public void print(List<IOCost> costs, ReplayResult result) {
+    for (IOCost cost : costs) {
+      System.out.println(cost);
+    }
+    if (null != result) {
+      System.out.println(result);
+      for (int i = 0; i < keys.size(); i++) {
+        System.out.printf(
+            "%-24s fromLog %8.0f ns per cycle%n", keys.get(i), result.fromLogNanos[i]);
+      }
+    }
+  }
+
+  /**
+   * Benchmarks the AdvantageKit swerve drive inputs.
+   *
+   * @param args the path of a wpilog to replay; without it only serialization is measured
+   */
+  public static void main(String[] args) {
+    ReplayBenchmark benchmark =
+        new ReplayBenchmark().addInputs("Drive/Gyro", new GyroIOInputsAutoLogged());
+    for (int i = 0; i < 4; i++) {
+      benchmark.addInputs("Drive/Module" + i, new ModuleIOInputsAutoLogged());
+    }
+    List<IOCost> costs = benchmark.measureSerialization(100_000);
+    ReplayResult result = args.length > 0 ? benchmark.replay(new WPILOGReader(args[0])) : null;
+    benchmark.print(costs, result);
+  }
+}
@@ -0,0 +1,144 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.telemetry;
+
+import edu.wpi.first.wpilibj.RobotBase;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
+
+/**
+ * The values a mechanism visualizer draws, captured as primitives on the control path and drawn at
+ * a reduced rate.
+ *
+ * <p>The control loop stores each value with {@link #set(int, double)}, which costs an array write,
+ * and hands the loop's values over with {@link #submit()}. The visualizer asks {@link
+ * #shouldDraw(LogLevel)} before drawing; it is told to draw at most once every few loops, and only
+ * when a submitted value has changed since the last draw. On a real robot at the COMPETITION log
+ * level visualizers are off entirely unless enabled with {@link #setEnabled(boolean)}.
+ *
+ * <p>The visualizer may draw on a background thread while the control loop stores the next values.
+ * Submitting copies the stored values under a lock, and deciding to draw copies the submitted
+ * values out under the same lock, so the visualizer only ever reads a complete set of values from
+ * one loop through {@link #get(int)}.
+ */
+public class VisualizerSnapshot {
+  /** Default number of loops between draws */
+  public static final int DEFAULT_DECIMATION = 5;
+
+  private static volatile int decimation = DEFAULT_DECIMATION;
+  /** 0 to follow the robot and log level, 1 to always draw, -1 to never draw */
+  private static volatile int enabledOverride = 0;
+
+  /** Written by the control loop */
+  private final double[] values;
+  /** The values of the last submitted loop, guarded by this snapshot's lock */
+  private final double[] submitted;
+  /** Read by the visualizer */
+  private final double[] drawn;
+  private boolean everDrawn = false;
+  private int loopsSinceDraw = 0;
+
+  /**
+   * Creates a snapshot.
+   *
+   * @param size the number of values drawn
+   */
+  public VisualizerSnapshot(int size) {
+    values = new double[size];
+    submitted = new double[size];
+    drawn = new double[size];
+  }
+
+  /**
+   * Stores a value to draw. Called from the control loop.
+   *
+   * @param index the value index
+   * @param value the value
+   */
+  public void set(int index, double value) {
+    values[index] = value;
+  }
+
+  /** Hands the values stored this loop to the visualizer. Called from the control loop. */
+  public synchronized void submit() {
+    System.arraycopy(values, 0, submitted, 0, values.length);
+  }
+
+  /**
+   * Gets a value to draw, as of the last time {@link #shouldDraw(LogLevel)} returned true. Called
+   * from the visualizer.
+   *
+   * @param index the value index
+   * @return the value
+   */
+  public double get(int index) {
+    return drawn[index];
+  }
+
+  /**
+   * Counts a loop and decides whether the visualizer should draw in it. Returning true records the
+   * submitted values as drawn.
+   *
+   * @param logLevel the log level of the mechanism
+   * @return true if the visualizer should draw now
+   */
+  public synchronized boolean shouldDraw(LogLevel logLevel) {
+    if (!isEnabled(logLevel)) {
+      return false;
+    }
+    if (loopsSinceDraw + 1 < decimation) {
+      loopsSinceDraw++;
+      return false;
+    }
+    boolean changed = !everDrawn;
+    for (int i = 0; i < submitted.length; i++) {
+      if (submitted[i] != drawn[i]) {
+        changed = true;
+        drawn[i] = submitted[i];
+      }
+    }
+    if (changed) {
+      everDrawn = true;
+      loopsSinceDraw = 0;
+    }
+    return changed;
+  }
+
+  /**
+   * Gets whether visualizers at a log level draw at all.
+   *
+   * @param logLevel the log level of the mechanism
+   * @return true if visualizers draw
+   */
+  public static boolean isEnabled(LogLevel logLevel) {
+    int override = enabledOverride;
+    if (0 != override) {
+      return override > 0;
+    }
+    return RobotBase.isSimulation() || LogLevel.COMPETITION != logLevel;
+  }
+
+  /**
+   * Sets how many loops pass between draws.
+   *
+   * @param loops the number of loops, 1 to draw every loop
+   */
+  public static void setDecimation(int loops) {
+    decimation = Math.max(1, loops);
+  }
+
+  /**
+   * Turns every visualizer on or off, overriding the default for the robot and log level.
+   *
+   * @param enabled true to draw visualizers
+   */
+  public static void setEnabled(boolean enabled) {
+    enabledOverride = enabled ? 1 : -1;
+  }
+
+  /** Goes back to drawing visualizers in simulation or below the COMPETITION log level. */
+  public static void useDefaultEnabled() {
+    enabledOverride = 0;
+  }
+}
@@ -7,22 +7,14 @@ package org.frc5010.common.utils;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.units.measure.Distance;
-import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.DriverStation.Alliance;
-import java.util.Optional;
 import java.util.function.BooleanSupplier;
 import org.frc5010.common.constants.FieldDimensions;
+import org.frc5010.common.utils.geometry.FieldGeometry;
 
 /** Add your docs here. */
 public class AllianceFlip {
-  static BooleanSupplier flipPose =
-      () -> {
-        Optional<Alliance> alliance = DriverStation.getAlliance();
-        if (alliance.isPresent()) {
-          return alliance.get() == Alliance.Red;
-        }
-        return false;
-      };
+  // The alliance cached by FieldGeometry, so apply() does not query the driver station each call
+  static BooleanSupplier flipPose = FieldGeometry::isRedAlliance;
   private static Boolean xFlip = true;
   private static Boolean yFlip = true;
   private static Distance fieldWidth;
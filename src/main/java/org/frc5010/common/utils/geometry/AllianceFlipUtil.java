@@ -9,7 +9,6 @@ package org.frc5010.common.utils.geometry;
 
 import edu.wpi.first.math.geometry.*;
 import edu.wpi.first.units.measure.Distance;
-import edu.wpi.first.wpilibj.DriverStation;
 
 public class AllianceFlipUtil {
   private static Distance fieldWidth;
@@ -55,8 +54,13 @@ public class AllianceFlipUtil {
     return new Pose3d(apply(pose.getTranslation()), apply(pose.getRotation()));
   }
 
+  /**
+   * Gets whether poses should be flipped to the red alliance. Reads the alliance cached by {@link
+   * FieldGeometry#update()} instead of querying the driver station on every call.
+   *
+   * @return true on the red alliance
+   */
   public static boolean shouldFlip() {
-    return DriverStation.getAlliance().isPresent()
-        && DriverStation.getAlliance().get() == DriverStation.Alliance.Red;
+    return FieldGeometry.isRedAlliance();
   }
 }
@@ -0,0 +1,371 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.utils.geometry;
+
+import static edu.wpi.first.units.Units.Meters;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.frc5010.common.constants.FieldDimensions;
+import org.frc5010.common.utils.AllianceFlip;
+
+/**
+ * A registry of named field poses and regions with both alliance variants precomputed.
+ *
+ * <p>Poses and regions are registered once in blue alliance coordinates and the red alliance
+ * variant is computed at registration, and again whenever the field dimensions change. Each
+ * alliance's variants live in an array indexed by the handle returned at registration, and the
+ * array for the current alliance is held in an atomic reference. {@link #update()} checks the
+ * driver station once per loop and swaps the reference when the alliance changes, so looking up a
+ * target is an array read with no allocation and no driver station query, from any thread. Before
+ * the first update the driver station is queried on each lookup, so code that runs during robot
+ * construction still sees the right alliance.
+ *
+ * <p>Red variants follow {@link AllianceFlip}: x and y are reflected according to the field's flip
+ * settings and headings are turned around. Until {@link #configure(FieldDimensions)} is called both
+ * alliances see the blue variant.
+ */
+public class FieldGeometry {
+  /** The variants of every pose and region for one alliance. */
+  private static final class Table {
+    final Pose3d[] poses3d;
+    final Pose2d[] poses;
+    /** minX, minY, maxX, maxY of each region */
+    final double[] regions;
+
+    Table(Pose3d[] poses3d, Pose2d[] poses, double[] regions) {
+      this.poses3d = poses3d;
+      this.poses = poses;
+      this.regions = regions;
+    }
+  }
+
+  /**
+   * A named pose on the field. It is a supplier of the current alliance's pose, so it can be passed
+   * straight to commands such as {@link org.frc5010.common.commands.DriveToPoseSupplier}.
+   */
+  public static final class Target implements Supplier<Pose2d> {
+    private final int index;
+    private final String name;
+
+    private Target(int index, String name) {
+      this.index = index;
+      this.name = name;
+    }
+
+    /**
+     * Gets the pose for the current alliance.
+     *
+     * @return the pose
+     */
+    @Override
+    public Pose2d get() {
+      return activeTable().poses[index];
+    }
+
+    /**
+     * Gets the 3d pose for the current alliance.
+     *
+     * @return the pose
+     */
+    public Pose3d get3d() {
+      return activeTable().poses3d[index];
+    }
+
+    /**
+     * Gets the pose for an alliance.
+     *
+     * @param alliance the alliance
+     * @return the pose
+     */
+    public Pose2d get(Alliance alliance) {
+      return (alliance == Alliance.Red ? red : blue).poses[index];
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  /** A named axis-aligned rectangle on the field. */
+  public static final class Region {
+    private final int index;
+    private final String name;
+
+    private Region(int index, String name) {
+      this.index = index;
+      this.name = name;
+    }
+
+    /**
+     * Gets whether a point is inside the region for the current alliance.
+     *
+     * @param x the x coordinate in meters
+     * @param y the y coordinate in meters
+     * @return true if the point is inside
+     */
+    public boolean contains(double x, double y) {
+      double[] regions = activeTable().regions;
+      int base = index * 4;
+      return x >= regions[base]
+          && y >= regions[base + 1]
+          && x <= regions[base + 2]
+          && y <= regions[base + 3];
+    }
+
+    /**
+     * Gets whether a point is inside the region for the current alliance.
+     *
+     * @param translation the point
+     * @return true if the point is inside
+     */
+    public boolean contains(Translation2d translation) {
+      return contains(translation.getX(), translation.getY());
+    }
+
+    /**
+     * Gets whether a pose is inside the region for the current alliance.
+     *
+     * @param pose the pose
+     * @return true if the pose is inside
+     */
+    public boolean contains(Pose2d pose) {
+      return contains(pose.getX(), pose.getY());
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  private static final Table EMPTY = new Table(new Pose3d[0], new Pose2d[0], new double[0]);
+
+  private static volatile Table blue = EMPTY;
+  private static volatile Table red = EMPTY;
+  private static final AtomicReference<Table> active = new AtomicReference<>(EMPTY);
+  private static volatile boolean redAlliance = false;
+  /** Whether the alliance has been cached by {@link #update()} or set */
+  private static volatile boolean allianceCached = false;
+
+  // Blue alliance originals, used to rebuild the red variants
+  private static Pose3d[] bluePoses = new Pose3d[0];
+  private static double[] blueRegions = new double[0];
+  private static String[] poseNames = new String[0];
+
+  private static boolean configured = false;
+  private static double fieldLength = 0.0;
+  private static double fieldWidth = 0.0;
+  private static boolean xFlip = true;
+  private static boolean yFlip = true;
+
+  private FieldGeometry() {}
+
+  /**
+   * Sets the field the red variants are flipped across, and configures {@link AllianceFlip} and
+   * {@link AllianceFlipUtil} to match.
+   *
+   * @param field the field dimensions
+   */
+  public static synchronized void configure(FieldDimensions field) {
+    fieldLength = field.fieldLength.in(Meters);
+    fieldWidth = field.fieldWidth.in(Meters);
+    xFlip = field.xFlip;
+    yFlip = field.yFlip;
+    configured = true;
+    AllianceFlip.configure(field, FieldGeometry::isRedAlliance);
+    AllianceFlipUtil.configure(field.fieldWidth, field.fieldLength);
+    rebuild(bluePoses, blueRegions);
+  }
+
+  /**
+   * Registers a named pose.
+   *
+   * @param name the name of the pose
+   * @param bluePose the pose in blue alliance coordinates
+   * @return the handle used to look it up
+   */
+  public static Target register(String name, Pose2d bluePose) {
+    return register(name, new Pose3d(bluePose));
+  }
+
+  /**
+   * Registers a named 3d pose, such as an AprilTag.
+   *
+   * @param name the name of the pose
+   * @param bluePose the pose in blue alliance coordinates
+   * @return the handle used to look it up
+   */
+  public static synchronized Target register(String name, Pose3d bluePose) {
+    int index = bluePoses.length;
+    Pose3d[] poses = new Pose3d[index + 1];
+    System.arraycopy(bluePoses, 0, poses, 0, index);
+    poses[index] = bluePose;
+    String[] names = new String[index + 1];
+    System.arraycopy(poseNames, 0, names, 0, index);
+    names[index] = name;
+    poseNames = names;
+    rebuild(poses, blueRegions);
+    return new Target(index, name);
+  }
+
+  /**
+   * Registers a named axis-aligned rectangle.
+   *
+   * @param name the name of the region
+   * @param corner one corner in blue alliance coordinates
+   * @param opposite the opposite corner in blue alliance coordinates
+   * @return the handle used to test it
+   */
+  public static synchronized Region registerRegion(
+      String name, Translation2d corner, Translation2d opposite) {
+    int index = blueRegions.length / 4;
+    double[] regions = new double[blueRegions.length + 4];
+    System.arraycopy(blueRegions, 0, regions, 0, blueRegions.length);
+    setBounds(regions, index, corner.getX(), corner.getY(), opposite.getX(), opposite.getY());
+    rebuild(bluePoses, regions);
+    return new Region(index, name);
+  }
+
+  /**
+   * Finds a registered pose by name. Meant for setup; keep the handle rather than looking it up
+   * every loop.
+   *
+   * @param name the name of the pose
+   * @return the handle, or empty if no pose has that name
+   */
+  public static synchronized Optional<Target> find(String name) {
+    for (int i = 0; i < poseNames.length; i++) {
+      if (poseNames[i].equals(name)) {
+        return Optional.of(new Target(i, name));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Checks the driver station alliance and swaps to its variants if it changed. Call once per
+   * loop; {@link org.frc5010.common.arch.GenericRobot} does this through the scheduler's button
+   * loop.
+   */
+  public static void update() {
+    setRedAlliance(queryRedAlliance());
+  }
+
+  /**
+   * Sets which alliance's variants are active.
+   *
+   * @param isRed true for the red alliance
+   */
+  public static synchronized void setRedAlliance(boolean isRed) {
+    allianceCached = true;
+    if (isRed != redAlliance) {
+      redAlliance = isRed;
+      active.set(isRed ? red : blue);
+    }
+  }
+
+  /**
+   * Gets whether the red alliance variants are active, as of the last {@link #update()}. Until the
+   * first update the driver station is asked directly.
+   *
+   * @return true on the red alliance
+   */
+  public static boolean isRedAlliance() {
+    return allianceCached ? redAlliance : queryRedAlliance();
+  }
+
+  private static boolean queryRedAlliance() {
+    Optional<Alliance> alliance = DriverStation.getAlliance();
+    return alliance.isPresent() && alliance.get() == Alliance.Red;
+  }
+
+  private static Table activeTable() {
+    if (!allianceCached) {
+      return queryRedAlliance() ? red : blue;
+    }
+    return active.get();
+  }
+
+  private static void rebuild(Pose3d[] poses, double[] regions) {
+    bluePoses = poses;
+    blueRegions = regions;
+    int count = poses.length;
+    Pose3d[] redPoses3d = new Pose3d[count];
+    Pose2d[] bluePoses2d = new Pose2d[count];
+    Pose2d[] redPoses2d = new Pose2d[count];
+    for (int i = 0; i < count; i++) {
+      redPoses3d[i] = flip(poses[i]);
+      bluePoses2d[i] = poses[i].toPose2d();
+      redPoses2d[i] = redPoses3d[i].toPose2d();
+    }
+    double[] redRegions = new double[regions.length];
+    for (int i = 0; i < regions.length / 4; i++) {
+      int base = i * 4;
+      setBounds(
+          redRegions,
+          i,
+          flipX(regions[base]),
+          flipY(regions[base + 1]),
+          flipX(regions[base + 2]),
+          flipY(regions[base + 3]));
+    }
+    blue = new Table(poses, bluePoses2d, regions);
+    red = new Table(redPoses3d, redPoses2d, redRegions);
+    active.set(redAlliance ? red : blue);
+  }
+
+  private static void setBounds(
+      double[] regions, int index, double x1, double y1, double x2, double y2) {
+    int base = index * 4;
+    regions[base] = Math.min(x1, x2);
+    regions[base + 1] = Math.min(y1, y2);
+    regions[base + 2] = Math.max(x1, x2);
+    regions[base + 3] = Math.max(y1, y2);
+  }
+
+  static double flipX(double x) {
+    return configured && xFlip ? fieldLength - x : x;
+  }
+
+  static double flipY(double y) {
+    return configured && yFlip ? fieldWidth - y : y;
+  }
+
+  static double flipHeading(double heading) {
+    return configured ? heading + Math.PI : heading;
+  }
+
+  private static Pose3d flip(Pose3d pose) {
+    if (!configured) {
+      return pose;
+    }
+    return new Pose3d(
+        new Translation3d(flipX(pose.getX()), flipY(pose.getY()), pose.getZ()),
+        pose.getRotation().rotateBy(new Rotation3d(0.0, 0.0, Math.PI)));
+  }
+
+  /**
+   * Flips a pose to the red alliance the same way registered poses are flipped.
+   *
+   * @param pose the pose in blue alliance coordinates
+   * @return the red alliance pose
+   */
+  public static Pose2d flip(Pose2d pose) {
+    if (!configured) {
+      return pose;
+    }
+    return new Pose2d(
+        flipX(pose.getX()), flipY(pose.getY()), pose.getRotation().rotateBy(Rotation2d.kPi));
+  }
+}
@@ -0,0 +1,359 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.utils.geometry;
+
+import static edu.wpi.first.units.Units.Meters;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.Supplier;
+import org.frc5010.common.constants.FieldDimensions;
+
+/**
+ * Chooses the best of a set of scoring poses for where the robot is and how it is moving.
+ *
+ * <p>Candidates are registered once in blue alliance coordinates with {@link FieldGeometry}, which
+ * keeps their red alliance variants. Building the selector lays a grid over the field and finds,
+ * for every candidate, the length of the shortest path around the obstacles from each cell to the
+ * candidate, so how far away a candidate is becomes a table lookup. A selection reads the robot's
+ * cell and estimates the time to each candidate: the path at full speed or the turn to the
+ * candidate's heading, whichever is longer, plus the time to cancel any velocity not already
+ * heading to the candidate, plus the candidate's own cost. On the red alliance the robot's state is
+ * flipped into blue coordinates, so one table serves both alliances. A selection is one pass over a
+ * row of the table with no allocation, so it can be made every loop.
+ *
+ * <p>The selection moves to another candidate only when that one is better by the switch margin, so
+ * it does not flicker between two candidates that are nearly as good. Selections are meant to be
+ * made from the robot thread.
+ */
+public class ScoringPoseSelector implements Supplier<Pose2d> {
+  /** How many times longer a step through an obstacle is than a step around it */
+  private static final double OBSTACLE_PENALTY = 10.0;
+
+  private static final double DIAGONAL = Math.sqrt(2.0);
+
+  private final double cellSize;
+  private final int columns;
+  private final int rows;
+
+  private double maxSpeed = 4.0;
+  private double maxAcceleration = 3.0;
+  private double maxAngularSpeed = Math.PI;
+  private double switchMargin = 0.1;
+
+  private final ArrayList<FieldGeometry.Target> candidates = new ArrayList<>();
+  private final ArrayList<Pose2d> bluePoses = new ArrayList<>();
+  private final ArrayList<Double> baseCosts = new ArrayList<>();
+  /** x, y and radius of each obstacle */
+  private final ArrayList<double[]> obstacles = new ArrayList<>();
+
+  // Built from the candidates and obstacles
+  private int count = 0;
+  private FieldGeometry.Target[] targets = new FieldGeometry.Target[0];
+  private double[] targetX;
+  private double[] targetY;
+  private double[] targetHeading;
+  private double[] targetCost;
+  /** Path length from each cell to each candidate, indexed by cell * count + candidate */
+  private float[] distances;
+  /** The estimated time to each candidate at the last selection */
+  private double[] costs = new double[0];
+
+  private int selected = -1;
+
+  /**
+   * Creates a selector for a field.
+   *
+   * @param field the field dimensions
+   * @param cellSize the size of a grid cell in meters
+   */
+  public ScoringPoseSelector(FieldDimensions field, double cellSize) {
+    this.cellSize = cellSize;
+    columns = Math.max(1, (int) Math.ceil(field.fieldLength.in(Meters) / cellSize));
+    rows = Math.max(1, (int) Math.ceil(field.fieldWidth.in(Meters) / cellSize));
+  }
+
+  /**
+   * Sets the limits used to estimate the time to a candidate.
+   *
+   * @param maxSpeed the maximum speed in meters per second
+   * @param maxAcceleration the maximum acceleration in meters per second squared
+   * @param maxAngularSpeed the maximum angular speed in radians per second
+   * @return this selector
+   */
+  public ScoringPoseSelector withLimits(
+      double maxSpeed, double maxAcceleration, double maxAngularSpeed) {
+    this.maxSpeed = maxSpeed;
+    this.maxAcceleration = maxAcceleration;
+    this.maxAngularSpeed = maxAngularSpeed;
+    return this;
+  }
+
+  /**
+   * Sets how much better, in seconds, another candidate must be to replace the selected one.
+   *
+   * @param seconds the switch margin
+   * @return this selector
+   */
+  public ScoringPoseSelector withSwitchMargin(double seconds) {
+    switchMargin = seconds;
+    return this;
+  }
+
+  /**
+   * Adds a round obstacle that paths go around.
+   *
+   * @param x the x coordinate of the center in blue alliance coordinates, in meters
+   * @param y the y coordinate of the center in blue alliance coordinates, in meters
+   * @param radius the radius in meters, including the robot's half width
+   * @return this selector
+   */
+  public synchronized ScoringPoseSelector addObstacle(double x, double y, double radius) {
+    obstacles.add(new double[] {x, y, radius});
+    distances = null;
+    return this;
+  }
+
+  /**
+   * Adds a candidate scoring pose and registers it with {@link FieldGeometry}.
+   *
+   * @param name the name of the pose
+   * @param bluePose the pose in blue alliance coordinates
+   * @param cost a fixed cost in seconds added to the candidate's estimated time
+   * @return the handle of the pose
+   */
+  public synchronized FieldGeometry.Target addCandidate(String name, Pose2d bluePose, double cost) {
+    FieldGeometry.Target target = FieldGeometry.register(name, bluePose);
+    candidates.add(target);
+    bluePoses.add(bluePose);
+    baseCosts.add(cost);
+    distances = null;
+    return target;
+  }
+
+  /**
+   * Computes the path lengths to every candidate. Called by the first selection after a candidate
+   * or obstacle is added; call it during setup to keep that work out of a loop.
+   *
+   * @return this selector
+   */
+  public synchronized ScoringPoseSelector build() {
+    int cells = columns * rows;
+    boolean[] blocked = new boolean[cells];
+    for (double[] obstacle : obstacles) {
+      for (int row = 0; row < rows; row++) {
+        for (int column = 0; column < columns; column++) {
+          double dx = (column + 0.5) * cellSize - obstacle[0];
+          double dy = (row + 0.5) * cellSize - obstacle[1];
+          if (dx * dx + dy * dy <= obstacle[2] * obstacle[2]) {
+            blocked[row * columns + column] = true;
+          }
+        }
+      }
+    }
+
+    int n = candidates.size();
+    double[] x = new double[n];
+    double[] y = new double[n];
+    double[] heading = new double[n];
+    double[] cost = new double[n];
+    float[] table = new float[cells * n];
+    double[] pathLength = new double[cells];
+    for (int i = 0; i < n; i++) {
+      Pose2d pose = bluePoses.get(i);
+      x[i] = pose.getX();
+      y[i] = pose.getY();
+      heading[i] = pose.getRotation().getRadians();
+      cost[i] = baseCosts.get(i);
+      findPathLengths(blocked, cellOf(x[i], y[i]), pathLength);
+      for (int cell = 0; cell < cells; cell++) {
+        table[cell * n + i] = (float) pathLength[cell];
+      }
+    }
+
+    targets = candidates.toArray(new FieldGeometry.Target[0]);
+    targetX = x;
+    targetY = y;
+    targetHeading = heading;
+    targetCost = cost;
+    costs = new double[n];
+    selected = -1;
+    count = n;
+    distances = table;
+    return this;
+  }
+
+  /** Dijkstra over the grid from one cell, with steps into blocked cells made expensive. */
+  private void findPathLengths(boolean[] blocked, int start, double[] pathLength) {
+    Arrays.fill(pathLength, Double.POSITIVE_INFINITY);
+    pathLength[start] = 0.0;
+    PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+    queue.add(new long[] {Double.doubleToLongBits(0.0), start});
+    while (!queue.isEmpty()) {
+      long[] next = queue.poll();
+      int cell = (int) next[1];
+      double length = Double.longBitsToDouble(next[0]);
+      if (length > pathLength[cell]) {
+        continue;
+      }
+      int row = cell / columns;
+      int column = cell % columns;
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dx = -1; dx <= 1; dx++) {
+          int r = row + dy;
+          int c = column + dx;
+          if ((dx == 0 && dy == 0) || r < 0 || c < 0 || r >= rows || c >= columns) {
+            continue;
+          }
+          int neighbor = r * columns + c;
+          double step = (dx != 0 && dy != 0 ? DIAGONAL : 1.0) * cellSize;
+          if (blocked[neighbor]) {
+            step *= OBSTACLE_PENALTY;
+          }
+          if (length + step < pathLength[neighbor]) {
+            pathLength[neighbor] = length + step;
+            // Non-negative doubles order the same as their bits
+            queue.add(new long[] {Double.doubleToLongBits(length + step), neighbor});
+          }
+        }
+      }
+    }
+  }
+
+  private int cellOf(double x, double y) {
+    int column = MathUtil.clamp((int) Math.floor(x / cellSize), 0, columns - 1);
+    int row = MathUtil.clamp((int) Math.floor(y / cellSize), 0, rows - 1);
+    return row * columns + column;
+  }
+
+  /**
+   * Selects the best candidate for the robot's state.
+   *
+   * @param x the robot's x coordinate in meters
+   * @param y the robot's y coordinate in meters
+   * @param heading the robot's heading in radians
+   * @param vx the robot's field relative x velocity in meters per second
+   * @param vy the robot's field relative y velocity in meters per second
+   * @return the index of the selected candidate, or -1 if there are none
+   */
+  public int select(double x, double y, double heading, double vx, double vy) {
+    if (null == distances) {
+      build();
+    }
+    if (0 == count) {
+      return -1;
+    }
+    if (FieldGeometry.isRedAlliance()) {
+      double flippedX = FieldGeometry.flipX(x);
+      double flippedY = FieldGeometry.flipY(y);
+      vx = FieldGeometry.flipX(x + vx) - flippedX;
+      vy = FieldGeometry.flipY(y + vy) - flippedY;
+      x = flippedX;
+      y = flippedY;
+      heading = FieldGeometry.flipHeading(heading);
+    }
+
+    int base = cellOf(x, y) * count;
+    double speed = Math.hypot(vx, vy);
+    int best = 0;
+    for (int i = 0; i < count; i++) {
+      double dx = targetX[i] - x;
+      double dy = targetY[i] - y;
+      double straight = Math.hypot(dx, dy);
+      double toward = straight > 1e-6 ? (vx * dx + vy * dy) / straight : speed;
+      double pathTime = Math.max(distances[base + i], straight) / maxSpeed;
+      double turnTime =
+          Math.abs(MathUtil.angleModulus(targetHeading[i] - heading)) / maxAngularSpeed;
+      costs[i] =
+          Math.max(pathTime, turnTime) + (speed - toward) / maxAcceleration + targetCost[i];
+      if (costs[i] < costs[best]) {
+        best = i;
+      }
+    }
+    if (selected < 0 || costs[selected] > costs[best] + switchMargin) {
+      selected = best;
+    }
+    return selected;
+  }
+
+  /**
+   * Selects the best candidate for the robot's state.
+   *
+   * @param pose the robot's pose
+   * @param fieldVelocity the robot's field relative velocity
+   * @return the index of the selected candidate, or -1 if there are none
+   */
+  public int select(Pose2d pose, ChassisSpeeds fieldVelocity) {
+    return select(
+        pose.getX(),
+        pose.getY(),
+        pose.getRotation().getRadians(),
+        fieldVelocity.vxMetersPerSecond,
+        fieldVelocity.vyMetersPerSecond);
+  }
+
+  /**
+   * Gets a supplier that selects a candidate every time it is called, for commands that follow a
+   * target pose such as {@link org.frc5010.common.commands.DriveToPoseSupplier}.
+   *
+   * @param poseSupplier the robot's pose
+   * @param fieldVelocitySupplier the robot's field relative velocity
+   * @return the selected pose for the current alliance, or null if there are no candidates
+   */
+  public Supplier<Pose2d> selecting(
+      Supplier<Pose2d> poseSupplier, Supplier<ChassisSpeeds> fieldVelocitySupplier) {
+    return () -> {
+      select(poseSupplier.get(), fieldVelocitySupplier.get());
+      return get();
+    };
+  }
+
+  /**
+   * Gets the pose of the selected candidate for the current alliance.
+   *
+   * @return the pose, or null if nothing has been selected
+   */
+  @Override
+  public Pose2d get() {
+    return selected < 0 ? null : targets[selected].get();
+  }
+
+  /**
+   * Gets the handle of the selected candidate.
+   *
+   * @return the handle, or null if nothing has been selected
+   */
+  public FieldGeometry.Target getSelected() {
+    return selected < 0 ? null : targets[selected];
+  }
+
+  /**
+   * Gets the estimated time to a candidate at the last selection.
+   *
+   * @param index the index of the candidate
+   * @return the time in seconds
+   */
+  public double getCost(int index) {
+    return costs[index];
+  }
+
+  /**
+   * Gets the handle of a candidate.
+   *
+   * @param index the index of the candidate
+   * @return the handle
+   */
+  public FieldGeometry.Target getCandidate(int index) {
+    return candidates.get(index);
+  }
+
+  public int getCandidateCount() {
+    return candidates.size();
+  }
+}
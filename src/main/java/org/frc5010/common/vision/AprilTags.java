@@ -16,6 +16,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.frc5010.common.utils.geometry.FieldGeometry;
 
 /**
  * AprilTag field layout and utilities for vision-based pose estimation.
@@ -171,6 +172,8 @@ public class AprilTags {
     public Pose3d pose;
     /** String that describes the AprilTag */
     public String fieldDescriptor;
+    /** The tag pose in the field geometry registry, flipped for the current alliance */
+    public final FieldGeometry.Target target;
 
     private AprilTag5010(double xPos, double yPos, double zPos, double pitch, double yaw) {
       this.fieldDescriptor = this.name() + " ID:" + this.ordinal();
@@ -178,6 +181,7 @@ public class AprilTags {
           new Pose3d(
               new Translation3d(xPos, yPos, zPos),
               new Rotation3d(0.0, Units.degreesToRadians(pitch), Units.degreesToRadians(yaw)));
+      target = FieldGeometry.register(this.fieldDescriptor, pose);
     }
 
     private AprilTag5010(
@@ -187,6 +191,7 @@ public class AprilTags {
           new Pose3d(
               new Translation3d(xPos, yPos, zPos),
               new Rotation3d(0.0, Units.degreesToRadians(pitch), Units.degreesToRadians(yaw)));
+      target = FieldGeometry.register(this.fieldDescriptor, pose);
     }
   }
 
@@ -0,0 +1,462 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.vision;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.numbers.N3;
+
+/**
+ * Joint perspective-n-point solver for AprilTag corners seen by several cameras at once.
+ *
+ * <p>The robot is assumed to sit flat on the carpet, so the solve is over the planar robot pose (x,
+ * y, heading). Every corner observed by any camera contributes two reprojection residuals, and the
+ * pose is refined with a damped Gauss-Newton iteration seeded from the current pose estimate.
+ * Because the unknown is only three dimensional, the normal equations are a fixed 3x3 system and
+ * all storage is allocated once at construction time, so a solve allocates nothing.
+ *
+ * <p>Usage:
+ *
+ * <pre>
+ *   int cam = solver.addCamera(robotToCamera);
+ *   solver.setIntrinsics(cam, fx, fy, cx, cy);
+ *   solver.clearCorners();
+ *   solver.addCorner(cam, fieldX, fieldY, fieldZ, pixelU, pixelV);
+ *   if (solver.solve(seedX, seedY, seedTheta, budgetNanos)) {
+ *     Pose2d pose = new Pose2d(solver.getX(), solver.getY(), new Rotation2d(solver.getTheta()));
+ *   }
+ * </pre>
+ */
+public class MultiCameraPnPSolver {
+  /** Smallest camera-frame depth, in meters, accepted for a projected corner */
+  private static final double MIN_DEPTH = 1e-3;
+  /** Levenberg damping added to the diagonal of the normal matrix */
+  private static final double DAMPING = 1e-6;
+  /** Step size, in meters/radians, below which the iteration is considered converged */
+  private static final double CONVERGENCE = 1e-6;
+
+  private final int maxCameras;
+  private final int maxCorners;
+  private int cameraCount = 0;
+  private int cornerCount = 0;
+  private int maxIterations = 10;
+
+  // Camera extrinsics: robot-frame position and the transpose of the robot-frame orientation
+  private final double[] camTx, camTy, camTz;
+  private final double[] camRt;
+  // Camera intrinsics
+  private final double[] fx, fy, cx, cy;
+  private final boolean[] hasIntrinsics;
+  // Per-camera robot motion between the camera's capture time and the solve's reference time
+  private final double[] offsetX, offsetY, offsetTheta;
+  private final double[] camCos, camSin;
+
+  // Corner observations
+  private final int[] cornerCamera;
+  private final double[] cornerFx, cornerFy, cornerFz;
+  private final double[] cornerU, cornerV;
+
+  // Solution
+  private double solX, solY, solTheta;
+  private double rmsError = Double.NaN;
+  private double meanDepth = Double.NaN;
+  private int iterations;
+  private boolean converged;
+
+  /**
+   * Creates a solver with fixed capacity.
+   *
+   * @param maxCameras the maximum number of cameras that can be registered
+   * @param maxCorners the maximum number of corners that can be added per solve
+   */
+  public MultiCameraPnPSolver(int maxCameras, int maxCorners) {
+    this.maxCameras = maxCameras;
+    this.maxCorners = maxCorners;
+    camTx = new double[maxCameras];
+    camTy = new double[maxCameras];
+    camTz = new double[maxCameras];
+    camRt = new double[maxCameras * 9];
+    fx = new double[maxCameras];
+    fy = new double[maxCameras];
+    cx = new double[maxCameras];
+    cy = new double[maxCameras];
+    hasIntrinsics = new boolean[maxCameras];
+    offsetX = new double[maxCameras];
+    offsetY = new double[maxCameras];
+    offsetTheta = new double[maxCameras];
+    camCos = new double[maxCameras];
+    camSin = new double[maxCameras];
+    cornerCamera = new int[maxCorners];
+    cornerFx = new double[maxCorners];
+    cornerFy = new double[maxCorners];
+    cornerFz = new double[maxCorners];
+    cornerU = new double[maxCorners];
+    cornerV = new double[maxCorners];
+  }
+
+  /**
+   * Registers a camera with the solver.
+   *
+   * @param robotToCamera the transform from the robot center to the camera
+   * @return the index used to refer to this camera, or -1 if the solver is full
+   */
+  public int addCamera(Transform3d robotToCamera) {
+    if (cameraCount >= maxCameras) {
+      return -1;
+    }
+    int index = cameraCount++;
+    camTx[index] = robotToCamera.getX();
+    camTy[index] = robotToCamera.getY();
+    camTz[index] = robotToCamera.getZ();
+    Matrix<N3, N3> rotation = robotToCamera.getRotation().toMatrix();
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 3; col++) {
+        camRt[index * 9 + row * 3 + col] = rotation.get(col, row);
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Sets the pinhole intrinsics of a registered camera. Lens distortion is ignored.
+   *
+   * @param camera the camera index returned by {@link #addCamera(Transform3d)}
+   * @param focalX the horizontal focal length in pixels
+   * @param focalY the vertical focal length in pixels
+   * @param centerX the horizontal principal point in pixels
+   * @param centerY the vertical principal point in pixels
+   */
+  public void setIntrinsics(
+      int camera, double focalX, double focalY, double centerX, double centerY) {
+    fx[camera] = focalX;
+    fy[camera] = focalY;
+    cx[camera] = centerX;
+    cy[camera] = centerY;
+    hasIntrinsics[camera] = true;
+  }
+
+  /**
+   * Sets the pinhole intrinsics of a registered camera from an OpenCV style camera matrix.
+   *
+   * @param camera the camera index returned by {@link #addCamera(Transform3d)}
+   * @param cameraMatrix the 3x3 camera matrix
+   */
+  public void setIntrinsics(int camera, Matrix<N3, N3> cameraMatrix) {
+    setIntrinsics(
+        camera,
+        cameraMatrix.get(0, 0),
+        cameraMatrix.get(1, 1),
+        cameraMatrix.get(0, 2),
+        cameraMatrix.get(1, 2));
+  }
+
+  /**
+   * Returns whether intrinsics have been supplied for a camera.
+   *
+   * @param camera the camera index
+   * @return true if the camera can contribute corners
+   */
+  public boolean hasIntrinsics(int camera) {
+    return hasIntrinsics[camera];
+  }
+
+  /**
+   * Sets the maximum number of Gauss-Newton iterations per solve.
+   *
+   * @param maxIterations the iteration limit
+   */
+  public void setMaxIterations(int maxIterations) {
+    this.maxIterations = maxIterations;
+  }
+
+  /** Removes all corner observations and camera motion offsets so a new set can be gathered. */
+  public void clearCorners() {
+    cornerCount = 0;
+    for (int i = 0; i < cameraCount; i++) {
+      offsetX[i] = 0.0;
+      offsetY[i] = 0.0;
+      offsetTheta[i] = 0.0;
+    }
+  }
+
+  /**
+   * Sets how far the robot had moved, relative to the solve's reference time, when a camera
+   * captured its corners. The solved pose is the pose at the reference time, and each camera's
+   * corners are projected from the solved pose plus its offset. Offsets are cleared by {@link
+   * #clearCorners()}.
+   *
+   * @param camera the camera index
+   * @param dx the field X offset in meters
+   * @param dy the field Y offset in meters
+   * @param dTheta the heading offset in radians
+   */
+  public void setCameraOffset(int camera, double dx, double dy, double dTheta) {
+    offsetX[camera] = dx;
+    offsetY[camera] = dy;
+    offsetTheta[camera] = dTheta;
+  }
+
+  /**
+   * Adds one observed tag corner.
+   *
+   * @param camera the camera index that observed the corner
+   * @param fieldX the field X coordinate of the corner in meters
+   * @param fieldY the field Y coordinate of the corner in meters
+   * @param fieldZ the field Z coordinate of the corner in meters
+   * @param u the observed horizontal pixel coordinate
+   * @param v the observed vertical pixel coordinate
+   * @return false if the corner was dropped because the solver is full or the camera has no
+   *     intrinsics
+   */
+  public boolean addCorner(
+      int camera, double fieldX, double fieldY, double fieldZ, double u, double v) {
+    if (cornerCount >= maxCorners || camera < 0 || !hasIntrinsics[camera]) {
+      return false;
+    }
+    int index = cornerCount++;
+    cornerCamera[index] = camera;
+    cornerFx[index] = fieldX;
+    cornerFy[index] = fieldY;
+    cornerFz[index] = fieldZ;
+    cornerU[index] = u;
+    cornerV[index] = v;
+    return true;
+  }
+
+  /**
+   * Gets the number of corners gathered for the next solve.
+   *
+   * @return the corner count
+   */
+  public int getCornerCount() {
+    return cornerCount;
+  }
+
+  /**
+   * Solves for the planar robot pose that best explains every gathered corner.
+   *
+   * @param seedX the initial guess for the field X position in meters
+   * @param seedY the initial guess for the field Y position in meters
+   * @param seedTheta the initial guess for the heading in radians
+   * @param budgetNanos the time budget for the iteration; the best pose found so far is kept when
+   *     the budget runs out
+   * @return true if a pose was produced
+   */
+  public boolean solve(double seedX, double seedY, double seedTheta, long budgetNanos) {
+    converged = false;
+    iterations = 0;
+    rmsError = Double.NaN;
+    meanDepth = Double.NaN;
+    solX = seedX;
+    solY = seedY;
+    solTheta = seedTheta;
+    // Need at least one full tag to constrain three unknowns robustly
+    if (cornerCount < 4) {
+      return false;
+    }
+    long deadline = System.nanoTime() + budgetNanos;
+    while (iterations < maxIterations) {
+      iterations++;
+      if (!iterate()) {
+        return false;
+      }
+      if (converged || System.nanoTime() > deadline) {
+        break;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Runs one damped Gauss-Newton step from the current solution.
+   *
+   * @return false if the normal equations were singular
+   */
+  private boolean iterate() {
+    for (int i = 0; i < cameraCount; i++) {
+      camCos[i] = Math.cos(solTheta + offsetTheta[i]);
+      camSin[i] = Math.sin(solTheta + offsetTheta[i]);
+    }
+    // Upper triangle of J^T J and J^T r
+    double h00 = 0, h01 = 0, h02 = 0, h11 = 0, h12 = 0, h22 = 0;
+    double g0 = 0, g1 = 0, g2 = 0;
+    double sumSq = 0, sumDepth = 0;
+    int used = 0;
+
+    for (int i = 0; i < cornerCount; i++) {
+      int cam = cornerCamera[i];
+      int r = cam * 9;
+      double c = camCos[cam];
+      double s = camSin[cam];
+      double dx = cornerFx[i] - solX - offsetX[cam];
+      double dy = cornerFy[i] - solY - offsetY[cam];
+      // Corner in robot frame and its derivatives with respect to x, y, theta
+      double prx = c * dx + s * dy;
+      double pry = -s * dx + c * dy;
+      double prz = cornerFz[i];
+      double qx = prx - camTx[cam];
+      double qy = pry - camTy[cam];
+      double qz = prz - camTz[cam];
+      // Corner in camera frame (NWU)
+      double pcx = camRt[r] * qx + camRt[r + 1] * qy + camRt[r + 2] * qz;
+      double pcy = camRt[r + 3] * qx + camRt[r + 4] * qy + camRt[r + 5] * qz;
+      double pcz = camRt[r + 6] * qx + camRt[r + 7] * qy + camRt[r + 8] * qz;
+      // OpenCV optical frame: X right, Y down, Z forward
+      double ox = -pcy;
+      double oy = -pcz;
+      double oz = pcx;
+      if (oz < MIN_DEPTH) {
+        continue;
+      }
+      double invZ = 1.0 / oz;
+      double ru = cornerU[i] - (fx[cam] * ox * invZ + cx[cam]);
+      double rv = cornerV[i] - (fy[cam] * oy * invZ + cy[cam]);
+      sumSq += ru * ru + rv * rv;
+      sumDepth += oz;
+      used++;
+
+      double ju0 = 0, ju1 = 0, ju2 = 0, jv0 = 0, jv1 = 0, jv2 = 0;
+      for (int k = 0; k < 3; k++) {
+        // d(robot frame point)/d(param)
+        double drx, dry;
+        if (k == 0) {
+          drx = -c;
+          dry = s;
+        } else if (k == 1) {
+          drx = -s;
+          dry = -c;
+        } else {
+          drx = pry;
+          dry = -prx;
+        }
+        double dcx = camRt[r] * drx + camRt[r + 1] * dry;
+        double dcy = camRt[r + 3] * drx + camRt[r + 4] * dry;
+        double dcz = camRt[r + 6] * drx + camRt[r + 7] * dry;
+        double dox = -dcy;
+        double doy = -dcz;
+        double doz = dcx;
+        double du = fx[cam] * (dox * oz - ox * doz) * invZ * invZ;
+        double dv = fy[cam] * (doy * oz - oy * doz) * invZ * invZ;
+        if (k == 0) {
+          ju0 = du;
+          jv0 = dv;
+        } else if (k == 1) {
+          ju1 = du;
+          jv1 = dv;
+        } else {
+          ju2 = du;
+          jv2 = dv;
+        }
+      }
+      h00 += ju0 * ju0 + jv0 * jv0;
+      h01 += ju0 * ju1 + jv0 * jv1;
+      h02 += ju0 * ju2 + jv0 * jv2;
+      h11 += ju1 * ju1 + jv1 * jv1;
+      h12 += ju1 * ju2 + jv1 * jv2;
+      h22 += ju2 * ju2 + jv2 * jv2;
+      g0 += ju0 * ru + jv0 * rv;
+      g1 += ju1 * ru + jv1 * rv;
+      g2 += ju2 * ru + jv2 * rv;
+    }
+
+    if (used < 4) {
+      return false;
+    }
+    rmsError = Math.sqrt(sumSq / (2.0 * used));
+    meanDepth = sumDepth / used;
+
+    h00 += DAMPING * (1.0 + h00);
+    h11 += DAMPING * (1.0 + h11);
+    h22 += DAMPING * (1.0 + h22);
+
+    // Solve the symmetric 3x3 system with Cramer's rule
+    double a00 = h11 * h22 - h12 * h12;
+    double a01 = h02 * h12 - h01 * h22;
+    double a02 = h01 * h12 - h02 * h11;
+    double det = h00 * a00 + h01 * a01 + h02 * a02;
+    if (Math.abs(det) < 1e-12) {
+      return false;
+    }
+    double a11 = h00 * h22 - h02 * h02;
+    double a12 = h01 * h02 - h00 * h12;
+    double a22 = h00 * h11 - h01 * h01;
+    double invDet = 1.0 / det;
+    double stepX = (a00 * g0 + a01 * g1 + a02 * g2) * invDet;
+    double stepY = (a01 * g0 + a11 * g1 + a12 * g2) * invDet;
+    double stepTheta = (a02 * g0 + a12 * g1 + a22 * g2) * invDet;
+
+    solX += stepX;
+    solY += stepY;
+    solTheta = Math.atan2(Math.sin(solTheta + stepTheta), Math.cos(solTheta + stepTheta));
+    converged =
+        Math.abs(stepX) < CONVERGENCE
+            && Math.abs(stepY) < CONVERGENCE
+            && Math.abs(stepTheta) < CONVERGENCE;
+    return true;
+  }
+
+  /**
+   * Gets the solved field X position.
+   *
+   * @return the X position in meters
+   */
+  public double getX() {
+    return solX;
+  }
+
+  /**
+   * Gets the solved field Y position.
+   *
+   * @return the Y position in meters
+   */
+  public double getY() {
+    return solY;
+  }
+
+  /**
+   * Gets the solved heading.
+   *
+   * @return the heading in radians
+   */
+  public double getTheta() {
+    return solTheta;
+  }
+
+  /**
+   * Gets the RMS reprojection error of the last iteration.
+   *
+   * @return the error in pixels, or NaN if the last solve did not iterate
+   */
+  public double getRmsError() {
+    return rmsError;
+  }
+
+  /**
+   * Gets the mean camera-to-corner depth of the last iteration.
+   *
+   * @return the mean depth in meters, or NaN if the last solve did not iterate
+   */
+  public double getMeanDepth() {
+    return meanDepth;
+  }
+
+  /**
+   * Gets the number of iterations used by the last solve.
+   *
+   * @return the iteration count
+   */
+  public int getIterations() {
+    return iterations;
+  }
+
+  /**
+   * Returns whether the last solve converged before hitting its iteration or time limit.
+   *
+   * @return true if converged
+   */
+  public boolean isConverged() {
+    return converged;
+  }
+}
@@ -0,0 +1,61 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.arch;
+
+import edu.wpi.first.wpilibj2.command.Commands;
+import java.lang.management.ManagementFactory;
+import org.frc5010.common.arch.StateMachine.State;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Reports the time and allocation of one loop of a 48 state machine. Run with benchmark. */
+@Tag("benchmark")
+public class StateMachineBenchmark {
+  private static final int STATES = 48;
+  private static final int LOOPS = 200_000;
+
+  private static final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private int requested = 0;
+
+  private void runLoops(StateMachine machine) {
+    for (int i = 0; i < LOOPS; i++) {
+      requested = (i / 10) % STATES;
+      machine.execute();
+    }
+  }
+
+  @Test
+  public void benchmarkLargeMachine() {
+    StateMachine machine = new StateMachine("Benchmark");
+    State[] states = new State[STATES];
+    for (int i = 0; i < STATES; i++) {
+      states[i] = machine.addState("state " + i, Commands.idle());
+    }
+    // Every state can go to the next four states in a ring
+    for (int i = 0; i < STATES; i++) {
+      for (int j = 1; j <= 4; j++) {
+        int target = (i + j) % STATES;
+        states[i].switchTo(states[target]).when(() -> requested == target, j);
+      }
+    }
+    machine.setInitialState(states[0]);
+    machine.initialize();
+
+    // Warm up so the timed loops run compiled code
+    runLoops(machine);
+
+    long bytes = threads.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    runLoops(machine);
+    long elapsed = System.nanoTime() - start;
+    long allocated = threads.getCurrentThreadAllocatedBytes() - bytes;
+    System.out.println(
+        String.format(
+            "%d state machine loop: %.1f ns, %.1f B allocated per loop",
+            STATES, (double) elapsed / LOOPS, (double) allocated / LOOPS));
+  }
+}
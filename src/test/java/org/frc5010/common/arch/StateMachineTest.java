@@ -0,0 +1,111 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.arch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.wpilibj2.command.Commands;
+import org.frc5010.common.arch.StateMachine.State;
+import org.junit.jupiter.api.Test;
+
+/** Tests the compiled transitions of the state machine. */
+public class StateMachineTest {
+  private boolean go = false;
+  private boolean urgent = false;
+  private int requested = 0;
+
+  @Test
+  public void testHigherPriorityTransitionWins() {
+    StateMachine machine = new StateMachine("Priority");
+    State start = machine.addState("start", Commands.idle());
+    State normal = machine.addState("normal", Commands.idle());
+    State priority = machine.addState("priority", Commands.idle());
+    start.switchTo(normal).when(() -> go);
+    start.switchTo(priority).when(() -> urgent, 1);
+    machine.setInitialState(start);
+
+    machine.initialize();
+    machine.execute();
+    assertEquals("start", machine.getCurrentStateName());
+    go = true;
+    urgent = true;
+    machine.execute();
+    assertEquals("priority", machine.getCurrentStateName());
+  }
+
+  @Test
+  public void testTransitionNeedsRisingEdge() {
+    StateMachine machine = new StateMachine("Edge");
+    State start = machine.addState("start", Commands.idle());
+    State next = machine.addState("next", Commands.idle());
+    start.switchTo(next).when(() -> go);
+    machine.setInitialState(start);
+
+    go = true;
+    machine.initialize();
+    machine.execute();
+    assertEquals("start", machine.getCurrentStateName());
+    go = false;
+    machine.execute();
+    go = true;
+    machine.execute();
+    assertEquals("next", machine.getCurrentStateName());
+  }
+
+  @Test
+  public void testCompletionTransitionsAndExit() {
+    StateMachine machine = new StateMachine("Complete");
+    State first = machine.addState("first", Commands.none());
+    State last = machine.addState("last", Commands.none());
+    first.switchTo(last).whenComplete();
+    machine.setInitialState(first);
+
+    machine.initialize();
+    machine.execute();
+    assertEquals("last", machine.getCurrentStateName());
+    assertFalse(machine.isFinished());
+    machine.execute();
+    assertTrue(machine.isFinished());
+  }
+
+  @Test
+  public void testLargeMachineFollowsRing() {
+    int stateCount = 48;
+    StateMachine machine = new StateMachine("Ring");
+    State[] states = new State[stateCount];
+    for (int i = 0; i < stateCount; i++) {
+      states[i] = machine.addState("state " + i, Commands.idle());
+    }
+    // Every state can go to the next four states in a ring
+    for (int i = 0; i < stateCount; i++) {
+      for (int j = 1; j <= 4; j++) {
+        int target = (i + j) % stateCount;
+        states[i].switchTo(states[target]).when(() -> requested == target, j);
+      }
+    }
+    requested = 0;
+    machine.setInitialState(states[0]);
+    machine.initialize();
+
+    // Go around the ring three times in steps of one to four states
+    int current = 0;
+    for (int i = 0; i < 3 * stateCount; i++) {
+      int target = (current + i % 4 + 1) % stateCount;
+      requested = target;
+      machine.execute();
+      assertEquals("state " + target, machine.getCurrentStateName());
+      machine.execute();
+      assertEquals("state " + target, machine.getCurrentStateName());
+      current = target;
+    }
+
+    // Five states ahead has no transition
+    requested = (current + 5) % stateCount;
+    machine.execute();
+    assertEquals("state " + current, machine.getCurrentStateName());
+  }
+}
@@ -0,0 +1,39 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.auto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import org.junit.jupiter.api.Test;
+
+/** Tests that autonomous error is attributed to the right segments, markers and bins. */
+public class AutoErrorTrackerTest {
+
+  @Test
+  public void testAttributesErrorToSegmentsAndMarkers() {
+    AutoErrorTracker tracker = new AutoErrorTracker(Pose2d::new, 100);
+
+    tracker.startSegment();
+    for (int i = 0; i < 10; i++) {
+      Pose2d target = new Pose2d(i * 0.1, 0, Rotation2d.kZero);
+      tracker.record(i * 0.02, target, new Pose2d(i * 0.1, 0.01, Rotation2d.kZero), 0);
+    }
+    tracker.startSegment();
+    for (int i = 0; i < 10; i++) {
+      Pose2d target = new Pose2d(1, i * 0.1, Rotation2d.kZero);
+      tracker.record(0.2 + i * 0.02, target, new Pose2d(1.3, i * 0.1, Rotation2d.kZero), 0b10);
+    }
+    tracker.summarize();
+
+    assertEquals(0.01, tracker.getSegmentRmsError(0), 1e-9);
+    assertEquals(0.3, tracker.getSegmentMaxError(1), 1e-9);
+    assertEquals(10, tracker.getSegmentHistogram(0, 0));
+    assertEquals(10, tracker.getSegmentHistogram(1, 4));
+    assertEquals(0.3, tracker.getMarkerRmsError(1), 1e-9);
+    assertEquals(0.0, tracker.getMarkerRmsError(0), 1e-9);
+  }
+}
@@ -0,0 +1,74 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.auto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/** Tests finding the ultimate gain and period of a simulated plant with relay feedback. */
+public class RelayPIDAutoTunerTest {
+  private static final double LOOP_PERIOD = 0.02;
+  private static final int SUBSTEPS = 20;
+  private static final double TIME_CONSTANT = 0.5;
+
+  /** Three equal first order lags in series, which oscillate under relay feedback. */
+  private static class ThreeLagPlant {
+    final double[] states = new double[3];
+    double input;
+
+    void step(double dt) {
+      double upstream = input;
+      for (int i = 0; i < states.length; i++) {
+        states[i] += (upstream - states[i]) * dt / TIME_CONSTANT;
+        upstream = states[i];
+      }
+    }
+
+    double output() {
+      return states[states.length - 1];
+    }
+  }
+
+  @BeforeAll
+  public static void setup() {
+    assertTrue(HAL.initialize(500, 0));
+  }
+
+  @Test
+  public void testFindsUltimateGainAndPeriod() {
+    ThreeLagPlant plant = new ThreeLagPlant();
+    RelayPIDAutoTuner tuner =
+        new RelayPIDAutoTuner()
+            .addMechanism("Plant", output -> plant.input = output, plant::output, 1.0, 0.0)
+            .withTolerance(0.02);
+    RelayPIDAutoTuner.Mechanism mechanism = tuner.getMechanism("Plant");
+
+    tuner.initialize();
+    double time = 0.0;
+    while (!mechanism.isConverged() && time < 30.0) {
+      time += LOOP_PERIOD;
+      tuner.update(time);
+      for (int i = 0; i < SUBSTEPS; i++) {
+        plant.step(LOOP_PERIOD / SUBSTEPS);
+      }
+    }
+    tuner.end(false);
+
+    // Each lag turns the phase 60 degrees at w = sqrt(3) / tau, where the gain is 1 / 8
+    assertTrue(mechanism.isConverged());
+    double period = 2 * Math.PI * TIME_CONSTANT / Math.sqrt(3);
+    assertEquals(period, mechanism.getUltimatePeriod(), 0.1 * period);
+    assertEquals(8.0, mechanism.getUltimateGain(), 0.15 * 8.0);
+    assertEquals(0.2 * mechanism.getUltimateGain(), mechanism.getKP(), 1e-9);
+    assertEquals(0.0, plant.input);
+    assertEquals(
+        mechanism.getKP(), SmartDashboard.getNumber("RelayTuner/Plant/kP", Double.NaN), 1e-9);
+  }
+}
@@ -0,0 +1,63 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
+import org.junit.jupiter.api.Test;
+
+/** Tests creating devices through the init graph. */
+public class DeviceInitGraphTest {
+  @Test
+  public void testCreatesInOrderOnCallingThread() {
+    Thread robotThread = Thread.currentThread();
+    List<String> created = new ArrayList<>();
+    List<Boolean> onRobotThread = new ArrayList<>();
+
+    DeviceInitGraph graph = new DeviceInitGraph(LogLevel.DEBUG);
+    for (String name : new String[] {"controllers", "drivetrain", "camera"}) {
+      graph.add(
+          name,
+          () -> {
+            created.add(name);
+            onRobotThread.add(Thread.currentThread() == robotThread);
+          });
+    }
+    graph.run();
+
+    assertEquals(List.of("controllers", "drivetrain", "camera"), created);
+    assertEquals(List.of(true, true, true), onRobotThread);
+  }
+
+  @Test
+  public void testRejectsUnknownDependency() {
+    DeviceInitGraph graph = new DeviceInitGraph(LogLevel.COMPETITION);
+    assertThrows(IllegalArgumentException.class, () -> graph.add("camera", () -> {}, "drive"));
+  }
+
+  @Test
+  public void testRejectsDuplicateName() {
+    DeviceInitGraph graph = new DeviceInitGraph(LogLevel.COMPETITION).add("camera", () -> {});
+    assertThrows(IllegalArgumentException.class, () -> graph.add("camera", () -> {}));
+  }
+
+  @Test
+  public void testReportsCreationFailure() {
+    DeviceInitGraph graph =
+        new DeviceInitGraph(LogLevel.COMPETITION)
+            .add(
+                "broken",
+                () -> {
+                  throw new IllegalStateException("no CAN");
+                });
+    RuntimeException e = assertThrows(RuntimeException.class, graph::run);
+    assertTrue(e.getCause() instanceof IllegalStateException);
+  }
+}
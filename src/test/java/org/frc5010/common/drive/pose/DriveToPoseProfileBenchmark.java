@@ -0,0 +1,86 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.drive.pose;
+
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Reports the time and allocation of sampling the drive to pose profile every loop and of solving
+ * it again for a new target. Run with benchmark.
+ */
+@Tag("benchmark")
+public class DriveToPoseProfileBenchmark {
+  private static final int LOOPS = 200_000;
+  private static final double DT = 0.02;
+
+  private static final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private static DriveToPoseProfile makeProfile() {
+    DriveToPoseProfile profile =
+        new DriveToPoseProfile(4.0, 3.0, Math.PI, 5.0)
+            .withTranslationGains(2.0, 0.0)
+            .withRotationGains(3.0, 0.0);
+    profile.reset(0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 5.0, 2.0, 1.0);
+    return profile;
+  }
+
+  /** Samples the profile along its whole duration, over and over. */
+  private static double sampleLoops(DriveToPoseProfile profile) {
+    double sum = 0.0;
+    double duration = profile.getDuration();
+    for (int i = 0; i < LOOPS; i++) {
+      double t = (i * DT) % duration;
+      profile.calculate(t, 0.1, 0.1, 0.0, 0.5, 0.2, 0.0);
+      sum += profile.getVx();
+    }
+    return sum;
+  }
+
+  /** Moves the target a little every loop, so every call solves the profile again. */
+  private static double retargetLoops(DriveToPoseProfile profile) {
+    double sum = 0.0;
+    for (int i = 0; i < LOOPS; i++) {
+      double offset = (i & 1) == 0 ? 0.0 : 0.1;
+      profile.setTarget(1.0, 1.0, 0.5, 0.2, 5.0 + offset, 2.0 - offset, 1.0);
+      sum += profile.getDuration();
+    }
+    return sum;
+  }
+
+  private static void report(String name, long elapsed, long allocated, double result) {
+    System.out.println(
+        String.format(
+            "Drive to pose %s: %.1f ns, %.1f B allocated per call (%.1f)",
+            name, (double) elapsed / LOOPS, (double) allocated / LOOPS, result));
+  }
+
+  @Test
+  public void benchmarkSample() {
+    DriveToPoseProfile profile = makeProfile();
+    // Warm up so the timed loops run compiled code
+    sampleLoops(profile);
+
+    long bytes = threads.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    double result = sampleLoops(profile);
+    long elapsed = System.nanoTime() - start;
+    report("sample", elapsed, threads.getCurrentThreadAllocatedBytes() - bytes, result);
+  }
+
+  @Test
+  public void benchmarkRetarget() {
+    DriveToPoseProfile profile = makeProfile();
+    retargetLoops(profile);
+
+    long bytes = threads.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    double result = retargetLoops(profile);
+    long elapsed = System.nanoTime() - start;
+    report("retarget", elapsed, threads.getCurrentThreadAllocatedBytes() - bytes, result);
+  }
+}
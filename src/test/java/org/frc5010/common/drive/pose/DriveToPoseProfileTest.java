@@ -0,0 +1,85 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.drive.pose;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests the drive to pose motion profile. */
+public class DriveToPoseProfileTest {
+  private static final double DT = 0.02;
+
+  private static DriveToPoseProfile makeProfile() {
+    return new DriveToPoseProfile(4.0, 3.0, Math.PI, 5.0)
+        .withTranslationGains(2.0, 0.0)
+        .withRotationGains(3.0, 0.0);
+  }
+
+  /** Drives a robot that follows the commanded velocity exactly, returning {x, y, heading, t}. */
+  private static double[] drive(
+      DriveToPoseProfile profile, double x, double y, double heading, double vx, double vy) {
+    double omega = 0.0;
+    double t = 0.0;
+    for (int i = 0; i < 500 && !profile.atGoal(t); i++) {
+      profile.calculate(t, x, y, heading, vx, vy, omega);
+      vx = profile.getVx();
+      vy = profile.getVy();
+      omega = profile.getOmega();
+      x += vx * DT;
+      y += vy * DT;
+      heading += omega * DT;
+      t += DT;
+    }
+    return new double[] {x, y, heading, t};
+  }
+
+  @Test
+  public void testReachesTargetFromRest() {
+    DriveToPoseProfile profile = makeProfile();
+    profile.reset(0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 5.0, 2.0, 1.0);
+    double[] end = drive(profile, 0.0, 0.0, 0.0, 0.0, 0.0);
+    assertEquals(5.0, end[0], 0.02);
+    assertEquals(2.0, end[1], 0.02);
+    assertEquals(1.0, end[2], Math.toRadians(1.0));
+    assertEquals(profile.getDuration(), end[3], 0.1);
+    // A trapezoid that cruises at the velocity limit
+    assertEquals(Math.hypot(5.0, 2.0) / 4.0 + 4.0 / 3.0, profile.getDuration(), 1e-9);
+  }
+
+  @Test
+  public void testBrakesSidewaysAndOvershootingVelocity() {
+    DriveToPoseProfile profile = makeProfile();
+    // Moving fast across the line to a target it can not stop short of
+    profile.reset(0.0, 0.0, 0.0, 0.0, 4.0, 3.0, 0.0, 0.5, 0.0, 0.0);
+    double[] end = drive(profile, 0.0, 0.0, 0.0, 4.0, 3.0);
+    assertEquals(0.5, end[0], 0.02);
+    assertEquals(0.0, end[1], 0.02);
+  }
+
+  @Test
+  public void testRetargetKeepsVelocity() {
+    DriveToPoseProfile profile = makeProfile();
+    profile.reset(0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 5.0, 0.0, 0.0);
+    profile.calculate(1.0, 1.5, 0.0, 0.0, 3.0, 0.0, 0.0);
+    double vx = profile.getVx();
+
+    assertTrue(profile.setTarget(1.0, 1.5, 0.0, 0.0, 5.0, 1.0, 0.0));
+    assertFalse(profile.setTarget(1.0, 1.5, 0.0, 0.0, 5.0, 1.0, 0.0));
+    profile.calculate(1.0, 1.5, 0.0, 0.0, 3.0, 0.0, 0.0);
+    assertEquals(vx, profile.getVx(), 1e-9);
+    assertEquals(0.0, profile.getVy(), 1e-9);
+  }
+
+  @Test
+  public void testTurnsTheShortWayAround() {
+    DriveToPoseProfile profile = makeProfile();
+    profile.reset(0.0, 0.0, 0.0, 3.0, 0.0, 0.0, 0.0, 0.0, 0.0, -3.0);
+    profile.calculate(0.1, 0.0, 0.0, 3.0, 0.0, 0.0, 0.0);
+    assertTrue(profile.getOmega() > 0.0);
+  }
+}
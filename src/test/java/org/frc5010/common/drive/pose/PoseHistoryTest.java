@@ -0,0 +1,67 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.drive.pose;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests the primitive pose history ring buffer. */
+public class PoseHistoryTest {
+
+  @Test
+  public void testInterpolatesBetweenSamples() {
+    PoseHistory history = new PoseHistory(8);
+    double[] out = new double[3];
+    assertFalse(history.sample(0.0, out));
+
+    history.add(1.0, 0.0, 0.0, 0.0);
+    history.add(2.0, 2.0, 4.0, 1.0);
+    assertTrue(history.sample(1.25, out));
+    assertEquals(0.5, out[0], 1e-9);
+    assertEquals(1.0, out[1], 1e-9);
+    assertEquals(0.25, out[2], 1e-9);
+
+    // Clamped outside the stored range
+    history.sample(0.0, out);
+    assertEquals(0.0, out[0], 1e-9);
+    history.sample(5.0, out);
+    assertEquals(2.0, out[0], 1e-9);
+  }
+
+  @Test
+  public void testHeadingInterpolatesAcrossWrap() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(0.0, 0.0, 0.0, Math.PI - 0.1);
+    history.add(1.0, 0.0, 0.0, -Math.PI + 0.1);
+    double[] out = new double[3];
+    history.sample(0.5, out);
+    assertEquals(Math.PI, Math.abs(out[2]), 1e-9);
+    history.sampleVelocity(0.5, out);
+    assertEquals(0.2, out[2], 1e-9);
+  }
+
+  @Test
+  public void testOverwritesOldestWhenFull() {
+    PoseHistory history = new PoseHistory(3);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(history.add(i, i, -i, 0.0));
+    }
+    assertFalse(history.add(4.0, 0.0, 0.0, 0.0));
+    assertEquals(3, history.size());
+    assertEquals(2.0, history.getOldestTimestamp(), 1e-9);
+    assertEquals(4.0, history.getNewestTimestamp(), 1e-9);
+
+    double[] out = new double[3];
+    history.sample(3.5, out);
+    assertEquals(3.5, out[0], 1e-9);
+    assertEquals(-3.5, out[1], 1e-9);
+    assertTrue(history.sampleVelocity(10.0, out));
+    assertEquals(1.0, out[0], 1e-9);
+    assertEquals(-1.0, out[1], 1e-9);
+  }
+}
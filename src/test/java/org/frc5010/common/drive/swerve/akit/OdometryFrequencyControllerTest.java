@@ -0,0 +1,67 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.drive.swerve.akit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.frc5010.common.drive.swerve.akit.OdometryFrequencyController.RatePolicy;
+import org.junit.jupiter.api.Test;
+
+/** Tests the odometry rate decisions against synthetic bus and CPU load. */
+public class OdometryFrequencyControllerTest {
+  private static final double QUIET_BUS = 0.3;
+  private static final double QUIET_CPU = 0.05;
+
+  @Test
+  public void testBacksOffWhenStressed() {
+    RatePolicy policy = new RatePolicy(300, 100, 250);
+    assertEquals(250, policy.getTargetFrequency());
+
+    // Each of a busy bus, a busy odometry thread and loop overruns cuts the rate by a fifth
+    assertEquals(200, policy.evaluate(true, 0.9, QUIET_CPU, 0), 1e-9);
+    assertEquals(160, policy.evaluate(true, QUIET_BUS, 0.3, 0), 1e-9);
+    assertEquals(128, policy.evaluate(true, QUIET_BUS, QUIET_CPU, 3), 1e-9);
+    assertEquals(102.4, policy.evaluate(true, 0.9, 0.3, 5), 1e-9);
+    assertEquals(100, policy.evaluate(true, 0.9, QUIET_CPU, 0), 1e-9);
+    assertEquals(100, policy.evaluate(true, 0.9, QUIET_CPU, 0), 1e-9);
+  }
+
+  @Test
+  public void testStepsUpAfterQuietWindows() {
+    RatePolicy policy = new RatePolicy(100, 100, 250);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(100, policy.evaluate(true, QUIET_BUS, QUIET_CPU, 0));
+    }
+    assertEquals(125, policy.evaluate(true, QUIET_BUS, QUIET_CPU, 0));
+
+    // A window between the thresholds holds the rate and restarts the quiet run
+    for (int i = 0; i < 3; i++) {
+      assertEquals(125, policy.evaluate(true, QUIET_BUS, QUIET_CPU, 0));
+    }
+    assertEquals(125, policy.evaluate(true, 0.7, QUIET_CPU, 0));
+    for (int i = 0; i < 3; i++) {
+      assertEquals(125, policy.evaluate(true, QUIET_BUS, QUIET_CPU, 0));
+    }
+    assertEquals(150, policy.evaluate(true, QUIET_BUS, QUIET_CPU, 0));
+
+    // A bus whose status cannot be read does not count against the rate
+    for (int i = 0; i < 3; i++) {
+      policy.evaluate(false, 0.95, QUIET_CPU, 0);
+    }
+    assertEquals(175, policy.evaluate(false, 0.95, QUIET_CPU, 0));
+  }
+
+  @Test
+  public void testStaysWithinBounds() {
+    RatePolicy policy = new RatePolicy(240, 100, 250);
+    for (int i = 0; i < 3; i++) {
+      policy.evaluate(true, QUIET_BUS, QUIET_CPU, 0);
+    }
+    assertEquals(250, policy.evaluate(true, QUIET_BUS, QUIET_CPU, 0));
+    for (int i = 0; i < 8; i++) {
+      assertEquals(250, policy.evaluate(true, QUIET_BUS, QUIET_CPU, 0));
+    }
+  }
+}
@@ -0,0 +1,60 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.mechanisms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests table shots by flying them with the projectile model. */
+public class BallisticSolverTest {
+  private final BallisticSolver solver =
+      new BallisticSolver(0.5, 10.0, 191, -1.0, 3.0, 81)
+          .withHoodRange(Math.toRadians(20), Math.toRadians(75))
+          .withMaxLaunchSpeed(20.0);
+
+  /** Returns the miss distance when the game piece passes the target height on the way down. */
+  private static double miss(
+      BallisticSolver.Solution shot,
+      double dx,
+      double dy,
+      double height,
+      double vx,
+      double vy) {
+    double horizontal = shot.launchSpeed * Math.cos(shot.hoodAngle);
+    double ballVx = horizontal * Math.cos(shot.heading) + vx;
+    double ballVy = horizontal * Math.sin(shot.heading) + vy;
+    double ballVz = shot.launchSpeed * Math.sin(shot.hoodAngle);
+    double g = BallisticSolver.DEFAULT_GRAVITY;
+    // Descending root of z(t) = height
+    double t = (ballVz + Math.sqrt(ballVz * ballVz - 2 * g * height)) / g;
+    return Math.hypot(ballVx * t - dx, ballVy * t - dy);
+  }
+
+  @Test
+  public void testStandingShotHitsTarget() {
+    BallisticSolver.Solution shot = new BallisticSolver.Solution();
+    assertTrue(solver.solve(4.2, -1.3, 1.7, 0.0, 0.0, shot));
+    assertTrue(miss(shot, 4.2, -1.3, 1.7, 0.0, 0.0) < 0.02);
+    assertEquals(Math.atan2(-1.3, 4.2), shot.heading, 1e-9);
+  }
+
+  @Test
+  public void testMovingShotHitsTarget() {
+    BallisticSolver.Solution shot = new BallisticSolver.Solution();
+    assertTrue(solver.solve(5.0, 2.0, 1.0, 2.5, -3.0, shot));
+    assertTrue(miss(shot, 5.0, 2.0, 1.0, 2.5, -3.0) < 0.02);
+  }
+
+  @Test
+  public void testOutOfRangeIsInvalid() {
+    BallisticSolver.Solution shot = new BallisticSolver.Solution();
+    assertFalse(solver.solve(12.0, 0.0, 1.0, 0.0, 0.0, shot));
+    assertTrue(Double.isNaN(shot.launchSpeed));
+    assertFalse(solver.lookup(3.0, 5.0, shot));
+  }
+}
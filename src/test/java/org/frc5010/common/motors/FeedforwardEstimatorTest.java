@@ -0,0 +1,71 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.motors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Tests the streaming feedforward fit against known constants. */
+public class FeedforwardEstimatorTest {
+  private static final double KS = 0.2;
+  private static final double KV = 2.5;
+  private static final double KA = 0.4;
+
+  /** Steps a mechanism with the test constants, returning its new velocity */
+  private static double step(double velocity, double voltage, double dt) {
+    for (int i = 0; i < 10; i++) {
+      double friction = Math.abs(velocity) > 1e-6 ? KS * Math.signum(velocity) : 0.0;
+      double driving = Math.abs(velocity) > 1e-6 || Math.abs(voltage) > KS ? voltage - friction : 0;
+      velocity += (driving - KV * velocity) / KA * dt / 10;
+    }
+    return velocity;
+  }
+
+  @Test
+  public void testRecoversConstants() {
+    FeedforwardEstimator estimator = new FeedforwardEstimator();
+    Random random = new Random(5010);
+    double dt = 0.02;
+
+    // Quasistatic ramp
+    double velocity = 0.0;
+    for (int i = 0; i < 1000; i++) {
+      double voltage = 0.1 * i * dt;
+      velocity = step(velocity, voltage, dt);
+      estimator.addQuasistaticSample(velocity, voltage + random.nextGaussian() * 0.01);
+    }
+    // Dynamic step from rest
+    velocity = 0.0;
+    for (int i = 0; i < 100; i++) {
+      velocity = step(velocity, 6.0, dt);
+      estimator.addDynamicSample(velocity, 6.0 + random.nextGaussian() * 0.01, i * dt);
+    }
+
+    assertEquals(KS, estimator.getKS(), 0.02);
+    assertEquals(KV, estimator.getKV(), 0.02);
+    assertEquals(KA, estimator.getKA(), 0.02);
+    assertTrue(estimator.getStandardError(1) < 0.01);
+    assertTrue(estimator.getStandardError(2) < 0.01);
+    assertTrue(estimator.getRSquared() > 0.99);
+  }
+
+  @Test
+  public void testMatchesBatchMean() {
+    RecursiveLeastSquares mean = new RecursiveLeastSquares(1);
+    double[] constant = {1.0};
+    double sum = 0.0;
+    for (int i = 1; i <= 10; i++) {
+      mean.update(constant, i);
+      sum += i;
+    }
+    assertEquals(sum / 10, mean.getParameter(0), 1e-4);
+    assertEquals(10, mean.getCount());
+    // Sample standard deviation of 1..10 over the square root of n
+    assertEquals(Math.sqrt(55.0 / 6.0) / Math.sqrt(10), mean.getStandardError(0), 1e-3);
+  }
+}
@@ -0,0 +1,35 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.sensors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests recording beam break edges from interrupt callbacks. */
+public class BeambreakTest {
+  @Test
+  public void testBothEdgesInOneCallbackAreOrderedByTime() {
+    // A game piece passed through the beam between callbacks
+    Beambreak passed = new Beambreak(() -> false);
+    passed.recordInterrupt(true, 1.005, true, 1.002);
+    assertTrue(passed.brokenSinceLastLoop());
+    assertTrue(passed.restoredSinceLastLoop());
+    assertEquals(1.002, passed.getLastBrokenTime());
+    assertEquals(1.005, passed.getLastRestoredTime());
+    assertFalse(passed.isBrokenAfterLastEdge());
+
+    // The gap between two game pieces passed between callbacks
+    Beambreak gap = new Beambreak(() -> true);
+    gap.recordInterrupt(true, 2.001, true, 2.004);
+    assertTrue(gap.brokenSinceLastLoop());
+    assertTrue(gap.restoredSinceLastLoop());
+    assertEquals(2.004, gap.getLastBrokenTime());
+    assertEquals(2.001, gap.getLastRestoredTime());
+    assertTrue(gap.isBrokenAfterLastEdge());
+  }
+}
@@ -0,0 +1,61 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.sensors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import au.grapplerobotics.LaserCan;
+import org.junit.jupiter.api.Test;
+
+/** Tests filtering sampled LaserCAN measurements. */
+public class LaserCANTest {
+  private static final int VALID = LaserCan.LASERCAN_STATUS_VALID_MEASUREMENT;
+
+  @Test
+  public void testMedianThenIirFilter() {
+    LaserCAN sensor = new LaserCAN(0).withFilter(3, 0.5);
+    double[] latest = new double[3];
+
+    sensor.addMeasurement(VALID, 100, 0.0);
+    sensor.getLatest(latest);
+    assertEquals(100, latest[0], 1e-9);
+    assertEquals(0.0, latest[1], 1e-9);
+    assertEquals(0.0, latest[2], 1e-9);
+
+    // The median of {100, 400} is 250, and the IIR filter moves halfway there
+    sensor.addMeasurement(VALID, 400, 0.1);
+    sensor.getLatest(latest);
+    assertEquals(175, latest[0], 1e-9);
+    assertEquals(750, latest[1], 1e-9);
+
+    // The median of {100, 400, 130} drops the spike, so the distance comes back down
+    sensor.addMeasurement(VALID, 130, 0.2);
+    sensor.getLatest(latest);
+    assertEquals(152.5, latest[0], 1e-9);
+    assertEquals(-225, latest[1], 1e-9);
+    assertEquals(0.2, latest[2], 1e-9);
+
+    // The window holds three values, so 100 leaves and the median of {140, 400, 130} is 140
+    sensor.addMeasurement(VALID, 140, 0.3);
+    sensor.getLatest(latest);
+    assertEquals(146.25, latest[0], 1e-9);
+    assertTrue(sensor.getVelocity() < 0);
+  }
+
+  @Test
+  public void testRejectsInvalidStatus() {
+    LaserCAN sensor = new LaserCAN(0).withFilter(1, 1.0);
+    sensor.addMeasurement(VALID, 200, 0.0);
+    sensor.addMeasurement(LaserCan.LASERCAN_STATUS_WEAK_SIGNAL, 900, 0.1);
+    sensor.addMeasurement(LaserCan.LASERCAN_STATUS_OUT_OF_BOUNDS, 0, 0.2);
+
+    double[] latest = new double[3];
+    sensor.getLatest(latest);
+    assertEquals(200, latest[0], 1e-9);
+    assertEquals(0.0, latest[2], 1e-9);
+    assertEquals(2, sensor.getInvalidMeasurements());
+  }
+}
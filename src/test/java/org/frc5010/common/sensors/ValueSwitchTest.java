@@ -0,0 +1,75 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.sensors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.wpilibj.RobotController;
+import org.junit.jupiter.api.Test;
+
+/** Tests sampling, debouncing and edge timestamps of the value switches. */
+public class ValueSwitchTest {
+  private double value = 0.0;
+
+  /** Sample times ahead of the FPGA clock, so get() does not take samples of its own */
+  private static double future(double offset) {
+    return RobotController.getFPGATime() / 1e6 + 100.0 + offset;
+  }
+
+  @Test
+  public void testDebouncedEdgesAreTimestamped() {
+    ValueSwitch valueSwitch = new ValueSwitch(10.0, () -> value, 0.0);
+    valueSwitch.setDebounce(0.008);
+    int[] edges = new int[1];
+    valueSwitch.setEdgeListener((rising, timestamp) -> edges[0]++);
+
+    double start = future(0.0);
+    value = 20.0;
+    valueSwitch.sample(start);
+    valueSwitch.sample(start + 0.005);
+    assertFalse(valueSwitch.get());
+    valueSwitch.sample(start + 0.010);
+    assertTrue(valueSwitch.get());
+    assertEquals(start + 0.010, valueSwitch.getLastRisingEdgeTime(), 1e-9);
+
+    // A glitch shorter than the debounce time is ignored
+    value = 0.0;
+    valueSwitch.sample(start + 0.012);
+    value = 20.0;
+    valueSwitch.sample(start + 0.014);
+    valueSwitch.sample(start + 0.030);
+    assertTrue(valueSwitch.get());
+    assertEquals(1, valueSwitch.getRisingEdgeCount());
+    assertEquals(0, valueSwitch.getFallingEdgeCount());
+    assertEquals(1, edges[0]);
+  }
+
+  @Test
+  public void testSmoothedFilterAdvancesOncePerSample() {
+    SmoothedValueSwitch valueSwitch = new SmoothedValueSwitch(10.0, () -> value, 0.0);
+    value = 100.0;
+    valueSwitch.sample(1.0);
+    double filtered = valueSwitch.getFilteredValue();
+    for (int i = 0; i < 5; i++) {
+      valueSwitch.getTrigger();
+    }
+    assertEquals(filtered, valueSwitch.getFilteredValue(), 1e-12);
+    valueSwitch.sample(1.02);
+    assertTrue(valueSwitch.getFilteredValue() > filtered);
+  }
+
+  @Test
+  public void testCountingSwitchPulses() {
+    CountingValueSwitch valueSwitch = new CountingValueSwitch(-1.0, () -> value, 0.0, 2);
+    int pulses = 0;
+    for (int i = 0; i < 9; i++) {
+      valueSwitch.sample(i * 0.02);
+      pulses += valueSwitch.getRisingEdgeCount() > pulses ? 1 : 0;
+    }
+    assertEquals(3, pulses);
+  }
+}
@@ -0,0 +1,49 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.subsystems;
+
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Reports the time and allocation of rendering a 300 LED rainbow frame. Run with benchmark. */
+@Tag("benchmark")
+public class LEDCompositorBenchmark {
+  private static final int LENGTH = 300;
+  private static final int FRAMES = 20_000;
+
+  private static final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private static void renderFrames(LEDCompositor compositor, AddressableLEDBuffer buffer) {
+    for (int i = 0; i < FRAMES; i++) {
+      compositor.render(buffer, i * LEDKernel.STEP_MS);
+      compositor.copyIfChanged(buffer);
+    }
+  }
+
+  @Test
+  public void benchmarkRainbowFrame() {
+    AddressableLEDBuffer buffer = new AddressableLEDBuffer(LENGTH);
+    LEDCompositor compositor = new LEDCompositor(LENGTH);
+    LEDStripSegment strip = new LEDStripSegment(0, LENGTH - 1, Color.OFF).setActive(true);
+    strip.rainbow();
+    compositor.addSegment(strip);
+
+    // Warm up so the timed frames run compiled code
+    renderFrames(compositor, buffer);
+
+    long bytes = threads.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    renderFrames(compositor, buffer);
+    long elapsed = System.nanoTime() - start;
+    long allocated = threads.getCurrentThreadAllocatedBytes() - bytes;
+    System.out.println(
+        String.format(
+            "%d LED rainbow frame: %.2f us, %.1f B allocated per frame",
+            LENGTH, elapsed / 1e3 / FRAMES, (double) allocated / FRAMES));
+  }
+}
@@ -0,0 +1,75 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import org.junit.jupiter.api.Test;
+
+/** Tests compositing LED segments into a frame. */
+public class LEDCompositorTest {
+
+  @Test
+  public void testHigherOrderDrawsOnTop() {
+    AddressableLEDBuffer buffer = new AddressableLEDBuffer(10);
+    LEDCompositor compositor = new LEDCompositor(10);
+    LEDStripSegment top = new LEDStripSegment(2, 4, Color.RED).setOrder(1).setActive(true);
+    LEDStripSegment base = new LEDStripSegment(0, 9, Color.BLUE).setActive(true);
+    top.on();
+    base.on();
+    compositor.addSegment(top);
+    compositor.addSegment(base);
+
+    compositor.render(buffer, 0);
+    assertTrue(compositor.copyIfChanged(buffer));
+    assertEquals(LEDKernel.rgb(0, 0, 255), compositor.getFrame()[1]);
+    assertEquals(LEDKernel.rgb(255, 0, 0), compositor.getFrame()[3]);
+    assertEquals(255, buffer.getRed(3));
+
+    compositor.render(buffer, 20);
+    assertFalse(compositor.copyIfChanged(buffer));
+  }
+
+  @Test
+  public void testHsvMatchesWpilib() {
+    for (int hue = 0; hue < 180; hue += 7) {
+      edu.wpi.first.wpilibj.util.Color expected =
+          edu.wpi.first.wpilibj.util.Color.fromHSV(hue, 255, 128);
+      int rgb = LEDKernel.hsv(hue, 255, 128);
+      assertEquals((int) (expected.red * 255), (rgb >> 16) & 0xFF, 1);
+      assertEquals((int) (expected.green * 255), (rgb >> 8) & 0xFF, 1);
+      assertEquals((int) (expected.blue * 255), rgb & 0xFF, 1);
+    }
+  }
+
+  @Test
+  public void testRainbowFrame() {
+    int length = 300;
+    AddressableLEDBuffer buffer = new AddressableLEDBuffer(length);
+    LEDCompositor compositor = new LEDCompositor(length);
+    LEDStripSegment strip = new LEDStripSegment(0, length - 1, Color.OFF).setActive(true);
+    strip.rainbow();
+    compositor.addSegment(strip);
+
+    // Ten steps in, the first LED has moved 30 hues along
+    compositor.render(buffer, 10 * LEDKernel.STEP_MS);
+    assertTrue(compositor.copyIfChanged(buffer));
+    for (int i = 0; i < length; i++) {
+      int expected = LEDKernel.hsv((30 + i * 180 / length) % 180, 255, 128);
+      assertEquals(expected, compositor.getFrame()[i]);
+      assertEquals((expected >> 16) & 0xFF, buffer.getRed(i));
+      assertEquals((expected >> 8) & 0xFF, buffer.getGreen(i));
+      assertEquals(expected & 0xFF, buffer.getBlue(i));
+    }
+
+    // The rainbow moves every step
+    compositor.render(buffer, 11 * LEDKernel.STEP_MS);
+    assertTrue(compositor.copyIfChanged(buffer));
+    assertEquals(LEDKernel.hsv(33, 255, 128), compositor.getFrame()[0]);
+  }
+}
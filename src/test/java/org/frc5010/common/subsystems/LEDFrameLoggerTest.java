@@ -0,0 +1,39 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import edu.wpi.first.wpilibj.util.Color8Bit;
+import org.junit.jupiter.api.Test;
+
+/** Tests packing LED frames and decoding them back to colors. */
+public class LEDFrameLoggerTest {
+
+  @Test
+  public void testLogsOnlyChangedFrames() {
+    AddressableLEDBuffer buffer = new AddressableLEDBuffer(4);
+    LEDFrameLogger logger = new LEDFrameLogger("LEDs/Test", 4);
+    assertTrue(logger.log(buffer));
+    assertFalse(logger.log(buffer));
+    buffer.setRGB(2, 255, 128, 1);
+    assertTrue(logger.log(buffer));
+    assertFalse(logger.log(buffer));
+  }
+
+  @Test
+  public void testDecodesPackedFrame() {
+    byte[] frame = {(byte) 255, (byte) 128, 1, 0, 0, (byte) 200};
+    assertEquals(2, LEDFrameLogger.getLength(frame));
+    assertEquals(0xFF8001, LEDFrameLogger.getRGB(frame, 0));
+    Color8Bit[] colors = LEDFrameLogger.decode(frame);
+    assertEquals(new Color8Bit(255, 128, 1), colors[0]);
+    assertEquals(new Color8Bit(0, 0, 200), colors[1]);
+    assertEquals("#0000C8", LEDFrameLogger.toHexStrings(frame)[1]);
+  }
+}
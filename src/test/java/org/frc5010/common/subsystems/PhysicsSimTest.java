@@ -0,0 +1,91 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/** Tests the fixed step simulation scheduler. */
+public class PhysicsSimTest {
+  /** A first order lag driven by a constant input, drawing current proportional to its input. */
+  private static class LagModel implements PhysicsSim.Model {
+    final double input;
+    double appliedInput;
+    double state;
+    double published;
+    int steps;
+
+    LagModel(double input) {
+      this.input = input;
+    }
+
+    @Override
+    public void simulationInputs() {
+      appliedInput = input;
+    }
+
+    @Override
+    public void simulationStep(double dt) {
+      assertEquals(PhysicsSim.SUBSTEP_PERIOD, dt);
+      state += (appliedInput - state) * 5.0 * dt;
+      steps++;
+    }
+
+    @Override
+    public void simulationOutputs() {
+      published = state;
+    }
+
+    @Override
+    public double getSimulationCurrentAmps() {
+      return appliedInput * 10.0;
+    }
+  }
+
+  @BeforeAll
+  public static void setup() {
+    assertTrue(HAL.initialize(500, 0));
+  }
+
+  @Test
+  public void testModelsStepIdenticallyInParallel() {
+    PhysicsSim sim = new PhysicsSim();
+    LagModel[] models = new LagModel[6];
+    for (int i = 0; i < models.length; i++) {
+      models[i] = new LagModel(1.0);
+      sim.register(models[i]);
+    }
+    sim.register(models[0]);
+    assertEquals(models.length, sim.getModelCount());
+
+    LagModel alone = new LagModel(1.0);
+    for (int loop = 0; loop < 50; loop++) {
+      sim.run();
+      PhysicsSim.runAlone(alone);
+    }
+    for (LagModel model : models) {
+      assertEquals(50 * PhysicsSim.SUBSTEPS, model.steps);
+      assertEquals(alone.published, model.published);
+    }
+    // One second of a 0.2 s lag
+    assertEquals(1.0 - Math.exp(-5.0), alone.published, 0.01);
+  }
+
+  @Test
+  public void testCurrentIsAggregatedIntoBattery() {
+    PhysicsSim sim = new PhysicsSim();
+    sim.register(new LagModel(2.0));
+    sim.run();
+    double oneModel = RoboRioSim.getVInVoltage();
+    sim.register(new LagModel(2.0));
+    sim.run();
+    assertTrue(RoboRioSim.getVInVoltage() < oneModel);
+  }
+}
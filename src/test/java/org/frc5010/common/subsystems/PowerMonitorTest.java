@@ -0,0 +1,103 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.PowerDistribution;
+import edu.wpi.first.wpilibj.RobotController;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/** Tests fitting the battery resistance and predicting brownouts from power samples. */
+public class PowerMonitorTest {
+  private static final double OPEN_CIRCUIT_VOLTAGE = 12.5;
+  private static final double RESISTANCE = 0.02;
+  private static final int CHANNELS = 4;
+  private static final int WINDOW = 50;
+
+  /** A power distribution device whose bus sags linearly with the current drawn. */
+  private static class FakePowerDistribution extends PowerDistribution {
+    double totalCurrent;
+
+    FakePowerDistribution() {
+      super(0, ModuleType.kCTRE);
+    }
+
+    @Override
+    public int getNumChannels() {
+      return CHANNELS;
+    }
+
+    @Override
+    public double getVoltage() {
+      return OPEN_CIRCUIT_VOLTAGE - RESISTANCE * totalCurrent;
+    }
+
+    @Override
+    public double getTotalCurrent() {
+      return totalCurrent;
+    }
+
+    @Override
+    public double getCurrent(int channel) {
+      return totalCurrent / CHANNELS;
+    }
+  }
+
+  @BeforeAll
+  public static void setup() {
+    assertTrue(HAL.initialize(500, 0));
+    RobotController.setBrownoutVoltage(6.75);
+  }
+
+  /** Fills the window with currents spread evenly from low to high. */
+  private static void sampleRamp(
+      PowerMonitor monitor, FakePowerDistribution power, double low, double high) {
+    for (int i = 0; i < WINDOW; i++) {
+      power.totalCurrent = low + (high - low) * i / (WINDOW - 1);
+      monitor.sample();
+    }
+  }
+
+  @Test
+  public void testFitsResistanceAndPredictsBrownout() {
+    try (FakePowerDistribution power = new FakePowerDistribution()) {
+      PowerMonitor monitor = new PowerMonitor(power, PowerMonitor.DEFAULT_PERIOD, WINDOW);
+
+      // A steady draw does not spread the current enough to fit the resistance
+      power.totalCurrent = 10.0;
+      for (int i = 0; i < 10; i++) {
+        monitor.sample();
+      }
+      assertTrue(Double.isNaN(monitor.getResistance()));
+      assertEquals(Double.POSITIVE_INFINITY, monitor.getCurrentBudget());
+      assertEquals(1.0, monitor.getCurrentLimitScale());
+      assertFalse(monitor.isBrownoutPredicted());
+
+      // (12.5 - (6.75 + 0.5)) / 0.02 = 262.5 amps before the margin is reached
+      double budget = (OPEN_CIRCUIT_VOLTAGE - 6.75 - PowerMonitor.DEFAULT_MARGIN) / RESISTANCE;
+      sampleRamp(monitor, power, 20.0, 200.0);
+      assertEquals(RESISTANCE, monitor.getResistance(), 1e-9);
+      assertEquals(budget, monitor.getCurrentBudget(), 1e-6);
+      assertEquals(200.0, monitor.getPeakCurrent(), 1e-9);
+      assertEquals(OPEN_CIRCUIT_VOLTAGE - RESISTANCE * 200.0, monitor.getPredictedVoltage(), 1e-6);
+      assertEquals(1.0, monitor.getCurrentLimitScale());
+      assertFalse(monitor.isBrownoutPredicted());
+      assertEquals(50.0, monitor.getChannelCurrent(0), 1e-9);
+
+      // Drawing 350 amps would sag the bus to 5.5 volts
+      sampleRamp(monitor, power, 50.0, 350.0);
+      assertEquals(RESISTANCE, monitor.getResistance(), 1e-9);
+      assertEquals(5.5, monitor.getPredictedVoltage(), 1e-6);
+      assertEquals(budget / 350.0, monitor.getCurrentLimitScale(), 1e-9);
+      assertTrue(monitor.isBrownoutPredicted());
+      assertEquals(200.0 / CHANNELS, monitor.getChannelMeanCurrent(0), 1e-9);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import org.frc5010.common.arch.GenericRobot.LogLevel;
+import org.junit.jupiter.api.Test;
+
+/** Tests publishing command debug values. */
+public class DebugTelemetryTest {
+  @Test
+  public void testPublishesOnlyAtFlush() {
+    DebugTelemetry telemetry = DebugTelemetry.forCommand("DebugTelemetryTest", LogLevel.DEBUG);
+    DebugTelemetry.NumberEntry speed = telemetry.addNumber("Speed");
+    DebugTelemetry.BooleanEntry atGoal = telemetry.addBoolean("At Goal");
+    DebugTelemetry.ArrayEntry pose = telemetry.addNumberArray("Pose");
+    NetworkTable table =
+        NetworkTableInstance.getDefault()
+            .getTable("SmartDashboard")
+            .getSubTable(DebugTelemetry.COMMANDS + "/DebugTelemetryTest");
+
+    double[] poseValues = {1.0, 2.0, 3.0};
+    speed.set(1.0);
+    speed.set(2.0);
+    atGoal.set(true);
+    pose.set(poseValues);
+    assertFalse(table.getEntry("Speed").exists());
+
+    DebugTelemetry.flushAll();
+    assertEquals(2.0, table.getEntry("Speed").getDouble(0.0));
+    assertTrue(table.getEntry("At Goal").getBoolean(false));
+    assertArrayEquals(poseValues, table.getEntry("Pose").getDoubleArray(new double[0]));
+
+    speed.set(3.0);
+    DebugTelemetry.flushAll();
+    assertEquals(3.0, table.getEntry("Speed").getDouble(0.0));
+  }
+}
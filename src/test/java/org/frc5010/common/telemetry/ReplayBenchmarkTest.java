@@ -0,0 +1,72 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.littletonrobotics.junction.LogReplaySource;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+
+/** Tests the AdvantageKit replay benchmark. */
+public class ReplayBenchmarkTest {
+  private static class ValueInputs implements LoggableInputs {
+    double value = 0.0;
+
+    @Override
+    public void toLog(LogTable table) {
+      table.put("Value", value);
+    }
+
+    @Override
+    public void fromLog(LogTable table) {
+      value = table.get("Value", value);
+    }
+  }
+
+  @Test
+  public void testReplaysEveryCycle() {
+    ValueInputs inputs = new ValueInputs();
+    double[] sum = new double[1];
+    LogReplaySource source =
+        new LogReplaySource() {
+          private int cycle = 0;
+
+          @Override
+          public boolean updateTable(LogTable table) {
+            if (cycle == 10) {
+              return false;
+            }
+            cycle++;
+            table.setTimestamp(cycle * 20000L);
+            table.put("Shooter/Value", (double) cycle);
+            return true;
+          }
+        };
+
+    ReplayBenchmark benchmark =
+        new ReplayBenchmark().addInputs("Shooter", inputs).onCycle(() -> sum[0] += inputs.value);
+    ReplayBenchmark.ReplayResult result = benchmark.replay(source);
+
+    assertEquals(10, result.cycles);
+    assertEquals(10.0, inputs.value);
+    assertEquals(55.0, sum[0]);
+    assertEquals(1, result.fromLogNanos.length);
+  }
+
+  @Test
+  public void testMeasuresEveryLayer() {
+    List<ReplayBenchmark.IOCost> costs =
+        new ReplayBenchmark()
+            .addInputs("A", new ValueInputs())
+            .addInputs("B", new ValueInputs())
+            .measureSerialization(100);
+
+    assertEquals(2, costs.size());
+    assertEquals("B", costs.get(1).key);
+  }
+}
@@ -0,0 +1,50 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.frc5010.common.arch.GenericRobot.LogLevel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests when mechanism visualizers draw. */
+public class VisualizerSnapshotTest {
+  @AfterEach
+  public void restore() {
+    VisualizerSnapshot.setDecimation(VisualizerSnapshot.DEFAULT_DECIMATION);
+    VisualizerSnapshot.useDefaultEnabled();
+  }
+
+  @Test
+  public void testDrawsAtReducedRateOnlyOnChange() {
+    VisualizerSnapshot.setEnabled(true);
+    VisualizerSnapshot.setDecimation(4);
+    VisualizerSnapshot snapshot = new VisualizerSnapshot(1);
+    int draws = 0;
+    for (int loop = 0; loop < 40; loop++) {
+      // Changes for the first 20 loops, then holds still
+      snapshot.set(0, Math.min(loop, 20));
+      snapshot.submit();
+      if (snapshot.shouldDraw(LogLevel.COMPETITION)) {
+        draws++;
+      }
+    }
+    assertEquals(6, draws);
+    assertEquals(20.0, snapshot.get(0));
+  }
+
+  @Test
+  public void testDisabledNeverDraws() {
+    VisualizerSnapshot.setEnabled(false);
+    VisualizerSnapshot snapshot = new VisualizerSnapshot(1);
+    for (int loop = 0; loop < 20; loop++) {
+      snapshot.set(0, loop);
+      snapshot.submit();
+      assertFalse(snapshot.shouldDraw(LogLevel.DEBUG));
+    }
+  }
+}
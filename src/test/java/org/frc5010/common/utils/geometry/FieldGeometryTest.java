@@ -0,0 +1,49 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.utils.geometry;
+
+import static edu.wpi.first.units.Units.Meters;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import org.frc5010.common.constants.FieldDimensions;
+import org.junit.jupiter.api.Test;
+
+/** Tests that registered poses and regions swap to their precomputed red variants. */
+public class FieldGeometryTest {
+
+  @Test
+  public void testAllianceVariants() {
+    FieldGeometry.configure(new FieldDimensions(Meters.of(16), Meters.of(8), true, true));
+    FieldGeometry.Target target =
+        FieldGeometry.register("Test Target", new Pose2d(2, 1, Rotation2d.fromDegrees(30)));
+    FieldGeometry.Region region =
+        FieldGeometry.registerRegion(
+            "Test Region", new Translation2d(0, 0), new Translation2d(4, 2));
+
+    FieldGeometry.setRedAlliance(false);
+    Pose2d blue = target.get();
+    assertEquals(2, blue.getX(), 1e-9);
+    assertSame(blue, target.get());
+    assertTrue(region.contains(1, 1));
+
+    FieldGeometry.setRedAlliance(true);
+    Pose2d red = target.get();
+    assertEquals(14, red.getX(), 1e-9);
+    assertEquals(7, red.getY(), 1e-9);
+    assertEquals(-150, red.getRotation().getDegrees(), 1e-9);
+    assertSame(red, target.get());
+    assertFalse(region.contains(1, 1));
+    assertTrue(region.contains(15, 7));
+    assertTrue(AllianceFlipUtil.shouldFlip());
+
+    FieldGeometry.setRedAlliance(false);
+  }
+}
@@ -0,0 +1,66 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.utils.geometry;
+
+import static edu.wpi.first.units.Units.Meters;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import org.frc5010.common.constants.FieldDimensions;
+import org.junit.jupiter.api.Test;
+
+/** Tests choosing scoring poses from the precomputed path lengths. */
+public class ScoringPoseSelectorTest {
+  private static final double MAX_SPEED = 4.0;
+
+  private static ScoringPoseSelector makeSelector() {
+    FieldDimensions field = new FieldDimensions(Meters.of(16), Meters.of(8), true, true);
+    FieldGeometry.configure(field);
+    FieldGeometry.setRedAlliance(false);
+    ScoringPoseSelector selector =
+        new ScoringPoseSelector(field, 0.1).withLimits(MAX_SPEED, 3.0, Math.PI);
+    selector.addObstacle(8, 4, 1.5);
+    selector.addCandidate("Selector West", new Pose2d(6, 4, Rotation2d.kZero), 0.0);
+    selector.addCandidate("Selector East", new Pose2d(10, 4, Rotation2d.kPi), 0.0);
+    selector.addCandidate("Selector South", new Pose2d(8, 2, Rotation2d.kCCW_Pi_2), 0.0);
+    return selector.build();
+  }
+
+  @Test
+  public void testSelectsNearest() {
+    assertEquals(0, makeSelector().select(4, 4, 0, 0, 0));
+    assertEquals(1, makeSelector().select(12, 4, Math.PI, 0, 0));
+  }
+
+  @Test
+  public void testPathsGoAroundObstacles() {
+    ScoringPoseSelector selector = makeSelector();
+    selector.select(8, 6.5, 0, 0, 0);
+    // Straight through the obstacle would be 4.5 meters
+    assertTrue(selector.getCost(2) * MAX_SPEED > 5.0);
+  }
+
+  @Test
+  public void testVelocityAndSwitchMargin() {
+    ScoringPoseSelector selector = makeSelector();
+    // Level with both, moving fast to the east
+    assertEquals(1, selector.select(8, 6.5, 0, 3.0, 0));
+    // Barely better to the west is not enough to switch
+    assertEquals(1, selector.select(7.9, 6.5, Math.PI / 2, 0, 0));
+    assertEquals(0, selector.select(6, 6.5, Math.PI / 2, 0, 0));
+  }
+
+  @Test
+  public void testRedAllianceUsesFlippedPoses() {
+    ScoringPoseSelector selector = makeSelector();
+    FieldGeometry.setRedAlliance(true);
+    assertEquals(0, selector.select(12, 4, Math.PI, 0, 0));
+    assertEquals(10, selector.get().getX(), 1e-9);
+    assertEquals(Math.PI, Math.abs(selector.get().getRotation().getRadians()), 1e-9);
+    FieldGeometry.setRedAlliance(false);
+  }
+}
@@ -0,0 +1,107 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package org.frc5010.common.vision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import org.junit.jupiter.api.Test;
+
+/** Tests the joint multi-camera PnP solve against synthetic corner projections. */
+public class MultiCameraPnPSolverTest {
+  private static final double FOCAL = 600;
+  private static final double CENTER_X = 400;
+  private static final double CENTER_Y = 300;
+
+  private static final Transform3d FRONT_CAMERA =
+      new Transform3d(new Translation3d(0.3, 0.2, 0.5), new Rotation3d(0, -0.3, 0.2));
+  private static final Transform3d BACK_CAMERA =
+      new Transform3d(new Translation3d(-0.3, -0.2, 0.4), new Rotation3d(0, -0.2, Math.PI));
+
+  private static final double[][] CORNERS = {
+    {6, 2.9, 0.9}, {6, 3.1, 0.9}, {6, 3.1, 1.1}, {6, 2.9, 1.1},
+    {0.5, 1.1, 0.7}, {0.5, 0.9, 0.7}, {0.5, 0.9, 0.9}, {0.5, 1.1, 0.9}
+  };
+
+  private static void addProjectedCorners(
+      MultiCameraPnPSolver solver, int camera, Transform3d robotToCamera, Pose3d robotPose) {
+    Pose3d cameraPose = robotPose.transformBy(robotToCamera);
+    for (double[] corner : CORNERS) {
+      Translation3d inCamera =
+          new Translation3d(corner[0], corner[1], corner[2])
+              .minus(cameraPose.getTranslation())
+              .rotateBy(cameraPose.getRotation().unaryMinus());
+      if (inCamera.getX() <= 0) {
+        continue;
+      }
+      double u = FOCAL * -inCamera.getY() / inCamera.getX() + CENTER_X;
+      double v = FOCAL * -inCamera.getZ() / inCamera.getX() + CENTER_Y;
+      solver.addCorner(camera, corner[0], corner[1], corner[2], u, v);
+    }
+  }
+
+  @Test
+  public void testSolvesPoseFromTwoCameras() {
+    MultiCameraPnPSolver solver = new MultiCameraPnPSolver(2, 32);
+    int front = solver.addCamera(FRONT_CAMERA);
+    int back = solver.addCamera(BACK_CAMERA);
+    solver.setIntrinsics(front, FOCAL, FOCAL, CENTER_X, CENTER_Y);
+    solver.setIntrinsics(back, FOCAL, FOCAL, CENTER_X, CENTER_Y);
+
+    Pose3d truth = new Pose3d(3, 2, 0, new Rotation3d(0, 0, 0.4));
+    addProjectedCorners(solver, front, FRONT_CAMERA, truth);
+    addProjectedCorners(solver, back, BACK_CAMERA, truth);
+    assertEquals(8, solver.getCornerCount());
+
+    assertTrue(solver.solve(3.4, 1.7, 0.2, 5_000_000));
+    assertTrue(solver.isConverged());
+    assertEquals(3.0, solver.getX(), 1e-6);
+    assertEquals(2.0, solver.getY(), 1e-6);
+    assertEquals(0.4, solver.getTheta(), 1e-6);
+    assertEquals(0.0, solver.getRmsError(), 1e-3);
+
+    // A frame without a full tag does not report the previous solve's error
+    solver.clearCorners();
+    assertFalse(solver.solve(3.4, 1.7, 0.2, 5_000_000));
+    assertTrue(Double.isNaN(solver.getRmsError()));
+    assertTrue(Double.isNaN(solver.getMeanDepth()));
+  }
+
+  @Test
+  public void testCompensatesMotionBetweenCaptures() {
+    MultiCameraPnPSolver solver = new MultiCameraPnPSolver(2, 32);
+    int front = solver.addCamera(FRONT_CAMERA);
+    int back = solver.addCamera(BACK_CAMERA);
+    solver.setIntrinsics(front, FOCAL, FOCAL, CENTER_X, CENTER_Y);
+    solver.setIntrinsics(back, FOCAL, FOCAL, CENTER_X, CENTER_Y);
+
+    // The front camera captured its frame before the robot moved to the reference pose
+    Pose3d reference = new Pose3d(3, 2, 0, new Rotation3d(0, 0, 0.4));
+    Pose3d earlier = new Pose3d(2.9, 2.05, 0, new Rotation3d(0, 0, 0.35));
+    addProjectedCorners(solver, front, FRONT_CAMERA, earlier);
+    addProjectedCorners(solver, back, BACK_CAMERA, reference);
+    solver.setCameraOffset(front, -0.1, 0.05, -0.05);
+
+    assertTrue(solver.solve(3.2, 1.8, 0.3, 5_000_000));
+    assertEquals(3.0, solver.getX(), 1e-6);
+    assertEquals(2.0, solver.getY(), 1e-6);
+    assertEquals(0.4, solver.getTheta(), 1e-6);
+  }
+
+  @Test
+  public void testRejectsTooFewCorners() {
+    MultiCameraPnPSolver solver = new MultiCameraPnPSolver(1, 32);
+    int front = solver.addCamera(FRONT_CAMERA);
+    assertFalse(solver.addCorner(front, 6, 3, 1, 400, 300));
+    solver.setIntrinsics(front, FOCAL, FOCAL, CENTER_X, CENTER_Y);
+    assertTrue(solver.addCorner(front, 6, 3, 1, 400, 300));
+    assertFalse(solver.solve(3, 2, 0, 5_000_000));
+  }
+}